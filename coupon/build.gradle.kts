@@ -12,7 +12,7 @@ group = "org.example"
 version = "0.0.1-SNAPSHOT"
 
 java {
-    sourceCompatibility = JavaVersion.VERSION_17
+    sourceCompatibility = JavaVersion.VERSION_21
 }
 
 configurations {
@@ -27,6 +27,11 @@ subprojects {
     apply(plugin = "io.spring.dependency-management")
     apply(plugin = "org.springframework.boot")
 
+    // consumer 파이프라인이 virtual thread를 사용하므로 Java 21로 빌드한다.
+    configure<JavaPluginExtension> {
+        sourceCompatibility = JavaVersion.VERSION_21
+    }
+
     repositories {
         mavenCentral()
     }
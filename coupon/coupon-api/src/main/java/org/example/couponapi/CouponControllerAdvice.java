@@ -2,16 +2,20 @@ package org.example.couponapi;
 
 import org.example.couponapi.controller.dto.CouponIssueResponseDto;
 import org.example.couponcore.exception.CouponIssueException;
+import org.example.couponcore.exception.ErrorCode;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 @RestControllerAdvice
 public class CouponControllerAdvice {
 
-    // 쿠폰 발급 예외 처리
+    // 쿠폰 발급 예외 처리 (유저별 rate limit을 넘은 요청은 IP별 limit(CouponIssueRateLimitFilter)과 같이 429로 응답한다)
     @ExceptionHandler(CouponIssueException.class)
-    public CouponIssueResponseDto couponIssueExceptionHandler(CouponIssueException e) {
-        return new CouponIssueResponseDto(false, e.getErrorCode().message);
+    public ResponseEntity<CouponIssueResponseDto> couponIssueExceptionHandler(CouponIssueException e) {
+        HttpStatus status = e.getErrorCode() == ErrorCode.TOO_MANY_COUPON_ISSUE_REQUEST ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.OK;
+        return ResponseEntity.status(status).body(new CouponIssueResponseDto(false, e.getErrorCode().message));
     }
 
 }
@@ -0,0 +1,60 @@
+package org.example.couponapi.component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min sketch (depth x width 카운터)
+ * 키마다 카운터를 만들지 않고 고정된 크기의 카운터에 hash로 나누어 더하므로 요청마다 객체를 만들지 않는다.
+ * - 카운터는 AtomicLongArray로 lock 없이 증가한다.
+ * - 추정값은 행마다 다른 hash로 고른 카운터 중 가장 작은 값이며, 실제 값보다 작지 않다.
+ *   다른 키와 충돌하면 크게 추정할 수 있으므로 width는 한 window에 보는 키 수보다 충분히 크게 잡는다.
+ */
+final class CountMinSketch {
+
+    private static final long[] SEEDS = {0x5851F42D4C957F2DL, 0x14057B7EF767814FL, 0x2545F4914F6CDD1DL, 0x9E3779B97F4A7C15L};
+    private static final long PHI = 0x9E3779B97F4A7C15L;
+
+    private final AtomicLongArray counters;
+    private final int width;
+    private final int mask;
+
+    CountMinSketch(int width) {
+        this.width = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+        this.mask = this.width - 1;
+        this.counters = new AtomicLongArray(SEEDS.length * this.width);
+    }
+
+    /**
+     * 키의 카운터를 1 증가시킨다.
+     *
+     * @param key
+     * @return 증가한 뒤의 추정값
+     */
+    long add(long key) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < SEEDS.length; row++) {
+            min = Math.min(min, counters.incrementAndGet(row * width + index(key, row)));
+        }
+        return min;
+    }
+
+    long estimate(long key) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < SEEDS.length; row++) {
+            min = Math.min(min, counters.get(row * width + index(key, row)));
+        }
+        return min;
+    }
+
+    void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    private int index(long key, int row) {
+        long hash = (key ^ SEEDS[row]) * PHI;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+}
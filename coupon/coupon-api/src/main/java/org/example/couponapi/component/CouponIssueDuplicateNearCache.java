@@ -0,0 +1,174 @@
+package org.example.couponapi.component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.component.CoarseClock;
+import org.example.couponcore.service.CouponCacheService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 이미 발급 요청을 받은 유저 목록 (노드별 쿠폰마다 로컬 long hash set)
+ * 발급 버튼을 반복해서 누르는 유저의 요청을 로컬 캐시, Redis 스크립트 호출 없이 바로 중복으로 거절한다.
+ * - 발급 요청 결과가 성공이나 중복인 유저만 기록한다. (Redis 발급 요청 Set에 있는 유저이므로 이후에도 항상 중복이다)
+ * - 쿠폰마다 max-users-per-coupon 명까지만 기록하고, 최대 max-coupons 개의 쿠폰만 기록한다. (메모리 상한)
+ * - 발급 기간이 끝난 쿠폰은 sweep-interval-ms 마다 제거한다.
+ * - 요청이 몰리는 쿠폰에서 lock 경합이 없도록 userId로 segment를 나누어 segment 마다 동기화한다.
+ * 조회 결과는 coupon.issue.duplicate.near-cache 지표(result=hit, miss)로 기록한다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@EnableScheduling
+@Component
+public class CouponIssueDuplicateNearCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final CouponCacheService couponCacheService;
+    private final CoarseClock coarseClock;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    @Value("${coupon.api.duplicate-cache.enabled:true}")
+    private boolean enabled;
+
+    // 쿠폰마다 기록하는 최대 유저 수 (유저당 16 ~ 32 bytes)
+    @Value("${coupon.api.duplicate-cache.max-users-per-coupon:200000}")
+    private int maxUsersPerCoupon;
+
+    // 기록하는 최대 쿠폰 수
+    @Value("${coupon.api.duplicate-cache.max-coupons:100}")
+    private int maxCoupons;
+
+    private Counter hitCounter;
+    private Counter missCounter;
+
+    @PostConstruct
+    void registerMetrics() {
+        hitCounter = requestCounter("hit");
+        missCounter = requestCounter("miss");
+        Gauge.builder("coupon.issue.duplicate.near-cache.users", this, CouponIssueDuplicateNearCache::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 이 노드에서 이미 발급 요청을 받은 유저인지 확인한다.
+     *
+     * @param couponId
+     * @param userId
+     * @return
+     */
+    public boolean isDuplicated(long couponId, long userId) {
+        if (!enabled) {
+            return false;
+        }
+        Entry entry = entries.get(couponId);
+        boolean hit = entry != null && entry.contains(userId);
+        (hit ? hitCounter : missCounter).increment();
+        return hit;
+    }
+
+    /**
+     * 발급 요청을 받은(성공, 중복) 유저를 기록한다.
+     *
+     * @param couponId
+     * @param userId
+     */
+    public void accept(long couponId, long userId) {
+        if (!enabled) {
+            return;
+        }
+        Entry entry = entries.get(couponId);
+        if (entry == null) {
+            if (entries.size() >= maxCoupons) {
+                return;
+            }
+            LocalDateTime dateIssueEnd = couponCacheService.getCouponLocalCache(couponId).dateIssueEnd();
+            entry = entries.computeIfAbsent(couponId, id -> new Entry(dateIssueEnd, maxUsersPerCoupon));
+        }
+        entry.add(userId);
+    }
+
+    /**
+     * 발급 기간이 끝난 쿠폰의 기록을 제거한다.
+     */
+    @Scheduled(fixedDelayString = "${coupon.api.duplicate-cache.sweep-interval-ms:60000}")
+    public void evictEnded() {
+        LocalDateTime now = coarseClock.now();
+        entries.entrySet().removeIf(entry -> {
+            LocalDateTime dateIssueEnd = entry.getValue().dateIssueEnd;
+            boolean ended = dateIssueEnd != null && dateIssueEnd.isBefore(now);
+            if (ended) {
+                log.info("duplicate near cache evicted. couponId: %s, users: %s".formatted(entry.getKey(), entry.getValue().size()));
+            }
+            return ended;
+        });
+    }
+
+    // 기록된 전체 유저 수
+    int size() {
+        return entries.values().stream().mapToInt(Entry::size).sum();
+    }
+
+    private Counter requestCounter(String result) {
+        return Counter.builder("coupon.issue.duplicate.near-cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // 쿠폰별로 발급 요청을 받은 유저 (segment 마다 동기화)
+    private static class Entry {
+
+        private final LocalDateTime dateIssueEnd;
+        private final LongHashSet[] segments = new LongHashSet[SEGMENTS];
+
+        Entry(LocalDateTime dateIssueEnd, int maxUsers) {
+            this.dateIssueEnd = dateIssueEnd;
+            for (int i = 0; i < SEGMENTS; i++) {
+                segments[i] = new LongHashSet(Math.max(1, maxUsers / SEGMENTS));
+            }
+        }
+
+        boolean contains(long userId) {
+            LongHashSet segment = segment(userId);
+            synchronized (segment) {
+                return segment.contains(userId);
+            }
+        }
+
+        void add(long userId) {
+            LongHashSet segment = segment(userId);
+            synchronized (segment) {
+                segment.add(userId);
+            }
+        }
+
+        int size() {
+            int size = 0;
+            for (LongHashSet segment : segments) {
+                synchronized (segment) {
+                    size += segment.size();
+                }
+            }
+            return size;
+        }
+
+        // 연속된 userId가 segment에 고르게 나뉘도록 한다.
+        private LongHashSet segment(long userId) {
+            return segments[(int) (userId ^ (userId >>> 17)) & (SEGMENTS - 1)];
+        }
+
+    }
+
+}
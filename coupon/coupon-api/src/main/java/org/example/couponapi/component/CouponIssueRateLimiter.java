@@ -0,0 +1,263 @@
+package org.example.couponapi.component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.example.couponcore.util.CouponRedisUtils.getIssueRateLimitKey;
+
+/**
+ * 쿠폰 발급 요청 rate limit (coupon.api.rate-limit.enabled=true)
+ * IP별, 유저별 요청 수를 노드의 striped sliding window 카운터로 정확히 세고, window-ms 동안 limit을 넘은 요청을 거절한다.
+ * - 카운터 배열은 처음에 만들어 재사용하므로 임의의 userId로 요청해도 메모리가 max-keys 이상 늘지 않고, 요청마다 객체를 만들지 않는다. (heavy hitter 집계 제외)
+ * - 추적하는 키 수가 max-keys를 넘어 세지 못한 키는 Count-Min sketch 추정값으로 제한한다. (실제보다 작게 세지 않는다)
+ * - Count-Min sketch는 heavy hitter를 고르는 데 사용한다. global.enabled=true면 sketch 추정값이 report-threshold를 넘은 키의 요청만 모아서
+ *   flush-interval-ms 마다 Redis window 카운터에 한번에 더하고, 전체 노드 합계가 global limit을 넘은 키는 window가 끝날 때까지 거절한다.
+ *   요청마다 Redis를 조회하지 않으며, report-threshold 이하의 요청은 전체 합계에 포함되지 않는다.
+ * 거절한 요청은 coupon.issue.rate-limit.rejected 지표(reason=ip, user, global-ip, global-user)로 기록한다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@EnableScheduling
+@Component
+public class CouponIssueRateLimiter {
+
+    private final RedisRepository redisRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${coupon.api.rate-limit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${coupon.api.rate-limit.window-ms:1000}")
+    private long windowMillis;
+
+    // 정확한 카운터의 stripe 수 (stripe마다 lock을 잡으므로 요청 스레드 수보다 크게 잡는다)
+    @Value("${coupon.api.rate-limit.stripes:64}")
+    private int stripes;
+
+    // 한 window 동안 정확히 세는 최대 키 수
+    @Value("${coupon.api.rate-limit.max-keys:65536}")
+    private int maxKeys;
+
+    // heavy hitter를 고르는 sketch 행마다의 카운터 수
+    @Value("${coupon.api.rate-limit.sketch-width:16384}")
+    private int sketchWidth;
+
+    @Value("${coupon.api.rate-limit.ip-limit:50}")
+    private long ipLimit;
+
+    @Value("${coupon.api.rate-limit.user-limit:10}")
+    private long userLimit;
+
+    @Value("${coupon.api.rate-limit.global.enabled:false}")
+    private boolean globalEnabled;
+
+    @Value("${coupon.api.rate-limit.global.ip-limit:200}")
+    private long globalIpLimit;
+
+    @Value("${coupon.api.rate-limit.global.user-limit:20}")
+    private long globalUserLimit;
+
+    // 노드의 window 요청 수 추정값(sketch)이 이 값을 넘은 키만 전체 노드 카운터에 더한다.
+    @Value("${coupon.api.rate-limit.global.report-threshold:5}")
+    private long reportThreshold;
+
+    private Dimension ip;
+    private Dimension user;
+
+    @PostConstruct
+    void init() {
+        ip = new Dimension("ip", ipLimit, globalIpLimit);
+        user = new Dimension("user", userLimit, globalUserLimit);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * IP의 요청을 허용하는지 확인하고 요청 수를 센다.
+     *
+     * @param remoteAddr
+     * @return 허용한다면 true
+     */
+    public boolean tryAcquireIp(String remoteAddr) {
+        return !enabled || tryAcquire(ip, hash(remoteAddr));
+    }
+
+    /**
+     * 유저의 요청을 허용하는지 확인하고 요청 수를 센다.
+     *
+     * @param userId
+     * @return 허용한다면 true
+     */
+    public boolean tryAcquireUser(long userId) {
+        return !enabled || tryAcquire(user, userId);
+    }
+
+    private boolean tryAcquire(Dimension dimension, long key) {
+        long now = System.currentTimeMillis();
+        if (globalEnabled && dimension.isBlocked(key, now / windowMillis)) {
+            dimension.globalRejected.increment();
+            return false;
+        }
+        long estimate = dimension.sketch.increment(key, now);
+        long count = dimension.counter.increment(key, now);
+        if (count == StripedSlidingWindowCounter.UNTRACKED) {
+            count = estimate;
+        }
+        if (count > dimension.limit) {
+            dimension.rejected.increment();
+            return false;
+        }
+        if (globalEnabled && estimate > reportThreshold) {
+            dimension.pending.computeIfAbsent(key, k -> new LongAdder()).increment();
+        }
+        return true;
+    }
+
+    /**
+     * 모아둔 heavy hitter 요청 수를 Redis window 카운터에 한번에 더하고, global limit을 넘은 키를 거절 목록에 추가한다.
+     */
+    @Scheduled(fixedDelayString = "${coupon.api.rate-limit.global.flush-interval-ms:100}")
+    public void flush() {
+        if (!enabled || !globalEnabled) {
+            return;
+        }
+        long window = System.currentTimeMillis() / windowMillis;
+        for (Dimension dimension : List.of(ip, user)) {
+            try {
+                flush(dimension, window);
+            } catch (Exception e) {
+                log.error("rate limit flush 실패 dimension: %s".formatted(dimension.name), e);
+            }
+        }
+    }
+
+    private void flush(Dimension dimension, long window) {
+        Map<Long, Long> increments = new LinkedHashMap<>();
+        // 지난 flush에서 제거한 카운터에 제거 직전 더해진 요청 수를 모은다.
+        for (Map.Entry<Long, LongAdder> entry : dimension.removed) {
+            increments.merge(entry.getKey(), entry.getValue().sumThenReset(), Long::sum);
+        }
+        dimension.removed.clear();
+        // 카운터는 제거하지 않고 값만 가져오므로 가져오는 중에 더해진 요청 수는 다음 flush에 더해진다.
+        for (Map.Entry<Long, LongAdder> entry : dimension.pending.entrySet()) {
+            long increment = entry.getValue().sumThenReset();
+            if (increment > 0) {
+                increments.merge(entry.getKey(), increment, Long::sum);
+            } else if (dimension.pending.remove(entry.getKey(), entry.getValue())) {
+                // 한 주기 동안 요청이 없던 키는 제거하고, 제거 직전에 더해진 요청 수는 다음 flush에서 모은다.
+                dimension.removed.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+        List<Long> keys = new ArrayList<>();
+        List<String> redisKeys = new ArrayList<>();
+        List<Long> incrementList = new ArrayList<>();
+        increments.forEach((key, increment) -> {
+            if (increment > 0) {
+                keys.add(key);
+                redisKeys.add(getIssueRateLimitKey(dimension.name, key, window));
+                incrementList.add(increment);
+            }
+        });
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<Long> counts = redisRepository.incrementRateLimitWindows(redisKeys, incrementList, windowMillis * 2);
+        List<Long> blocked = new ArrayList<>();
+        for (int i = 0; i < counts.size(); i++) {
+            if (counts.get(i) != null && counts.get(i) > dimension.globalLimit) {
+                blocked.add(keys.get(i));
+            }
+        }
+        if (!blocked.isEmpty()) {
+            dimension.block(blocked, window);
+            log.info("rate limit global block dimension: %s, count: %s".formatted(dimension.name, blocked.size()));
+        }
+    }
+
+    // IP 문자열을 객체를 만들지 않고 long hash로 바꾼다.
+    private static long hash(String value) {
+        long hash = 1125899906842597L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = 31 * hash + value.charAt(i);
+        }
+        return hash;
+    }
+
+    private Counter rejectedCounter(String reason) {
+        return Counter.builder("coupon.issue.rate-limit.rejected")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    // IP, 유저별 요청 수와 거절 목록
+    private class Dimension {
+
+        private final String name;
+        private final long limit;
+        private final long globalLimit;
+        private final StripedSlidingWindowCounter counter;
+        // heavy hitter 추정 (추적하지 못한 키는 이 값으로 제한한다)
+        private final SlidingWindowCounter sketch;
+        private final Counter rejected;
+        private final Counter globalRejected;
+        // 전체 노드 카운터에 더할 heavy hitter 요청 수 (flush할 때 sumThenReset으로 가져온다)
+        private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+        // 요청이 없어서 pending에서 제거한 카운터 (flush 스레드에서만 사용한다)
+        private final List<Map.Entry<Long, LongAdder>> removed = new ArrayList<>();
+        // global limit을 넘은 키 (조회가 대부분이므로 변경할 때만 새로 만들어 교체한다)
+        private volatile Blocked blocked = new Blocked(-1, new LongHashSet(0));
+        // 현재 window에 거절 목록에 추가한 키 (flush 스레드에서만 사용한다)
+        private final List<Long> blockedKeys = new ArrayList<>();
+        private long blockedWindow = -1;
+
+        Dimension(String name, long limit, long globalLimit) {
+            this.name = name;
+            this.limit = limit;
+            this.globalLimit = globalLimit;
+            this.counter = new StripedSlidingWindowCounter(windowMillis, stripes, maxKeys);
+            this.sketch = new SlidingWindowCounter(windowMillis, sketchWidth);
+            this.rejected = rejectedCounter(name);
+            this.globalRejected = rejectedCounter("global-" + name);
+        }
+
+        boolean isBlocked(long key, long window) {
+            Blocked current = blocked;
+            return current.window == window && current.keys.contains(key);
+        }
+
+        // flush 스레드에서만 호출한다. (window가 바뀌면 이전 거절 목록은 버린다)
+        void block(List<Long> keys, long window) {
+            if (blockedWindow != window) {
+                blockedKeys.clear();
+                blockedWindow = window;
+            }
+            blockedKeys.addAll(keys);
+            LongHashSet next = new LongHashSet(Integer.MAX_VALUE);
+            blockedKeys.forEach(next::add);
+            blocked = new Blocked(window, next);
+        }
+
+    }
+
+    // window와 그 window에 거절하는 키 (만든 뒤에는 변경하지 않는다)
+    private record Blocked(long window, LongHashSet keys) {
+    }
+
+}
@@ -0,0 +1,102 @@
+package org.example.couponapi.component;
+
+/**
+ * long 전용 hash set (open addressing, linear probing)
+ * HashSet<Long>처럼 원소마다 Long 객체와 Node를 만들지 않고 long[] 하나에 저장한다.
+ * - 0은 빈 칸 표시로 사용하므로 포함 여부를 따로 저장한다.
+ * - 원소 수가 table 크기의 절반을 넘으면 두 배로 늘린다.
+ * - 원소 수가 maxSize에 도달하면 더 추가하지 않는다. (메모리 상한)
+ * - 원소 삭제는 지원하지 않는다.
+ * thread-safe 하지 않으므로 사용하는 쪽에서 동기화한다.
+ */
+final class LongHashSet {
+
+    private static final long PHI = 0x9E3779B97F4A7C15L;
+    private static final int MIN_CAPACITY = 16;
+
+    private final int maxSize;
+    private long[] table;
+    private int mask;
+    private int size;
+    private boolean containsZero;
+
+    LongHashSet(int maxSize) {
+        this.maxSize = maxSize;
+        this.table = new long[MIN_CAPACITY];
+        this.mask = MIN_CAPACITY - 1;
+    }
+
+    boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        for (int i = index(value); ; i = (i + 1) & mask) {
+            long current = table[i];
+            if (current == value) {
+                return true;
+            }
+            if (current == 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 값을 추가한다.
+     *
+     * @param value
+     * @return 새로 추가되었다면 true (이미 있거나 maxSize에 도달했다면 false)
+     */
+    boolean add(long value) {
+        if (value == 0) {
+            if (containsZero || size >= maxSize) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int i = index(value);
+        for (; table[i] != 0; i = (i + 1) & mask) {
+            if (table[i] == value) {
+                return false;
+            }
+        }
+        if (size >= maxSize) {
+            return false;
+        }
+        table[i] = value;
+        size++;
+        if (size * 2 > table.length) {
+            grow();
+        }
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // 연속된 userId도 table에 고르게 퍼지도록 섞는다.
+    private int index(long value) {
+        long hash = value * PHI;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        mask = table.length - 1;
+        for (long value : old) {
+            if (value == 0) {
+                continue;
+            }
+            int i = index(value);
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = value;
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.example.couponapi.component;
+
+/**
+ * 키별 요청 수 sliding window (현재, 이전 window를 Count-Min sketch 하나씩으로 센다)
+ * 추정값 = 현재 window 요청 수 + 이전 window 요청 수 x (이전 window가 sliding window에 겹치는 비율)
+ * window가 바뀌면 두 window 전의 sketch를 비우고 현재 window로 사용한다.
+ * 비우는 중에 더해진 요청 몇 건은 빠질 수 있다. (제한을 넘지 않는 쪽으로만 틀린다)
+ */
+final class SlidingWindowCounter {
+
+    private final long windowMillis;
+    private final CountMinSketch[] sketches;
+
+    private volatile long window;
+
+    SlidingWindowCounter(long windowMillis, int width) {
+        this.windowMillis = windowMillis;
+        this.sketches = new CountMinSketch[]{new CountMinSketch(width), new CountMinSketch(width)};
+    }
+
+    /**
+     * 키의 요청 수를 1 증가시킨다.
+     *
+     * @param key
+     * @param nowMillis
+     * @return 증가한 뒤의 sliding window 요청 수 추정값
+     */
+    long increment(long key, long nowMillis) {
+        long current = nowMillis / windowMillis;
+        if (current > window) {
+            rotate(current);
+        }
+        long count = sketches[(int) (current & 1)].add(key);
+        long previous = sketches[(int) ((current + 1) & 1)].estimate(key);
+        long overlap = windowMillis - (nowMillis - current * windowMillis);
+        return count + previous * overlap / windowMillis;
+    }
+
+    private synchronized void rotate(long current) {
+        if (current <= window) {
+            return;
+        }
+        // 한 window 이상 요청이 없었다면 이전 window도 비어있어야 한다.
+        if (current - window > 1) {
+            sketches[(int) ((current + 1) & 1)].clear();
+        }
+        sketches[(int) (current & 1)].clear();
+        window = current;
+    }
+
+}
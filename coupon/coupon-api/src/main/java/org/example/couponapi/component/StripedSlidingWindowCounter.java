@@ -0,0 +1,151 @@
+package org.example.couponapi.component;
+
+import java.util.Arrays;
+
+/**
+ * 키별 정확한 요청 수 sliding window (키를 stripe로 나누어 stripe마다 lock을 잡는다)
+ * 추정값 = 현재 window 요청 수 + 이전 window 요청 수 x (이전 window가 sliding window에 겹치는 비율)
+ * - stripe마다 현재, 이전 window의 long 전용 카운터 table을 하나씩 두고, 처음에 만든 배열을 재사용하므로 요청마다 객체를 만들지 않는다.
+ * - 다른 키와 카운터를 나누지 않으므로 다른 키의 요청 때문에 크게 세지 않는다.
+ * - 한 window 동안 stripe에 들어온 키 수가 maxKeys / stripe 수를 넘으면 더 세지 않는다. (메모리 상한)
+ */
+final class StripedSlidingWindowCounter {
+
+    // 추적하는 키 수를 넘어서 세지 못한 요청
+    static final long UNTRACKED = -1;
+
+    private static final long PHI = 0x9E3779B97F4A7C15L;
+    private static final long STRIPE_SEED = 0x5851F42D4C957F2DL;
+
+    private final long windowMillis;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    StripedSlidingWindowCounter(long windowMillis, int stripeCount, int maxKeys) {
+        int count = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.windowMillis = windowMillis;
+        this.stripes = new Stripe[count];
+        this.stripeMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(Math.max(1, maxKeys / count));
+        }
+    }
+
+    /**
+     * 키의 요청 수를 1 증가시킨다.
+     *
+     * @param key
+     * @param nowMillis
+     * @return 증가한 뒤의 sliding window 요청 수 (stripe가 가득 차서 세지 못했다면 UNTRACKED)
+     */
+    long increment(long key, long nowMillis) {
+        Stripe stripe = stripes[stripeIndex(key)];
+        long current = nowMillis / windowMillis;
+        synchronized (stripe) {
+            if (current > stripe.window) {
+                stripe.rotate(current);
+            } else {
+                // 시계가 되돌아간 요청은 stripe의 현재 window로 센다.
+                current = stripe.window;
+            }
+            int count = stripe.tables[(int) (current & 1)].increment(key);
+            if (count < 0) {
+                return UNTRACKED;
+            }
+            long previous = stripe.tables[(int) ((current + 1) & 1)].get(key);
+            long elapsed = Math.max(0, nowMillis - current * windowMillis);
+            long overlap = Math.max(0, windowMillis - elapsed);
+            return count + previous * overlap / windowMillis;
+        }
+    }
+
+    private int stripeIndex(long key) {
+        long hash = (key ^ STRIPE_SEED) * PHI;
+        return (int) (hash >>> 32) & stripeMask;
+    }
+
+    // 현재, 이전 window 카운터 (stripe lock을 잡고 사용한다)
+    private static final class Stripe {
+
+        private final WindowTable[] tables;
+        private long window;
+
+        Stripe(int maxKeys) {
+            this.tables = new WindowTable[]{new WindowTable(maxKeys), new WindowTable(maxKeys)};
+        }
+
+        void rotate(long current) {
+            // 한 window 이상 요청이 없었다면 이전 window도 비어있어야 한다.
+            if (current - window > 1) {
+                tables[(int) ((current + 1) & 1)].clear();
+            }
+            tables[(int) (current & 1)].clear();
+            window = current;
+        }
+
+    }
+
+    /**
+     * long 키별 int 카운터 (open addressing, linear probing)
+     * 카운터가 0인 칸을 빈 칸으로 보고, table 크기를 maxSize의 두 배 이상으로 잡아 빈 칸이 항상 남게 한다.
+     */
+    private static final class WindowTable {
+
+        private final long[] keys;
+        private final int[] counts;
+        private final int mask;
+        private final int maxSize;
+        private int size;
+
+        WindowTable(int maxSize) {
+            int capacity = Integer.highestOneBit(Math.max(2, maxSize * 2 - 1)) << 1;
+            this.keys = new long[capacity];
+            this.counts = new int[capacity];
+            this.mask = capacity - 1;
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * @return 증가한 뒤의 요청 수 (maxSize에 도달해 새 키를 추가하지 못했다면 -1)
+         */
+        int increment(long key) {
+            int i = index(key);
+            for (; counts[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return ++counts[i];
+                }
+            }
+            if (size >= maxSize) {
+                return -1;
+            }
+            keys[i] = key;
+            counts[i] = 1;
+            size++;
+            return 1;
+        }
+
+        int get(long key) {
+            for (int i = index(key); counts[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return counts[i];
+                }
+            }
+            return 0;
+        }
+
+        void clear() {
+            if (size > 0) {
+                Arrays.fill(counts, 0);
+                size = 0;
+            }
+        }
+
+        // 연속된 userId도 table에 고르게 퍼지도록 섞는다.
+        private int index(long key) {
+            long hash = key * PHI;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+
+    }
+
+}
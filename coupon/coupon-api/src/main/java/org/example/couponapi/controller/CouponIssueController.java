@@ -3,6 +3,7 @@ package org.example.couponapi.controller;
 import lombok.RequiredArgsConstructor;
 import org.example.couponapi.controller.dto.CouponIssueRequestDto;
 import org.example.couponapi.controller.dto.CouponIssueResponseDto;
+import org.example.couponapi.controller.dto.CouponWaitingRoomResponseDto;
 import org.example.couponapi.service.CouponIssueRequestService;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -32,8 +33,7 @@ public class CouponIssueController {
      */
     @PostMapping("/v1/issue-async")
     public CouponIssueResponseDto asyncIssueV1(@RequestBody CouponIssueRequestDto requestDto) {
-        couponIssueRequestService.asyncIssueRequestV1(requestDto);
-        return new CouponIssueResponseDto(true, null);
+        return CouponIssueResponseDto.from(couponIssueRequestService.asyncIssueRequestV1(requestDto));
     }
 
     /**
@@ -43,8 +43,18 @@ public class CouponIssueController {
      */
     @PostMapping("/v2/issue-async")
     public CouponIssueResponseDto asyncIssueV2(@RequestBody CouponIssueRequestDto requestDto) {
-        couponIssueRequestService.asyncIssueRequestV2(requestDto);
-        return new CouponIssueResponseDto(true, null);
+        return CouponIssueResponseDto.from(couponIssueRequestService.asyncIssueRequestV2(requestDto));
+    }
+
+    /**
+     * 쿠폰 대기열 입장 (대기열을 사용하는 쿠폰은 받은 입장 토큰을 /v2/issue-async 요청에 함께 보낸다)
+     * 이미 입장했다면 처음 순번을 유지하므로 입장 토큰을 받을 때까지 반복 요청하여 순번을 확인한다.
+     * @param requestDto
+     * @return
+     */
+    @PostMapping("/v2/waiting-room")
+    public CouponWaitingRoomResponseDto enterWaitingRoom(@RequestBody CouponIssueRequestDto requestDto) {
+        return CouponWaitingRoomResponseDto.from(couponIssueRequestService.enterWaitingRoom(requestDto));
     }
 
 }
@@ -2,6 +2,8 @@ package org.example.couponapi.controller.dto;
 
 public record CouponIssueRequestDto(
         long userId,
-        long couponId
+        long couponId,
+        // 대기열 입장 토큰 (대기열을 사용하는 쿠폰만 필요하다)
+        String admissionToken
 ) {
 }
@@ -1,10 +1,20 @@
 package org.example.couponapi.controller.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import org.example.couponcore.model.CouponIssueOutcome;
 
 @JsonInclude(value = JsonInclude.Include.NON_NULL)
 public record CouponIssueResponseDto(
         boolean isSuccess,
         String comment
 ) {
+
+    // 발급 요청 결과를 응답으로 변환 (거절 사유는 예외 응답과 같은 메시지를 사용한다)
+    public static CouponIssueResponseDto from(CouponIssueOutcome outcome) {
+        if (outcome.isSuccess()) {
+            return new CouponIssueResponseDto(true, null);
+        }
+        return new CouponIssueResponseDto(false, outcome.errorCode.message);
+    }
+
 }
@@ -0,0 +1,19 @@
+package org.example.couponapi.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.example.couponcore.model.CouponWaitingRoomTicket;
+
+@JsonInclude(value = JsonInclude.Include.NON_NULL)
+public record CouponWaitingRoomResponseDto(
+        boolean admitted,
+        // 대기 순번 (입장했다면 null)
+        Long position,
+        // 발급 요청에 함께 보내는 입장 토큰
+        String admissionToken
+) {
+
+    public static CouponWaitingRoomResponseDto from(CouponWaitingRoomTicket ticket) {
+        return new CouponWaitingRoomResponseDto(ticket.admitted(), ticket.admitted() ? null : ticket.position(), ticket.admissionToken());
+    }
+
+}
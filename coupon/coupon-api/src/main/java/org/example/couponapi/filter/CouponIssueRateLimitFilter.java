@@ -0,0 +1,66 @@
+package org.example.couponapi.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.example.couponapi.component.CouponIssueRateLimiter;
+import org.example.couponapi.controller.dto.CouponIssueResponseDto;
+import org.example.couponcore.exception.ErrorCode;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * 쿠폰 발급 요청의 IP별 rate limit filter (/v1/issue, /v1/issue-async, /v2/issue-async)
+ * limit을 넘은 요청은 controller, Redis까지 보내지 않고 429로 응답한다.
+ * 유저별 limit은 요청 body를 읽은 뒤 CouponIssueRequestService에서 확인한다.
+ * proxy 뒤에서 실행한다면 server.forward-headers-strategy 설정으로 remoteAddr가 클라이언트 IP가 되도록 한다.
+ */
+@RequiredArgsConstructor
+@Component
+public class CouponIssueRateLimitFilter extends OncePerRequestFilter {
+
+    private static final Set<String> ISSUE_PATHS = Set.of("/v1/issue", "/v1/issue-async", "/v2/issue-async");
+
+    private final CouponIssueRateLimiter couponIssueRateLimiter;
+    private final ObjectMapper objectMapper;
+
+    // 거절 응답 body (요청마다 만들지 않는다)
+    private byte[] rejectedBody;
+
+    @Override
+    protected void initFilterBean() throws ServletException {
+        try {
+            rejectedBody = objectMapper.writeValueAsBytes(
+                    new CouponIssueResponseDto(false, ErrorCode.TOO_MANY_COUPON_ISSUE_REQUEST.message));
+        } catch (IOException e) {
+            throw new ServletException(e);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !couponIssueRateLimiter.isEnabled() || !ISSUE_PATHS.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (couponIssueRateLimiter.tryAcquireIp(request.getRemoteAddr())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(rejectedBody.length);
+        response.getOutputStream().write(rejectedBody);
+    }
+
+}
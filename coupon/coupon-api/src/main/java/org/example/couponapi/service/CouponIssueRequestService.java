@@ -2,11 +2,18 @@ package org.example.couponapi.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.couponapi.component.CouponIssueDuplicateNearCache;
+import org.example.couponapi.component.CouponIssueRateLimiter;
 import org.example.couponapi.controller.dto.CouponIssueRequestDto;
 import org.example.couponcore.component.DistributeLockExecutor;
+import org.example.couponcore.exception.CouponIssueException;
+import org.example.couponcore.exception.ErrorCode;
+import org.example.couponcore.model.CouponIssueOutcome;
+import org.example.couponcore.model.CouponWaitingRoomTicket;
 import org.example.couponcore.service.AsyncCouponIssueServiceV1;
 import org.example.couponcore.service.AsyncCouponIssueServiceV2;
 import org.example.couponcore.service.CouponIssueService;
+import org.example.couponcore.service.CouponWaitingRoomService;
 import org.springframework.stereotype.Service;
 
 @Slf4j
@@ -18,8 +25,22 @@ public class CouponIssueRequestService {
     private final AsyncCouponIssueServiceV1 asyncCouponIssueServiceV1;
     private final DistributeLockExecutor distributeLockExecutor;
     private final AsyncCouponIssueServiceV2 asyncCouponIssueServiceV2;
+    private final CouponIssueDuplicateNearCache couponIssueDuplicateNearCache;
+    private final CouponIssueRateLimiter couponIssueRateLimiter;
+    private final CouponWaitingRoomService couponWaitingRoomService;
 
     public void issueRequestV1(CouponIssueRequestDto requestDto) {
+        checkRateLimit(requestDto);
+        // 입장 토큰을 확인하지 않으므로 대기열을 사용하는 쿠폰은 받지 않는다. (/v2/issue-async로 요청한다)
+        if (couponWaitingRoomService.isWaitingRoom(requestDto.couponId())) {
+            throw new CouponIssueException(ErrorCode.NOT_ADMITTED_COUPON_ISSUE,
+                    "대기열을 사용하는 쿠폰입니다. couponId: %s, userId: %s".formatted(requestDto.couponId(), requestDto.userId()));
+        }
+        // 빌려준 수량과 따로 세면 발급 수량을 넘을 수 있으므로 quota lease를 사용하는 쿠폰은 받지 않는다. (/v2/issue-async로 요청한다)
+        if (asyncCouponIssueServiceV2.isLeased(requestDto.couponId())) {
+            throw new CouponIssueException(ErrorCode.LEASED_COUPON_ISSUE,
+                    "quota lease를 사용하는 쿠폰입니다. couponId: %s, userId: %s".formatted(requestDto.couponId(), requestDto.userId()));
+        }
         // 분산락 처리
 //        distributeLockExecutor.execute("lock_" + requestDto.couponId(), 10000, 10000, () -> {
             couponIssueService.issue(requestDto.couponId(), requestDto.userId());
@@ -30,17 +51,48 @@ public class CouponIssueRequestService {
     /**
      * 비동기로 쿠폰 발급 요청 v1 (redis)
      * @param requestDto
+     * @return 발급 요청 결과
      */
-    public void asyncIssueRequestV1(CouponIssueRequestDto requestDto) {
-        asyncCouponIssueServiceV1.issue(requestDto.couponId(), requestDto.userId());
+    public CouponIssueOutcome asyncIssueRequestV1(CouponIssueRequestDto requestDto) {
+        checkRateLimit(requestDto);
+        return asyncCouponIssueServiceV1.tryIssue(requestDto.couponId(), requestDto.userId());
     }
 
     /**
      * 비동기로 쿠폰 발급 요청 v2 (redis script)
+     * 이 노드에서 이미 발급 요청을 받은 유저는 Redis 조회 없이 중복으로 거절한다.
      * @param requestDto
+     * @return 발급 요청 결과
      */
-    public void asyncIssueRequestV2(CouponIssueRequestDto requestDto) {
-        asyncCouponIssueServiceV2.issue(requestDto.couponId(), requestDto.userId());
+    public CouponIssueOutcome asyncIssueRequestV2(CouponIssueRequestDto requestDto) {
+        checkRateLimit(requestDto);
+        long couponId = requestDto.couponId();
+        long userId = requestDto.userId();
+        if (couponIssueDuplicateNearCache.isDuplicated(couponId, userId)) {
+            return CouponIssueOutcome.DUPLICATED;
+        }
+        CouponIssueOutcome outcome = asyncCouponIssueServiceV2.tryIssue(couponId, userId, requestDto.admissionToken());
+        if (outcome == CouponIssueOutcome.SUCCESS || outcome == CouponIssueOutcome.DUPLICATED) {
+            couponIssueDuplicateNearCache.accept(couponId, userId);
+        }
+        return outcome;
+    }
+
+    /**
+     * 쿠폰 대기열 입장 (입장 토큰을 받을 때까지 반복 요청하여 순번을 확인한다)
+     * @param requestDto
+     * @return 대기 순번이나 입장 토큰
+     */
+    public CouponWaitingRoomTicket enterWaitingRoom(CouponIssueRequestDto requestDto) {
+        return couponWaitingRoomService.enter(requestDto.couponId(), requestDto.userId());
+    }
+
+    // 유저별 rate limit을 넘은 요청은 발급 요청 전에 거절한다. (IP별 limit은 CouponIssueRateLimitFilter에서 확인한다)
+    private void checkRateLimit(CouponIssueRequestDto requestDto) {
+        if (!couponIssueRateLimiter.tryAcquireUser(requestDto.userId())) {
+            throw new CouponIssueException(ErrorCode.TOO_MANY_COUPON_ISSUE_REQUEST,
+                    "couponId: %s, userId: %s".formatted(requestDto.couponId(), requestDto.userId()));
+        }
     }
 
 }
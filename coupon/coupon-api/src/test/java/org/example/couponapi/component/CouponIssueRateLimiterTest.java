@@ -0,0 +1,181 @@
+package org.example.couponapi.component;
+
+import org.example.couponcore.exception.ErrorCode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Collection;
+
+import static org.example.couponcore.util.CouponRedisUtils.getIssueRateLimitKey;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 예약된 flush는 테스트 중에 실행되지 않도록 주기를 길게 잡고, flush()를 직접 호출한다.
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.config.name=application-core",
+        "coupon.api.rate-limit.enabled=true",
+        "coupon.api.rate-limit.window-ms=60000",
+        "coupon.api.rate-limit.ip-limit=10",
+        "coupon.api.rate-limit.user-limit=5",
+        "coupon.api.rate-limit.global.enabled=true",
+        "coupon.api.rate-limit.global.ip-limit=1000",
+        "coupon.api.rate-limit.global.user-limit=2",
+        "coupon.api.rate-limit.global.report-threshold=1",
+        "coupon.api.rate-limit.global.flush-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@SpringBootTest
+class CouponIssueRateLimiterTest {
+
+    private static final long WINDOW_MILLIS = 60000;
+
+    @Autowired
+    CouponIssueRateLimiter sut;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    RedisTemplate<String, String> redisTemplate;
+
+    @BeforeEach
+    void clear() {
+        Collection<String> redisKeys = redisTemplate.keys("*");
+        assert redisKeys != null;
+        redisTemplate.delete(redisKeys);
+    }
+
+    @DisplayName("유저의 요청이 노드의 user limit을 넘으면 거절하고, 다른 유저의 요청은 허용한다.")
+    @Test
+    void tryAcquireUser_1() {
+        //given
+        long userId = 1L;
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertTrue(sut.tryAcquireUser(userId));
+        }
+
+        //when
+        boolean rejected = sut.tryAcquireUser(userId);
+        boolean other = sut.tryAcquireUser(2L);
+
+        //then
+        Assertions.assertFalse(rejected);
+        Assertions.assertTrue(other);
+    }
+
+    @DisplayName("IP의 요청이 노드의 ip limit을 넘으면 거절한다.")
+    @Test
+    void tryAcquireIp_1() {
+        //given
+        String remoteAddr = "10.0.0.1";
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertTrue(sut.tryAcquireIp(remoteAddr));
+        }
+
+        //when
+        boolean rejected = sut.tryAcquireIp(remoteAddr);
+
+        //then
+        Assertions.assertFalse(rejected);
+    }
+
+    @DisplayName("flush하면 report-threshold를 넘은 요청 수를 Redis window 카운터에 빠짐없이 더한다.")
+    @Test
+    void flush_1() {
+        //given
+        long userId = 3L;
+        // 요청 수 2, 3, 4는 report-threshold(1)를 넘으므로 전체 노드 카운터에 더한다.
+        for (int i = 0; i < 4; i++) {
+            sut.tryAcquireUser(userId);
+        }
+        long window = System.currentTimeMillis() / WINDOW_MILLIS;
+
+        //when
+        sut.flush();
+        sut.flush();
+
+        //then
+        String count = redisTemplate.opsForValue().get(getIssueRateLimitKey("user", userId, window));
+        Assertions.assertEquals("3", count);
+    }
+
+    @DisplayName("flush한 전체 노드 요청 수가 global limit을 넘은 유저는 노드 limit 안의 요청이라도 거절한다.")
+    @Test
+    void flush_2() {
+        //given
+        long userId = 4L;
+        for (int i = 0; i < 4; i++) {
+            sut.tryAcquireUser(userId);
+        }
+
+        //when
+        sut.flush();
+
+        //then
+        // 노드 요청 수는 5번째로 user limit(5) 안이지만 전체 노드 요청 수(3)가 global limit(2)을 넘었다.
+        Assertions.assertFalse(sut.tryAcquireUser(userId));
+        Assertions.assertTrue(sut.tryAcquireUser(5L));
+    }
+
+    @DisplayName("IP의 요청이 ip limit을 넘으면 filter에서 429로 응답한다.")
+    @Test
+    void filter_1() throws Exception {
+        //given
+        String remoteAddr = "10.0.0.2";
+        for (int userId = 1; userId <= 10; userId++) {
+            issueRequest(remoteAddr, 100 + userId).andExpect(status().isOk());
+        }
+
+        //when
+        ResultActions result = issueRequest(remoteAddr, 111);
+
+        //then
+        result.andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.isSuccess").value(false))
+                .andExpect(jsonPath("$.comment").value(ErrorCode.TOO_MANY_COUPON_ISSUE_REQUEST.message));
+    }
+
+    @DisplayName("유저의 요청이 user limit을 넘으면 429로 응답한다.")
+    @Test
+    void advice_1() throws Exception {
+        //given
+        String remoteAddr = "10.0.0.3";
+        long userId = 200L;
+        for (int i = 0; i < 5; i++) {
+            issueRequest(remoteAddr, userId).andExpect(status().isOk());
+        }
+
+        //when
+        ResultActions result = issueRequest(remoteAddr, userId);
+
+        //then
+        result.andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.isSuccess").value(false))
+                .andExpect(jsonPath("$.comment").value(ErrorCode.TOO_MANY_COUPON_ISSUE_REQUEST.message));
+    }
+
+    // 없는 쿠폰으로 요청해서 rate limit을 통과한 요청은 200 {false, 쿠폰이 존재하지 않습니다.}로 응답한다.
+    private ResultActions issueRequest(String remoteAddr, long userId) throws Exception {
+        return mockMvc.perform(post("/v1/issue")
+                .with(request -> {
+                    request.setRemoteAddr(remoteAddr);
+                    return request;
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userId\": %s, \"couponId\": 999999}".formatted(userId)));
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.example.couponapi.component;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+class LongHashSetTest {
+
+    @DisplayName("table을 늘려도 추가한 값(0, 음수 포함)을 모두 찾고, 추가하지 않은 값은 찾지 않는다.")
+    @Test
+    void add_1() {
+        //given
+        LongHashSet sut = new LongHashSet(Integer.MAX_VALUE);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(42);
+
+        //when
+        sut.add(0L);
+        expected.add(0L);
+        for (int i = 0; i < 10_000; i++) {
+            long value = i % 2 == 0 ? i : random.nextLong();
+            Assertions.assertEquals(expected.add(value), sut.add(value));
+        }
+
+        //then
+        Assertions.assertEquals(expected.size(), sut.size());
+        expected.forEach(value -> Assertions.assertTrue(sut.contains(value)));
+        Assertions.assertFalse(sut.contains(-1L));
+        Assertions.assertFalse(sut.contains(10_001L));
+    }
+
+    @DisplayName("maxSize에 도달하면 더 추가하지 않는다.")
+    @Test
+    void add_2() {
+        //given
+        LongHashSet sut = new LongHashSet(3);
+
+        //when
+        sut.add(1L);
+        sut.add(2L);
+        sut.add(3L);
+        boolean added = sut.add(4L);
+
+        //then
+        Assertions.assertFalse(added);
+        Assertions.assertEquals(3, sut.size());
+        Assertions.assertFalse(sut.contains(4L));
+        Assertions.assertTrue(sut.contains(3L));
+    }
+
+}
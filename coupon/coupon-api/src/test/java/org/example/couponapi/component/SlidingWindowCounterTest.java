@@ -0,0 +1,46 @@
+package org.example.couponapi.component;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SlidingWindowCounterTest {
+
+    @DisplayName("키별로 window 안의 요청 수를 세고, 다른 키의 요청 수와 섞이지 않는다.")
+    @Test
+    void increment_1() {
+        //given
+        SlidingWindowCounter sut = new SlidingWindowCounter(1000, 1024);
+        long now = 10_000;
+
+        //when
+        long count = 0;
+        for (int i = 0; i < 5; i++) {
+            count = sut.increment(1L, now);
+        }
+        long other = sut.increment(2L, now);
+
+        //then
+        Assertions.assertEquals(5, count);
+        Assertions.assertEquals(1, other);
+    }
+
+    @DisplayName("이전 window의 요청 수는 sliding window에 겹치는 비율만큼만 더하고, 두 window가 지나면 버린다.")
+    @Test
+    void increment_2() {
+        //given
+        SlidingWindowCounter sut = new SlidingWindowCounter(1000, 1024);
+        for (int i = 0; i < 10; i++) {
+            sut.increment(1L, 10_000);
+        }
+
+        //when
+        long halfOverlap = sut.increment(1L, 11_500);
+        long expired = sut.increment(1L, 13_000);
+
+        //then
+        Assertions.assertEquals(1 + 10 / 2, halfOverlap);
+        Assertions.assertEquals(1, expired);
+    }
+
+}
@@ -0,0 +1,66 @@
+package org.example.couponapi.component;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class StripedSlidingWindowCounterTest {
+
+    @DisplayName("많은 키가 요청해도 키별 요청 수를 정확히 세고, 다른 키의 요청 수와 섞이지 않는다.")
+    @Test
+    void increment_1() {
+        //given
+        StripedSlidingWindowCounter sut = new StripedSlidingWindowCounter(1000, 4, 100_000);
+        long now = 10_000;
+        for (long key = 1; key <= 50_000; key++) {
+            sut.increment(key, now);
+            sut.increment(key, now);
+        }
+
+        //when
+        long count = sut.increment(1L, now);
+        long other = sut.increment(100_001L, now);
+
+        //then
+        Assertions.assertEquals(3, count);
+        Assertions.assertEquals(1, other);
+    }
+
+    @DisplayName("이전 window의 요청 수는 sliding window에 겹치는 비율만큼만 더하고, 두 window가 지나면 버린다.")
+    @Test
+    void increment_2() {
+        //given
+        StripedSlidingWindowCounter sut = new StripedSlidingWindowCounter(1000, 4, 1024);
+        for (int i = 0; i < 10; i++) {
+            sut.increment(1L, 10_000);
+        }
+
+        //when
+        long halfOverlap = sut.increment(1L, 11_500);
+        long expired = sut.increment(1L, 13_000);
+
+        //then
+        Assertions.assertEquals(1 + 10 / 2, halfOverlap);
+        Assertions.assertEquals(1, expired);
+    }
+
+    @DisplayName("stripe가 추적하는 키 수를 넘으면 새 키는 세지 않고, 이미 세는 키는 계속 센다.")
+    @Test
+    void increment_3() {
+        //given
+        StripedSlidingWindowCounter sut = new StripedSlidingWindowCounter(1000, 1, 2);
+        long now = 10_000;
+        for (long key = 1; key <= 2; key++) {
+            sut.increment(key, now);
+        }
+
+        //when
+        long untracked = sut.increment(3L, now);
+        long tracked = sut.increment(1L, now);
+
+        //then
+        Assertions.assertEquals(StripedSlidingWindowCounter.UNTRACKED, untracked);
+        Assertions.assertEquals(2, tracked);
+    }
+
+}
@@ -2,10 +2,26 @@ dependencies {
     implementation(project(":coupon-core"))
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter")
+    // 파이프라인 단계별 지표 (/actuator/metrics)
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
-tasks.withType<Test> {
-    useJUnitPlatform()
+tasks.named<Test>("test") {
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
+}
+
+// 처리량 비교용 벤치마크 테스트 (./gradlew :coupon-consumer:benchmark)
+tasks.register<Test>("benchmark") {
+    description = "Runs benchmark tests."
+    group = "verification"
+    val testSourceSet = the<SourceSetContainer>()["test"]
+    testClassesDirs = testSourceSet.output.classesDirs
+    classpath = testSourceSet.runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
 }
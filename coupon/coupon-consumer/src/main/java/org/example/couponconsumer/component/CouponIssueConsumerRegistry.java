@@ -0,0 +1,130 @@
+package org.example.couponconsumer.component;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.example.couponcore.util.CouponRedisUtils.*;
+
+/**
+ * consumer별 처리 중 큐를 관리한다. (coupon.consumer.mode=reliable, pipeline)
+ * consumer를 등록하고 heartbeat를 갱신하며, heartbeat가 끊긴 consumer의 처리 중 요청을 대기열로 되돌린다. (reaper)
+ */
+@Slf4j
+@RequiredArgsConstructor
+@EnableScheduling
+@ConditionalOnExpression("'${coupon.issue.transport:list}' == 'list' and " +
+        "('${coupon.consumer.mode:polling}' == 'reliable' or '${coupon.consumer.mode:polling}' == 'pipeline')")
+@Component
+public class CouponIssueConsumerRegistry {
+
+    private final RedisRepository redisRepository;
+
+    private final String issueRequestQueueKey = getIssueRequestQueueKey();
+
+    // consumer 식별자 (설정하지 않으면 실행할 때마다 새로 만든다)
+    @Getter
+    @Value("${coupon.consumer.id:#{T(java.util.UUID).randomUUID().toString()}}")
+    private String consumerId;
+
+    // heartbeat가 이 시간 동안 갱신되지 않으면 죽은 consumer로 판단한다.
+    @Value("${coupon.consumer.reliable.heartbeat-ttl-ms:15000}")
+    private long heartbeatTtlMillis;
+
+    /**
+     * consumer를 등록한다.
+     * 같은 consumerId로 재시작한 경우 이전에 처리 중이던 요청을 대기열로 되돌린다.
+     */
+    public void register() {
+        redisRepository.sAdd(getIssueConsumersKey(), consumerId);
+        heartbeat();
+        requeueProcessingRequests(consumerId);
+    }
+
+    /**
+     * 이 consumer의 처리 중 큐
+     *
+     * @return
+     */
+    public String getProcessingQueueKey() {
+        return getIssueRequestProcessingQueueKey(consumerId);
+    }
+
+    /**
+     * 주기적으로 heartbeat를 갱신한다.
+     */
+    @Scheduled(fixedDelayString = "${coupon.consumer.reliable.heartbeat-interval-ms:5000}")
+    public void heartbeat() {
+        redisRepository.setEx(getIssueConsumerHeartbeatKey(consumerId), consumerId, Duration.ofMillis(heartbeatTtlMillis));
+    }
+
+    /**
+     * 주기적으로 heartbeat가 끊긴 consumer를 찾아 처리 중이던 요청을 대기열로 되돌린다. (reaper)
+     */
+    @Scheduled(fixedDelayString = "${coupon.consumer.reliable.reaper-interval-ms:5000}")
+    public void requeueDeadConsumers() {
+        Set<String> consumerIds = redisRepository.sMembers(getIssueConsumersKey());
+        for (String id : consumerIds) {
+            if (id.equals(consumerId) || Boolean.TRUE.equals(redisRepository.hasKey(getIssueConsumerHeartbeatKey(id)))) {
+                continue;
+            }
+            int count = requeueProcessingRequests(id);
+            redisRepository.sRem(getIssueConsumersKey(), id);
+            log.warn("dead consumer requeue. consumerId: %s, count: %s".formatted(id, count));
+        }
+    }
+
+    /**
+     * consumer의 처리 중 큐에 남아있는 요청을 원래 순서대로 대기열 맨 앞으로 되돌린다.
+     *
+     * @param id
+     * @return 되돌린 요청 수
+     */
+    public int requeueProcessingRequests(String id) {
+        String processingQueueKey = getIssueRequestProcessingQueueKey(id);
+        int count = 0;
+        while (redisRepository.lMoveBack(processingQueueKey, issueRequestQueueKey) != null) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 이 consumer의 처리 중 큐에서 요청 하나를 대기열 맨 앞으로 되돌린다.
+     *
+     * @param value
+     */
+    public void requeueProcessingRequest(String value) {
+        redisRepository.requeueProcessingRequest(getProcessingQueueKey(), issueRequestQueueKey, value);
+    }
+
+    /**
+     * 이 consumer의 처리 중 큐에서 요청들을 원래 순서대로 대기열 맨 앞으로 한번에 되돌린다.
+     *
+     * @param values
+     */
+    public void requeueProcessingRequests(List<String> values) {
+        redisRepository.requeueProcessingRequests(getProcessingQueueKey(), issueRequestQueueKey, values);
+    }
+
+    /**
+     * 이 consumer의 처리 중 큐에서 요청 하나를 dead letter 큐로 옮긴다.
+     *
+     * @param value
+     */
+    public void moveProcessingRequestToDeadLetter(String value) {
+        redisRepository.rPush(getIssueRequestDeadLetterQueueKey(), value);
+        redisRepository.lRem(getProcessingQueueKey(), value);
+    }
+
+}
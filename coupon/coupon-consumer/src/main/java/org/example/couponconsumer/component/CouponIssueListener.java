@@ -4,28 +4,53 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.exception.CouponIssueException;
 import org.example.couponcore.repository.redis.RedisRepository;
 import org.example.couponcore.repository.redis.dto.CouponIssueRequest;
 import org.example.couponcore.service.CouponIssueService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.example.couponcore.exception.ErrorCode.DUPLICATE_COUPON_ISSUE;
+import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestDeadLetterQueueKey;
 import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestQueueKey;
 
 @Slf4j
 @RequiredArgsConstructor
 @EnableScheduling
+@ConditionalOnExpression("'${coupon.issue.transport:list}' == 'list' and '${coupon.consumer.mode:polling}' == 'polling'")
 @Component
 public class CouponIssueListener {
 
     private final RedisRepository redisRepository;
     // 쿠폰 발급 트랜잭션을 처리하는 서비스
     private final CouponIssueService couponIssueService;
+    // 일괄 발급에 실패한 요청을 재시도할지 판단한다.
+    private final CouponIssueRetryPolicy retryPolicy;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final String IssueRequestQueueKey = getIssueRequestQueueKey();
 
+    // 일괄 발급 모드 설정
+    @Value("${coupon.consumer.batch.enabled:false}")
+    private boolean batchEnabled;
+
+    // 한번에 가져오는 최대 발급 요청 수
+    @Value("${coupon.consumer.batch.size:500}")
+    private int batchSize;
+
+    // 배치가 가득 차지 않았을 때 추가 요청을 기다리는 최대 시간
+    @Value("${coupon.consumer.batch.max-linger-ms:50}")
+    private long batchMaxLingerMillis;
+
     /**
      * 주기적으로 queue에서 쿠폰 발급 대상을 확인하고 발급한다.
      *
@@ -34,6 +59,10 @@ public class CouponIssueListener {
     @Scheduled(fixedDelay = 1000L)
     public void issue() throws JsonProcessingException {
         log.info("listen ...");
+        if (batchEnabled) {
+            issueBatch();
+            return;
+        }
         while (existCouponIssueTarget()) {
             CouponIssueRequest target = getIssueTarget();
             log.info("발급 시작 target: %s".formatted(target));
@@ -43,6 +72,78 @@ public class CouponIssueListener {
         }
     }
 
+    /**
+     * queue에서 최대 batchSize 만큼 쿠폰 발급 대상을 한번에 가져와서 쿠폰별로 묶어 발급한다.
+     * 쿠폰별로 하나의 트랜잭션(row lock 1번, bulk insert 1번, 수량 증가 1번)으로 처리하고
+     * 모든 그룹을 처리한 뒤에 queue에서 제거한다.
+     * 한 쿠폰의 실패가 다른 쿠폰의 발급과 queue 제거를 막지 않는다.
+     * - 해석할 수 없는 요청과 발급 규칙을 위반한 요청은 dead letter 큐로 옮긴다. (이미 발급된 요청은 발급된 것으로 본다)
+     * - 재시도할 수 있는 실패는 queue 끝에 다시 넣고 다음 주기에 재시도하며, 재시도 횟수를 넘으면 dead letter 큐로 옮긴다.
+     *
+     * @throws JsonProcessingException
+     */
+    public void issueBatch() throws JsonProcessingException {
+        List<String> targets;
+        while (!(targets = getIssueTargets()).isEmpty()) {
+            Map<Long, List<Long>> targetsByCoupon = groupByCoupon(targets);
+            log.info("일괄 발급 시작 size: %s, coupons: %s".formatted(targets.size(), targetsByCoupon.keySet()));
+            List<String> retryTargets = new ArrayList<>();
+            for (Map.Entry<Long, List<Long>> entry : targetsByCoupon.entrySet()) {
+                issueAll(entry.getKey(), entry.getValue(), retryTargets);
+            }
+            // 재시도할 요청을 먼저 다시 넣고 처리한 요청을 제거한다. (중간에 실패하면 요청을 잃지 않고 한번 더 발급 시도한다)
+            for (String retryTarget : retryTargets) {
+                redisRepository.rPush(IssueRequestQueueKey, retryTarget);
+            }
+            removeIssueTargets(targets.size());
+            log.info("일괄 발급 완료 size: %s, retry: %s".formatted(targets.size(), retryTargets.size()));
+            if (!retryTargets.isEmpty()) {
+                // 다음 주기까지 기다렸다가 재시도한다.
+                return;
+            }
+        }
+    }
+
+    // 쿠폰의 요청을 한번에 발급한다. 발급 규칙을 위반한 요청이 있다면 요청마다 발급하여 그 요청만 dead letter 큐로 옮긴다.
+    private void issueAll(long couponId, List<Long> userIds, List<String> retryTargets) throws JsonProcessingException {
+        try {
+            couponIssueService.issueAll(couponId, userIds);
+            return;
+        } catch (Exception e) {
+            if (retryPolicy.isRetryable(e)) {
+                log.error("일괄 발급 실패. 재시도한다. couponId: %s, size: %s".formatted(couponId, userIds.size()), e);
+                for (Long userId : userIds) {
+                    retry(couponId, userId, e, retryTargets);
+                }
+                return;
+            }
+        }
+        for (Long userId : userIds) {
+            try {
+                couponIssueService.issue(couponId, userId);
+            } catch (CouponIssueException e) {
+                if (e.getErrorCode() == DUPLICATE_COUPON_ISSUE) {
+                    log.info("이미 발급된 요청 couponId: %s, userId: %s".formatted(couponId, userId));
+                } else {
+                    retry(couponId, userId, e, retryTargets);
+                }
+            } catch (Exception e) {
+                retry(couponId, userId, e, retryTargets);
+            }
+        }
+    }
+
+    // 재시도할 수 있다면 재시도 목록에 넣고, 아니라면 dead letter 큐로 옮긴다.
+    private void retry(long couponId, long userId, Exception e, List<String> retryTargets) throws JsonProcessingException {
+        String value = objectMapper.writeValueAsString(new CouponIssueRequest(couponId, userId));
+        if (retryPolicy.retry(value, e)) {
+            retryTargets.add(value);
+            return;
+        }
+        log.error("발급 실패. dead letter 큐로 옮긴다. target: %s".formatted(value), e);
+        redisRepository.rPush(getIssueRequestDeadLetterQueueKey(), value);
+    }
+
     /**
      * queue에서 쿠폰 발급 대상이 있는지 확인
      *
@@ -72,4 +173,56 @@ public class CouponIssueListener {
         redisRepository.lPop(IssueRequestQueueKey);
     }
 
+    /**
+     * queue에서 최대 batchSize 만큼 쿠폰 발급 대상을 가져온다. (redis 호출 1번)
+     * 배치가 가득 차지 않았다면 max linger 만큼 기다렸다가 한번 더 가져온다.
+     *
+     * @return
+     */
+    private List<String> getIssueTargets() {
+        List<String> targets = redisRepository.lRange(IssueRequestQueueKey, 0, batchSize - 1);
+        if (targets.isEmpty() || targets.size() >= batchSize || batchMaxLingerMillis <= 0) {
+            return targets;
+        }
+        try {
+            Thread.sleep(batchMaxLingerMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return targets;
+        }
+        return redisRepository.lRange(IssueRequestQueueKey, 0, batchSize - 1);
+    }
+
+    /**
+     * 쿠폰 발급 대상을 쿠폰별로 묶는다. (요청 순서 유지)
+     * 해석할 수 없는 요청은 재시도해도 실패하므로 dead letter 큐로 옮긴다.
+     *
+     * @param targets
+     * @return
+     */
+    private Map<Long, List<Long>> groupByCoupon(List<String> targets) {
+        Map<Long, List<Long>> targetsByCoupon = new LinkedHashMap<>();
+        for (String target : targets) {
+            CouponIssueRequest request;
+            try {
+                request = objectMapper.readValue(target, CouponIssueRequest.class);
+            } catch (JsonProcessingException e) {
+                log.error("발급 요청 해석 실패. dead letter 큐로 옮긴다. value: %s".formatted(target), e);
+                redisRepository.rPush(getIssueRequestDeadLetterQueueKey(), target);
+                continue;
+            }
+            targetsByCoupon.computeIfAbsent(request.couponId(), couponId -> new ArrayList<>()).add(request.userId());
+        }
+        return targetsByCoupon;
+    }
+
+    /**
+     * queue에서 처리한 수만큼 쿠폰 발급 대상을 한번에 제거한다.
+     *
+     * @param count
+     */
+    private void removeIssueTargets(int count) {
+        redisRepository.lTrim(IssueRequestQueueKey, count, -1);
+    }
+
 }
@@ -0,0 +1,314 @@
+package org.example.couponconsumer.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.example.couponcore.repository.redis.dto.CouponIssueRequest;
+import org.example.couponcore.service.CouponIssueService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.example.couponcore.util.CouponRedisUtils.*;
+
+/**
+ * 단계별 파이프라인으로 쿠폰 발급 대기열을 소비하는 listener (coupon.issue.transport=list, coupon.consumer.mode=pipeline)
+ * fetch(BLMOVE) -> decode(JSON) -> persist(DB) 단계가 크기가 제한된 큐로 연결되어 각자의 virtual thread에서 동시에 실행된다.
+ * persist 단계는 couponId로 파티셔닝된 여러 worker로 나뉘어 있어 한 쿠폰의 row lock은 항상 하나의 worker만 잡고,
+ * 서로 다른 쿠폰은 동시에 발급되므로 하나의 커넥션이 아닌 커넥션 풀 전체를 사용한다.
+ * 가져온 요청은 reliable 모드와 같은 consumer별 처리 중 큐에 있다가 발급이 끝나면 제거(ack)된다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnExpression("'${coupon.issue.transport:list}' == 'list' and '${coupon.consumer.mode:polling}' == 'pipeline'")
+@Component
+public class CouponIssuePipelineListener {
+
+    private final RedisRepository redisRepository;
+    // 쿠폰 발급 트랜잭션을 처리하는 서비스
+    private final CouponIssueService couponIssueService;
+    // consumer 등록, heartbeat, reaper
+    private final CouponIssueConsumerRegistry consumerRegistry;
+    // 단계별 지표
+    private final MeterRegistry meterRegistry;
+    // 발급 실패 시 재시도 여부
+    private final CouponIssueRetryPolicy retryPolicy;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String issueRequestQueueKey = getIssueRequestQueueKey();
+
+    // 단계 사이 큐의 최대 크기 (가득 차면 앞 단계가 기다린다)
+    @Value("${coupon.consumer.pipeline.queue-capacity:1000}")
+    private int queueCapacity;
+
+    // persist worker 수 (커넥션 풀 크기에 맞춘다)
+    @Value("${coupon.consumer.pipeline.persist-workers:10}")
+    private int persistWorkers;
+
+    // persist worker가 한번에 발급하는 최대 요청 수
+    @Value("${coupon.consumer.pipeline.persist-batch-size:100}")
+    private int persistBatchSize;
+
+    // 대기열이 비어있을 때 한번에 블로킹하는 최대 시간
+    @Value("${coupon.consumer.pipeline.block-timeout-ms:2000}")
+    private long blockTimeoutMillis;
+
+    // 발급 실패 시 재시도 전 대기 시간
+    @Value("${coupon.consumer.pipeline.retry-backoff-ms:1000}")
+    private long retryBackoffMillis;
+
+    private volatile boolean running;
+    private final List<Thread> workers = new ArrayList<>();
+
+    private BlockingQueue<String> decodeQueue;
+    private List<BlockingQueue<PendingIssue>> persistQueues;
+
+    private Timer fetchTimer;
+    private Timer fetchIdleTimer;
+    private Timer decodeTimer;
+    private Timer persistTimer;
+
+    /**
+     * 애플리케이션이 준비되면 consumer를 등록하고 단계별 worker를 시작한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        consumerRegistry.register();
+        decodeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        persistQueues = new ArrayList<>(persistWorkers);
+        for (int i = 0; i < persistWorkers; i++) {
+            persistQueues.add(new ArrayBlockingQueue<>(queueCapacity));
+        }
+        registerMetrics();
+
+        running = true;
+        workers.add(Thread.ofVirtual().name("coupon-issue-pipeline-fetch").start(this::fetch));
+        workers.add(Thread.ofVirtual().name("coupon-issue-pipeline-decode").start(this::decode));
+        for (int i = 0; i < persistWorkers; i++) {
+            int partition = i;
+            workers.add(Thread.ofVirtual().name("coupon-issue-pipeline-persist-" + i).start(() -> persist(partition)));
+        }
+        log.info("pipeline listener start. consumerId: %s, persistWorkers: %s".formatted(consumerRegistry.getConsumerId(), persistWorkers));
+    }
+
+    /**
+     * worker를 종료한다. 단계 사이 큐에 남아있던 요청은 처리 중 큐에 남아있다가 재시작 또는 reaper에 의해 다시 처리된다.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(blockTimeoutMillis + retryBackoffMillis);
+        }
+        workers.clear();
+        log.info("pipeline listener stop. consumerId: %s".formatted(consumerRegistry.getConsumerId()));
+    }
+
+    /**
+     * couponId가 처리되는 persist 파티션
+     *
+     * @param couponId
+     * @return
+     */
+    public int partition(long couponId) {
+        return Math.floorMod(Long.hashCode(couponId), persistWorkers);
+    }
+
+    /**
+     * fetch 단계: 대기열의 요청을 처리 중 큐로 옮기고(BLMOVE) decode 큐로 넘긴다.
+     */
+    private void fetch() {
+        String processingQueueKey = consumerRegistry.getProcessingQueueKey();
+        while (running) {
+            try {
+                long start = System.nanoTime();
+                String value = redisRepository.bLMove(issueRequestQueueKey, processingQueueKey, Duration.ofMillis(blockTimeoutMillis));
+                if (value == null) {
+                    // 대기열이 비어 blockTimeout 동안 기다린 시간은 처리 시간과 따로 기록한다.
+                    fetchIdleTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    continue;
+                }
+                offer(decodeQueue, value);
+                fetchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            } catch (Exception e) {
+                log.error("발급 요청 조회 실패. consumerId: %s".formatted(consumerRegistry.getConsumerId()), e);
+                sleep(retryBackoffMillis);
+            }
+        }
+    }
+
+    /**
+     * decode 단계: 요청을 해석해 couponId에 해당하는 persist 파티션으로 넘긴다.
+     * 해석할 수 없는 요청은 재시도해도 실패하므로 dead letter 큐로 옮긴다.
+     */
+    private void decode() {
+        while (running) {
+            String value = poll(decodeQueue);
+            if (value == null) {
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                CouponIssueRequest request = objectMapper.readValue(value, CouponIssueRequest.class);
+                offer(persistQueues.get(partition(request.couponId())), new PendingIssue(value, request));
+                decodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            } catch (JsonProcessingException e) {
+                log.error("발급 요청 해석 실패. dead letter 큐로 옮긴다. value: %s".formatted(value), e);
+                redisRepository.rPush(getIssueRequestDeadLetterQueueKey(), value);
+                redisRepository.lRem(consumerRegistry.getProcessingQueueKey(), value);
+            }
+        }
+    }
+
+    /**
+     * persist 단계: 파티션 큐에 쌓인 요청을 최대 persistBatchSize 만큼 가져와 쿠폰별로 일괄 발급하고 ack 한다.
+     * 발급에 실패한 요청은 재시도 정책에 따라 처리 중 큐에서 대기열 맨 앞으로 원래 순서대로 되돌리거나 dead letter 큐로 옮긴다.
+     *
+     * @param partition
+     */
+    private void persist(int partition) {
+        BlockingQueue<PendingIssue> queue = persistQueues.get(partition);
+        List<PendingIssue> batch = new ArrayList<>(persistBatchSize);
+        while (running) {
+            PendingIssue first = poll(queue);
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, persistBatchSize - 1);
+            long start = System.nanoTime();
+            groupByCoupon(batch).forEach(this::issue);
+            persistTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batch.clear();
+        }
+    }
+
+    private void issue(long couponId, List<PendingIssue> requests) {
+        try {
+            couponIssueService.issueAll(couponId, requests.stream().map(request -> request.request().userId()).toList());
+        } catch (Exception e) {
+            handleFailure(couponId, requests, e);
+            return;
+        }
+        String processingQueueKey = consumerRegistry.getProcessingQueueKey();
+        requests.forEach(request -> {
+            redisRepository.lRem(processingQueueKey, request.value());
+            retryPolicy.succeeded(request.value());
+        });
+        log.info("발급 완료 couponId: %s, size: %s".formatted(couponId, requests.size()));
+    }
+
+    /**
+     * 재시도할 수 있는 요청은 대기열 맨 앞으로 원래 순서대로 한번에 되돌리고, 나머지는 dead letter 큐로 옮긴다.
+     *
+     * @param couponId
+     * @param requests
+     * @param e
+     */
+    private void handleFailure(long couponId, List<PendingIssue> requests, Exception e) {
+        List<String> retryTargets = new ArrayList<>(requests.size());
+        for (PendingIssue request : requests) {
+            // 동시에 발급된 유저와 겹친 중복은 일괄 발급이 이미 발급된 유저를 건너뛰므로 다시 시도하면 발급된다.
+            if (retryPolicy.isIssued(e) || retryPolicy.retry(request.value(), e)) {
+                retryTargets.add(request.value());
+            } else {
+                consumerRegistry.moveProcessingRequestToDeadLetter(request.value());
+            }
+        }
+        log.error("발급 실패. couponId: %s, size: %s, retry: %s".formatted(couponId, requests.size(), retryTargets.size()), e);
+        if (!retryTargets.isEmpty()) {
+            consumerRegistry.requeueProcessingRequests(retryTargets);
+            sleep(retryBackoffMillis);
+        }
+    }
+
+    private Map<Long, List<PendingIssue>> groupByCoupon(List<PendingIssue> batch) {
+        Map<Long, List<PendingIssue>> requestsByCoupon = new LinkedHashMap<>();
+        for (PendingIssue pendingIssue : batch) {
+            requestsByCoupon.computeIfAbsent(pendingIssue.request().couponId(), key -> new ArrayList<>()).add(pendingIssue);
+        }
+        return requestsByCoupon;
+    }
+
+    /**
+     * 단계별 큐 크기(coupon.issue.pipeline.queue.size)와 처리 시간(coupon.issue.pipeline.busy) 지표를 등록한다.
+     * fetch 단계의 처리 시간은 BLMOVE 부터 재며, 대기열이 비어 요청을 가져오지 못한 시간은 coupon.issue.pipeline.idle 로 따로 기록한다.
+     * fetch, decode 단계의 처리 시간에는 다음 단계 큐가 가득 차서 기다린 시간이 포함된다. (backpressure)
+     */
+    private void registerMetrics() {
+        Gauge.builder("coupon.issue.pipeline.queue.size", decodeQueue, BlockingQueue::size)
+                .tag("stage", "decode")
+                .register(meterRegistry);
+        for (int i = 0; i < persistQueues.size(); i++) {
+            Gauge.builder("coupon.issue.pipeline.queue.size", persistQueues.get(i), BlockingQueue::size)
+                    .tag("stage", "persist")
+                    .tag("partition", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        fetchTimer = busyTimer("fetch");
+        fetchIdleTimer = Timer.builder("coupon.issue.pipeline.idle")
+                .tag("stage", "fetch")
+                .register(meterRegistry);
+        decodeTimer = busyTimer("decode");
+        persistTimer = busyTimer("persist");
+    }
+
+    private Timer busyTimer(String stage) {
+        return Timer.builder("coupon.issue.pipeline.busy")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    // 다음 단계 큐에 자리가 날 때까지 기다린다. 종료 중이라면 넘기지 않는다. (요청은 처리 중 큐에 남아있다)
+    private <T> void offer(BlockingQueue<T> queue, T item) {
+        try {
+            while (running && !queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                log.debug("pipeline queue full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private <T> T poll(BlockingQueue<T> queue) {
+        try {
+            return queue.poll(100, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+            return null;
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    // 처리 중 큐의 원본 값과 해석된 요청
+    private record PendingIssue(String value, CouponIssueRequest request) {
+    }
+
+}
@@ -0,0 +1,147 @@
+package org.example.couponconsumer.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.example.couponcore.repository.redis.dto.CouponIssueRequest;
+import org.example.couponcore.service.CouponIssueService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+import static org.example.couponcore.util.CouponRedisUtils.*;
+
+/**
+ * 블로킹 방식으로 쿠폰 발급 대기열을 소비하는 listener (coupon.issue.transport=list, coupon.consumer.mode=reliable)
+ * 대기열 큐의 요청을 consumer별 처리 중 큐로 원자적으로 옮긴 뒤(BLMOVE) 발급하고, 발급이 끝나면 처리 중 큐에서 제거(ack)한다.
+ * 여러 consumer가 같은 요청을 동시에 처리하지 않으며, 죽은 consumer의 처리 중 요청은 reaper가 대기열로 되돌린다.
+ * 발급에 실패한 요청은 재시도 정책(CouponIssueRetryPolicy)에 따라 대기열 맨 앞으로 되돌리거나 dead letter 큐로 옮긴다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnExpression("'${coupon.issue.transport:list}' == 'list' and '${coupon.consumer.mode:polling}' == 'reliable'")
+@Component
+public class CouponIssueReliableListener {
+
+    private final RedisRepository redisRepository;
+    // 쿠폰 발급 트랜잭션을 처리하는 서비스
+    private final CouponIssueService couponIssueService;
+    // consumer 등록, heartbeat, reaper
+    private final CouponIssueConsumerRegistry consumerRegistry;
+    // 발급 실패 시 재시도 여부
+    private final CouponIssueRetryPolicy retryPolicy;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String issueRequestQueueKey = getIssueRequestQueueKey();
+
+    // 대기열이 비어있을 때 한번에 블로킹하는 최대 시간
+    @Value("${coupon.consumer.reliable.block-timeout-ms:2000}")
+    private long blockTimeoutMillis;
+
+    // 발급 실패 시 재시도 전 대기 시간
+    @Value("${coupon.consumer.reliable.retry-backoff-ms:1000}")
+    private long retryBackoffMillis;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    /**
+     * 애플리케이션이 준비되면 consumer를 등록하고 발급 worker를 시작한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        consumerRegistry.register();
+        running = true;
+        worker = new Thread(this::listen, "coupon-issue-reliable-listener");
+        worker.start();
+        log.info("reliable listener start. consumerId: %s".formatted(consumerRegistry.getConsumerId()));
+    }
+
+    /**
+     * worker를 종료한다. 처리 중이던 요청은 처리 중 큐에 남아있다가 재시작 또는 reaper에 의해 다시 처리된다.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join(blockTimeoutMillis + retryBackoffMillis);
+        }
+        log.info("reliable listener stop. consumerId: %s".formatted(consumerRegistry.getConsumerId()));
+    }
+
+    /**
+     * 대기열에서 쿠폰 발급 대상을 하나 가져와 발급한다.
+     * 대기열이 비어있다면 blockTimeout 동안 대기하다가 요청이 들어오는 즉시 깨어난다.
+     *
+     * @return 발급 대상을 처리했다면 true
+     */
+    public boolean issueNext() {
+        String processingQueueKey = consumerRegistry.getProcessingQueueKey();
+        String value = redisRepository.bLMove(issueRequestQueueKey, processingQueueKey, Duration.ofMillis(blockTimeoutMillis));
+        if (value == null) {
+            return false;
+        }
+        try {
+            CouponIssueRequest target = objectMapper.readValue(value, CouponIssueRequest.class);
+            log.info("발급 시작 target: %s".formatted(target));
+            couponIssueService.issue(target.couponId(), target.userId());
+            log.info("발급 완료 target: %s".formatted(target));
+        } catch (Exception e) {
+            if (!retryPolicy.isIssued(e)) {
+                handleFailure(value, e);
+                return true;
+            }
+            // 이전 처리가 커밋된 뒤 되돌려진 요청이므로 발급된 것으로 보고 처리 중 큐에서 제거한다.
+            log.info("이미 발급된 요청 value: %s".formatted(value));
+        }
+        redisRepository.lRem(processingQueueKey, value);
+        retryPolicy.succeeded(value);
+        return true;
+    }
+
+    private void listen() {
+        while (running) {
+            try {
+                issueNext();
+            } catch (Exception e) {
+                log.error("발급 요청 조회 실패. consumerId: %s".formatted(consumerRegistry.getConsumerId()), e);
+                sleep(retryBackoffMillis);
+            }
+        }
+    }
+
+    /**
+     * 발급에 실패한 요청을 재시도할 수 있다면 대기열 맨 앞으로 되돌리고, 아니라면 dead letter 큐로 옮긴다.
+     * 해석할 수 없는 요청과 발급 규칙 위반은 재시도하지 않는다.
+     *
+     * @param value
+     * @param e
+     */
+    private void handleFailure(String value, Exception e) {
+        if (!(e instanceof JsonProcessingException) && retryPolicy.retry(value, e)) {
+            log.error("발급 실패. 대기열로 되돌리고 재시도한다. value: %s".formatted(value), e);
+            consumerRegistry.requeueProcessingRequest(value);
+            sleep(retryBackoffMillis);
+            return;
+        }
+        log.error("발급 실패. dead letter 큐로 옮긴다. value: %s".formatted(value), e);
+        consumerRegistry.moveProcessingRequestToDeadLetter(value);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+}
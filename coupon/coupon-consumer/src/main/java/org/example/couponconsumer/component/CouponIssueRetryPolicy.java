@@ -0,0 +1,99 @@
+package org.example.couponconsumer.component;
+
+import org.example.couponcore.exception.CouponIssueException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.example.couponcore.exception.ErrorCode.DUPLICATE_COUPON_ISSUE;
+import static org.example.couponcore.exception.ErrorCode.FAIL_COUPON_ISSUE_REQUEST;
+
+/**
+ * 발급에 실패한 요청을 재시도할지 판단한다.
+ * - 이미 발급된 요청(중복)은 이전 처리가 커밋된 요청이 다시 전달된 것이므로 발급에 성공한 것으로 본다. (isIssued)
+ * - 발급 규칙 위반(쿠폰 없음, 발급 기간, 수량 소진)은 재시도해도 결과가 같으므로 바로 dead letter 큐로 보낸다.
+ * - 그 외 실패(DB, Redis 장애 등)는 요청마다 max-attempts 번까지만 재시도하고, 넘으면 dead letter 큐로 보낸다.
+ * 실패 횟수는 consumer 노드별로 최근 실패한 요청 max-tracked 개까지 센다.
+ */
+@Component
+public class CouponIssueRetryPolicy {
+
+    private final Map<String, Integer> attempts;
+
+    // 요청 하나를 발급 시도하는 최대 횟수
+    @Value("${coupon.consumer.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    public CouponIssueRetryPolicy(@Value("${coupon.consumer.retry.max-tracked:10000}") int maxTracked) {
+        this.attempts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > maxTracked;
+            }
+        };
+    }
+
+    /**
+     * 실패를 기록하고 재시도할지 판단한다. 재시도하지 않는다면 기록을 지운다.
+     *
+     * @param key 요청(또는 한번에 발급하는 요청 묶음)의 식별자
+     * @param e
+     * @return 재시도한다면 true
+     */
+    public synchronized boolean retry(String key, Exception e) {
+        if (!isRetryable(e)) {
+            attempts.remove(key);
+            return false;
+        }
+        int attempt = attempts.merge(key, 1, Integer::sum);
+        if (attempt >= maxAttempts) {
+            attempts.remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 기록된 실패 횟수
+     *
+     * @param key
+     * @return
+     */
+    public synchronized int attempts(String key) {
+        return attempts.getOrDefault(key, 0);
+    }
+
+    /**
+     * 발급에 성공한 요청의 실패 기록을 지운다.
+     *
+     * @param key
+     */
+    public synchronized void succeeded(String key) {
+        if (!attempts.isEmpty()) {
+            attempts.remove(key);
+        }
+    }
+
+    /**
+     * 이미 발급된 요청인지 확인한다. (처리 중 큐에서 되돌려진 요청이 이미 커밋되었다면 중복으로 실패한다)
+     *
+     * @param e
+     * @return
+     */
+    public boolean isIssued(Exception e) {
+        return e instanceof CouponIssueException exception && exception.getErrorCode() == DUPLICATE_COUPON_ISSUE;
+    }
+
+    /**
+     * 재시도하면 결과가 달라질 수 있는 실패인지 확인한다. (발급 규칙 위반이 아닌 실패)
+     *
+     * @param e
+     * @return
+     */
+    public boolean isRetryable(Exception e) {
+        return !(e instanceof CouponIssueException exception) || exception.getErrorCode() == FAIL_COUPON_ISSUE_REQUEST;
+    }
+
+}
@@ -0,0 +1,246 @@
+package org.example.couponconsumer.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.exception.CouponIssueException;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.example.couponcore.repository.redis.dto.CouponIssueRequest;
+import org.example.couponcore.service.CouponIssueService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.example.couponcore.exception.ErrorCode.DUPLICATE_COUPON_ISSUE;
+import static org.example.couponcore.util.CouponRedisUtils.*;
+
+/**
+ * 쿠폰별 발급 큐를 소비하는 listener (coupon.issue.transport=sharded)
+ * 처리할 요청이 남아있는 쿠폰들을 돌아가며 쿠폰마다 정해진 양만큼 발급하므로(weighted round-robin)
+ * 요청이 아주 많은 쿠폰이 있어도 작은 쿠폰의 요청이 뒤에서 기다리지 않는다.
+ * 요청을 여러 분할로 나누는 쿠폰(spread)은 분할별 큐("couponId:shard")를 각각 처리한다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@EnableScheduling
+@ConditionalOnProperty(name = "coupon.issue.transport", havingValue = "sharded")
+@Component
+public class CouponIssueShardedListener {
+
+    private final RedisRepository redisRepository;
+    // 쿠폰 발급 트랜잭션을 처리하는 서비스
+    private final CouponIssueService couponIssueService;
+    // 발급 실패 시 재시도 여부
+    private final CouponIssueRetryPolicy retryPolicy;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String activeCouponsKey = getIssueRequestActiveCouponsKey();
+    private final String queueWeightKey = getIssueRequestQueueWeightKey();
+
+    // 한 라운드에 쿠폰마다 발급하는 기본 요청 수 (가중치 1 기준)
+    @Value("${coupon.consumer.sharded.quantum:100}")
+    private int quantum;
+
+    // 발급 실패 시 재시도 전 대기 시간 (실패할 때마다 두 배, 최대 retry-max-backoff-ms)
+    @Value("${coupon.consumer.sharded.retry-backoff-ms:200}")
+    private long retryBackoffMillis;
+
+    @Value("${coupon.consumer.sharded.retry-max-backoff-ms:10000}")
+    private long retryMaxBackoffMillis;
+
+    // 발급에 실패한 큐를 다시 처리할 시각 (라운드를 멈추지 않도록 대기하지 않고 그 전까지 건너뛴다, 스케줄러 스레드에서만 사용한다)
+    private final Map<String, Long> retryAt = new HashMap<>();
+
+    /**
+     * 주기적으로 처리할 요청이 남아있는 쿠폰이 없을 때까지 라운드를 반복하며 발급한다.
+     */
+    @Scheduled(fixedDelayString = "${coupon.consumer.sharded.poll-interval-ms:100}")
+    public void issue() {
+        while (issueRound() > 0) {
+            log.debug("issue round end");
+        }
+    }
+
+    /**
+     * 요청이 남아있지만 처리 대상 쿠폰 목록에서 빠진 쿠폰별 큐를 주기적으로 찾아 다시 등록한다.
+     * (발급 요청 노드가 큐에 넣고 등록하기 전에 종료되었거나, 큐가 비었다고 제거하는 중에 요청이 들어온 경우)
+     */
+    @Scheduled(fixedDelayString = "${coupon.consumer.sharded.recover-interval-ms:30000}")
+    public void recoverActiveQueues() {
+        try {
+            int recovered = redisRepository.recoverActiveQueues();
+            if (recovered > 0) {
+                log.warn("처리 대상 쿠폰 목록에서 빠진 큐를 다시 등록했습니다. size: %s".formatted(recovered));
+            }
+        } catch (Exception e) {
+            log.error("처리 대상 쿠폰 목록 복구 실패", e);
+        }
+    }
+
+    /**
+     * 처리할 요청이 남아있는 쿠폰을 돌아가며 쿠폰마다 quantum * weight 만큼씩 일괄 발급한다. (weighted round-robin)
+     * 가중치는 issue.request.queue.weight hash에 쿠폰별로 설정할 수 있고, 없다면 1이다.
+     *
+     * @return 이번 라운드에 발급한 요청 수
+     */
+    public int issueRound() {
+        Set<String> couponIds = redisRepository.sMembers(activeCouponsKey);
+        if (couponIds == null || couponIds.isEmpty()) {
+            return 0;
+        }
+        Map<Object, Object> weights = redisRepository.hGetAll(queueWeightKey);
+        int issued = 0;
+        for (String member : couponIds) {
+            int separator = member.indexOf(':');
+            String couponId = separator < 0 ? member : member.substring(0, separator);
+            int shard = separator < 0 ? -1 : Integer.parseInt(member.substring(separator + 1));
+            issued += issueCoupon(Long.parseLong(couponId), shard, quantum * weight(weights, couponId));
+        }
+        return issued;
+    }
+
+    /**
+     * 쿠폰별 큐에서 최대 quota 만큼 가져와 일괄 발급하고, 커밋된 뒤에 큐에서 제거한다.
+     * 한 쿠폰의 발급이 실패해도 다른 쿠폰은 계속 처리하며, 실패한 요청은 큐에 남아 backoff 뒤에 재시도된다.
+     * 재시도 횟수는 큐의 맨 앞 요청마다 세고, 넘으면 맨 앞 요청만 dead letter 큐로 옮긴다.
+     * 발급 규칙 위반으로 실패했다면 요청마다 다시 발급하여 위반한 요청만 dead letter 큐로 옮긴다.
+     *
+     * @param couponId
+     * @param shard 분할 번호 (나누지 않는 쿠폰은 -1)
+     * @param quota
+     * @return 발급한 요청 수
+     */
+    private int issueCoupon(long couponId, int shard, int quota) {
+        String queueKey = shard < 0 ? getIssueRequestQueueKey(couponId) : getIssueRequestQueueKey(couponId, shard);
+        Long nextAttempt = retryAt.get(queueKey);
+        if (nextAttempt != null && System.currentTimeMillis() < nextAttempt) {
+            return 0;
+        }
+        List<String> targets = redisRepository.lRange(queueKey, 0, quota - 1);
+        if (targets.isEmpty()) {
+            if (shard < 0) {
+                redisRepository.removeActiveCouponIfEmpty(couponId);
+            } else {
+                redisRepository.removeActiveShardIfEmpty(couponId, shard);
+            }
+            return 0;
+        }
+        try {
+            couponIssueService.issueAll(couponId, targets.stream().map(Long::parseLong).toList());
+        } catch (Exception e) {
+            if (retryPolicy.isRetryable(e)) {
+                handleRetryableFailure(couponId, queueKey, targets.get(0), e);
+                return 0;
+            }
+            log.warn("일괄 발급 규칙 위반. 요청마다 다시 발급한다. couponId: %s, size: %s, reason: %s"
+                    .formatted(couponId, targets.size(), e.getMessage()));
+            return issueEach(couponId, queueKey, targets);
+        }
+        succeeded(queueKey, targets.get(0));
+        redisRepository.lTrim(queueKey, targets.size(), -1);
+        log.info("발급 완료 couponId: %s, size: %s".formatted(couponId, targets.size()));
+        return targets.size();
+    }
+
+    /**
+     * 요청마다 발급하고, 발급 규칙을 위반한 요청만 dead letter 큐로 옮긴다. (이미 발급된 요청은 발급된 것으로 본다)
+     * 재시도할 수 있는 실패를 만나면 그 요청부터는 큐에 남겨 재시도한다.
+     *
+     * @return 발급한 요청 수
+     */
+    private int issueEach(long couponId, String queueKey, List<String> targets) {
+        int processed = 0;
+        int issued = 0;
+        Exception failure = null;
+        for (String userId : targets) {
+            try {
+                couponIssueService.issue(couponId, Long.parseLong(userId));
+                issued++;
+            } catch (CouponIssueException e) {
+                if (e.getErrorCode() == DUPLICATE_COUPON_ISSUE) {
+                    log.info("이미 발급된 요청 couponId: %s, userId: %s".formatted(couponId, userId));
+                } else if (retryPolicy.isRetryable(e)) {
+                    failure = e;
+                    break;
+                } else {
+                    log.error("발급 실패. dead letter 큐로 옮긴다. couponId: %s, userId: %s".formatted(couponId, userId), e);
+                    moveToDeadLetter(couponId, userId);
+                }
+            } catch (Exception e) {
+                failure = e;
+                break;
+            }
+            processed++;
+        }
+        if (processed > 0) {
+            redisRepository.lTrim(queueKey, processed, -1);
+        }
+        if (failure != null) {
+            // 처리한 요청을 제거했으므로 실패한 요청이 큐의 맨 앞에 있다.
+            handleRetryableFailure(couponId, queueKey, targets.get(processed), failure);
+        } else {
+            succeeded(queueKey, targets.get(0));
+        }
+        log.info("발급 완료 couponId: %s, size: %s, issued: %s".formatted(couponId, processed, issued));
+        return issued;
+    }
+
+    /**
+     * 큐의 맨 앞 요청(head)의 실패 횟수를 세고 backoff 뒤에 다시 처리한다.
+     * 맨 앞 요청의 재시도 횟수가 넘었다면 그 요청만 dead letter 큐로 옮기고 나머지는 바로 다시 처리한다.
+     */
+    private void handleRetryableFailure(long couponId, String queueKey, String head, Exception e) {
+        String attemptKey = attemptKey(queueKey, head);
+        if (retryPolicy.retry(attemptKey, e)) {
+            long backoff = backoffMillis(retryPolicy.attempts(attemptKey));
+            retryAt.put(queueKey, System.currentTimeMillis() + backoff);
+            log.error("발급 실패. %sms 뒤에 재시도한다. couponId: %s, head: %s".formatted(backoff, couponId, head), e);
+            return;
+        }
+        log.error("발급 실패. 재시도 횟수를 넘어 dead letter 큐로 옮긴다. couponId: %s, userId: %s".formatted(couponId, head), e);
+        moveToDeadLetter(couponId, head);
+        redisRepository.lTrim(queueKey, 1, -1);
+        retryAt.remove(queueKey);
+    }
+
+    private void succeeded(String queueKey, String head) {
+        retryPolicy.succeeded(attemptKey(queueKey, head));
+        retryAt.remove(queueKey);
+    }
+
+    // 실패 횟수를 세는 키 (큐와 맨 앞 요청)
+    private String attemptKey(String queueKey, String head) {
+        return "%s:%s".formatted(queueKey, head);
+    }
+
+    private long backoffMillis(int attempts) {
+        return Math.min(retryMaxBackoffMillis, retryBackoffMillis << Math.min(Math.max(attempts - 1, 0), 20));
+    }
+
+    // 다른 전달 방식과 같은 형식(CouponIssueRequest JSON)으로 dead letter 큐에 넣는다.
+    private void moveToDeadLetter(long couponId, String userId) {
+        try {
+            redisRepository.rPush(getIssueRequestDeadLetterQueueKey(),
+                    objectMapper.writeValueAsString(new CouponIssueRequest(couponId, Long.parseLong(userId))));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int weight(Map<Object, Object> weights, String couponId) {
+        Object weight = weights.get(couponId);
+        if (weight == null) {
+            return 1;
+        }
+        return Math.max(1, Integer.parseInt(String.valueOf(weight)));
+    }
+
+}
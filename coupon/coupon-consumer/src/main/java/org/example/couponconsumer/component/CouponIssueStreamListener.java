@@ -0,0 +1,280 @@
+package org.example.couponconsumer.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.exception.CouponIssueException;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.example.couponcore.repository.redis.dto.CouponIssueRequest;
+import org.example.couponcore.service.CouponIssueService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.example.couponcore.exception.ErrorCode.DUPLICATE_COUPON_ISSUE;
+import static org.example.couponcore.util.CouponRedisUtils.*;
+
+/**
+ * consumer group으로 쿠폰 발급 요청 스트림을 소비하는 listener (coupon.issue.transport=stream)
+ * 같은 group의 consumer들이 스트림을 나눠서 가져가므로 consumer 수만큼 처리량이 늘어난다.
+ * 가져온 요청은 쿠폰별로 묶어 일괄 발급하고 커밋된 뒤에 ack 하며, 오래 ack 되지 않은 요청은 다른 consumer가 가져와 재처리한다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@EnableScheduling
+@ConditionalOnProperty(name = "coupon.issue.transport", havingValue = "stream")
+@Component
+public class CouponIssueStreamListener {
+
+    private final RedisRepository redisRepository;
+    // 쿠폰 발급 트랜잭션을 처리하는 서비스
+    private final CouponIssueService couponIssueService;
+    // 재시도할 수 있는 실패인지 판단한다.
+    private final CouponIssueRetryPolicy retryPolicy;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String issueRequestStreamKey = getIssueRequestStreamKey();
+    private final String issueRequestStreamGroup = getIssueRequestStreamGroup();
+
+    // consumer 식별자 (설정하지 않으면 실행할 때마다 새로 만든다)
+    @Value("${coupon.consumer.id:#{T(java.util.UUID).randomUUID().toString()}}")
+    private String consumerId;
+
+    // 한번에 가져오는 최대 발급 요청 수
+    @Value("${coupon.consumer.stream.batch-size:500}")
+    private int batchSize;
+
+    // 스트림이 비어있을 때 한번에 블로킹하는 최대 시간
+    @Value("${coupon.consumer.stream.block-timeout-ms:2000}")
+    private long blockTimeoutMillis;
+
+    // 이 시간 동안 ack 되지 않은 요청은 처리하던 consumer가 죽은 것으로 보고 가져온다.
+    @Value("${coupon.consumer.stream.claim-min-idle-ms:30000}")
+    private long claimMinIdleMillis;
+
+    // 이 횟수 이상 전달되었는데도 처리되지 않은 요청은 dead letter 큐로 옮긴다.
+    @Value("${coupon.consumer.stream.max-delivery-count:5}")
+    private long maxDeliveryCount;
+
+    // 발급 실패 시 재시도 전 대기 시간
+    @Value("${coupon.consumer.stream.retry-backoff-ms:1000}")
+    private long retryBackoffMillis;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    /**
+     * 애플리케이션이 준비되면 consumer group을 만들고 발급 worker를 시작한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        redisRepository.xGroupCreate(issueRequestStreamKey, issueRequestStreamGroup);
+        running = true;
+        worker = new Thread(this::listen, "coupon-issue-stream-listener");
+        worker.start();
+        log.info("stream listener start. consumerId: %s".formatted(consumerId));
+    }
+
+    /**
+     * worker를 종료한다. ack 되지 않은 요청은 pending 상태로 남아 다른 consumer가 가져간다.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join(blockTimeoutMillis + retryBackoffMillis);
+        }
+        log.info("stream listener stop. consumerId: %s".formatted(consumerId));
+    }
+
+    /**
+     * 스트림에서 최대 batchSize 만큼 새 발급 요청을 가져와 발급한다.
+     * 스트림이 비어있다면 blockTimeout 동안 대기하다가 요청이 들어오는 즉시 깨어난다.
+     *
+     * @return 처리한 요청 수
+     */
+    public int issueNext() throws JsonProcessingException {
+        List<MapRecord<String, Object, Object>> records = redisRepository.xReadGroup(
+                issueRequestStreamKey, issueRequestStreamGroup, consumerId, batchSize, Duration.ofMillis(blockTimeoutMillis));
+        if (records == null || records.isEmpty()) {
+            return 0;
+        }
+        issue(records);
+        return records.size();
+    }
+
+    /**
+     * 주기적으로 오래 ack 되지 않은 발급 요청을 가져와 재처리한다. (pending entry reclaim)
+     * 여러 번 전달되었는데도 처리되지 않은 요청은 dead letter 큐로 옮기고 ack 한다.
+     */
+    @Scheduled(fixedDelayString = "${coupon.consumer.stream.claim-interval-ms:10000}")
+    public void reclaimPendingRequests() throws JsonProcessingException {
+        // 가져올 요청의 전달 횟수는 같은 XPENDING 결과에서 읽는다. (XCLAIM 으로 한번 더 전달된다)
+        Map<RecordId, Long> deliveryCounts = new LinkedHashMap<>();
+        for (PendingMessage pendingMessage : redisRepository.xPending(issueRequestStreamKey, issueRequestStreamGroup, batchSize)) {
+            if (pendingMessage.getElapsedTimeSinceLastDelivery().toMillis() < claimMinIdleMillis) {
+                continue;
+            }
+            deliveryCounts.put(pendingMessage.getId(), pendingMessage.getTotalDeliveryCount() + 1);
+        }
+        if (deliveryCounts.isEmpty()) {
+            return;
+        }
+        List<MapRecord<String, Object, Object>> records = redisRepository.xClaim(issueRequestStreamKey, issueRequestStreamGroup,
+                consumerId, Duration.ofMillis(claimMinIdleMillis), deliveryCounts.keySet().toArray(RecordId[]::new));
+        log.warn("pending 발급 요청 재처리. consumerId: %s, count: %s".formatted(consumerId, records.size()));
+        issue(moveExceededToDeadLetter(records, deliveryCounts));
+    }
+
+    private void listen() {
+        while (running) {
+            try {
+                issueNext();
+            } catch (Exception e) {
+                log.error("발급 실패. ack 되지 않은 요청은 reclaim 으로 재처리된다. consumerId: %s".formatted(consumerId), e);
+                sleep(retryBackoffMillis);
+            }
+        }
+    }
+
+    /**
+     * 발급 요청을 쿠폰별로 묶어 일괄 발급하고, 쿠폰별로 커밋되는 즉시 ack 한다.
+     * 읽을 수 없는 요청은 바로 dead letter 큐로 옮기고, 한 쿠폰의 발급 실패가 다른 쿠폰의 발급을 막지 않는다.
+     *
+     * @param records
+     */
+    private void issue(List<MapRecord<String, Object, Object>> records) throws JsonProcessingException {
+        Map<Long, List<MapRecord<String, Object, Object>>> recordsByCoupon = new LinkedHashMap<>();
+        Map<RecordId, CouponIssueRequest> requests = new LinkedHashMap<>();
+        for (MapRecord<String, Object, Object> record : records) {
+            CouponIssueRequest request = toIssueRequestOrNull(record);
+            if (request == null) {
+                moveToDeadLetter(record, objectMapper.writeValueAsString(record.getValue()));
+                continue;
+            }
+            requests.put(record.getId(), request);
+            recordsByCoupon.computeIfAbsent(request.couponId(), couponId -> new ArrayList<>()).add(record);
+        }
+        for (Map.Entry<Long, List<MapRecord<String, Object, Object>>> entry : recordsByCoupon.entrySet()) {
+            long couponId = entry.getKey();
+            List<MapRecord<String, Object, Object>> couponRecords = entry.getValue();
+            List<Long> userIds = couponRecords.stream().map(record -> requests.get(record.getId()).userId()).toList();
+            try {
+                couponIssueService.issueAll(couponId, userIds);
+            } catch (Exception e) {
+                if (retryPolicy.isRetryable(e)) {
+                    // ack 하지 않은 요청은 pending 으로 남아 reclaim 으로 재처리된다.
+                    log.error("발급 실패. reclaim 으로 재처리된다. couponId: %s, size: %s".formatted(couponId, userIds.size()), e);
+                } else {
+                    issueEach(couponRecords, requests);
+                }
+                continue;
+            }
+            redisRepository.xAck(issueRequestStreamKey, issueRequestStreamGroup,
+                    couponRecords.stream().map(MapRecord::getId).toArray(RecordId[]::new));
+            log.info("발급 완료 couponId: %s, size: %s".formatted(couponId, userIds.size()));
+        }
+    }
+
+    /**
+     * 요청마다 발급하고 ack 하며, 발급 규칙을 위반한 요청만 dead letter 큐로 옮긴다. (이미 발급된 요청은 발급된 것으로 본다)
+     * 재시도할 수 있는 실패를 만나면 남은 요청은 ack 하지 않고 reclaim 으로 재처리한다.
+     */
+    private void issueEach(List<MapRecord<String, Object, Object>> records, Map<RecordId, CouponIssueRequest> requests) throws JsonProcessingException {
+        for (MapRecord<String, Object, Object> record : records) {
+            CouponIssueRequest request = requests.get(record.getId());
+            try {
+                couponIssueService.issue(request.couponId(), request.userId());
+            } catch (CouponIssueException e) {
+                if (e.getErrorCode() == DUPLICATE_COUPON_ISSUE) {
+                    log.info("이미 발급된 요청. target: %s".formatted(request));
+                } else if (retryPolicy.isRetryable(e)) {
+                    log.error("발급 실패. reclaim 으로 재처리된다. target: %s".formatted(request), e);
+                    return;
+                } else {
+                    log.error("발급 실패. dead letter 큐로 옮긴다. target: %s".formatted(request), e);
+                    moveToDeadLetter(record, objectMapper.writeValueAsString(request));
+                    continue;
+                }
+            } catch (Exception e) {
+                log.error("발급 실패. reclaim 으로 재처리된다. target: %s".formatted(request), e);
+                return;
+            }
+            redisRepository.xAck(issueRequestStreamKey, issueRequestStreamGroup, record.getId());
+        }
+    }
+
+    /**
+     * 재처리 횟수를 초과한 요청은 dead letter 큐로 옮기고 ack 한다.
+     *
+     * @param records
+     * @param deliveryCounts 가져온 요청의 전달 횟수
+     * @return 재처리할 요청
+     */
+    private List<MapRecord<String, Object, Object>> moveExceededToDeadLetter(List<MapRecord<String, Object, Object>> records,
+                                                                             Map<RecordId, Long> deliveryCounts) throws JsonProcessingException {
+        List<MapRecord<String, Object, Object>> retryTargets = new ArrayList<>();
+        for (MapRecord<String, Object, Object> record : records) {
+            if (deliveryCounts.getOrDefault(record.getId(), 0L) <= maxDeliveryCount) {
+                retryTargets.add(record);
+                continue;
+            }
+            CouponIssueRequest request = toIssueRequestOrNull(record);
+            moveToDeadLetter(record, request == null
+                    ? objectMapper.writeValueAsString(record.getValue())
+                    : objectMapper.writeValueAsString(request));
+            log.error("재처리 횟수 초과로 dead letter 큐로 이동. target: %s".formatted(record.getValue()));
+        }
+        return retryTargets;
+    }
+
+    private void moveToDeadLetter(MapRecord<String, Object, Object> record, String value) {
+        redisRepository.rPush(getIssueRequestDeadLetterQueueKey(), value);
+        redisRepository.xAck(issueRequestStreamKey, issueRequestStreamGroup, record.getId());
+    }
+
+    /**
+     * 스트림 요청을 읽는다. couponId, userId 를 읽을 수 없다면 null 을 반환한다.
+     */
+    private CouponIssueRequest toIssueRequestOrNull(MapRecord<String, Object, Object> record) {
+        try {
+            return toIssueRequest(record);
+        } catch (NumberFormatException e) {
+            log.error("읽을 수 없는 발급 요청. dead letter 큐로 옮긴다. id: %s, value: %s".formatted(record.getId(), record.getValue()));
+            return null;
+        }
+    }
+
+    private CouponIssueRequest toIssueRequest(MapRecord<String, Object, Object> record) {
+        Map<Object, Object> value = record.getValue();
+        return new CouponIssueRequest(
+                Long.parseLong(String.valueOf(value.get("couponId"))),
+                Long.parseLong(String.valueOf(value.get("userId")))
+        );
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+}
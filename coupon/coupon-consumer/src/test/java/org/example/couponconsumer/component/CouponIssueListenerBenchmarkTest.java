@@ -0,0 +1,128 @@
+package org.example.couponconsumer.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponconsumer.TestConfig;
+import org.example.couponcore.model.Coupon;
+import org.example.couponcore.model.CouponType;
+import org.example.couponcore.repository.mysql.CouponIssueJpaRepository;
+import org.example.couponcore.repository.mysql.CouponJpaRepository;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.example.couponcore.repository.redis.dto.CouponIssueRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestQueueKey;
+
+/**
+ * 쿠폰 발급 consumer 처리량 비교 (건별 처리 vs 일괄 처리)
+ * 실제 커밋 비용을 측정하기 위해 테스트 트랜잭션을 사용하지 않는다.
+ * ./gradlew :coupon-consumer:benchmark 로 실행한다.
+ */
+@Slf4j
+@Tag("benchmark")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(CouponIssueListener.class)
+class CouponIssueListenerBenchmarkTest extends TestConfig {
+
+    private static final int REQUEST_COUNT = 10_000;
+    private static final int COUPON_COUNT = 4;
+
+    @Autowired
+    CouponIssueListener sut;
+
+    @Autowired
+    RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    RedisRepository redisRepository;
+
+    @Autowired
+    CouponJpaRepository couponJpaRepository;
+
+    @Autowired
+    CouponIssueJpaRepository couponIssueJpaRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void clear() {
+        Collection<String> keys = redisTemplate.keys("*");
+        assert keys != null;
+        redisTemplate.delete(keys);
+        couponIssueJpaRepository.deleteAllInBatch();
+        couponJpaRepository.deleteAllInBatch();
+    }
+
+    @DisplayName("건별 처리 - 발급 요청 처리량을 측정한다.")
+    @Test
+    void issue() throws JsonProcessingException {
+        //given
+        enqueueIssueRequests(saveCoupons());
+
+        //when
+        long start = System.nanoTime();
+        sut.issue();
+        long elapsed = System.nanoTime() - start;
+
+        //then
+        report("건별 처리", elapsed);
+    }
+
+    @DisplayName("일괄 처리 - 발급 요청 처리량을 측정한다.")
+    @Test
+    void issueBatch() throws JsonProcessingException {
+        //given
+        enqueueIssueRequests(saveCoupons());
+
+        //when
+        long start = System.nanoTime();
+        sut.issueBatch();
+        long elapsed = System.nanoTime() - start;
+
+        //then
+        report("일괄 처리", elapsed);
+    }
+
+    private List<Long> saveCoupons() {
+        return LongStream.range(0, COUPON_COUNT)
+                .mapToObj(i -> couponJpaRepository.save(Coupon.builder()
+                        .couponType(CouponType.FIRST_COME_FIRST_SERVED)
+                        .title("선착순 벤치마크 쿠폰")
+                        .totalQuantity(null)
+                        .issuedQuantity(0)
+                        .dateIssueStart(LocalDateTime.now().minusDays(1))
+                        .dateIssueEnd(LocalDateTime.now().plusDays(1))
+                        .build()).getId())
+                .toList();
+    }
+
+    private void enqueueIssueRequests(List<Long> couponIds) throws JsonProcessingException {
+        for (long userId = 1; userId <= REQUEST_COUNT; userId++) {
+            long couponId = couponIds.get((int) (userId % couponIds.size()));
+            redisRepository.rPush(getIssueRequestQueueKey(), objectMapper.writeValueAsString(new CouponIssueRequest(couponId, userId)));
+        }
+    }
+
+    private void report(String mode, long elapsedNanos) {
+        Assertions.assertEquals(REQUEST_COUNT, couponIssueJpaRepository.count());
+        Assertions.assertEquals(0L, redisRepository.lSize(getIssueRequestQueueKey()));
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        log.info("[%s] requests: %s, elapsed: %.3fs, throughput: %.1f issues/s".formatted(mode, REQUEST_COUNT, seconds, REQUEST_COUNT / seconds));
+    }
+
+}
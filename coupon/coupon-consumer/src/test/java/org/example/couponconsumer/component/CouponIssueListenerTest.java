@@ -2,6 +2,7 @@ package org.example.couponconsumer.component;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.example.couponconsumer.TestConfig;
+import org.example.couponcore.exception.CouponIssueException;
 import org.example.couponcore.repository.redis.RedisRepository;
 import org.example.couponcore.service.CouponIssueService;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,12 +16,18 @@ import org.springframework.context.annotation.Import;
 import org.springframework.data.redis.core.RedisTemplate;
 
 import java.util.Collection;
+import java.util.List;
 
+import static org.example.couponcore.exception.ErrorCode.COUPON_NOT_EXIST;
+import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestDeadLetterQueueKey;
+import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestQueueKey;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
-@Import(CouponIssueListener.class)
+@Import({CouponIssueListener.class, CouponIssueRetryPolicy.class})
 class CouponIssueListenerTest extends TestConfig {
 
     @Autowired
@@ -94,4 +101,97 @@ class CouponIssueListenerTest extends TestConfig {
         inOrder.verify(couponIssueService, times(1)).issue(couponId, userId3);
     }
 
+    @DisplayName("일괄 발급 - 쿠폰 발급 큐에 처리대상이 없다면 발급을 하지 않는다.")
+    @Test
+    void issueBatch_1() throws JsonProcessingException {
+        //given
+
+        //when
+        sut.issueBatch();
+
+        //then
+        verify(couponIssueService, never()).issueAll(anyLong(), anyList());
+    }
+
+    @DisplayName("일괄 발급 - 쿠폰별로 묶어서 요청 순서대로 한번에 발급하고 큐를 비운다.")
+    @Test
+    void issueBatch_2() throws JsonProcessingException {
+        //given
+        long couponId1 = 1;
+        long couponId2 = 2;
+        int totalQuantity = Integer.MAX_VALUE;
+
+        redisRepository.issueRequest(couponId1, 1, totalQuantity);
+        redisRepository.issueRequest(couponId2, 2, totalQuantity);
+        redisRepository.issueRequest(couponId1, 3, totalQuantity);
+
+        //when
+        sut.issueBatch();
+
+        //then
+        InOrder inOrder = Mockito.inOrder(couponIssueService);
+        inOrder.verify(couponIssueService, times(1)).issueAll(couponId1, List.of(1L, 3L));
+        inOrder.verify(couponIssueService, times(1)).issueAll(couponId2, List.of(2L));
+        assertEquals(0L, redisRepository.lSize(getIssueRequestQueueKey()));
+    }
+
+    @DisplayName("일괄 발급 - 재시도할 수 있는 실패는 큐에 다시 넣어 재시도한다.")
+    @Test
+    void issueBatch_3() throws JsonProcessingException {
+        //given
+        long couponId = 1;
+        int totalQuantity = Integer.MAX_VALUE;
+        redisRepository.issueRequest(couponId, 1, totalQuantity);
+        doThrow(new IllegalStateException()).when(couponIssueService).issueAll(anyLong(), anyList());
+
+        //when
+        sut.issueBatch();
+
+        //then
+        assertEquals(1L, redisRepository.lSize(getIssueRequestQueueKey()));
+        assertEquals(0L, redisRepository.lSize(getIssueRequestDeadLetterQueueKey()));
+    }
+
+    @DisplayName("일괄 발급 - 발급 규칙을 위반한 쿠폰의 요청만 dead letter 큐로 옮기고, 다른 쿠폰은 발급하고 큐를 비운다.")
+    @Test
+    void issueBatch_4() throws JsonProcessingException {
+        //given
+        long invalidCouponId = 1;
+        long couponId = 2;
+        int totalQuantity = Integer.MAX_VALUE;
+        redisRepository.issueRequest(invalidCouponId, 1, totalQuantity);
+        redisRepository.issueRequest(couponId, 1, totalQuantity);
+        doThrow(new CouponIssueException(COUPON_NOT_EXIST, "쿠폰이 존재하지 않습니다."))
+                .when(couponIssueService).issueAll(eq(invalidCouponId), anyList());
+        doThrow(new CouponIssueException(COUPON_NOT_EXIST, "쿠폰이 존재하지 않습니다."))
+                .when(couponIssueService).issue(eq(invalidCouponId), anyLong());
+
+        //when
+        sut.issueBatch();
+
+        //then
+        verify(couponIssueService, times(1)).issueAll(couponId, List.of(1L));
+        assertEquals(0L, redisRepository.lSize(getIssueRequestQueueKey()));
+        assertEquals(1L, redisRepository.lSize(getIssueRequestDeadLetterQueueKey()));
+    }
+
+    @DisplayName("일괄 발급 - 재시도 횟수를 넘은 요청은 dead letter 큐로 옮긴다.")
+    @Test
+    void issueBatch_5() throws JsonProcessingException {
+        //given
+        long couponId = 3;
+        int totalQuantity = Integer.MAX_VALUE;
+        redisRepository.issueRequest(couponId, 1, totalQuantity);
+        doThrow(new IllegalStateException()).when(couponIssueService).issueAll(anyLong(), anyList());
+
+        //when
+        for (int i = 0; i < 5; i++) {
+            sut.issueBatch();
+        }
+
+        //then
+        assertEquals(0L, redisRepository.lSize(getIssueRequestQueueKey()));
+        assertEquals(1L, redisRepository.lSize(getIssueRequestDeadLetterQueueKey()));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,174 @@
+package org.example.couponconsumer.component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.couponconsumer.TestConfig;
+import org.example.couponcore.exception.CouponIssueException;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.example.couponcore.service.CouponIssueService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.example.couponcore.exception.ErrorCode.COUPON_NOT_EXIST;
+import static org.example.couponcore.util.CouponRedisUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+// 파이프라인 worker가 context와 함께 실행되므로 다른 테스트의 queue를 소비하지 않도록 테스트가 끝나면 context를 종료한다.
+@DirtiesContext
+@TestPropertySource(properties = {
+        "coupon.consumer.mode=pipeline",
+        "coupon.consumer.pipeline.persist-workers=2",
+        "coupon.consumer.pipeline.block-timeout-ms=200",
+        "coupon.consumer.pipeline.retry-backoff-ms=100"
+})
+@Import({CouponIssuePipelineListener.class, CouponIssueConsumerRegistry.class, CouponIssueRetryPolicy.class})
+class CouponIssuePipelineListenerTest extends TestConfig {
+
+    @Autowired
+    CouponIssuePipelineListener sut;
+
+    @Autowired
+    RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    RedisRepository redisRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @MockBean
+    CouponIssueService couponIssueService;
+
+    @BeforeEach
+    void clear() {
+        Collection<String> keys = redisTemplate.keys("*");
+        assert keys != null;
+        redisTemplate.delete(keys);
+    }
+
+    @DisplayName("발급 요청은 쿠폰별로 발급되고 처리 중 큐에서 제거된다.")
+    @Test
+    void issue_1() throws InterruptedException {
+        //given
+        long couponId = 1L;
+        long otherCouponId = 2L;
+
+        //when
+        redisRepository.issueRequest(couponId, 1L, Integer.MAX_VALUE);
+        redisRepository.issueRequest(otherCouponId, 2L, Integer.MAX_VALUE);
+
+        //then
+        verify(couponIssueService, timeout(1000).times(1)).issueAll(couponId, List.of(1L));
+        verify(couponIssueService, timeout(1000).times(1)).issueAll(otherCouponId, List.of(2L));
+        assertEquals(0L, redisRepository.lSize(getIssueRequestQueueKey()));
+        assertTrue(awaitProcessingDrained());
+    }
+
+    @DisplayName("발급에 실패한 요청은 유실되지 않고 대기열로 되돌아가 다시 발급된다.")
+    @Test
+    void issue_2() throws InterruptedException {
+        //given
+        long couponId = 1L;
+        long userId = 1L;
+        doThrow(new IllegalStateException()).doNothing().when(couponIssueService).issueAll(anyLong(), anyList());
+
+        //when
+        redisRepository.issueRequest(couponId, userId, Integer.MAX_VALUE);
+
+        //then
+        verify(couponIssueService, timeout(2000).times(2)).issueAll(couponId, List.of(userId));
+        assertTrue(awaitProcessingDrained());
+        assertEquals(0L, redisRepository.lSize(getIssueRequestQueueKey()));
+    }
+
+    @DisplayName("발급 규칙 위반으로 실패한 요청은 재시도하지 않고 dead letter 큐로 옮긴다.")
+    @Test
+    void issue_3() throws InterruptedException {
+        //given
+        long couponId = 1L;
+        long userId = 3L;
+        doThrow(new CouponIssueException(COUPON_NOT_EXIST, "쿠폰이 존재하지 않습니다."))
+                .when(couponIssueService).issueAll(anyLong(), anyList());
+
+        //when
+        redisRepository.issueRequest(couponId, userId, Integer.MAX_VALUE);
+
+        //then
+        verify(couponIssueService, timeout(1000).times(1)).issueAll(couponId, List.of(userId));
+        assertTrue(awaitProcessingDrained());
+        assertEquals(1L, redisRepository.lSize(getIssueRequestDeadLetterQueueKey()));
+        verify(couponIssueService, times(1)).issueAll(anyLong(), anyList());
+    }
+
+    @DisplayName("처리 중 큐의 요청 묶음은 원래 순서대로 대기열 맨 앞으로 되돌아간다.")
+    @Test
+    void requeue_1() {
+        //given
+        String processingKey = "test.processing";
+        String queueKey = "test.queue";
+        redisRepository.rPush(queueKey, "d");
+        List.of("a", "b", "c").forEach(value -> redisRepository.rPush(processingKey, value));
+
+        //when
+        long requeued = redisRepository.requeueProcessingRequests(processingKey, queueKey, List.of("a", "b", "c"));
+
+        //then
+        assertEquals(3L, requeued);
+        assertEquals(List.of("a", "b", "c", "d"), redisRepository.lRange(queueKey, 0, -1));
+        assertEquals(0L, redisRepository.lSize(processingKey));
+    }
+
+    @DisplayName("같은 쿠폰은 항상 같은 persist 파티션에서 처리된다.")
+    @Test
+    void partition_1() {
+        //given
+        long couponId = 3L;
+
+        //when
+        int partition = sut.partition(couponId);
+
+        //then
+        assertEquals(partition, sut.partition(couponId));
+        assertTrue(partition >= 0 && partition < 2);
+    }
+
+    @DisplayName("단계별 큐 크기와 처리 시간, fetch 대기 시간 지표가 등록된다.")
+    @Test
+    void metrics_1() {
+        //then
+        assertNotNull(meterRegistry.find("coupon.issue.pipeline.queue.size").tag("stage", "decode").gauge());
+        assertEquals(2, meterRegistry.find("coupon.issue.pipeline.queue.size").tag("stage", "persist").gauges().size());
+        assertNotNull(meterRegistry.find("coupon.issue.pipeline.busy").tag("stage", "persist").timer());
+        assertNotNull(meterRegistry.find("coupon.issue.pipeline.idle").tag("stage", "fetch").timer());
+    }
+
+    // 발급 완료 후 ack(처리 중 큐에서 제거)는 worker 스레드에서 이어서 실행되므로 잠시 기다린다.
+    private boolean awaitProcessingDrained() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            if (countProcessingRequests() == 0) {
+                return true;
+            }
+            Thread.sleep(100);
+        }
+        return false;
+    }
+
+    private long countProcessingRequests() {
+        Collection<String> keys = redisTemplate.keys(getIssueRequestProcessingQueueKey("*"));
+        assert keys != null;
+        return keys.stream().mapToLong(redisRepository::lSize).sum();
+    }
+
+}
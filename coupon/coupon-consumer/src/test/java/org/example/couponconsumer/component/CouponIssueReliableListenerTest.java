@@ -0,0 +1,201 @@
+package org.example.couponconsumer.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.couponconsumer.TestConfig;
+import org.example.couponcore.exception.CouponIssueException;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.example.couponcore.repository.redis.dto.CouponIssueRequest;
+import org.example.couponcore.service.CouponIssueService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Collection;
+
+import static org.example.couponcore.exception.ErrorCode.COUPON_NOT_EXIST;
+import static org.example.couponcore.exception.ErrorCode.DUPLICATE_COUPON_ISSUE;
+import static org.example.couponcore.util.CouponRedisUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+// 블로킹 worker가 context와 함께 실행되므로 다른 테스트의 queue를 소비하지 않도록 테스트가 끝나면 context를 종료한다.
+@DirtiesContext
+@TestPropertySource(properties = {
+        "coupon.consumer.mode=reliable",
+        "coupon.consumer.reliable.block-timeout-ms=200",
+        "coupon.consumer.reliable.retry-backoff-ms=100",
+        "coupon.consumer.retry.max-attempts=3"
+})
+@Import({CouponIssueReliableListener.class, CouponIssueConsumerRegistry.class, CouponIssueRetryPolicy.class})
+class CouponIssueReliableListenerTest extends TestConfig {
+
+    @Autowired
+    CouponIssueReliableListener sut;
+
+    @Autowired
+    CouponIssueConsumerRegistry consumerRegistry;
+
+    @Autowired
+    RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    RedisRepository redisRepository;
+
+    @MockBean
+    CouponIssueService couponIssueService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void clear() {
+        Collection<String> keys = redisTemplate.keys("*");
+        assert keys != null;
+        redisTemplate.delete(keys);
+    }
+
+    @DisplayName("쿠폰 발급 큐에 요청이 들어오면 즉시 발급하고 처리 중 큐에서 제거한다.")
+    @Test
+    void issue_1() throws InterruptedException {
+        //given
+        long couponId = 1L;
+        long userId = 1L;
+
+        //when
+        redisRepository.issueRequest(couponId, userId, Integer.MAX_VALUE);
+
+        //then
+        verify(couponIssueService, timeout(1000).times(1)).issue(couponId, userId);
+        assertEquals(0L, redisRepository.lSize(getIssueRequestQueueKey()));
+        assertTrue(awaitProcessingDrained());
+    }
+
+    @DisplayName("발급에 실패한 요청은 유실되지 않고 대기열로 되돌아간다.")
+    @Test
+    void issue_2() {
+        //given
+        long couponId = 1L;
+        long userId = 1L;
+        doThrow(new IllegalStateException()).when(couponIssueService).issue(anyLong(), anyLong());
+
+        //when
+        redisRepository.issueRequest(couponId, userId, Integer.MAX_VALUE);
+
+        //then
+        verify(couponIssueService, timeout(1000).atLeastOnce()).issue(couponId, userId);
+        assertEquals(1L, redisRepository.lSize(getIssueRequestQueueKey()) + countProcessingRequests()
+                + redisRepository.lSize(getIssueRequestDeadLetterQueueKey()));
+    }
+
+    @DisplayName("발급 규칙 위반으로 실패한 요청은 재시도하지 않고 dead letter 큐로 옮긴다.")
+    @Test
+    void issue_3() throws InterruptedException {
+        //given
+        long couponId = 1L;
+        long userId = 3L;
+        doThrow(new CouponIssueException(COUPON_NOT_EXIST, "쿠폰이 존재하지 않습니다."))
+                .when(couponIssueService).issue(anyLong(), anyLong());
+
+        //when
+        redisRepository.issueRequest(couponId, userId, Integer.MAX_VALUE);
+
+        //then
+        verify(couponIssueService, timeout(1000).times(1)).issue(couponId, userId);
+        assertTrue(awaitDeadLetter(1L));
+        Thread.sleep(300);
+        verify(couponIssueService, times(1)).issue(couponId, userId);
+        assertEquals(0L, redisRepository.lSize(getIssueRequestQueueKey()) + countProcessingRequests());
+    }
+
+    @DisplayName("재시도할 수 있는 실패도 최대 시도 횟수를 넘으면 dead letter 큐로 옮긴다.")
+    @Test
+    void issue_4() throws InterruptedException {
+        //given
+        long couponId = 1L;
+        long userId = 4L;
+        doThrow(new IllegalStateException()).when(couponIssueService).issue(anyLong(), anyLong());
+
+        //when
+        redisRepository.issueRequest(couponId, userId, Integer.MAX_VALUE);
+
+        //then
+        verify(couponIssueService, timeout(2000).times(3)).issue(couponId, userId);
+        assertTrue(awaitDeadLetter(1L));
+        assertEquals(0L, redisRepository.lSize(getIssueRequestQueueKey()) + countProcessingRequests());
+    }
+
+    @DisplayName("heartbeat가 끊긴 consumer의 처리 중 요청은 대기열로 되돌아가 다시 발급된다.")
+    @Test
+    void requeueDeadConsumers_1() throws JsonProcessingException {
+        //given
+        long couponId = 1L;
+        long userId = 1L;
+        String deadConsumerId = "dead-consumer";
+        redisRepository.sAdd(getIssueConsumersKey(), deadConsumerId);
+        redisRepository.rPush(getIssueRequestProcessingQueueKey(deadConsumerId),
+                objectMapper.writeValueAsString(new CouponIssueRequest(couponId, userId)));
+
+        //when
+        consumerRegistry.requeueDeadConsumers();
+
+        //then
+        verify(couponIssueService, timeout(1000).times(1)).issue(couponId, userId);
+        assertEquals(0L, redisRepository.lSize(getIssueRequestProcessingQueueKey(deadConsumerId)));
+        assertFalse(redisRepository.sMembers(getIssueConsumersKey()).contains(deadConsumerId));
+    }
+
+    @DisplayName("이미 발급된 요청(reaper가 되돌린 커밋된 요청)은 발급된 것으로 보고 dead letter 큐로 옮기지 않고 제거한다.")
+    @Test
+    void issue_5() throws InterruptedException {
+        //given
+        long couponId = 1L;
+        long userId = 5L;
+        doThrow(new CouponIssueException(DUPLICATE_COUPON_ISSUE, "이미 발급된 쿠폰입니다."))
+                .when(couponIssueService).issue(anyLong(), anyLong());
+
+        //when
+        redisRepository.issueRequest(couponId, userId, Integer.MAX_VALUE);
+
+        //then
+        verify(couponIssueService, timeout(1000).times(1)).issue(couponId, userId);
+        Thread.sleep(300);
+        verify(couponIssueService, times(1)).issue(couponId, userId);
+        assertEquals(0L, redisRepository.lSize(getIssueRequestDeadLetterQueueKey()));
+        assertEquals(0L, redisRepository.lSize(getIssueRequestQueueKey()) + countProcessingRequests());
+    }
+
+    // 발급 완료 후 ack(처리 중 큐에서 제거)는 worker 스레드에서 이어서 실행되므로 잠시 기다린다.
+    private boolean awaitProcessingDrained() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            if (countProcessingRequests() == 0) {
+                return true;
+            }
+            Thread.sleep(100);
+        }
+        return false;
+    }
+
+    private boolean awaitDeadLetter(long size) throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            if (redisRepository.lSize(getIssueRequestDeadLetterQueueKey()) == size) {
+                return true;
+            }
+            Thread.sleep(100);
+        }
+        return false;
+    }
+
+    private long countProcessingRequests() {
+        Collection<String> keys = redisTemplate.keys(getIssueRequestProcessingQueueKey("*"));
+        assert keys != null;
+        return keys.stream().mapToLong(redisRepository::lSize).sum();
+    }
+
+}
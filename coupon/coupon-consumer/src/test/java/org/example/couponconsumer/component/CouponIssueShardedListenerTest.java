@@ -0,0 +1,240 @@
+package org.example.couponconsumer.component;
+
+import org.example.couponconsumer.TestConfig;
+import org.example.couponcore.exception.CouponIssueException;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.example.couponcore.service.CouponIssueService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.example.couponcore.exception.ErrorCode.INVALID_COUPON_ISSUE_DATE;
+import static org.example.couponcore.exception.ErrorCode.INVALID_COUPON_ISSUE_QUANTITY;
+import static org.example.couponcore.util.CouponRedisUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@TestPropertySource(properties = {
+        "coupon.issue.transport=sharded",
+        "coupon.consumer.sharded.quantum=2",
+        "coupon.consumer.sharded.poll-interval-ms=600000",
+        "coupon.consumer.retry.max-attempts=2",
+        "coupon.consumer.sharded.retry-backoff-ms=0"
+})
+@Import({CouponIssueShardedListener.class, CouponIssueRetryPolicy.class})
+class CouponIssueShardedListenerTest extends TestConfig {
+
+    @Autowired
+    CouponIssueShardedListener sut;
+
+    @Autowired
+    RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    RedisRepository redisRepository;
+
+    @MockBean
+    CouponIssueService couponIssueService;
+
+    @BeforeEach
+    void clear() {
+        Collection<String> keys = redisTemplate.keys("*");
+        assert keys != null;
+        redisTemplate.delete(keys);
+    }
+
+    @DisplayName("발급 요청은 쿠폰별 큐에 userId만 저장되고 처리 대상 쿠폰으로 등록된다.")
+    @Test
+    void issueRequest_1() {
+        //given
+        long couponId = 1L;
+        long userId = 10L;
+
+        //when
+        redisRepository.issueRequest(couponId, userId, Integer.MAX_VALUE);
+
+        //then
+        assertEquals(List.of(String.valueOf(userId)), redisRepository.lRange(getIssueRequestQueueKey(couponId), 0, -1));
+        assertTrue(redisRepository.sMembers(getIssueRequestActiveCouponsKey()).contains(String.valueOf(couponId)));
+    }
+
+    @DisplayName("한 라운드에 쿠폰마다 quantum 만큼 발급하므로 작은 쿠폰은 큰 쿠폰 뒤에서 기다리지 않는다.")
+    @Test
+    void issueRound_1() {
+        //given
+        long bigCouponId = 1L;
+        long smallCouponId = 2L;
+        LongStream.rangeClosed(1, 10).forEach(userId -> redisRepository.issueRequest(bigCouponId, userId, Integer.MAX_VALUE));
+        LongStream.rangeClosed(101, 102).forEach(userId -> redisRepository.issueRequest(smallCouponId, userId, Integer.MAX_VALUE));
+
+        //when
+        int issued = sut.issueRound();
+
+        //then
+        assertEquals(4, issued);
+        verify(couponIssueService, times(1)).issueAll(bigCouponId, List.of(1L, 2L));
+        verify(couponIssueService, times(1)).issueAll(smallCouponId, List.of(101L, 102L));
+        assertEquals(8L, redisRepository.lSize(getIssueRequestQueueKey(bigCouponId)));
+        assertEquals(0L, redisRepository.lSize(getIssueRequestQueueKey(smallCouponId)));
+    }
+
+    @DisplayName("가중치가 설정된 쿠폰은 한 라운드에 quantum * weight 만큼 발급한다.")
+    @Test
+    void issueRound_2() {
+        //given
+        long couponId = 1L;
+        LongStream.rangeClosed(1, 10).forEach(userId -> redisRepository.issueRequest(couponId, userId, Integer.MAX_VALUE));
+        redisTemplate.opsForHash().put(getIssueRequestQueueWeightKey(), String.valueOf(couponId), "3");
+
+        //when
+        int issued = sut.issueRound();
+
+        //then
+        assertEquals(6, issued);
+        verify(couponIssueService, times(1)).issueAll(couponId, List.of(1L, 2L, 3L, 4L, 5L, 6L));
+    }
+
+    @DisplayName("큐가 비어있는 쿠폰은 처리 대상 쿠폰에서 제거된다.")
+    @Test
+    void issue_1() {
+        //given
+        long couponId = 1L;
+        LongStream.rangeClosed(1, 3).forEach(userId -> redisRepository.issueRequest(couponId, userId, Integer.MAX_VALUE));
+
+        //when
+        sut.issue();
+
+        //then
+        verify(couponIssueService, times(2)).issueAll(eq(couponId), anyList());
+        assertFalse(redisRepository.sMembers(getIssueRequestActiveCouponsKey()).contains(String.valueOf(couponId)));
+    }
+
+    @DisplayName("한 쿠폰의 발급이 실패해도 다른 쿠폰은 발급되고, 실패한 요청은 큐에 남는다.")
+    @Test
+    void issueRound_3() {
+        //given
+        long failCouponId = 1L;
+        long couponId = 2L;
+        redisRepository.issueRequest(failCouponId, 1L, Integer.MAX_VALUE);
+        redisRepository.issueRequest(couponId, 2L, Integer.MAX_VALUE);
+        doThrow(new IllegalStateException()).when(couponIssueService).issueAll(eq(failCouponId), anyList());
+
+        //when
+        sut.issueRound();
+
+        //then
+        verify(couponIssueService, times(1)).issueAll(couponId, List.of(2L));
+        assertEquals(1L, redisRepository.lSize(getIssueRequestQueueKey(failCouponId)));
+        verify(couponIssueService, never()).issue(anyLong(), anyLong());
+    }
+
+    @DisplayName("발급 규칙 위반으로 실패한 요청은 재시도하지 않고 dead letter 큐로 옮긴다.")
+    @Test
+    void issueRound_4() {
+        //given
+        long couponId = 1L;
+        redisRepository.issueRequest(couponId, 1L, Integer.MAX_VALUE);
+        doThrow(new CouponIssueException(INVALID_COUPON_ISSUE_DATE, "쿠폰 발급 기간이 아닙니다."))
+                .when(couponIssueService).issueAll(eq(couponId), anyList());
+        doThrow(new CouponIssueException(INVALID_COUPON_ISSUE_DATE, "쿠폰 발급 기간이 아닙니다."))
+                .when(couponIssueService).issue(couponId, 1L);
+
+        //when
+        sut.issueRound();
+
+        //then
+        assertEquals(0L, redisRepository.lSize(getIssueRequestQueueKey(couponId)));
+        assertEquals(1L, redisRepository.lSize(getIssueRequestDeadLetterQueueKey()));
+    }
+
+    @DisplayName("재시도할 수 있는 실패도 최대 시도 횟수를 넘으면 dead letter 큐로 옮긴다.")
+    @Test
+    void issueRound_5() {
+        //given
+        long couponId = 5L;
+        redisRepository.issueRequest(couponId, 1L, Integer.MAX_VALUE);
+        doThrow(new IllegalStateException()).when(couponIssueService).issueAll(eq(couponId), anyList());
+
+        //when
+        sut.issueRound();
+        sut.issueRound();
+
+        //then
+        verify(couponIssueService, times(2)).issueAll(couponId, List.of(1L));
+        assertEquals(0L, redisRepository.lSize(getIssueRequestQueueKey(couponId)));
+        assertEquals(1L, redisRepository.lSize(getIssueRequestDeadLetterQueueKey()));
+    }
+
+    @DisplayName("일괄 발급이 규칙 위반으로 실패하면 요청마다 발급하여 위반한 요청만 dead letter 큐로 옮긴다.")
+    @Test
+    void issueRound_6() {
+        //given
+        long couponId = 1L;
+        redisRepository.issueRequest(couponId, 1L, Integer.MAX_VALUE);
+        redisRepository.issueRequest(couponId, 2L, Integer.MAX_VALUE);
+        doThrow(new CouponIssueException(INVALID_COUPON_ISSUE_QUANTITY, "발급 가능한 수량이 남아있지 않습니다."))
+                .when(couponIssueService).issueAll(eq(couponId), anyList());
+        doThrow(new CouponIssueException(INVALID_COUPON_ISSUE_QUANTITY, "발급 가능한 수량이 남아있지 않습니다."))
+                .when(couponIssueService).issue(couponId, 2L);
+
+        //when
+        int issued = sut.issueRound();
+
+        //then
+        assertEquals(1, issued);
+        verify(couponIssueService).issue(couponId, 1L);
+        assertEquals(0L, redisRepository.lSize(getIssueRequestQueueKey(couponId)));
+        assertEquals(List.of("{\"couponId\":1,\"userId\":2}"), redisRepository.lRange(getIssueRequestDeadLetterQueueKey(), 0, -1));
+    }
+
+    @DisplayName("재시도 횟수는 큐의 맨 앞 요청마다 세므로, 횟수를 넘으면 맨 앞 요청만 dead letter 큐로 옮긴다.")
+    @Test
+    void issueRound_7() {
+        //given
+        long couponId = 1L;
+        redisRepository.issueRequest(couponId, 1L, Integer.MAX_VALUE);
+        redisRepository.issueRequest(couponId, 2L, Integer.MAX_VALUE);
+        doThrow(new IllegalStateException()).when(couponIssueService).issueAll(couponId, List.of(1L, 2L));
+
+        //when
+        sut.issueRound();
+        sut.issueRound();
+        sut.issueRound();
+
+        //then
+        assertEquals(1L, redisRepository.lSize(getIssueRequestDeadLetterQueueKey()));
+        verify(couponIssueService).issueAll(couponId, List.of(2L));
+        assertEquals(0L, redisRepository.lSize(getIssueRequestQueueKey(couponId)));
+    }
+
+    @DisplayName("요청이 남아있지만 처리 대상 쿠폰 목록에서 빠진 큐는 다시 등록되어 발급된다.")
+    @Test
+    void recoverActiveQueues_1() {
+        //given
+        // 발급 요청을 큐에 넣은 뒤 처리 대상 쿠폰으로 등록하기 전에 노드가 종료된 상황
+        redisRepository.issueRequest(6L, 1L, Integer.MAX_VALUE);
+        redisTemplate.opsForList().rightPush(getIssueRequestQueueKey(7L, 1), "2");
+        redisTemplate.delete(getIssueRequestActiveCouponsKey());
+
+        //when
+        sut.recoverActiveQueues();
+        int issued = sut.issueRound();
+
+        //then
+        assertEquals(2, issued);
+        verify(couponIssueService).issueAll(6L, List.of(1L));
+        verify(couponIssueService).issueAll(7L, List.of(2L));
+    }
+
+}
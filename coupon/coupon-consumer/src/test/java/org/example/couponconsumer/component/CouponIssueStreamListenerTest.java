@@ -0,0 +1,186 @@
+package org.example.couponconsumer.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.example.couponconsumer.TestConfig;
+import org.example.couponcore.exception.CouponIssueException;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.example.couponcore.service.CouponIssueService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.example.couponcore.exception.ErrorCode.COUPON_NOT_EXIST;
+import static org.example.couponcore.exception.ErrorCode.DUPLICATE_COUPON_ISSUE;
+import static org.example.couponcore.util.CouponRedisUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// 블로킹 worker가 context와 함께 실행되므로 다른 테스트의 스트림을 소비하지 않도록 테스트가 끝나면 context를 종료한다.
+@DirtiesContext
+@TestPropertySource(properties = {
+        "coupon.issue.transport=stream",
+        "coupon.consumer.stream.block-timeout-ms=200",
+        "coupon.consumer.stream.retry-backoff-ms=100",
+        "coupon.consumer.stream.claim-interval-ms=600000",
+        "coupon.consumer.stream.claim-min-idle-ms=0",
+        "coupon.consumer.stream.max-delivery-count=2"
+})
+@Import({CouponIssueStreamListener.class, CouponIssueRetryPolicy.class})
+class CouponIssueStreamListenerTest extends TestConfig {
+
+    @Autowired
+    CouponIssueStreamListener sut;
+
+    @Autowired
+    RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    RedisRepository redisRepository;
+
+    @MockBean
+    CouponIssueService couponIssueService;
+
+    @BeforeEach
+    void clear() {
+        Collection<String> keys = redisTemplate.keys("*");
+        assert keys != null;
+        redisTemplate.delete(keys);
+        redisRepository.xGroupCreate(getIssueRequestStreamKey(), getIssueRequestStreamGroup());
+    }
+
+    @DisplayName("발급 요청이 스트림에 추가되면 즉시 발급하고 ack 한다.")
+    @Test
+    void issue_1() throws InterruptedException {
+        //given
+        long couponId = 1L;
+        long userId = 1L;
+
+        //when
+        redisRepository.issueRequest(couponId, userId, Integer.MAX_VALUE);
+
+        //then
+        verify(couponIssueService, timeout(1000).times(1)).issueAll(couponId, List.of(userId));
+        assertTrue(awaitPendingDrained());
+    }
+
+    @DisplayName("couponId, userId 를 읽을 수 없는 요청은 바로 dead letter 큐로 옮기고 ack 한다.")
+    @Test
+    void issue_2() throws InterruptedException {
+        //given
+        Map<String, String> malformed = Map.of("couponId", "null", "userId", "1");
+
+        //when
+        redisTemplate.opsForStream().add(getIssueRequestStreamKey(), malformed);
+
+        //then
+        assertTrue(awaitPendingDrained());
+        assertEquals(1L, redisRepository.lSize(getIssueRequestDeadLetterQueueKey()));
+        verify(couponIssueService, never()).issueAll(anyLong(), anyList());
+    }
+
+    @DisplayName("한 쿠폰의 발급 규칙 위반은 그 요청만 dead letter 큐로 옮기고, 다른 쿠폰의 발급은 이어서 처리한다.")
+    @Test
+    void issue_3() throws InterruptedException {
+        //given
+        long invalidCouponId = 1L;
+        long couponId = 2L;
+        long userId = 1L;
+        doThrow(new CouponIssueException(COUPON_NOT_EXIST, "쿠폰이 존재하지 않습니다."))
+                .when(couponIssueService).issueAll(eq(invalidCouponId), anyList());
+        doThrow(new CouponIssueException(COUPON_NOT_EXIST, "쿠폰이 존재하지 않습니다."))
+                .when(couponIssueService).issue(eq(invalidCouponId), anyLong());
+
+        //when
+        redisRepository.issueRequest(invalidCouponId, userId, Integer.MAX_VALUE);
+        redisRepository.issueRequest(couponId, userId, Integer.MAX_VALUE);
+
+        //then
+        verify(couponIssueService, timeout(1000).times(1)).issueAll(couponId, List.of(userId));
+        assertTrue(awaitPendingDrained());
+        assertEquals(1L, redisRepository.lSize(getIssueRequestDeadLetterQueueKey()));
+    }
+
+    @DisplayName("이미 발급된 요청은 발급된 것으로 보고 dead letter 큐로 옮기지 않고 ack 한다.")
+    @Test
+    void issue_4() throws InterruptedException {
+        //given
+        long couponId = 1L;
+        long userId = 1L;
+        doThrow(new CouponIssueException(DUPLICATE_COUPON_ISSUE, "이미 발급된 쿠폰입니다."))
+                .when(couponIssueService).issueAll(anyLong(), anyList());
+        doThrow(new CouponIssueException(DUPLICATE_COUPON_ISSUE, "이미 발급된 쿠폰입니다."))
+                .when(couponIssueService).issue(anyLong(), anyLong());
+
+        //when
+        redisRepository.issueRequest(couponId, userId, Integer.MAX_VALUE);
+
+        //then
+        verify(couponIssueService, timeout(1000).times(1)).issue(couponId, userId);
+        assertTrue(awaitPendingDrained());
+        assertEquals(0L, redisRepository.lSize(getIssueRequestDeadLetterQueueKey()));
+    }
+
+    @DisplayName("발급에 실패해 ack 되지 않은 요청은 reclaim 으로 다시 발급된다.")
+    @Test
+    void reclaimPendingRequests_1() throws JsonProcessingException, InterruptedException {
+        //given
+        long couponId = 1L;
+        long userId = 1L;
+        doThrow(new IllegalStateException()).doNothing().when(couponIssueService).issueAll(anyLong(), anyList());
+        redisRepository.issueRequest(couponId, userId, Integer.MAX_VALUE);
+        verify(couponIssueService, timeout(1000).times(1)).issueAll(couponId, List.of(userId));
+
+        //when
+        sut.reclaimPendingRequests();
+
+        //then
+        verify(couponIssueService, times(2)).issueAll(couponId, List.of(userId));
+        assertTrue(awaitPendingDrained());
+    }
+
+    @DisplayName("재처리 횟수를 초과한 요청은 dead letter 큐로 옮기고 ack 한다.")
+    @Test
+    void reclaimPendingRequests_2() throws JsonProcessingException, InterruptedException {
+        //given
+        long couponId = 1L;
+        long userId = 1L;
+        doThrow(new IllegalStateException()).when(couponIssueService).issueAll(anyLong(), anyList());
+        redisRepository.issueRequest(couponId, userId, Integer.MAX_VALUE);
+        verify(couponIssueService, timeout(1000).times(1)).issueAll(couponId, List.of(userId));
+        // 재시도할 수 있는 실패는 ack 하지 않고 pending 으로 남긴다.
+        sut.reclaimPendingRequests();
+        assertEquals(0L, redisRepository.lSize(getIssueRequestDeadLetterQueueKey()));
+
+        //when
+        sut.reclaimPendingRequests();
+
+        //then
+        assertEquals(1L, redisRepository.lSize(getIssueRequestDeadLetterQueueKey()));
+        assertTrue(awaitPendingDrained());
+    }
+
+    // 발급 완료 후 ack 는 worker 스레드에서 이어서 실행되므로 잠시 기다린다.
+    private boolean awaitPendingDrained() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            if (redisRepository.xPending(getIssueRequestStreamKey(), getIssueRequestStreamGroup(), 10).isEmpty()) {
+                return true;
+            }
+            Thread.sleep(100);
+        }
+        return false;
+    }
+
+}
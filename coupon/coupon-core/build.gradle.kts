@@ -18,9 +18,26 @@ dependencies {
     // 로컬 캐시 구현을 위한 caffeine 라이브러리 추가
     implementation("com.github.ben-manes.caffeine:caffeine")
 
+    // quota lease 지표 (API 노드의 actuator registry에 global registry로 등록된다)
+    implementation("io.micrometer:micrometer-core")
+
     testImplementation("org.springframework.boot:spring-boot-starter-test")
 }
 
-tasks.withType<Test> {
-    useJUnitPlatform()
+tasks.named<Test>("test") {
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
+}
+
+// 대용량 데이터 벤치마크 테스트 (./gradlew :coupon-core:benchmark)
+tasks.register<Test>("benchmark") {
+    description = "Runs benchmark tests."
+    group = "verification"
+    val testSourceSet = the<SourceSetContainer>()["test"]
+    testClassesDirs = testSourceSet.output.classesDirs
+    classpath = testSourceSet.runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
 }
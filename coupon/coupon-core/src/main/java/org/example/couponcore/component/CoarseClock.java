@@ -0,0 +1,55 @@
+package org.example.couponcore.component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 일정 주기(coupon.clock.tick-ms)로 갱신되는 현재 시각
+ * 요청마다 LocalDateTime.now()로 객체를 만들지 않고, 갱신된 값을 함께 사용한다. (발급 기간 확인처럼 ms 단위 정확도가 필요 없는 곳에서 사용)
+ * 다른 스케줄 작업에 밀려 갱신이 늦어지지 않도록 전용 스레드에서 갱신한다.
+ */
+@Component
+public class CoarseClock {
+
+    @Value("${coupon.clock.tick-ms:10}")
+    private long tickMillis;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "coarse-clock");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile LocalDateTime now = LocalDateTime.now();
+
+    @PostConstruct
+    void start() {
+        scheduler.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 마지막으로 갱신된 현재 시각 (최대 tick-ms 만큼 늦을 수 있다)
+     *
+     * @return
+     */
+    public LocalDateTime now() {
+        return now;
+    }
+
+    private void tick() {
+        now = LocalDateTime.now();
+    }
+
+}
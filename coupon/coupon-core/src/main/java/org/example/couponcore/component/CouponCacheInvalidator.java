@@ -0,0 +1,57 @@
+package org.example.couponcore.component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.example.couponcore.service.CouponCacheService;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.example.couponcore.util.CouponRedisUtils.getCouponCacheInvalidateChannel;
+
+/**
+ * 쿠폰 로컬 캐시 무효화
+ * 쿠폰이 변경되면 Redis 캐시를 먼저 갱신(write-through)한 뒤 pub/sub 채널로 모든 노드에 알리고,
+ * 메시지를 받은 노드는 로컬 캐시(caffeine)에서 쿠폰을 삭제하여 다음 조회 때 갱신된 Redis 캐시를 불러온다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class CouponCacheInvalidator implements MessageListener {
+
+    private final RedisRepository redisRepository;
+    private final CouponCacheService couponCacheService;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @PostConstruct
+    void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(getCouponCacheInvalidateChannel()));
+    }
+
+    /**
+     * 모든 노드(자신 포함)의 쿠폰 로컬 캐시를 삭제한다.
+     *
+     * @param couponId
+     */
+    public void invalidate(long couponId) {
+        redisRepository.publish(getCouponCacheInvalidateChannel(), String.valueOf(couponId));
+    }
+
+    // 다른 노드에서 발행한 무효화 메시지 수신
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String couponId = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            couponCacheService.evictCouponLocalCache(Long.parseLong(couponId));
+        } catch (NumberFormatException e) {
+            log.error("잘못된 캐시 무효화 메시지입니다. message: %s".formatted(couponId), e);
+        }
+    }
+
+}
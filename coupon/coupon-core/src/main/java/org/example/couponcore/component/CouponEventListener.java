@@ -3,6 +3,7 @@ package org.example.couponcore.component;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.couponcore.model.event.CouponIssueCompleteEvent;
+import org.example.couponcore.repository.redis.dto.CouponRedisEntity;
 import org.example.couponcore.service.CouponCacheService;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.event.TransactionPhase;
@@ -14,16 +15,21 @@ import org.springframework.transaction.event.TransactionalEventListener;
 public class CouponEventListener {
 
     private final CouponCacheService couponCacheService;
+    private final CouponSoldOutRegistry couponSoldOutRegistry;
+    private final CouponCacheInvalidator couponCacheInvalidator;
 
     /**
-     * Redis, local 캐시 갱신
+     * Redis 캐시 갱신 후 모든 노드의 local 캐시 삭제 (수량이 모두 소진되었다면 모든 노드에 소진을 알린다)
      * @param event
      */
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     void issueComplete(CouponIssueCompleteEvent event) {
         log.info("issue complete. cache refresh start couponId: %s".formatted(event.couponId()));
-        couponCacheService.putCouponCache(event.couponId());
-        couponCacheService.putCouponLocalCache(event.couponId());
+        CouponRedisEntity coupon = couponCacheService.putCouponCache(event.couponId());
+        couponCacheInvalidator.invalidate(event.couponId());
+        if (!coupon.availableIssueQuantity()) {
+            couponSoldOutRegistry.markSoldOut(event.couponId());
+        }
         log.info("issue end. cache refresh end couponId: %s".formatted(event.couponId()));
     }
 
@@ -0,0 +1,303 @@
+package org.example.couponcore.component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.model.IssuedUserStorage;
+import org.example.couponcore.repository.redis.CouponIssueRequestCode;
+import org.example.couponcore.repository.redis.CouponIssueTransport;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.example.couponcore.repository.redis.dto.CouponRedisEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 쿠폰 발급 수량 quota lease (coupon.issue.lease.enabled=true, list 전달만 지원)
+ * 요청마다 Redis 스크립트를 실행하지 않고, 쿠폰의 남은 수량을 block-size 만큼 빌려와서 노드에서 바로 발급 요청을 받는다.
+ * - 빌린 수량은 lock 없이(CAS) 차감하고, 다 쓰면 Redis에서 다시 빌린다. (빌려준 수량은 발급 수량을 넘지 않는다)
+ * - 받은 요청은 flush-interval-ms 마다 모아서 발급 요청 Set, 발급 대기열 큐에 기록한다.
+ *   다른 노드에서 이미 받은 유저(중복)는 이때 제외하고 수량을 돌려준다.
+ * - 빌린 뒤 expire-ms가 지났거나 종료할 때 사용하지 않은 수량을 돌려준다.
+ * 노드에서 받은 유저는 쿠폰마다 max-tracked-users 명까지 노드에 보관하여 같은 노드의 중복 요청은 바로 거절한다.
+ * 다른 노드의 중복 요청과 보관하지 못한 유저의 중복 요청은 기록할 때 제외되므로 요청 시점에는 성공으로 응답할 수 있다.
+ * (제외한 요청은 경고 로그와 coupon.issue.lease.dropped 지표로 남긴다)
+ * 빌려준 수량은 issue.quota.leased 카운터로만 세므로, lease를 사용하는 쿠폰은 다른 발급 경로(v1 동기, v1 비동기)로 요청받지 않는다.
+ * 발급 기간이 끝났거나 소진된 쿠폰의 lease는 남은 요청을 기록한 뒤 제거한다. (보관한 유저도 함께 제거된다)
+ * 노드가 비정상 종료되면
+ * - 성공으로 응답했지만 아직 기록하지 않은 요청(최대 flush-interval-ms 동안 받은 요청)은 유실되어 발급되지 않는다.
+ *   응답 전에 기록되어야 하는 쿠폰은 quota lease를 사용하지 않는다. (요청마다 Redis 스크립트로 기록)
+ * - 돌려주지 못한 수량은 발급되지 않는다. (발급 수량을 넘지는 않는다)
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class CouponIssueQuotaLeaser {
+
+    private final RedisRepository redisRepository;
+
+    private final Map<Long, Lease> leases = new ConcurrentHashMap<>();
+    // 성공으로 응답했지만 기록할 때 중복으로 제외한 요청 수
+    private final Counter dropped = Counter.builder("coupon.issue.lease.dropped").register(Metrics.globalRegistry);
+    // 제거한 lease (제거 직전에 받은 요청을 다음 flush에서 한번 더 기록한 뒤 버린다, flush 스레드에서만 사용한다)
+    private final List<Lease> retired = new ArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "issue-quota-leaser");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${coupon.issue.lease.enabled:false}")
+    private boolean enabled;
+
+    @Value("${coupon.issue.transport:list}")
+    private CouponIssueTransport transport;
+
+    // 한번에 빌리는 수량
+    @Value("${coupon.issue.lease.block-size:500}")
+    private int blockSize;
+
+    // 받은 요청을 Redis에 기록하는 주기
+    @Value("${coupon.issue.lease.flush-interval-ms:20}")
+    private long flushIntervalMillis;
+
+    // 빌린 수량을 돌려주기까지의 시간
+    @Value("${coupon.issue.lease.expire-ms:10000}")
+    private long expireMillis;
+
+    // 쿠폰마다 노드에 보관하는 최대 유저 수 (넘으면 같은 노드의 중복 요청도 기록할 때 제외한다)
+    @Value("${coupon.issue.lease.max-tracked-users:100000}")
+    private int maxTrackedUsers;
+
+    @PostConstruct
+    void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::flushAndExpire, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        log.info("issue quota lease started. blockSize: %s, flushIntervalMs: %s".formatted(blockSize, flushIntervalMillis));
+    }
+
+    @PreDestroy
+    void stop() {
+        if (!isEnabled()) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(flushIntervalMillis * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Lease lease : leases.values()) {
+            try {
+                flush(lease);
+                release(lease);
+            } catch (Exception e) {
+                log.error("quota lease 반납 실패 couponId: %s".formatted(lease.couponId), e);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled && transport == CouponIssueTransport.LIST;
+    }
+
+    /**
+     * quota lease로 발급 요청을 받는 쿠폰인지 확인한다. (발급 요청 유저를 Set으로 저장하고 나누지 않는 쿠폰만 사용한다)
+     * lease를 사용하는 쿠폰을 다른 발급 경로로 요청받으면 빌려준 수량과 따로 세어 발급 수량을 넘을 수 있으므로 다른 경로는 요청을 거절한다.
+     *
+     * @param coupon
+     * @return
+     */
+    public boolean isLeased(CouponRedisEntity coupon) {
+        return isEnabled() && coupon.issuedUserStorage() == IssuedUserStorage.SET && !coupon.isSpread();
+    }
+
+    /**
+     * 빌린 수량으로 발급 요청을 받는다. (남은 수량이 없다면 Redis에서 더 빌린다)
+     *
+     * @param couponId
+     * @param userId
+     * @param totalIssueQuantity
+     * @return
+     */
+    public CouponIssueRequestCode issueRequest(long couponId, long userId, int totalIssueQuantity) {
+        return issueRequest(couponId, userId, totalIssueQuantity, null);
+    }
+
+    /**
+     * 빌린 수량으로 발급 요청을 받는다. (발급 기간이 끝나면 lease를 제거한다)
+     *
+     * @param couponId
+     * @param userId
+     * @param totalIssueQuantity
+     * @param dateIssueEnd 발급 종료 시각 (null이면 소진되거나 expire-ms가 지날 때까지 유지한다)
+     * @return
+     */
+    public CouponIssueRequestCode issueRequest(long couponId, long userId, int totalIssueQuantity, LocalDateTime dateIssueEnd) {
+        Lease lease = leases.computeIfAbsent(couponId, key -> new Lease(key, dateIssueEnd));
+        boolean tracked = lease.users.size() < maxTrackedUsers;
+        if (tracked && !lease.users.add(userId)) {
+            return CouponIssueRequestCode.DUPLICATED_COUPON_ISSUE;
+        }
+        while (true) {
+            int remaining = lease.remaining.get();
+            if (remaining > 0) {
+                if (lease.remaining.compareAndSet(remaining, remaining - 1)) {
+                    lease.pending.add(userId);
+                    return CouponIssueRequestCode.SUCCESS;
+                }
+                continue;
+            }
+            if (!renew(lease, totalIssueQuantity)) {
+                if (tracked) {
+                    lease.users.remove(userId);
+                }
+                return CouponIssueRequestCode.INVALID_COUPON_ISSUE_QUANTITY;
+            }
+        }
+    }
+
+    // 남은 수량이 없다면 Redis에서 더 빌린다. (한 스레드만 빌리고 나머지는 기다렸다가 빌린 수량을 사용한다)
+    private boolean renew(Lease lease, int totalIssueQuantity) {
+        synchronized (lease) {
+            if (lease.remaining.get() > 0) {
+                return true;
+            }
+            if (lease.exhausted || lease.retired) {
+                return false;
+            }
+            int granted = redisRepository.leaseIssueQuota(lease.couponId, totalIssueQuantity, blockSize);
+            if (granted <= 0) {
+                lease.exhausted = true;
+                return false;
+            }
+            lease.leasedAt = System.currentTimeMillis();
+            lease.remaining.addAndGet(granted);
+            return true;
+        }
+    }
+
+    // 받은 요청을 기록하고, 오래된 lease의 남은 수량을 돌려준다. 발급 기간이 끝났거나 소진된 쿠폰의 lease는 제거한다.
+    void flushAndExpire() {
+        flushRetired();
+        long now = System.currentTimeMillis();
+        LocalDateTime today = LocalDateTime.now();
+        for (Lease lease : leases.values()) {
+            try {
+                flush(lease);
+                if (lease.isFinished(today)) {
+                    retire(lease);
+                } else if (now - lease.leasedAt >= expireMillis) {
+                    release(lease);
+                }
+            } catch (Exception e) {
+                log.error("quota lease flush 실패 couponId: %s".formatted(lease.couponId), e);
+            }
+        }
+    }
+
+    // 제거한 lease에 남은 요청을 기록하고, 모두 기록했다면 버린다.
+    private void flushRetired() {
+        retired.removeIf(lease -> {
+            try {
+                flush(lease);
+                return true;
+            } catch (Exception e) {
+                log.error("quota lease flush 실패 couponId: %s".formatted(lease.couponId), e);
+                return false;
+            }
+        });
+    }
+
+    // lease를 제거하고 남은 수량을 돌려준다. 이미 lease를 가져간 요청은 더 빌리지 못하고, 다음 요청은 새 lease를 만든다.
+    private void retire(Lease lease) {
+        leases.remove(lease.couponId, lease);
+        synchronized (lease) {
+            lease.retired = true;
+        }
+        release(lease);
+        retired.add(lease);
+    }
+
+    // 받은 요청을 발급 요청 Set, 발급 대기열 큐에 한번에 기록한다.
+    private void flush(Lease lease) {
+        List<Long> userIds = new ArrayList<>();
+        Long userId;
+        while ((userId = lease.pending.poll()) != null) {
+            userIds.add(userId);
+        }
+        if (userIds.isEmpty()) {
+            return;
+        }
+        try {
+            long duplicated = redisRepository.issueLeasedRequests(lease.couponId, userIds);
+            if (duplicated > 0) {
+                // 다른 노드에서 받았거나 노드에 보관하지 못해 같은 노드에서 두 번 받은 유저이며, 한 번만 발급된다.
+                dropped.increment(duplicated);
+                log.warn("quota lease 성공 응답 후 중복 요청 제외 couponId: %s, count: %s".formatted(lease.couponId, duplicated));
+            }
+        } catch (RuntimeException e) {
+            // 기록하지 못한 요청은 다음 flush에서 다시 기록한다.
+            lease.pending.addAll(userIds);
+            throw e;
+        }
+    }
+
+    // 사용하지 않은 수량을 돌려주고, 다음 요청에서 다시 빌리도록 한다.
+    private void release(Lease lease) {
+        synchronized (lease) {
+            int unused = lease.remaining.getAndSet(0);
+            if (unused > 0) {
+                redisRepository.returnIssueQuota(lease.couponId, unused);
+            }
+            if (lease.retired) {
+                return;
+            }
+            lease.exhausted = false;
+            lease.leasedAt = System.currentTimeMillis();
+        }
+    }
+
+    // 쿠폰별로 빌린 수량과 받은 요청
+    private static class Lease {
+
+        private final long couponId;
+        private final LocalDateTime dateIssueEnd;
+        private final AtomicInteger remaining = new AtomicInteger();
+        private final Set<Long> users = ConcurrentHashMap.newKeySet();
+        private final Queue<Long> pending = new ConcurrentLinkedQueue<>();
+        private volatile long leasedAt = System.currentTimeMillis();
+        private volatile boolean exhausted;
+        // 제거되어 더 빌리지 않는 lease
+        private volatile boolean retired;
+
+        Lease(long couponId, LocalDateTime dateIssueEnd) {
+            this.couponId = couponId;
+            this.dateIssueEnd = dateIssueEnd;
+        }
+
+        // 발급 기간이 끝났거나, 소진되어 기록할 요청이 남아있지 않은지 확인한다.
+        boolean isFinished(LocalDateTime now) {
+            return (dateIssueEnd != null && !dateIssueEnd.isAfter(now)) || (exhausted && pending.isEmpty());
+        }
+
+    }
+
+}
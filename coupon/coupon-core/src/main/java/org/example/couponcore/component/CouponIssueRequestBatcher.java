@@ -0,0 +1,185 @@
+package org.example.couponcore.component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.exception.CouponIssueException;
+import org.example.couponcore.exception.ErrorCode;
+import org.example.couponcore.model.IssuedUserStorage;
+import org.example.couponcore.repository.redis.CouponIssueRequestCode;
+import org.example.couponcore.repository.redis.CouponIssueTransport;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * 쿠폰 발급 요청 micro-batching (coupon.issue.batching.enabled=true, list 전달만 지원)
+ * 요청 스레드마다 Redis를 왕복하지 않고, 노드의 동시 요청을 모아서 EVALSHA pipeline 한번으로 보낸 뒤 결과를 요청 스레드에 돌려준다.
+ * 대기 시간은 부하에 맞춰 정해진다.
+ * - 모인 요청이 하나뿐이면(저부하) 기다리지 않고 바로 보낸다.
+ * - 요청이 쌓여 있으면(고부하) max-wait-micros 동안 max-batch-size 까지 더 모아서 보낸다.
+ * - 전송 중에 들어온 요청은 다음 batch로 모인다.
+ * pipeline의 일부 요청만 실패했다면 실패한 요청만 실패시키고, 이미 timeout 된 요청은 보내지 않는다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class CouponIssueRequestBatcher {
+
+    private final RedisRepository redisRepository;
+
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    @Value("${coupon.issue.batching.enabled:false}")
+    private boolean enabled;
+
+    @Value("${coupon.issue.transport:list}")
+    private CouponIssueTransport transport;
+
+    @Value("${coupon.issue.batching.max-batch-size:128}")
+    private int maxBatchSize;
+
+    @Value("${coupon.issue.batching.max-wait-micros:200}")
+    private long maxWaitMicros;
+
+    // 요청 스레드가 결과를 기다리는 최대 시간
+    @Value("${coupon.issue.batching.timeout-ms:3000}")
+    private long timeoutMillis;
+
+    @PostConstruct
+    void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        running = true;
+        dispatcher = Thread.ofPlatform().name("issue-request-batcher").daemon().start(this::dispatch);
+        log.info("issue request batching started. maxBatchSize: %s, maxWaitMicros: %s".formatted(maxBatchSize, maxWaitMicros));
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled && transport == CouponIssueTransport.LIST;
+    }
+
+    /**
+     * 쿠폰 발급 요청을 batch에 넣고 결과를 기다린다.
+     *
+     * @param couponId
+     * @param userId
+     * @param totalIssueQuantity
+     * @return
+     */
+    public CouponIssueRequestCode issueRequest(long couponId, long userId, int totalIssueQuantity) {
+        return issueRequest(couponId, userId, totalIssueQuantity, IssuedUserStorage.SET);
+    }
+
+    /**
+     * 쿠폰 발급 요청을 batch에 넣고 결과를 기다린다. (발급 요청 유저 저장 방식 지정)
+     *
+     * @param couponId
+     * @param userId
+     * @param totalIssueQuantity
+     * @param storage
+     * @return
+     */
+    public CouponIssueRequestCode issueRequest(long couponId, long userId, int totalIssueQuantity, IssuedUserStorage storage) {
+        Request request = new Request(couponId, userId, totalIssueQuantity, storage, new CompletableFuture<>());
+        queue.add(request);
+        try {
+            return request.result().get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CouponIssueException(ErrorCode.FAIL_COUPON_ISSUE_REQUEST, "couponId: %s, userId: %s".formatted(couponId, userId));
+        } catch (ExecutionException | TimeoutException e) {
+            // 기다리다 포기한 요청은 아직 보내지 않았다면 보내지 않는다.
+            request.result().cancel(false);
+            log.error("쿠폰 발급 요청 batch 실패 couponId: %s, userId: %s".formatted(couponId, userId), e);
+            throw new CouponIssueException(ErrorCode.FAIL_COUPON_ISSUE_REQUEST, "couponId: %s, userId: %s".formatted(couponId, userId));
+        }
+    }
+
+    // 요청을 모아서 pipeline으로 보낸다.
+    private void dispatch() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                if (batch.size() > 1) {
+                    collect(batch);
+                }
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(request -> request.result().completeExceptionally(e));
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        queue.forEach(request -> request.result().completeExceptionally(new IllegalStateException("batcher stopped")));
+    }
+
+    // 고부하일 때 max-wait-micros 동안 max-batch-size 까지 더 모은다.
+    private void collect(List<Request> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Request request = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (request == null) {
+                return;
+            }
+            batch.add(request);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    private void send(List<Request> batch) {
+        List<CompletableFuture<CouponIssueRequestCode>> results = new ArrayList<>(batch.size());
+        List<byte[][]> keysAndArgsList = new ArrayList<>(batch.size());
+        for (Request request : batch) {
+            // 요청 스레드가 이미 기다리지 않는 요청(timeout, 취소)은 보내지 않는다.
+            if (request.result().isDone()) {
+                continue;
+            }
+            // 보낼 수 없는 요청(ex. bitmap으로 저장할 수 없는 userId)만 실패시키고 나머지는 보낸다.
+            try {
+                keysAndArgsList.add(redisRepository.encodeIssueRequest(request.couponId(), request.userId(), request.totalIssueQuantity(), request.storage()));
+                results.add(request.result());
+            } catch (Exception e) {
+                request.result().completeExceptionally(e);
+            }
+        }
+        if (results.isEmpty()) {
+            return;
+        }
+        // 명령별 결과로 요청마다 완료한다. (연결 실패처럼 pipeline 전체가 실패한 경우만 모든 요청을 실패시킨다)
+        try {
+            redisRepository.issueRequests(keysAndArgsList, results);
+        } catch (Exception e) {
+            results.forEach(result -> result.completeExceptionally(e));
+        }
+    }
+
+    private record Request(long couponId, long userId, int totalIssueQuantity, IssuedUserStorage storage,
+                           CompletableFuture<CouponIssueRequestCode> result) {
+    }
+
+}
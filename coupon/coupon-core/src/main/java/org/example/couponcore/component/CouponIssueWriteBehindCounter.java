@@ -0,0 +1,209 @@
+package org.example.couponcore.component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.model.event.CouponIssueCompleteEvent;
+import org.example.couponcore.repository.mysql.CouponJpaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.example.couponcore.util.CouponRedisUtils.getIssueWriteBehindRecountLockKey;
+
+/**
+ * 발급 수량 write-behind counter (coupon.issue.write-behind.enabled=true)
+ * 발급 내역은 바로 저장하고, 쿠폰별 발급 수량 증가분은 메모리(LongAdder)에 모았다가
+ * flush 주기 또는 쌓인 증가분이 flush-threshold 이상일 때 전용 스레드에서 쿠폰마다 UPDATE 한번으로 반영한다. (요청 스레드에서는 반영하지 않는다)
+ * 반영되지 않은 증가분은 종료 시 flush 한다.
+ * 발급 수량 제한은 Redis 발급 요청 스크립트가 보장하므로, Redis를 거친 요청만 처리하는 consumer에서만 사용한다. (설정도 consumer에만 둔다)
+ * 비정상 종료로 유실된 증가분은 발급 내역 수로 다시 계산(recount)해 복구한다. 재계산은 실행 중인 다른 노드의 반영되지 않은 증가분을 덮어쓰므로
+ * 자동으로 실행하지 않고, 모든 write-behind consumer를 멈춘 뒤 하나만 recount-on-start=true로 시작해 실행한다. (분산락으로 한 노드만 실행)
+ */
+@Slf4j
+@Component
+public class CouponIssueWriteBehindCounter {
+
+    private final CouponJpaRepository couponJpaRepository;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    // 발급 트랜잭션 커밋 직후에도 별도의 트랜잭션으로 반영하기 위해 REQUIRES_NEW 를 사용한다.
+    private final TransactionTemplate transactionTemplate;
+    private final DistributeLockExecutor distributeLockExecutor;
+
+    private final Map<Long, LongAdder> deltas = new ConcurrentHashMap<>();
+    private final LongAdder pending = new LongAdder();
+    // flush-threshold를 넘어 flush를 요청했지만 아직 실행되지 않았다면 true
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "write-behind-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${coupon.issue.write-behind.enabled:false}")
+    private boolean enabled;
+
+    // 반영되지 않은 증가분이 이 값 이상이면 바로 flush 한다.
+    @Value("${coupon.issue.write-behind.flush-threshold:1000}")
+    private long flushThreshold;
+
+    @Value("${coupon.issue.write-behind.flush-interval-ms:1000}")
+    private long flushIntervalMillis;
+
+    // 시작할 때 발급 수량을 발급 내역 수로 다시 계산할지 여부 (다른 write-behind consumer가 모두 멈춰있을 때만 켠다)
+    @Value("${coupon.issue.write-behind.recount-on-start:false}")
+    private boolean recountOnStart;
+
+    public CouponIssueWriteBehindCounter(CouponJpaRepository couponJpaRepository,
+                                         ApplicationEventPublisher applicationEventPublisher,
+                                         PlatformTransactionManager transactionManager,
+                                         DistributeLockExecutor distributeLockExecutor) {
+        this.couponJpaRepository = couponJpaRepository;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.distributeLockExecutor = distributeLockExecutor;
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * flush 스레드를 멈추고 반영되지 않은 증가분을 반영한다.
+     */
+    @PreDestroy
+    void stop() {
+        scheduler.shutdown();
+        flush();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋되면 쿠폰의 발급 수량 증가분을 더한다. (롤백되면 더하지 않는다)
+     *
+     * @param couponId
+     * @param quantity
+     */
+    public void addAfterCommit(long couponId, int quantity) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(couponId, quantity);
+            }
+        });
+    }
+
+    /**
+     * 쿠폰의 발급 수량 증가분을 더하고, 쌓인 증가분이 flush-threshold 이상이면 flush 스레드에 바로 flush 하도록 알린다.
+     * 커밋 직후 요청 스레드에서 호출되므로 여기서 DB에 반영하지 않는다.
+     *
+     * @param couponId
+     * @param quantity
+     */
+    public void add(long couponId, int quantity) {
+        deltas.computeIfAbsent(couponId, key -> new LongAdder()).add(quantity);
+        pending.add(quantity);
+        if (pending.sum() >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    /**
+     * 쿠폰의 반영되지 않은 발급 수량 증가분
+     *
+     * @param couponId
+     * @return
+     */
+    public long getDelta(long couponId) {
+        LongAdder delta = deltas.get(couponId);
+        return delta == null ? 0 : delta.sum();
+    }
+
+    /**
+     * 쌓인 증가분을 쿠폰마다 UPDATE 한번으로 반영한다. (flush 스레드에서 주기적으로 실행된다)
+     * 반영에 실패한 증가분은 다시 더해 다음 flush 때 반영한다.
+     */
+    public synchronized void flush() {
+        if (!enabled) {
+            return;
+        }
+        deltas.forEach((couponId, adder) -> {
+            int delta = (int) adder.sumThenReset();
+            if (delta == 0) {
+                return;
+            }
+            pending.add(-delta);
+            try {
+                transactionTemplate.executeWithoutResult(status -> flush(couponId, delta));
+            } catch (Exception e) {
+                log.error("발급 수량 반영 실패 couponId: %s, delta: %s".formatted(couponId, delta), e);
+                adder.add(delta);
+                pending.add(delta);
+            }
+        });
+    }
+
+    /**
+     * recount-on-start=true로 시작했다면 발급 수량을 다시 계산한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recountOnStart() {
+        if (enabled && recountOnStart) {
+            recount();
+        }
+    }
+
+    /**
+     * 발급 기간인 쿠폰의 발급 수량을 발급 내역 수로 다시 계산한다. (반영되지 않고 유실된 증가분 복구)
+     * 실행 중인 다른 노드의 반영되지 않은 증가분을 덮어쓰므로 다른 write-behind consumer가 모두 멈춰있을 때만 실행한다.
+     * 이미 다른 노드가 실행 중이라면 실행하지 않는다.
+     */
+    public void recount() {
+        try {
+            distributeLockExecutor.execute(getIssueWriteBehindRecountLockKey(), 0, 60_000, () -> {
+                flush();
+                Integer coupons = transactionTemplate.execute(status ->
+                        couponJpaRepository.recountIssuedQuantity(LocalDateTime.now().minusDays(1)));
+                log.info("write-behind recount. coupons: %s".formatted(coupons));
+            });
+        } catch (IllegalStateException e) {
+            log.warn("write-behind recount skipped. 다른 노드에서 실행 중입니다.");
+        }
+    }
+
+    // 증가분을 반영하고, 이번 반영으로 모두 발급되었다면 이벤트를 발행한다.
+    private void flush(long couponId, int delta) {
+        couponJpaRepository.addIssuedQuantity(couponId, delta);
+        couponJpaRepository.findById(couponId)
+                .filter(coupon -> coupon.getTotalQuantity() != null)
+                .filter(coupon -> coupon.getIssuedQuantity() >= coupon.getTotalQuantity() && coupon.getIssuedQuantity() - delta < coupon.getTotalQuantity())
+                .ifPresent(coupon -> applicationEventPublisher.publishEvent(new CouponIssueCompleteEvent(couponId)));
+    }
+
+}
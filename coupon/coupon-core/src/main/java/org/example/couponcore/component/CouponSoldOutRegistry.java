@@ -0,0 +1,105 @@
+package org.example.couponcore.component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.Set;
+
+import static org.example.couponcore.util.CouponRedisUtils.getIssueSoldOutChannel;
+import static org.example.couponcore.util.CouponRedisUtils.getIssueSoldOutCouponsKey;
+
+/**
+ * 발급 수량이 모두 소진된 쿠폰 목록 (노드별 로컬 bitmap)
+ * 소진된 쿠폰은 Redis Set(issue.soldout)에 기록하고 pub/sub 채널로 모든 노드에 알린다.
+ * 각 노드는 소진된 쿠폰을 로컬 bitmap에 보관하고, 발급 요청을 Redis 스크립트 호출 없이 바로 거절한다.
+ * bitmap은 조회가 대부분이므로 변경할 때만 복사본을 만들어 교체한다. (copy-on-write, 조회는 lock 없이 처리)
+ * 쿠폰 ID를 bit index로 사용하므로 int 범위를 넘는 쿠폰 ID는 기록하지 않는다. (항상 Redis 스크립트로 확인)
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class CouponSoldOutRegistry implements MessageListener {
+
+    private final RedisRepository redisRepository;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private volatile BitSet soldOut = new BitSet();
+
+    @PostConstruct
+    void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(getIssueSoldOutChannel()));
+    }
+
+    /**
+     * 시작할 때 이미 소진된 쿠폰 목록을 불러온다. (구독 전에 발행된 메시지 보완)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Set<String> couponIds = redisRepository.sMembers(getIssueSoldOutCouponsKey());
+        if (couponIds == null) {
+            return;
+        }
+        couponIds.forEach(couponId -> markLocal(Long.parseLong(couponId)));
+        log.info("sold out coupons loaded. count: %s".formatted(couponIds.size()));
+    }
+
+    /**
+     * 소진된 쿠폰인지 확인한다. (로컬 bitmap 조회)
+     *
+     * @param couponId
+     * @return
+     */
+    public boolean isSoldOut(long couponId) {
+        return couponId >= 0 && couponId <= Integer.MAX_VALUE && soldOut.get((int) couponId);
+    }
+
+    /**
+     * 쿠폰을 소진 처리하고, 처음 소진 처리한 노드가 모든 노드에 알린다.
+     *
+     * @param couponId
+     */
+    public void markSoldOut(long couponId) {
+        if (isSoldOut(couponId)) {
+            return;
+        }
+        markLocal(couponId);
+        Long added = redisRepository.sAdd(getIssueSoldOutCouponsKey(), String.valueOf(couponId));
+        if (added != null && added > 0) {
+            redisRepository.publish(getIssueSoldOutChannel(), String.valueOf(couponId));
+            log.info("coupon sold out. couponId: %s".formatted(couponId));
+        }
+    }
+
+    // 다른 노드에서 발행한 소진 메시지 수신
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String couponId = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            markLocal(Long.parseLong(couponId));
+        } catch (NumberFormatException e) {
+            log.error("잘못된 소진 메시지입니다. message: %s".formatted(couponId), e);
+        }
+    }
+
+    // 로컬 bitmap의 복사본에 기록한 뒤 교체한다.
+    private synchronized void markLocal(long couponId) {
+        if (couponId < 0 || couponId > Integer.MAX_VALUE || soldOut.get((int) couponId)) {
+            return;
+        }
+        BitSet copy = (BitSet) soldOut.clone();
+        copy.set((int) couponId);
+        soldOut = copy;
+    }
+
+}
@@ -0,0 +1,125 @@
+package org.example.couponcore.component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.example.couponcore.util.CouponRedisUtils.*;
+
+/**
+ * 대기열 입장 토큰 발급 (coupon.issue.waiting-room.admitter.enabled=true)
+ * admit-interval-ms 마다 대기열을 사용하는 쿠폰별로 먼저 입장한 유저 admit-batch-size 명에게 입장 토큰을 발급한다.
+ * 발급 요청이 한번에 몰리지 않고 쿠폰마다 정해진 속도(admit-batch-size / admit-interval-ms)로만 들어오도록 한다.
+ * - 쿠폰마다 admit-interval-ms 동안 유지되는 키(SET NX PX)를 저장한 노드만 그 주기에 발급하므로,
+ *   여러 노드에서 실행해도 속도는 노드 수와 관계없다. (키를 저장한 노드가 발급 도중 종료되면 그 주기는 건너뛴다)
+ * - 토큰을 먼저 저장한 뒤 대기열에서 제거하므로, 순번을 확인하는 유저는 항상 대기열이나 입장 토큰 중 하나에 있다.
+ * - 입장 토큰은 token-ttl-ms 동안 한 번만 사용할 수 있고, 만료되면 대기열에 다시 입장해야 한다.
+ * - 소진된 쿠폰의 대기열은 비운다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class CouponWaitingRoomAdmitter {
+
+    private final RedisRepository redisRepository;
+    private final CouponSoldOutRegistry couponSoldOutRegistry;
+
+    // 발급 주기 키에 저장하는 노드 식별자
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "waiting-room-admitter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${coupon.issue.waiting-room.admitter.enabled:false}")
+    private boolean enabled;
+
+    // 입장 토큰을 발급하는 주기
+    @Value("${coupon.issue.waiting-room.admit-interval-ms:100}")
+    private long admitIntervalMillis;
+
+    // 한 주기에 쿠폰마다 입장 토큰을 발급하는 유저 수
+    @Value("${coupon.issue.waiting-room.admit-batch-size:100}")
+    private int admitBatchSize;
+
+    // 입장 토큰 만료 시간
+    @Value("${coupon.issue.waiting-room.token-ttl-ms:60000}")
+    private long tokenTtlMillis;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::tick, admitIntervalMillis, admitIntervalMillis, TimeUnit.MILLISECONDS);
+        log.info("waiting room admitter started. batchSize: %s, intervalMs: %s".formatted(admitBatchSize, admitIntervalMillis));
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void tick() {
+        try {
+            admit();
+        } catch (Exception e) {
+            log.error("대기열 입장 토큰 발급 실패", e);
+        }
+    }
+
+    // 대기열에 유저가 남아있는 쿠폰마다 입장 토큰을 발급한다.
+    void admit() {
+        Set<String> couponIds = redisRepository.sMembers(getIssueWaitingRoomCouponsKey());
+        if (couponIds == null) {
+            return;
+        }
+        for (String couponId : couponIds) {
+            try {
+                admit(Long.parseLong(couponId));
+            } catch (Exception e) {
+                log.error("대기열 입장 토큰 발급 실패 couponId: %s".formatted(couponId), e);
+            }
+        }
+    }
+
+    private void admit(long couponId) {
+        if (couponSoldOutRegistry.isSoldOut(couponId)) {
+            redisRepository.clearWaitingRoom(couponId);
+            return;
+        }
+        // 이번 주기에 다른 노드가 이미 발급했다면 넘어간다.
+        if (!redisRepository.setIfAbsent(getIssueWaitingRoomAdmitGateKey(couponId), nodeId, Duration.ofMillis(admitIntervalMillis))) {
+            return;
+        }
+        String waitingRoomKey = getIssueWaitingRoomKey(couponId);
+        List<String> userIds = redisRepository.zRange(waitingRoomKey, 0, admitBatchSize - 1);
+        if (userIds.isEmpty()) {
+            redisRepository.removeWaitingRoomIfEmpty(couponId);
+            return;
+        }
+        Map<Long, String> tokens = new LinkedHashMap<>();
+        for (String userId : userIds) {
+            tokens.put(Long.parseLong(userId), UUID.randomUUID().toString());
+        }
+        redisRepository.saveAdmissionTokens(couponId, tokens, Duration.ofMillis(tokenTtlMillis));
+        redisRepository.zRem(waitingRoomKey, userIds);
+        log.debug("admitted couponId: %s, count: %s".formatted(couponId, userIds.size()));
+    }
+
+}
@@ -7,6 +7,7 @@ import org.redisson.api.RedissonClient;
 import org.springframework.stereotype.Component;
 
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * 분산락 처리를 위한 Executor
@@ -24,13 +25,26 @@ public class DistributeLockExecutor {
      * @param logic 분산락 처리 로직
      */
     public void execute(String lockName, long waitMilliSecond, long leaseMilliSecond, Runnable logic) {
+        execute(lockName, waitMilliSecond, leaseMilliSecond, () -> {
+            logic.run();
+            return null;
+        });
+    }
+
+    /**
+     * 분산락 처리 (결과 반환)
+     *
+     * @param logic 분산락 처리 로직
+     * @return 분산락 처리 로직의 결과
+     */
+    public <T> T execute(String lockName, long waitMilliSecond, long leaseMilliSecond, Supplier<T> logic) {
         RLock lock = redissonClient.getLock(lockName);
         try {
             boolean isLocked = lock.tryLock(waitMilliSecond, leaseMilliSecond, TimeUnit.MILLISECONDS);
             if (!isLocked) {
                 throw new IllegalStateException("[" + lockName + "] lock 획득 실패");
             }
-            logic.run();
+            return logic.get();
         } catch (InterruptedException e) {
             log.error(e.getMessage(), e);
             throw new RuntimeException(e);
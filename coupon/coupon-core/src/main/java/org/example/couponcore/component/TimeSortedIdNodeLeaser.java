@@ -0,0 +1,141 @@
+package org.example.couponcore.component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.example.couponcore.util.TimeSortedIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.example.couponcore.util.CouponRedisUtils.getIdNodeLeaseKey;
+import static org.example.couponcore.util.TimeSortedIdGenerator.MAX_NODE_ID;
+
+/**
+ * 시간순 ID 생성기의 node id를 정한다.
+ * - coupon.id.node-id를 설정했다면 그 값을 사용한다. (인스턴스마다 달라야 한다)
+ * - 설정하지 않았다면 Redis에서 비어있는 node id를 빌린다. (SET NX PX, 값은 인스턴스 식별자)
+ *   빌린 node id는 renew-interval-ms 마다 만료 시간을 연장하고, 빌릴 수 있는 node id가 없다면 애플리케이션을 시작하지 않는다.
+ * Redis 장애로 만료 전에 연장하지 못할 것 같거나 다른 인스턴스가 가져갔다면 같은 ID를 만들지 않도록 ID 생성을 멈추고 다시 빌린다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class TimeSortedIdNodeLeaser {
+
+    private final RedisRepository redisRepository;
+
+    private final String owner = UUID.randomUUID().toString();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "id-node-leaser");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 설정하면 Redis에서 빌리지 않고 이 값을 사용한다. (0 ~ 1023, -1이면 빌린다)
+    @Value("${coupon.id.node-id:-1}")
+    private long configuredNodeId;
+
+    // 빌린 node id의 만료 시간
+    @Value("${coupon.id.lease.ttl-ms:30000}")
+    private long ttlMillis;
+
+    // 빌린 node id의 만료 시간을 연장하는 주기 (ttl-ms 보다 충분히 짧게 잡는다)
+    @Value("${coupon.id.lease.renew-interval-ms:10000}")
+    private long renewIntervalMillis;
+
+    private volatile long nodeId = -1L;
+    // 마지막으로 빌리거나 연장한 요청을 보낸 시각 (이 시각 + ttl-ms 까지는 다른 인스턴스가 가져갈 수 없다)
+    private long renewedAt;
+
+    @PostConstruct
+    void start() {
+        if (configuredNodeId >= 0) {
+            TimeSortedIdGenerator.setNodeId(configuredNodeId);
+            nodeId = configuredNodeId;
+            log.info("id node configured. nodeId: %s".formatted(nodeId));
+            return;
+        }
+        if (!acquire()) {
+            throw new IllegalStateException("빌릴 수 있는 node id가 없습니다. coupon.id.node-id를 설정하거나 실행 중인 인스턴스 수를 확인하세요.");
+        }
+        scheduler.scheduleWithFixedDelay(this::renew, renewIntervalMillis, renewIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 연장을 멈춘다. 빌린 node id는 종료 중에도 ID를 만들 수 있도록 삭제하지 않고 만료되게 둔다.
+     */
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 빌린 node id의 만료 시간을 연장한다.
+     * 키가 사라졌다면(만료, 삭제) 같은 node id를 다시 빌리고, 다른 인스턴스가 가져갔다면 ID 생성을 멈추고 다른 node id를 빌린다.
+     */
+    void renew() {
+        long now = System.currentTimeMillis();
+        try {
+            if (nodeId >= 0) {
+                String key = getIdNodeLeaseKey(nodeId);
+                Duration ttl = Duration.ofMillis(ttlMillis);
+                if (redisRepository.expireIfEquals(key, owner, ttl) || redisRepository.setIfAbsent(key, owner, ttl)) {
+                    renewedAt = now;
+                    return;
+                }
+                log.warn("id node taken by another instance. nodeId: %s".formatted(nodeId));
+            }
+        } catch (Exception e) {
+            log.error("id node renew 실패 nodeId: %s".formatted(nodeId), e);
+            // 다음 연장 전까지 만료되지 않는다면 계속 사용한다.
+            if (now + renewIntervalMillis - renewedAt < ttlMillis) {
+                return;
+            }
+        }
+        release();
+        try {
+            acquire();
+        } catch (Exception e) {
+            log.error("id node acquire 실패", e);
+        }
+    }
+
+    // 임의의 위치부터 비어있는 node id를 찾아 빌린다.
+    private boolean acquire() {
+        long start = ThreadLocalRandom.current().nextLong(MAX_NODE_ID + 1);
+        for (long i = 0; i <= MAX_NODE_ID; i++) {
+            long candidate = (start + i) % (MAX_NODE_ID + 1);
+            long now = System.currentTimeMillis();
+            if (redisRepository.setIfAbsent(getIdNodeLeaseKey(candidate), owner, Duration.ofMillis(ttlMillis))) {
+                renewedAt = now;
+                nodeId = candidate;
+                TimeSortedIdGenerator.setNodeId(candidate);
+                log.info("id node leased. nodeId: %s".formatted(candidate));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 다른 인스턴스와 같은 ID를 만들지 않도록 ID 생성을 멈춘다.
+    private void release() {
+        if (nodeId >= 0) {
+            TimeSortedIdGenerator.clearNodeId();
+            nodeId = -1L;
+        }
+    }
+
+}
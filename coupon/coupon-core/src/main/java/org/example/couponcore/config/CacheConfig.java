@@ -1,6 +1,7 @@
 package org.example.couponcore.config;
 
 import lombok.RequiredArgsConstructor;
+import org.example.couponcore.repository.redis.CouponRedisEntitySerializer;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -31,8 +32,13 @@ public class CacheConfig {
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
                 .entryTtl(Duration.ofMinutes(30)); // 캐시 만료 시간 30분
 
+        // 쿠폰 캐시는 전용 바이너리 serializer를 사용한다. (기존 JSON 캐시도 읽을 수 있음)
+        RedisCacheConfiguration couponCacheConfiguration = redisCacheConfiguration
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new CouponRedisEntitySerializer()));
+
         return RedisCacheManager.RedisCacheManagerBuilder.fromConnectionFactory(redisConnectionFactory)
                 .cacheDefaults(redisCacheConfiguration)
+                .withCacheConfiguration("coupon", couponCacheConfiguration)
                 .build();
     }
 
@@ -1,6 +1,9 @@
 package org.example.couponcore.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.couponcore.service.CouponCacheService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
@@ -10,18 +13,29 @@ import java.time.Duration;
 
 /**
  * caffeine 라이브러리로 로컬 캐시 설정
+ * 쿠폰이 변경되면 pub/sub 메시지로 모든 노드의 로컬 캐시를 삭제하므로 만료 시간은 메시지 유실에 대비한 상한이다.
+ * refresh-after-write가 지난 값은 조회할 때 그대로 반환하고 비동기로 redis 캐시에서 다시 불러온다. (만료 시점에 요청이 몰리지 않도록)
  */
 @Configuration
 public class LocalCacheConfig {
 
+    @Value("${coupon.cache.local.expire-after-write-seconds:300}")
+    private long expireAfterWriteSeconds;
+
+    @Value("${coupon.cache.local.refresh-after-write-seconds:10}")
+    private long refreshAfterWriteSeconds;
+
     @Bean
-    public CacheManager localCacheManager() {
+    public CacheManager localCacheManager(ObjectProvider<CouponCacheService> couponCacheService) {
         CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
         caffeineCacheManager.setCaffeine(
                 Caffeine.newBuilder()
-                        .expireAfterWrite(Duration.ofSeconds(10))
+                        .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                        .refreshAfterWrite(Duration.ofSeconds(refreshAfterWriteSeconds))
                         .maximumSize(1000)
         );
+        // 다시 불러올 때는 redis 캐시를 조회한다. (캐시 key는 couponId)
+        caffeineCacheManager.setCacheLoader(key -> couponCacheService.getObject().getCouponCache((Long) key));
         return caffeineCacheManager;
     }
 
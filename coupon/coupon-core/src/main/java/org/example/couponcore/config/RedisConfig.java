@@ -3,29 +3,40 @@ package org.example.couponcore.config;
 import org.redisson.Redisson;
 import org.redisson.api.RedissonClient;
 import org.redisson.config.Config;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
 /**
- * 분산락 처리를 위한 Redisson 설정
+ * 분산락 처리를 위한 Redisson 설정, pub/sub 메시지 수신 설정
+ * RedisTemplate(Lettuce)은 spring.data.redis 설정으로 자동 구성되며, spring.data.redis.cluster.nodes가 있다면 Redis Cluster로 연결한다.
  */
 @Configuration
 public class RedisConfig {
 
-    @Value("${spring.data.redis.host}")
-    private String host;
-
-    @Value("${spring.data.redis.port}")
-    private int port;
-
-    // RedissonClient 빈 등록
+    // RedissonClient 빈 등록 (spring.data.redis.cluster.nodes가 있다면 RedisTemplate과 같은 Redis Cluster에 연결한다)
     @Bean
-    RedissonClient redissonClient() {
+    RedissonClient redissonClient(RedisProperties redisProperties) {
         Config config = new Config();
-        String address = "redis://" + host + ":" + port;
+        RedisProperties.Cluster cluster = redisProperties.getCluster();
+        if (cluster != null && cluster.getNodes() != null && !cluster.getNodes().isEmpty()) {
+            config.useClusterServers()
+                    .addNodeAddress(cluster.getNodes().stream().map(node -> "redis://" + node).toArray(String[]::new));
+            return Redisson.create(config);
+        }
+        String address = "redis://" + redisProperties.getHost() + ":" + redisProperties.getPort();
         config.useSingleServer().setAddress(address);
         return Redisson.create(config);
     }
 
+    // pub/sub 메시지 수신 컨테이너 빈 등록 (리스너는 각 컴포넌트에서 채널과 함께 등록한다)
+    @Bean
+    RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        return container;
+    }
+
 }
@@ -9,7 +9,10 @@ public class CouponIssueException extends RuntimeException {
 
     private final String message;
 
+    // 요청 실패(FAIL_COUPON_ISSUE_REQUEST)가 아닌 발급 규칙 위반은 자주 발생하므로 stack trace를 만들지 않는다.
+    // 함께 실패한 후속 처리(입장 토큰 복구 등)를 addSuppressed로 남길 수 있도록 suppression은 유지한다.
     public CouponIssueException(ErrorCode errorCode, String message) {
+        super(null, null, true, errorCode == ErrorCode.FAIL_COUPON_ISSUE_REQUEST);
         this.errorCode = errorCode;
         this.message = message;
     }
@@ -6,7 +6,10 @@ public enum ErrorCode {
     INVALID_COUPON_ISSUE_DATE("쿠폰 발급 기간이 유효하지 않습니다."),
     COUPON_NOT_EXIST("쿠폰이 존재하지 않습니다."),
     DUPLICATE_COUPON_ISSUE("이미 발급된 쿠폰입니다."),
-    FAIL_COUPON_ISSUE_REQUEST("쿠폰 발급 요청에 실패했습니다.");
+    FAIL_COUPON_ISSUE_REQUEST("쿠폰 발급 요청에 실패했습니다."),
+    TOO_MANY_COUPON_ISSUE_REQUEST("쿠폰 발급 요청이 너무 많습니다. 잠시 후 다시 시도해주세요."),
+    NOT_ADMITTED_COUPON_ISSUE("대기열 입장 토큰이 없거나 유효하지 않습니다. 대기열에 다시 입장해주세요."),
+    LEASED_COUPON_ISSUE("노드로 빌린 수량으로 발급하는 쿠폰입니다. /v2/issue-async로 요청해주세요.");
 
     public final String message;
 
@@ -46,13 +46,34 @@ public class Coupon extends BaseTimeEntity {
     @Column(nullable = false)
     private LocalDateTime dateIssueEnd;
 
+    // 발급 수량을 나눠 관리하는 counter slot 수 (null이면 issuedQuantity를 직접 증가시킨다)
+    // counter slot을 사용하면 issuedQuantity는 slot 합계로 주기적으로 갱신되는 값이다.
+    private Integer counterSlots;
+
+    // 발급 요청 유저를 Redis에 저장하는 방식 (null이면 SET)
+    @Enumerated(value = EnumType.STRING)
+    private IssuedUserStorage issuedUserStorage;
+
+    // 발급 요청을 나누는 분할 수 (null이나 1 이하면 나누지 않는다)
+    // 요청이 아주 많은 쿠폰의 발급 요청 유저 Set과 수량을 여러 Redis 키(Cluster에서는 여러 slot)로 나눈다.
+    private Integer spreadFactor;
+
+    // 대기열(waiting room) 사용 여부 (null이면 사용하지 않는다)
+    // 대기열을 사용하는 쿠폰은 입장 순서대로 발급한 입장 토큰이 있어야 발급 요청을 받는다.
+    private Boolean waitingRoom;
+
     // 발급 가능한 수량이 남아있는지 확인한다.
     public boolean availableIssueQuantity() {
+        return availableIssueQuantity(1);
+    }
+
+    // 요청한 수량만큼 발급 가능한 수량이 남아있는지 확인한다.
+    public boolean availableIssueQuantity(int quantity) {
         // 발급 수량에 제한이 없는 경우
         if (totalQuantity == null) {
             return true;
         }
-        return totalQuantity > issuedQuantity;
+        return totalQuantity - issuedQuantity >= quantity;
     }
 
     // 현재 시간이 쿠폰 발급 시작 날짜 이후이면서 동시에 발급 종료 날짜 이전인 경우에만 true를 반환해.
@@ -68,17 +89,52 @@ public class Coupon extends BaseTimeEntity {
         return dateIssueEnd.isBefore(now) || !availableIssueQuantity();
     }
 
+    // 발급 수량을 counter slot으로 나눠 관리하는지 확인한다.
+    public boolean isShardedCounter() {
+        return counterSlots != null && counterSlots > 0;
+    }
+
+    // 발급 수량을 counter slot으로 나눠 관리한다.
+    public void enableShardedCounter(int slots) {
+        this.counterSlots = slots;
+    }
+
+    // 발급 요청 유저를 Redis bitmap으로 저장하는지 확인한다.
+    public boolean isBitmapIssuedUserStorage() {
+        return issuedUserStorage == IssuedUserStorage.BITMAP;
+    }
+
+    // 발급 요청을 여러 분할로 나누는지 확인한다.
+    public boolean isSpread() {
+        return spreadFactor != null && spreadFactor > 1;
+    }
+
+    // 대기열을 사용하는지 확인한다.
+    public boolean isWaitingRoom() {
+        return Boolean.TRUE.equals(waitingRoom);
+    }
+
     // 발급된 수량을 증가시킨다.
     public void issue() {
-        if (!availableIssueQuantity()) {
+        issue(1);
+    }
+
+    // 발급된 수량을 요청한 수량만큼 한번에 증가시킨다. (일괄 발급)
+    public void issue(int quantity) {
+        if (!availableIssueQuantity(quantity)) {
             throw new CouponIssueException(ErrorCode.INVALID_COUPON_ISSUE_QUANTITY,
-                    "발급 가능한 수량이 남아있지 않습니다. total : %s, issue : %s".formatted(totalQuantity, issuedQuantity));
+                    "발급 가능한 수량이 남아있지 않습니다. total : %s, issue : %s, request : %s".formatted(totalQuantity, issuedQuantity, quantity));
         }
+        checkIssueDate();
+        issuedQuantity += quantity;
+    }
+
+    // 발급 기간이 아니라면 예외를 던진다.
+    public void checkIssueDate() {
         if (!availableIssueDate()) {
             throw new CouponIssueException(ErrorCode.INVALID_COUPON_ISSUE_DATE,
                     "쿠폰 발급 기간이 아닙니다. request : %s, issuedStart : %s, issueEnd: %s".formatted(LocalDateTime.now(), dateIssueStart, dateIssueEnd));
         }
-        issuedQuantity++;
     }
 
 }
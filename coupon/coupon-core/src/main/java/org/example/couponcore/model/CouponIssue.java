@@ -14,11 +14,14 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Getter
 @Entity
-@Table(name = "coupon_issues")
+// 같은 유저에게 같은 쿠폰이 두번 발급되지 않도록 DB에서 보장하고, 중복 검사도 이 인덱스로 처리한다.
+@Table(name = "coupon_issues", indexes = {
+        @Index(name = "uk_coupon_issues_coupon_id_user_id", columnList = "coupon_id, user_id", unique = true)
+})
 public class CouponIssue extends BaseTimeEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeSortedId
     private Long id;
 
     @Column(nullable = false)
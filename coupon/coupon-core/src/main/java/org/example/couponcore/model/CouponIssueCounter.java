@@ -0,0 +1,40 @@
+package org.example.couponcore.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 쿠폰 발급 수량 counter slot
+ * 요청이 몰리는 쿠폰의 발급 수량을 여러 row로 나눠 증가시켜 coupons row 하나에 lock이 몰리지 않도록 한다.
+ * slot마다 발급 가능한 수량(quota)을 나눠 가지므로 slot의 quota 합이 쿠폰의 전체 수량이 되어 초과 발급되지 않는다.
+ */
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Entity
+@Table(name = "coupon_issue_counters", indexes = {
+        @Index(name = "uk_coupon_issue_counters_coupon_id_slot", columnList = "coupon_id, slot", unique = true)
+})
+public class CouponIssueCounter extends BaseTimeEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long couponId;
+
+    @Column(nullable = false)
+    private int slot;
+
+    // slot에서 발급 가능한 수량 (null이면 제한 없음)
+    private Integer quota;
+
+    @Column(nullable = false)
+    private int issuedQuantity;
+
+}
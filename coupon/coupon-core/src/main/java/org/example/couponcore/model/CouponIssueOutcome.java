@@ -0,0 +1,29 @@
+package org.example.couponcore.model;
+
+import org.example.couponcore.exception.ErrorCode;
+
+/**
+ * 쿠폰 발급 요청 결과
+ * 소진, 중복, 발급 기간이 아닌 요청은 정상적인 거절이므로 예외 대신 결과로 반환한다.
+ */
+public enum CouponIssueOutcome {
+
+    SUCCESS(null),
+    DUPLICATED(ErrorCode.DUPLICATE_COUPON_ISSUE),
+    SOLD_OUT(ErrorCode.INVALID_COUPON_ISSUE_QUANTITY),
+    OUT_OF_WINDOW(ErrorCode.INVALID_COUPON_ISSUE_DATE),
+    NOT_ADMITTED(ErrorCode.NOT_ADMITTED_COUPON_ISSUE),
+    LEASED(ErrorCode.LEASED_COUPON_ISSUE);
+
+    // 거절 사유 (성공이라면 null)
+    public final ErrorCode errorCode;
+
+    CouponIssueOutcome(ErrorCode errorCode) {
+        this.errorCode = errorCode;
+    }
+
+    public boolean isSuccess() {
+        return this == SUCCESS;
+    }
+
+}
@@ -0,0 +1,25 @@
+package org.example.couponcore.model;
+
+/**
+ * 대기열 입장 결과
+ * 입장 토큰을 받기 전에는 대기 순번을, 받은 뒤에는 발급 요청에 함께 보내는 입장 토큰을 반환한다.
+ *
+ * @param admitted       입장 토큰을 받았는지 (대기열을 사용하지 않는 쿠폰은 토큰 없이 바로 입장한다)
+ * @param position       대기 순번 (1부터 시작, 입장했다면 0)
+ * @param admissionToken 입장 토큰 (대기열을 사용하지 않는 쿠폰은 null)
+ */
+public record CouponWaitingRoomTicket(
+        boolean admitted,
+        long position,
+        String admissionToken
+) {
+
+    public static CouponWaitingRoomTicket waiting(long position) {
+        return new CouponWaitingRoomTicket(false, position, null);
+    }
+
+    public static CouponWaitingRoomTicket admitted(String admissionToken) {
+        return new CouponWaitingRoomTicket(true, 0, admissionToken);
+    }
+
+}
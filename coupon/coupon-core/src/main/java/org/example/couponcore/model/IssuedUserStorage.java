@@ -0,0 +1,12 @@
+package org.example.couponcore.model;
+
+/**
+ * 쿠폰별 발급 요청 유저를 Redis에 저장하는 방식
+ * BITMAP은 list 전달(coupon.issue.transport=list)에서만 사용하고, 다른 전달 방식은 SET으로 저장한다.
+ */
+public enum IssuedUserStorage {
+
+    SET,   // userId 문자열을 Set에 저장한다. (userId 범위와 관계없이 사용, 유저당 수십 bytes)
+    BITMAP // userId 위치의 bit를 켜고 발급 수는 counter로 관리한다. (0 ~ coupon.issue.bitmap.max-user-id의 조밀한 userId 전용, 최대 userId / 8 bytes)
+
+}
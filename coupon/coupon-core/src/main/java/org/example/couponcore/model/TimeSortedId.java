@@ -0,0 +1,33 @@
+package org.example.couponcore.model;
+
+import org.example.couponcore.util.TimeSortedIdGenerator;
+import org.hibernate.annotations.IdGeneratorType;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * 시간순 64bit ID를 애플리케이션에서 생성한다. (IDENTITY와 달리 INSERT batch 가능)
+ *
+ * @see TimeSortedIdGenerator
+ */
+@IdGeneratorType(TimeSortedId.Generator.class)
+@Retention(RUNTIME)
+@Target(FIELD)
+public @interface TimeSortedId {
+
+    class Generator implements IdentifierGenerator {
+
+        @Override
+        public Object generate(SharedSessionContractImplementor session, Object object) {
+            return TimeSortedIdGenerator.nextId();
+        }
+
+    }
+
+}
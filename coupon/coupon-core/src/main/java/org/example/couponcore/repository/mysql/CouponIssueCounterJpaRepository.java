@@ -0,0 +1,56 @@
+package org.example.couponcore.repository.mysql;
+
+import org.example.couponcore.model.CouponIssueCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface CouponIssueCounterJpaRepository extends JpaRepository<CouponIssueCounter, Long> {
+
+    /**
+     * slot의 quota가 남아있을 때만 발급 수량을 하나 증가시킨다.
+     *
+     * @param couponId
+     * @param slot
+     * @return 갱신된 row 수 (0이면 slot의 quota 소진)
+     */
+    @Modifying
+    @Query("""
+            update CouponIssueCounter c
+               set c.issuedQuantity = c.issuedQuantity + 1
+             where c.couponId = :couponId and c.slot = :slot
+               and (c.quota is null or c.issuedQuantity < c.quota)
+            """)
+    int increaseIssuedQuantity(Long couponId, int slot);
+
+    /**
+     * slot의 quota가 count 만큼 남아있을 때만 발급 수량을 count 만큼 증가시킨다.
+     *
+     * @param couponId
+     * @param slot
+     * @param count
+     * @return 갱신된 row 수 (0이면 slot의 남은 quota 부족)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update CouponIssueCounter c
+               set c.issuedQuantity = c.issuedQuantity + :count
+             where c.couponId = :couponId and c.slot = :slot
+               and (c.quota is null or c.issuedQuantity + :count <= c.quota)
+            """)
+    int increaseIssuedQuantity(Long couponId, int slot, int count);
+
+    // 쿠폰의 모든 slot (slot 순서)
+    List<CouponIssueCounter> findByCouponIdOrderBySlot(Long couponId);
+
+    // quota가 남아있는 slot 수 (0이면 모두 소진)
+    @Query("select count(c) from CouponIssueCounter c where c.couponId = :couponId and (c.quota is null or c.issuedQuantity < c.quota)")
+    long countAvailableSlots(Long couponId);
+
+    // 쿠폰의 모든 slot 발급 수량 합
+    @Query("select coalesce(sum(c.issuedQuantity), 0) from CouponIssueCounter c where c.couponId = :couponId")
+    long sumIssuedQuantity(Long couponId);
+
+}
@@ -0,0 +1,66 @@
+package org.example.couponcore.repository.mysql;
+
+import lombok.RequiredArgsConstructor;
+import org.example.couponcore.model.CouponIssue;
+import org.example.couponcore.util.TimeSortedIdGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// 쿠폰 발급 내역을 한번에 저장하기 위한 jdbc repository
+@RequiredArgsConstructor
+@Repository
+public class CouponIssueJdbcRepository {
+
+    private static final String INSERT_COUPON_ISSUE_SQL = """
+            INSERT INTO coupon_issues (id, coupon_id, user_id, date_issued, date_created, date_updated)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 쿠폰 발급 내역 저장 (INSERT 한번)
+     * JPA로 저장할 때와 달리 영속성 컨텍스트를 flush 하지 않으므로 unique index 위반을 INSERT 시점에 바로 알 수 있다.
+     *
+     * @param couponId
+     * @param userId
+     * @return 저장한 발급 내역
+     */
+    public CouponIssue save(long couponId, long userId) {
+        long id = TimeSortedIdGenerator.nextId();
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        jdbcTemplate.update(INSERT_COUPON_ISSUE_SQL, id, couponId, userId, timestamp, timestamp, timestamp);
+        return CouponIssue.builder()
+                .id(id)
+                .couponId(couponId)
+                .userId(userId)
+                .dateIssued(now)
+                .build();
+    }
+
+    /**
+     * 쿠폰 발급 내역 일괄 저장 (bulk insert)
+     * rewriteBatchedStatements=true 옵션으로 MySQL에는 multi-row insert 한번으로 전송된다.
+     * ID는 JPA로 저장할 때와 같은 시간순 ID 생성기로 만든다.
+     *
+     * @param couponId
+     * @param userIds
+     */
+    public void saveAll(long couponId, List<Long> userIds) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_COUPON_ISSUE_SQL, userIds, userIds.size(), (ps, userId) -> {
+            ps.setLong(1, TimeSortedIdGenerator.nextId());
+            ps.setLong(2, couponId);
+            ps.setLong(3, userId);
+            ps.setTimestamp(4, now);
+            ps.setTimestamp(5, now);
+            ps.setTimestamp(6, now);
+        });
+    }
+
+}
@@ -0,0 +1,11 @@
+package org.example.couponcore.repository.mysql;
+
+/**
+ * 쿠폰 발급 수량을 증가시킬 때 쿠폰 row의 동시 접근을 제어하는 방식 (coupon.issue.lock-mode)
+ *
+ * @see CouponJpaRepository#increaseIssuedQuantity(Long, java.time.LocalDateTime)
+ */
+public enum CouponIssueLockMode {
+    PESSIMISTIC, // SELECT ... FOR UPDATE로 쿠폰 row lock을 트랜잭션 내내 잡고 검증 후 증가
+    CONDITIONAL  // 수량, 기간 조건이 포함된 UPDATE 한번으로 증가 (갱신된 row 수로 성공 여부 판단)
+}
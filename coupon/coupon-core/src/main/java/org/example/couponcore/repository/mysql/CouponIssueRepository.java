@@ -6,6 +6,9 @@ import org.example.couponcore.model.CouponIssue;
 import org.example.couponcore.model.QCouponIssue;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import static org.example.couponcore.model.QCouponIssue.*;
 
 // querydsl 사용을 위한 repository
@@ -22,5 +25,13 @@ public class CouponIssueRepository {
                 .fetchFirst();
     }
 
+    // 요청한 유저 중 이미 쿠폰을 발급받은 유저 ID 목록을 조회한다. (일괄 발급 시 중복 제외)
+    public List<Long> findIssuedUserIds(long couponId, Collection<Long> userIds) {
+        return queryFactory.select(couponIssue.userId)
+                .from(couponIssue)
+                .where(couponIssue.couponId.eq(couponId))
+                .where(couponIssue.userId.in(userIds))
+                .fetch();
+    }
 
 }
@@ -4,8 +4,11 @@ import jakarta.persistence.LockModeType;
 import org.example.couponcore.model.Coupon;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface CouponJpaRepository extends JpaRepository<Coupon, Long> {
@@ -14,4 +17,61 @@ public interface CouponJpaRepository extends JpaRepository<Coupon, Long> {
     @Query("select c from Coupon c where c.id = :couponId")
     Optional<Coupon> findCouponWithLock(Long couponId);
 
+    /**
+     * 발급 수량과 발급 기간 조건을 만족할 때만 발급 수량을 하나 증가시킨다. (조건부 UPDATE)
+     * 쿠폰을 미리 조회해 lock을 잡지 않으므로 row lock은 이 UPDATE부터 커밋까지만 잡힌다.
+     * counter slot을 사용하는 쿠폰은 slot 합계로 발급 수량을 관리하므로 갱신하지 않는다.
+     *
+     * @param couponId
+     * @param now
+     * @return 갱신된 row 수 (0이면 발급 불가)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Coupon c
+               set c.issuedQuantity = c.issuedQuantity + 1, c.dateUpdated = :now
+             where c.id = :couponId
+               and (c.totalQuantity is null or c.issuedQuantity < c.totalQuantity)
+               and c.dateIssueStart < :now and c.dateIssueEnd > :now
+               and (c.counterSlots is null or c.counterSlots = 0)
+            """)
+    int increaseIssuedQuantity(Long couponId, LocalDateTime now);
+
+
+    // 발급 수량을 counter slot으로 나눠 관리하는 쿠폰 중 since 이후까지 발급 기간인 쿠폰
+    @Query("select c from Coupon c where c.counterSlots > 0 and c.dateIssueEnd > :since")
+    List<Coupon> findShardedCounterCoupons(LocalDateTime since);
+
+    /**
+     * counter slot 합계로 발급 수량을 갱신한다. 발급 수량은 줄어들지 않는다.
+     *
+     * @param couponId
+     * @param issuedQuantity
+     * @return 갱신된 row 수
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Coupon c set c.issuedQuantity = :issuedQuantity where c.id = :couponId and c.issuedQuantity < :issuedQuantity")
+    int foldIssuedQuantity(Long couponId, int issuedQuantity);
+
+
+    // 발급 수량을 quantity 만큼 증가시킨다. (write-behind 반영)
+    @Modifying
+    @Query("update Coupon c set c.issuedQuantity = c.issuedQuantity + :quantity where c.id = :couponId")
+    int addIssuedQuantity(Long couponId, int quantity);
+
+    /**
+     * since 이후까지 발급 기간인 쿠폰의 발급 수량을 발급 내역 수로 다시 계산한다. (counter slot을 사용하는 쿠폰 제외)
+     *
+     * @param since
+     * @return 갱신된 쿠폰 수
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = """
+            UPDATE coupons c
+               SET issued_quantity = (SELECT COUNT(*) FROM coupon_issues i WHERE i.coupon_id = c.id)
+             WHERE (c.counter_slots IS NULL OR c.counter_slots = 0)
+               AND c.date_issue_end > :since
+            """, nativeQuery = true)
+    int recountIssuedQuantity(LocalDateTime since);
+
 }
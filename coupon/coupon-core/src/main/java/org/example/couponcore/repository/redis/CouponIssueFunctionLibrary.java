@@ -0,0 +1,190 @@
+package org.example.couponcore.repository.redis;
+
+import org.springframework.data.redis.connection.RedisConnection;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 쿠폰 발급 스크립트를 Redis Functions 라이브러리로 등록하고 FCALL로 호출한다. (Redis 7 이상)
+ * 스크립트 본문을 요청마다 전달하거나 hash 하지 않고, 시작할 때 한번 등록된 함수를 이름으로 호출한다.
+ * - 라이브러리, 함수 이름에 스크립트 본문의 SHA-1(앞 VERSION_LENGTH자리)을 붙인다. 발급 규칙을 바꾸면 이름도 바뀌어 새 라이브러리로 등록되므로
+ *   이전 본문을 호출하는 노드와 함께 운영할 수 있다. (모든 노드를 한번에 배포하지 않아도 되고, REPLACE로 다른 노드의 함수를 덮어쓰지 않는다)
+ * - 등록된 라이브러리는 전체 SHA-1을 반환하는 함수로 확인한다. 없다면 등록하고, 같은 이름인데 SHA-1이 다르다면 시작하지 않는다.
+ * - 이전 본문의 라이브러리는 자동으로 삭제하지 않는다. 모든 노드를 배포한 뒤 FUNCTION DELETE로 삭제한다.
+ */
+public class CouponIssueFunctionLibrary {
+
+    private static final int VERSION_LENGTH = 12;
+    private static final byte[][] NUM_KEYS = {
+            "0".getBytes(StandardCharsets.US_ASCII), "1".getBytes(StandardCharsets.US_ASCII),
+            "2".getBytes(StandardCharsets.US_ASCII), "3".getBytes(StandardCharsets.US_ASCII)
+    };
+
+    private final String version;
+    private final String libraryName;
+    private final byte[] sha1Function;
+    private final byte[] code;
+    private final byte[] sha1;
+    private final Map<String, byte[]> functionNames = new LinkedHashMap<>();
+
+    /**
+     * @param scripts 스크립트 이름 -> 스크립트 본문 (KEYS, ARGV를 사용하는 EVAL 스크립트 그대로)
+     */
+    public CouponIssueFunctionLibrary(Map<String, String> scripts) {
+        StringBuilder source = new StringBuilder();
+        scripts.forEach((name, body) -> source.append(name).append('\n').append(body).append('\n'));
+        String sha1 = sha1(source.toString());
+        this.sha1 = sha1.getBytes(StandardCharsets.US_ASCII);
+        this.version = sha1.substring(0, VERSION_LENGTH);
+        this.libraryName = "coupon_issue_" + version;
+        this.sha1Function = ("coupon_issue_sha1_" + version).getBytes(StandardCharsets.US_ASCII);
+
+        StringBuilder functions = new StringBuilder();
+        scripts.forEach((name, body) -> {
+            String functionName = functionName(name);
+            functionNames.put(name, functionName.getBytes(StandardCharsets.US_ASCII));
+            functions.append("redis.register_function('%s', function(KEYS, ARGV)\n%s\nend)\n".formatted(functionName, body));
+        });
+        this.code = ("#!lua name=%s\n".formatted(libraryName)
+                + functions
+                + "redis.register_function('%s', function() return '%s' end)\n".formatted(new String(sha1Function, StandardCharsets.US_ASCII), sha1))
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String getLibraryName() {
+        return libraryName;
+    }
+
+    // 스크립트 이름에 해당하는 함수 이름 (ex. issue_request -> coupon_issue_request_3f2a9c01b7de)
+    public String functionName(String scriptName) {
+        return "coupon_%s_%s".formatted(scriptName, version);
+    }
+
+    /**
+     * 라이브러리가 등록되어 있지 않다면 등록한다. (REPLACE 하지 않는다)
+     * 다른 노드가 먼저 등록했다면(already exists) 등록된 라이브러리를 사용한다.
+     *
+     * @param connection
+     * @throws IllegalStateException 같은 이름의 라이브러리가 다른 본문(SHA-1)으로 등록되어 있는 경우
+     */
+    public void load(RedisConnection connection) {
+        if (isLoaded(connection)) {
+            return;
+        }
+        try {
+            connection.execute("FUNCTION", "LOAD".getBytes(StandardCharsets.US_ASCII), code);
+        } catch (RuntimeException e) {
+            if (!isAlreadyExistsError(e)) {
+                throw e;
+            }
+            checkLoaded(connection);
+        }
+    }
+
+    /**
+     * 함수 호출 (FCALL), 함수가 없다면(Redis 재시작, FUNCTION FLUSH) 라이브러리를 다시 등록하고 한번 더 호출한다.
+     *
+     * @param connection
+     * @param scriptName
+     * @param numKeys
+     * @param keysAndArgs
+     * @return
+     */
+    public Object call(RedisConnection connection, String scriptName, int numKeys, byte[]... keysAndArgs) {
+        byte[][] args = fcallArgs(scriptName, numKeys, keysAndArgs);
+        try {
+            return connection.execute("FCALL", args);
+        } catch (RuntimeException e) {
+            if (!isFunctionNotFoundError(e)) {
+                throw e;
+            }
+            load(connection);
+            return connection.execute("FCALL", args);
+        }
+    }
+
+    /**
+     * pipeline 안에서 함수 호출 (결과는 pipeline 종료 시 반환된다)
+     *
+     * @param connection
+     * @param scriptName
+     * @param numKeys
+     * @param keysAndArgs
+     */
+    public void callPipelined(RedisConnection connection, String scriptName, int numKeys, byte[]... keysAndArgs) {
+        connection.execute("FCALL", fcallArgs(scriptName, numKeys, keysAndArgs));
+    }
+
+    // 함수가 없어서 실패했는지 확인한다.
+    public static boolean isFunctionNotFoundError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("Function not found")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 등록되어 있다면 true, 같은 이름으로 다른 본문이 등록되어 있다면 예외를 던진다.
+    private boolean isLoaded(RedisConnection connection) {
+        Object loaded;
+        try {
+            loaded = connection.execute("FCALL", sha1Function, NUM_KEYS[0]);
+        } catch (RuntimeException e) {
+            if (isFunctionNotFoundError(e)) {
+                return false;
+            }
+            throw e;
+        }
+        if (!(loaded instanceof byte[] bytes) || !MessageDigest.isEqual(bytes, sha1)) {
+            throw new IllegalStateException("같은 이름의 함수 라이브러리가 다른 본문으로 등록되어 있습니다. library: %s, sha1: %s, loaded: %s"
+                    .formatted(libraryName, new String(sha1, StandardCharsets.US_ASCII),
+                            loaded instanceof byte[] value ? new String(value, StandardCharsets.US_ASCII) : loaded));
+        }
+        return true;
+    }
+
+    // 다른 노드가 등록한 라이브러리가 같은 본문인지 확인한다.
+    private void checkLoaded(RedisConnection connection) {
+        if (!isLoaded(connection)) {
+            throw new IllegalStateException("함수 라이브러리를 등록하지 못했습니다. library: %s".formatted(libraryName));
+        }
+    }
+
+    // 같은 이름의 라이브러리가 이미 등록되어 있어서 실패했는지 확인한다.
+    private static boolean isAlreadyExistsError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("already exists")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // FCALL function numkeys key [key ...] arg [arg ...]
+    private byte[][] fcallArgs(String scriptName, int numKeys, byte[]... keysAndArgs) {
+        byte[] functionName = functionNames.get(scriptName);
+        if (functionName == null) {
+            throw new IllegalArgumentException("등록되지 않은 스크립트입니다. %s".formatted(scriptName));
+        }
+        byte[][] args = new byte[keysAndArgs.length + 2][];
+        args[0] = functionName;
+        args[1] = numKeys < NUM_KEYS.length ? NUM_KEYS[numKeys] : String.valueOf(numKeys).getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(keysAndArgs, 0, args, 2, keysAndArgs.length);
+        return args;
+    }
+
+    private static String sha1(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
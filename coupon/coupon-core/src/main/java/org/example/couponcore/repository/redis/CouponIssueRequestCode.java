@@ -2,6 +2,7 @@ package org.example.couponcore.repository.redis;
 
 import org.example.couponcore.exception.CouponIssueException;
 import org.example.couponcore.exception.ErrorCode;
+import org.example.couponcore.model.CouponIssueOutcome;
 
 /**
  * Redis Script 결과에 대한 코드다.
@@ -12,12 +13,15 @@ import org.example.couponcore.exception.ErrorCode;
  * @see RedisRepository#issueRequest(long, long, int)
  */
 public enum CouponIssueRequestCode {
-    SUCCESS(1),
-    DUPLICATED_COUPON_ISSUE(2),
-    INVALID_COUPON_ISSUE_QUANTITY(3);
+    SUCCESS(1, CouponIssueOutcome.SUCCESS),
+    DUPLICATED_COUPON_ISSUE(2, CouponIssueOutcome.DUPLICATED),
+    INVALID_COUPON_ISSUE_QUANTITY(3, CouponIssueOutcome.SOLD_OUT);
 
-    CouponIssueRequestCode(int code) {
+    // 발급 요청 결과
+    public final CouponIssueOutcome outcome;
 
+    CouponIssueRequestCode(int code, CouponIssueOutcome outcome) {
+        this.outcome = outcome;
     }
 
     /**
@@ -26,8 +30,16 @@ public enum CouponIssueRequestCode {
      * @return
      */
     public static CouponIssueRequestCode find(String code) {
-        int codeValue = Integer.parseInt(code);
-        return switch (codeValue) {
+        return find(Integer.parseInt(code));
+    }
+
+    /**
+     * 코드를 찾는다.
+     * @param code
+     * @return
+     */
+    public static CouponIssueRequestCode find(int code) {
+        return switch (code) {
             case 1 -> SUCCESS;
             case 2 -> DUPLICATED_COUPON_ISSUE;
             case 3 -> INVALID_COUPON_ISSUE_QUANTITY;
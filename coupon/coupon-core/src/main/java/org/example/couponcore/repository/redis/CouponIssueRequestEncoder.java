@@ -0,0 +1,209 @@
+package org.example.couponcore.repository.redis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.example.couponcore.util.CouponRedisUtils.*;
+
+/**
+ * 쿠폰 발급 요청 스크립트(list 전달, SET, BITMAP 저장)의 KEYS, ARGV를 byte 배열로 만든다.
+ * 요청마다 문자열, JSON을 만들지 않도록
+ * - 쿠폰별 발급 요청 키는 byte 배열로 만들어 두고 재사용한다.
+ * - userId, 발급 수량, 발급 요청 JSON({"couponId":1,"userId":1})은 스레드별 버퍼에 직접 쓴다.
+ * 버퍼는 Redis 명령에 그대로 전달되므로 길이별로 배열을 만들어 두고 재사용한다.
+ * 스크립트 실행이 끝날 때까지(동기 호출) 같은 스레드에서 다시 사용하지 않으므로 안전하다.
+ */
+public class CouponIssueRequestEncoder {
+
+    private static final byte[] PAYLOAD_PREFIX = "{\"couponId\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PAYLOAD_USER_ID = ",\"userId\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte PAYLOAD_SUFFIX = '}';
+    private static final int MAX_DIGITS = 19; // Long.MAX_VALUE 자릿수
+    private static final int MAX_CACHED_KEYS = 10_000;
+    private static final int BITMAP_KEYS_AND_ARGS = 6;
+
+    private final byte[] issueRequestQueueKey = getIssueRequestQueueKey().getBytes(StandardCharsets.UTF_8);
+    private final Map<Long, byte[]> issueRequestKeys = new ConcurrentHashMap<>();
+    private final Map<Long, byte[][]> issueRequestBitmapKeys = new ConcurrentHashMap<>();
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    /**
+     * 발급 요청 스크립트의 KEYS[1], KEYS[2], ARGV[1], ARGV[2], ARGV[3]
+     * 반환한 배열과 원소는 같은 스레드의 다음 호출에서 덮어쓴다.
+     *
+     * @param couponId
+     * @param userId
+     * @param totalIssueQuantity
+     * @return
+     */
+    public byte[][] encode(long couponId, long userId, int totalIssueQuantity) {
+        Buffers buffer = buffers.get();
+        byte[] userIdBytes = buffer.userId.write(userId);
+        byte[][] keysAndArgs = buffer.keysAndArgs;
+        keysAndArgs[0] = issueRequestKey(couponId);
+        keysAndArgs[1] = issueRequestQueueKey;
+        keysAndArgs[2] = userIdBytes;
+        keysAndArgs[3] = buffer.totalIssueQuantity.write(totalIssueQuantity);
+        keysAndArgs[4] = buffer.payload(couponId, userIdBytes);
+        return keysAndArgs;
+    }
+
+    /**
+     * 발급 요청 스크립트(BITMAP 저장)의 KEYS[1] ~ KEYS[3], ARGV[1] ~ ARGV[3]
+     * 반환한 배열과 원소는 같은 스레드의 다음 호출에서 덮어쓴다.
+     *
+     * @param couponId
+     * @param userId
+     * @param totalIssueQuantity
+     * @return
+     */
+    public byte[][] encodeBitmap(long couponId, long userId, int totalIssueQuantity) {
+        Buffers buffer = buffers.get();
+        byte[] userIdBytes = buffer.userId.write(userId);
+        byte[][] bitmapKeys = issueRequestBitmapKeys(couponId);
+        byte[][] keysAndArgs = buffer.bitmapKeysAndArgs;
+        keysAndArgs[0] = bitmapKeys[0];
+        keysAndArgs[1] = issueRequestQueueKey;
+        keysAndArgs[2] = bitmapKeys[1];
+        keysAndArgs[3] = userIdBytes;
+        keysAndArgs[4] = buffer.totalIssueQuantity.write(totalIssueQuantity);
+        keysAndArgs[5] = buffer.payload(couponId, userIdBytes);
+        return keysAndArgs;
+    }
+
+    /**
+     * 만든 KEYS, ARGV의 KEYS 수 (BITMAP 저장은 3개, SET 저장은 2개)
+     *
+     * @param keysAndArgs
+     * @return
+     */
+    public static int numKeys(byte[][] keysAndArgs) {
+        return keysAndArgs.length == BITMAP_KEYS_AND_ARGS ? 3 : 2;
+    }
+
+    /**
+     * 발급 요청 스크립트의 KEYS, ARGV를 새 배열로 만든다.
+     * pipeline처럼 여러 요청을 모아서 보낼 때는 버퍼를 재사용할 수 없으므로 이 메서드를 사용한다.
+     *
+     * @param couponId
+     * @param userId
+     * @param totalIssueQuantity
+     * @param bitmap BITMAP 저장 스크립트의 KEYS, ARGV로 만든다.
+     * @return
+     */
+    public byte[][] encodeDetached(long couponId, long userId, int totalIssueQuantity, boolean bitmap) {
+        byte[][] keysAndArgs = bitmap
+                ? encodeBitmap(couponId, userId, totalIssueQuantity).clone()
+                : encode(couponId, userId, totalIssueQuantity).clone();
+        for (int i = numKeys(keysAndArgs); i < keysAndArgs.length; i++) {
+            keysAndArgs[i] = keysAndArgs[i].clone();
+        }
+        return keysAndArgs;
+    }
+
+    // 쿠폰별 발급 요청 키 (쿠폰 수가 너무 많아지면 비우고 다시 만든다)
+    private byte[] issueRequestKey(long couponId) {
+        byte[] key = issueRequestKeys.get(couponId);
+        if (key != null) {
+            return key;
+        }
+        if (issueRequestKeys.size() >= MAX_CACHED_KEYS) {
+            issueRequestKeys.clear();
+        }
+        return issueRequestKeys.computeIfAbsent(couponId, id -> getIssueRequestKey(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 쿠폰별 발급 요청 bitmap, counter 키
+    private byte[][] issueRequestBitmapKeys(long couponId) {
+        byte[][] keys = issueRequestBitmapKeys.get(couponId);
+        if (keys != null) {
+            return keys;
+        }
+        if (issueRequestBitmapKeys.size() >= MAX_CACHED_KEYS) {
+            issueRequestBitmapKeys.clear();
+        }
+        return issueRequestBitmapKeys.computeIfAbsent(couponId, id -> new byte[][]{
+                getIssueRequestBitmapKey(id).getBytes(StandardCharsets.UTF_8),
+                getIssueRequestCountKey(id).getBytes(StandardCharsets.UTF_8)
+        });
+    }
+
+    // 0 이상 정수의 자릿수
+    private static int digits(long value) {
+        long limit = 10;
+        for (int digits = 1; digits < MAX_DIGITS; digits++) {
+            if (value < limit) {
+                return digits;
+            }
+            limit *= 10;
+        }
+        return MAX_DIGITS;
+    }
+
+    // value를 bytes의 [offset, offset + digits) 에 10진수로 쓴다.
+    private static void writeDigits(long value, int digits, byte[] bytes, int offset) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    // 자릿수별로 재사용하는 10진수 버퍼
+    private static class DigitBuffer {
+
+        private final byte[][] bytesByDigits = new byte[MAX_DIGITS + 1][];
+
+        byte[] write(long value) {
+            if (value < 0) {
+                return String.valueOf(value).getBytes(StandardCharsets.US_ASCII);
+            }
+            int digits = digits(value);
+            byte[] bytes = bytesByDigits[digits];
+            if (bytes == null) {
+                bytes = bytesByDigits[digits] = new byte[digits];
+            }
+            writeDigits(value, digits, bytes, 0);
+            return bytes;
+        }
+
+    }
+
+    // 스레드별 버퍼
+    private static class Buffers {
+
+        private final byte[][] keysAndArgs = new byte[5][];
+        private final byte[][] bitmapKeysAndArgs = new byte[BITMAP_KEYS_AND_ARGS][];
+        private final DigitBuffer userId = new DigitBuffer();
+        private final DigitBuffer totalIssueQuantity = new DigitBuffer();
+        private final byte[][] payloadsByLength =
+                new byte[PAYLOAD_PREFIX.length + MAX_DIGITS + PAYLOAD_USER_ID.length + MAX_DIGITS + 2][];
+
+        // {"couponId":<couponId>,"userId":<userId>}
+        byte[] payload(long couponId, byte[] userIdBytes) {
+            if (couponId < 0 || userIdBytes[0] == '-') {
+                return ("{\"couponId\":%s,\"userId\":%s}".formatted(couponId, new String(userIdBytes, StandardCharsets.US_ASCII)))
+                        .getBytes(StandardCharsets.US_ASCII);
+            }
+            int couponIdDigits = digits(couponId);
+            int length = PAYLOAD_PREFIX.length + couponIdDigits + PAYLOAD_USER_ID.length + userIdBytes.length + 1;
+            byte[] bytes = payloadsByLength[length];
+            if (bytes == null) {
+                bytes = payloadsByLength[length] = new byte[length];
+            }
+            int offset = 0;
+            System.arraycopy(PAYLOAD_PREFIX, 0, bytes, offset, PAYLOAD_PREFIX.length);
+            offset += PAYLOAD_PREFIX.length;
+            writeDigits(couponId, couponIdDigits, bytes, offset);
+            offset += couponIdDigits;
+            System.arraycopy(PAYLOAD_USER_ID, 0, bytes, offset, PAYLOAD_USER_ID.length);
+            offset += PAYLOAD_USER_ID.length;
+            System.arraycopy(userIdBytes, 0, bytes, offset, userIdBytes.length);
+            offset += userIdBytes.length;
+            bytes[offset] = PAYLOAD_SUFFIX;
+            return bytes;
+        }
+
+    }
+
+}
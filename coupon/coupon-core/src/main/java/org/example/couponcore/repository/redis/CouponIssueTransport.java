@@ -0,0 +1,12 @@
+package org.example.couponcore.repository.redis;
+
+/**
+ * 쿠폰 발급 요청을 consumer에게 전달하는 방식 (coupon.issue.transport)
+ *
+ * @see RedisRepository#issueRequest(long, long, int)
+ */
+public enum CouponIssueTransport {
+    LIST,   // issue.request 리스트 큐 (consumer 1개가 소비)
+    STREAM, // issue.request.stream 스트림 + consumer group (여러 consumer가 나눠서 소비)
+    SHARDED // issue.request.queue.{couponId=N} 쿠폰별 큐 (쿠폰별로 나눠서 소비, 큰 쿠폰이 작은 쿠폰을 막지 않는다, Redis Cluster에서 사용)
+}
@@ -0,0 +1,108 @@
+package org.example.couponcore.repository.redis;
+
+import org.example.couponcore.model.CouponType;
+import org.example.couponcore.model.IssuedUserStorage;
+import org.example.couponcore.repository.redis.dto.CouponRedisEntity;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 쿠폰 캐시(CouponRedisEntity) 전용 바이너리 serializer
+ * 클래스 정보와 ISO 날짜 문자열을 저장하는 JSON 대신 고정된 순서로 값만 저장한다. (35 bytes)
+ * [version 1][flags 1][id 8][couponType 1][totalQuantity 4][dateIssueStart 8][dateIssueEnd 8][spreadFactor 4]
+ * - 날짜는 UTC 기준 epoch millis로 저장한다. (millis 미만은 버린다)
+ * - couponType은 enum 순서로 저장하므로 순서를 바꾸거나 필드를 바꾸면 VERSION을 올린다.
+ * - issuedUserStorage, waitingRoom은 flags에 저장한다. (flag가 없는 이전 캐시는 SET, 대기열 사용 안 함으로 읽는다)
+ * - spreadFactor가 없는 VERSION 1 캐시(31 bytes)는 분할 수 1로 읽는다. (배포 중 호환)
+ * 첫 byte가 VERSION(또는 VERSION 1)이 아닌 값(기존 JSON 캐시)은 JSON serializer로 읽는다. (배포 중 호환)
+ */
+public class CouponRedisEntitySerializer implements RedisSerializer<Object> {
+
+    static final byte VERSION = 2;
+    static final int SIZE = 35;
+    private static final byte VERSION_1 = 1;
+    private static final int VERSION_1_SIZE = 31;
+
+    private static final int TOTAL_QUANTITY_NULL = 1;
+    private static final int AVAILABLE_ISSUE_QUANTITY = 1 << 1;
+    private static final int DATE_ISSUE_START_NULL = 1 << 2;
+    private static final int DATE_ISSUE_END_NULL = 1 << 3;
+    private static final int ISSUED_USER_BITMAP = 1 << 4;
+    private static final int WAITING_ROOM = 1 << 5;
+    private static final CouponType[] COUPON_TYPES = CouponType.values();
+
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (!(value instanceof CouponRedisEntity coupon)) {
+            return jsonSerializer.serialize(value);
+        }
+        int flags = 0;
+        if (coupon.totalQuantity() == null) flags |= TOTAL_QUANTITY_NULL;
+        if (coupon.availableIssueQuantity()) flags |= AVAILABLE_ISSUE_QUANTITY;
+        if (coupon.dateIssueStart() == null) flags |= DATE_ISSUE_START_NULL;
+        if (coupon.dateIssueEnd() == null) flags |= DATE_ISSUE_END_NULL;
+        if (coupon.issuedUserStorage() == IssuedUserStorage.BITMAP) flags |= ISSUED_USER_BITMAP;
+        if (coupon.waitingRoom()) flags |= WAITING_ROOM;
+
+        return ByteBuffer.allocate(SIZE)
+                .put(VERSION)
+                .put((byte) flags)
+                .putLong(coupon.id())
+                .put((byte) coupon.couponType().ordinal())
+                .putInt(coupon.totalQuantity() == null ? 0 : coupon.totalQuantity())
+                .putLong(toEpochMilli(coupon.dateIssueStart()))
+                .putLong(toEpochMilli(coupon.dateIssueEnd()))
+                .putInt(coupon.spreadFactor())
+                .array();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != VERSION && bytes[0] != VERSION_1) {
+            return jsonSerializer.deserialize(bytes);
+        }
+        int size = bytes[0] == VERSION ? SIZE : VERSION_1_SIZE;
+        if (bytes.length != size) {
+            throw new SerializationException("쿠폰 캐시 크기가 올바르지 않습니다. length: %s".formatted(bytes.length));
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, size - 1);
+        int flags = buffer.get();
+        long id = buffer.getLong();
+        CouponType couponType = COUPON_TYPES[buffer.get()];
+        int totalQuantity = buffer.getInt();
+        long dateIssueStart = buffer.getLong();
+        long dateIssueEnd = buffer.getLong();
+        int spreadFactor = bytes[0] == VERSION ? buffer.getInt() : 1;
+        return new CouponRedisEntity(
+                id,
+                couponType,
+                (flags & TOTAL_QUANTITY_NULL) != 0 ? null : totalQuantity,
+                (flags & AVAILABLE_ISSUE_QUANTITY) != 0,
+                (flags & DATE_ISSUE_START_NULL) != 0 ? null : toLocalDateTime(dateIssueStart),
+                (flags & DATE_ISSUE_END_NULL) != 0 ? null : toLocalDateTime(dateIssueEnd),
+                (flags & ISSUED_USER_BITMAP) != 0 ? IssuedUserStorage.BITMAP : IssuedUserStorage.SET,
+                spreadFactor,
+                (flags & WAITING_ROOM) != 0
+        );
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime == null ? 0 : dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneOffset.UTC);
+    }
+
+}
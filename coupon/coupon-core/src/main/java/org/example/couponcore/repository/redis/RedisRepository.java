@@ -1,28 +1,135 @@
 package org.example.couponcore.repository.redis;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.example.couponcore.exception.CouponIssueException;
 import org.example.couponcore.exception.ErrorCode;
-import org.example.couponcore.repository.redis.dto.CouponIssueRequest;
+import org.example.couponcore.model.IssuedUserStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.RedisListCommands.Direction;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.stream.*;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.stereotype.Repository;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
-import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestKey;
-import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestQueueKey;
+import static org.example.couponcore.util.CouponRedisUtils.*;
 
+@Slf4j
 @RequiredArgsConstructor
 @Repository
 public class RedisRepository {
 
+    private static final String ISSUE_REQUEST = "issue_request";
+    private static final String ISSUE_REQUEST_BITMAP = "issue_request_bitmap";
+    private static final String ISSUE_REQUEST_STREAM = "issue_request_stream";
+    private static final String ISSUE_REQUEST_SHARDED = "issue_request_sharded";
+    private static final String ISSUE_REQUEST_SPREAD = "issue_request_spread";
+    // Redis bitmap의 최대 offset (2^32-1, 512MB)
+    private static final long MAX_BITMAP_OFFSET = (1L << 32) - 1;
+    // 분할이 옮겨온 수량을 받은 기록의 보관 시간 (이 시간 안에 다시 반영해도 두 번 더하지 않는다)
+    private static final Duration SPREAD_MOVE_RECEIVED_TTL = Duration.ofDays(7);
+    // 쿠폰별, 분할별 발급 큐 키 (처리 대상 쿠폰 목록 issue.request.queue.active는 포함하지 않는다)
+    private static final String ACTIVE_QUEUE_PATTERN = "issue.request.queue.{couponId=*}";
+
     private final RedisTemplate<String, String> redisTemplate;
     private final RedisScript<String> issueScript = issueRequestScript();
+    private final byte[] issueScriptBytes = issueScript.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+    private final RedisScript<String> issueBitmapScript = issueRequestBitmapScript();
+    private final byte[] issueBitmapScriptBytes = issueBitmapScript.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+    private final CouponIssueRequestEncoder couponIssueRequestEncoder = new CouponIssueRequestEncoder();
+    private final RedisScript<String> issueStreamScript = issueRequestStreamScript();
+    private final RedisScript<String> issueShardedScript = issueRequestShardedScript();
+    private final RedisScript<String> issueSpreadScript = issueRequestSpreadScript();
+    private final RedisScript<Long> moveSpreadQuotaScript = moveSpreadQuotaScript();
+    private final RedisScript<Long> receiveSpreadQuotaScript = receiveSpreadQuotaScript();
+    private final RedisScript<Long> requeueProcessingRequestScript = requeueProcessingRequestScript();
+    private final RedisScript<Long> leaseIssueQuotaScript = leaseIssueQuotaScript();
+    private final RedisScript<Long> issueLeasedRequestsScript = issueLeasedRequestsScript();
+    private final RedisScript<Long> redeemAdmissionTokenScript = redeemAdmissionTokenScript();
+    private final RedisScript<Long> expireIfEqualsScript = expireIfEqualsScript();
+    private final CouponIssueFunctionLibrary issueFunctionLibrary = issueFunctionLibrary();
     private final String IssueRequestQueueKey = getIssueRequestQueueKey();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String IssueRequestStreamKey = getIssueRequestStreamKey();
+    private final String IssueRequestActiveCouponsKey = getIssueRequestActiveCouponsKey();
+
+    // 발급 요청 전달 방식 (list, stream)
+    @Value("${coupon.issue.transport:list}")
+    private CouponIssueTransport transport;
+
+    // 발급 요청 스트림의 최대 길이 (XADD MAXLEN ~)
+    @Value("${coupon.issue.stream.max-length:1000000}")
+    private long streamMaxLength;
+
+    // 발급 요청 스크립트를 Redis Functions(FCALL)로 호출할지 여부 (Redis 7 미만이면 EVALSHA를 사용한다)
+    @Value("${coupon.issue.function.enabled:true}")
+    private boolean functionEnabled;
+
+    // 발급 요청 유저를 bitmap으로 저장하는 쿠폰의 최대 userId (쿠폰마다 최대 max-user-id / 8 bytes를 사용한다)
+    @Value("${coupon.issue.bitmap.max-user-id:100000000}")
+    private long maxBitmapUserId;
+
+    private volatile boolean functionAvailable;
+
+    /**
+     * 발급 요청 함수 라이브러리를 등록한다. (이미 같은 본문이 등록되어 있다면 다시 등록하지 않는다)
+     * 등록할 수 없다면(Redis 7 미만) EVALSHA로 실행한다.
+     * Redis Cluster에서는 쿠폰별 키만 사용하는 쿠폰별 큐 전달(sharded)만 사용할 수 있고, 함수 대신 키로 라우팅되는 EVALSHA로 실행한다.
+     */
+    @PostConstruct
+    void loadIssueFunctions() {
+        if (maxBitmapUserId < 0 || maxBitmapUserId > MAX_BITMAP_OFFSET) {
+            throw new IllegalStateException("coupon.issue.bitmap.max-user-id는 0 ~ %s 이어야 합니다. max-user-id: %s".formatted(MAX_BITMAP_OFFSET, maxBitmapUserId));
+        }
+        if (isCluster()) {
+            if (transport != CouponIssueTransport.SHARDED) {
+                throw new IllegalStateException("Redis Cluster에서는 coupon.issue.transport=sharded만 사용할 수 있습니다. transport: %s".formatted(transport));
+            }
+            return;
+        }
+        if (!functionEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<Void>) connection -> {
+                issueFunctionLibrary.load(connection);
+                return null;
+            });
+            functionAvailable = true;
+        } catch (IllegalStateException e) {
+            // 같은 이름의 다른 본문을 호출하면 발급 규칙이 달라지므로 시작하지 않는다.
+            throw e;
+        } catch (RuntimeException e) {
+            log.warn("쿠폰 발급 함수 라이브러리를 등록하지 못해 EVALSHA로 실행합니다. library: %s".formatted(issueFunctionLibrary.getLibraryName()), e);
+        }
+    }
+
+    // Redis Cluster에 연결되어 있는지 확인한다.
+    private boolean isCluster() {
+        return Boolean.TRUE.equals(redisTemplate.execute((RedisCallback<Boolean>) connection -> connection instanceof RedisClusterConnection, true));
+    }
 
     /**
      * ZSet에 값 추가
@@ -37,6 +144,41 @@ public class RedisRepository {
         return redisTemplate.opsForZSet().addIfAbsent(key, value, score);
     }
 
+    /**
+     * ZSet에서 값의 순위 조회 (score가 작은 순서, 0부터 시작)
+     *
+     * @param key
+     * @param value
+     * @return 값이 없다면 null
+     */
+    public Long zRank(String key, String value) {
+        return redisTemplate.opsForZSet().rank(key, value);
+    }
+
+    /**
+     * ZSet에서 순위 범위의 값 조회 (score가 작은 순서)
+     *
+     * @param key
+     * @param start
+     * @param end
+     * @return
+     */
+    public List<String> zRange(String key, long start, long end) {
+        Set<String> values = redisTemplate.opsForZSet().range(key, start, end);
+        return values == null ? List.of() : List.copyOf(values);
+    }
+
+    /**
+     * ZSet에서 값 제거
+     *
+     * @param key
+     * @param values
+     * @return
+     */
+    public Long zRem(String key, List<String> values) {
+        return redisTemplate.opsForZSet().remove(key, values.toArray());
+    }
+
     /**
      * Set에 값 추가
      *
@@ -58,6 +200,73 @@ public class RedisRepository {
         return redisTemplate.opsForSet().size(key);
     }
 
+    /**
+     * Set의 모든 값 조회
+     *
+     * @param key
+     * @return
+     */
+    public Set<String> sMembers(String key) {
+        return redisTemplate.opsForSet().members(key);
+    }
+
+    /**
+     * Set에서 값 제거
+     *
+     * @param key
+     * @param value
+     * @return
+     */
+    public Long sRem(String key, String value) {
+        return redisTemplate.opsForSet().remove(key, value);
+    }
+
+    /**
+     * 만료 시간을 가진 값 저장
+     *
+     * @param key
+     * @param value
+     * @param timeout
+     */
+    public void setEx(String key, String value, Duration timeout) {
+        redisTemplate.opsForValue().set(key, value, timeout);
+    }
+
+    /**
+     * 키가 없을 때만 만료 시간을 가진 값 저장 (SET NX PX)
+     *
+     * @param key
+     * @param value
+     * @param timeout
+     * @return 저장했다면 true
+     */
+    public boolean setIfAbsent(String key, String value, Duration timeout) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, value, timeout));
+    }
+
+    /**
+     * 값이 같을 때만 만료 시간을 연장한다. (내가 저장한 값인지 확인하고 연장하는 것을 원자적으로 처리)
+     *
+     * @param key
+     * @param value
+     * @param timeout
+     * @return 연장했다면 true
+     */
+    public boolean expireIfEquals(String key, String value, Duration timeout) {
+        Long expired = redisTemplate.execute(expireIfEqualsScript, List.of(key), value, String.valueOf(timeout.toMillis()));
+        return expired != null && expired > 0;
+    }
+
+    /**
+     * 키가 존재하는지 확인
+     *
+     * @param key
+     * @return
+     */
+    public Boolean hasKey(String key) {
+        return redisTemplate.hasKey(key);
+    }
+
     /**
      * Set에 값이 존재하는지 확인
      *
@@ -69,6 +278,16 @@ public class RedisRepository {
         return redisTemplate.opsForSet().isMember(key, value);
     }
 
+    /**
+     * 채널에 메시지 발행 (pub/sub)
+     *
+     * @param channel
+     * @param message
+     */
+    public void publish(String channel, String message) {
+        redisTemplate.convertAndSend(channel, message);
+    }
+
     /**
      * 쿠폰 발급 대기열 큐
      *
@@ -102,6 +321,29 @@ public class RedisRepository {
         return redisTemplate.opsForList().index(key, index);
     }
 
+    /**
+     * 쿠폰 발급 대기열 큐에서 범위로 값 가져오기 (일괄 조회)
+     *
+     * @param key
+     * @param start
+     * @param end
+     * @return
+     */
+    public List<String> lRange(String key, long start, long end) {
+        return redisTemplate.opsForList().range(key, start, end);
+    }
+
+    /**
+     * 쿠폰 발급 대기열 큐에서 범위 밖의 값 제거 (일괄 제거)
+     *
+     * @param key
+     * @param start
+     * @param end
+     */
+    public void lTrim(String key, long start, long end) {
+        redisTemplate.opsForList().trim(key, start, end);
+    }
+
     /**
      * 쿠폰 발급 대기열 큐에서 값 제거
      *
@@ -112,6 +354,144 @@ public class RedisRepository {
         return redisTemplate.opsForList().leftPop(key);
     }
 
+    /**
+     * 대기열 큐의 맨 앞 값을 다른 큐의 맨 뒤로 원자적으로 옮긴다. (BLMOVE)
+     * 대기열 큐가 비어있다면 timeout 동안 대기하다가 값이 들어오는 즉시 반환한다.
+     *
+     * @param sourceKey
+     * @param destinationKey
+     * @param timeout
+     * @return 옮긴 값 (timeout 동안 값이 없었다면 null)
+     */
+    public String bLMove(String sourceKey, String destinationKey, Duration timeout) {
+        return redisTemplate.opsForList().move(sourceKey, Direction.LEFT, destinationKey, Direction.RIGHT, timeout);
+    }
+
+    /**
+     * 큐의 맨 뒤 값을 다른 큐의 맨 앞으로 원자적으로 되돌린다. (LMOVE)
+     *
+     * @param sourceKey
+     * @param destinationKey
+     * @return 옮긴 값 (큐가 비어있다면 null)
+     */
+    public String lMoveBack(String sourceKey, String destinationKey) {
+        return redisTemplate.opsForList().move(sourceKey, Direction.RIGHT, destinationKey, Direction.LEFT);
+    }
+
+    /**
+     * 큐에서 값 제거 (처리 완료 ack)
+     *
+     * @param key
+     * @param value
+     * @return
+     */
+    public Long lRem(String key, String value) {
+        return redisTemplate.opsForList().remove(key, 1, value);
+    }
+
+    /**
+     * 처리 중 큐에서 값 하나를 제거하고 대기열 맨 앞으로 되돌린다. (제거와 추가를 원자적으로 처리)
+     *
+     * @param processingKey
+     * @param queueKey
+     * @param value
+     * @return 되돌렸다면 true
+     */
+    public boolean requeueProcessingRequest(String processingKey, String queueKey, String value) {
+        return requeueProcessingRequests(processingKey, queueKey, List.of(value)) > 0;
+    }
+
+    /**
+     * 처리 중 큐에서 값들을 제거하고 원래 순서대로 대기열 맨 앞으로 되돌린다. (제거와 추가를 원자적으로 처리)
+     * 되돌린 뒤 대기열의 맨 앞은 values의 첫번째 값이다.
+     *
+     * @param processingKey
+     * @param queueKey
+     * @param values
+     * @return 되돌린 값의 수
+     */
+    public long requeueProcessingRequests(String processingKey, String queueKey, List<String> values) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        Long requeued = redisTemplate.execute(requeueProcessingRequestScript, List.of(processingKey, queueKey), values.toArray());
+        return requeued == null ? 0 : requeued;
+    }
+
+    /**
+     * 스트림의 consumer group 생성 (스트림이 없다면 함께 생성, 이미 그룹이 있다면 무시)
+     *
+     * @param key
+     * @param group
+     */
+    public void xGroupCreate(String key, String group) {
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.streamCommands()
+                    .xGroupCreate(key.getBytes(StandardCharsets.UTF_8), group, ReadOffset.from("0"), true));
+        } catch (RedisSystemException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * consumer group으로 스트림에서 아직 전달되지 않은 발급 요청을 가져온다. (XREADGROUP)
+     * 가져온 요청은 ack 하기 전까지 pending 상태로 남는다.
+     *
+     * @param key
+     * @param group
+     * @param consumer
+     * @param count
+     * @param block
+     * @return
+     */
+    public List<MapRecord<String, Object, Object>> xReadGroup(String key, String group, String consumer, long count, Duration block) {
+        return redisTemplate.opsForStream().read(
+                Consumer.from(group, consumer),
+                StreamReadOptions.empty().count(count).block(block),
+                StreamOffset.create(key, ReadOffset.lastConsumed())
+        );
+    }
+
+    /**
+     * 처리가 끝난 발급 요청을 ack 한다. (XACK)
+     *
+     * @param key
+     * @param group
+     * @param recordIds
+     * @return
+     */
+    public Long xAck(String key, String group, RecordId... recordIds) {
+        return redisTemplate.opsForStream().acknowledge(key, group, recordIds);
+    }
+
+    /**
+     * ack 되지 않은 발급 요청 목록 조회 (XPENDING)
+     *
+     * @param key
+     * @param group
+     * @param count
+     * @return
+     */
+    public PendingMessages xPending(String key, String group, long count) {
+        return redisTemplate.opsForStream().pending(key, group, Range.unbounded(), count);
+    }
+
+    /**
+     * 오래 처리되지 않은 발급 요청의 소유권을 가져온다. (XCLAIM)
+     *
+     * @param key
+     * @param group
+     * @param consumer
+     * @param minIdleTime
+     * @param recordIds
+     * @return
+     */
+    public List<MapRecord<String, Object, Object>> xClaim(String key, String group, String consumer, Duration minIdleTime, RecordId... recordIds) {
+        return redisTemplate.opsForStream().claim(key, group, consumer, minIdleTime, recordIds);
+    }
+
     /**
      * Redis Script를 사용하는 쿠폰 발급 요청 (동시성 제어)
      *
@@ -119,44 +499,969 @@ public class RedisRepository {
      * @param userId
      */
     public void issueRequest(long couponId, long userId, int totalIssueQuantity) {
-        String issueRequestKey = getIssueRequestKey(couponId);
-        CouponIssueRequest couponIssueRequest = new CouponIssueRequest(couponId, userId);
+        // 쿠폰 발급 요청 결과 확인 (유효성 검사)
+        CouponIssueRequestCode.checkRequestResult(tryIssueRequest(couponId, userId, totalIssueQuantity));
+    }
+
+    /**
+     * Redis Script를 사용하는 쿠폰 발급 요청 (수량 초과, 중복은 예외 대신 결과 코드로 반환)
+     *
+     * @param couponId
+     * @param userId
+     * @param totalIssueQuantity
+     * @return
+     */
+    public CouponIssueRequestCode tryIssueRequest(long couponId, long userId, int totalIssueQuantity) {
+        return tryIssueRequest(couponId, userId, totalIssueQuantity, IssuedUserStorage.SET);
+    }
+
+    /**
+     * Redis Script를 사용하는 쿠폰 발급 요청 (발급 요청 유저 저장 방식 지정)
+     * BITMAP 저장은 list 전달에서만 사용하고, 다른 전달 방식은 SET으로 저장한다.
+     *
+     * @param couponId
+     * @param userId
+     * @param totalIssueQuantity
+     * @param storage
+     * @return
+     */
+    public CouponIssueRequestCode tryIssueRequest(long couponId, long userId, int totalIssueQuantity, IssuedUserStorage storage) {
+        if (transport == CouponIssueTransport.STREAM) {
+            return issueStreamRequest(couponId, userId, totalIssueQuantity);
+        }
+        if (transport == CouponIssueTransport.SHARDED) {
+            return issueShardedRequest(couponId, userId, totalIssueQuantity);
+        }
+        // 레디스 Script를 사용하여 쿠폰 발급 요청을 Redis에 저장하고 Redis의 List 큐에 넣는다.
+        // KEYS[1], KEYS[2], ARGV[1] ~ ARGV[3]는 요청마다 문자열, JSON을 만들지 않도록 byte 배열로 전달한다.
+        byte[][] keysAndArgs = storage == IssuedUserStorage.BITMAP
+                ? couponIssueRequestEncoder.encodeBitmap(couponId, checkBitmapOffset(couponId, userId), totalIssueQuantity)
+                : couponIssueRequestEncoder.encode(couponId, userId, totalIssueQuantity);
+        // exposeConnection = true: 요청마다 connection proxy를 만들지 않는다.
+        byte[] code = redisTemplate.execute((RedisCallback<byte[]>) connection -> evalIssueScript(connection, keysAndArgs), true);
+        if (code == null || code.length != 1) {
+            throw new CouponIssueException(ErrorCode.FAIL_COUPON_ISSUE_REQUEST, "couponId: %s, userId: %s".formatted(couponId, userId));
+        }
+        return CouponIssueRequestCode.find(code[0] - '0');
+    }
+
+    /**
+     * 쿠폰 발급 요청 여러 개를 pipeline으로 한번에 전달하고, 요청마다 결과를 완료한다. (list 전달, FCALL 또는 EVALSHA)
+     * 일부 명령만 실패했다면 실패한 요청만 실패시킨다. (나머지 요청은 이미 Redis에서 실행되었다)
+     * Redis에 함수나 스크립트가 없어서 실패한 요청만 등록 후 다시 전달한다. (없어서 실패한 명령은 실행되지 않았다)
+     *
+     * @param keysAndArgsList 요청별 KEYS, ARGV (encodeIssueRequest)
+     * @param results         요청 순서대로 결과를 완료할 future
+     */
+    public void issueRequests(List<byte[][]> keysAndArgsList, List<CompletableFuture<CouponIssueRequestCode>> results) {
+        List<Object> replies = pipelineIssueScriptReplies(keysAndArgsList);
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < replies.size(); i++) {
+            if (replies.get(i) instanceof Throwable e && isScriptMissingError(e)) {
+                missing.add(i);
+            }
+        }
+        if (!missing.isEmpty()) {
+            redisTemplate.execute((RedisCallback<Void>) this::loadIssueScript);
+            List<Object> retried = pipelineIssueScriptReplies(missing.stream().map(keysAndArgsList::get).toList());
+            for (int i = 0; i < missing.size(); i++) {
+                replies.set(missing.get(i), retried.get(i));
+            }
+        }
+        for (int i = 0; i < results.size(); i++) {
+            Object reply = i < replies.size() ? replies.get(i) : null;
+            try {
+                if (reply instanceof Throwable e) {
+                    results.get(i).completeExceptionally(e);
+                } else {
+                    results.get(i).complete(CouponIssueRequestCode.find(reply instanceof byte[] bytes
+                            ? new String(bytes, StandardCharsets.UTF_8) : String.valueOf(reply)));
+                }
+            } catch (RuntimeException e) {
+                results.get(i).completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * pipeline으로 전달할 쿠폰 발급 요청의 KEYS, ARGV (요청마다 새 배열)
+     *
+     * @param couponId
+     * @param userId
+     * @param totalIssueQuantity
+     * @param storage
+     * @return
+     */
+    public byte[][] encodeIssueRequest(long couponId, long userId, int totalIssueQuantity, IssuedUserStorage storage) {
+        if (storage == IssuedUserStorage.BITMAP) {
+            return couponIssueRequestEncoder.encodeDetached(couponId, checkBitmapOffset(couponId, userId), totalIssueQuantity, true);
+        }
+        return couponIssueRequestEncoder.encodeDetached(couponId, userId, totalIssueQuantity, false);
+    }
+
+    // bitmap offset으로 사용할 수 있는 userId인지 확인한다. (0 ~ max-user-id)
+    // 큰 userId 하나로 SETBIT가 그 위치까지 메모리를 할당하지 않도록 설정한 최대 userId를 넘으면 거절한다.
+    private long checkBitmapOffset(long couponId, long userId) {
+        if (userId < 0 || userId > maxBitmapUserId) {
+            throw new CouponIssueException(ErrorCode.FAIL_COUPON_ISSUE_REQUEST,
+                    "bitmap으로 저장할 수 없는 userId입니다. couponId: %s, userId: %s".formatted(couponId, userId));
+        }
+        return userId;
+    }
+
+    private List<Object> pipelineIssueScript(List<byte[][]> keysAndArgsList) {
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (byte[][] keysAndArgs : keysAndArgsList) {
+                int numKeys = CouponIssueRequestEncoder.numKeys(keysAndArgs);
+                if (functionAvailable) {
+                    issueFunctionLibrary.callPipelined(connection, numKeys == 3 ? ISSUE_REQUEST_BITMAP : ISSUE_REQUEST, numKeys, keysAndArgs);
+                } else {
+                    connection.scriptingCommands().evalSha(issueScriptSha1(numKeys), ReturnType.VALUE, numKeys, keysAndArgs);
+                }
+            }
+            return null;
+        });
+    }
+
+    // pipeline의 명령별 응답 (일부 명령이 실패하면 실패한 위치에 예외가 담긴다)
+    private List<Object> pipelineIssueScriptReplies(List<byte[][]> keysAndArgsList) {
         try {
-            // 레디스 Script를 사용하여 쿠폰 발급 요청을 Redis에 저장하고 Redis의 List 큐에 넣는다.
-            String code = redisTemplate.execute(
-                    issueScript,                                        // SCRIPT
-                    List.of(issueRequestKey, IssueRequestQueueKey),     // KEYS[1], KEYS[2]
-                    String.valueOf(userId),                             // ARGV[1]
-                    String.valueOf(totalIssueQuantity),                 // ARGV[2]
-                    objectMapper.writeValueAsString(couponIssueRequest) // ARGV[3]
-            );
-            // 쿠폰 발급 요청 결과 확인 (유효성 검사)
-            CouponIssueRequestCode.checkRequestResult(CouponIssueRequestCode.find(code));
-        } catch (JsonProcessingException e) {
-            throw new CouponIssueException(ErrorCode.FAIL_COUPON_ISSUE_REQUEST, "input: %s".formatted(couponIssueRequest));
+            return new ArrayList<>(pipelineIssueScript(keysAndArgsList));
+        } catch (RedisPipelineException e) {
+            return new ArrayList<>(e.getPipelineResult());
+        }
+    }
+
+    // 발급 요청 스크립트를 FCALL(또는 EVALSHA)로 실행한다. 스크립트 본문은 Redis에 없을 때만 다시 등록하며 전달한다.
+    private byte[] evalIssueScript(RedisConnection connection, byte[][] keysAndArgs) {
+        int numKeys = CouponIssueRequestEncoder.numKeys(keysAndArgs);
+        if (functionAvailable) {
+            return (byte[]) issueFunctionLibrary.call(connection, numKeys == 3 ? ISSUE_REQUEST_BITMAP : ISSUE_REQUEST, numKeys, keysAndArgs);
+        }
+        try {
+            return connection.scriptingCommands().evalSha(issueScriptSha1(numKeys), ReturnType.VALUE, numKeys, keysAndArgs);
+        } catch (RuntimeException e) {
+            if (!isScriptMissingError(e)) {
+                throw e;
+            }
+            loadIssueScript(connection);
+            return connection.scriptingCommands().evalSha(issueScriptSha1(numKeys), ReturnType.VALUE, numKeys, keysAndArgs);
+        }
+    }
+
+    // KEYS 수에 해당하는 발급 요청 스크립트 (BITMAP 저장은 3개, SET 저장은 2개)
+    private String issueScriptSha1(int numKeys) {
+        return numKeys == 3 ? issueBitmapScript.getSha1() : issueScript.getSha1();
+    }
+
+    // 발급 요청 함수 라이브러리(또는 스크립트)를 다시 등록한다.
+    private Void loadIssueScript(RedisConnection connection) {
+        if (functionAvailable) {
+            issueFunctionLibrary.load(connection);
+        } else {
+            connection.scriptingCommands().scriptLoad(issueScriptBytes);
+            connection.scriptingCommands().scriptLoad(issueBitmapScriptBytes);
+        }
+        return null;
+    }
+
+    // Redis에 스크립트(NOSCRIPT)나 함수가 없어서 실패했는지 확인한다.
+    // pipeline 실패(RedisPipelineException)는 명령별 예외를 결과 목록에 담고 있으므로 함께 확인한다.
+    private boolean isScriptMissingError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+            if (CouponIssueFunctionLibrary.isFunctionNotFoundError(cause)) {
+                return true;
+            }
+            if (cause instanceof RedisPipelineException pipelineException
+                    && pipelineException.getPipelineResult().stream()
+                    .anyMatch(result -> result instanceof Throwable t && isScriptMissingError(t))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 발급 요청 스크립트를 FCALL로 실행하고, 함수를 사용할 수 없다면 EVALSHA(NOSCRIPT라면 EVAL)로 실행한다.
+    private CouponIssueRequestCode executeIssueScript(String scriptName, RedisScript<String> script, List<String> keys, String... args) {
+        if (!functionAvailable) {
+            return CouponIssueRequestCode.find(redisTemplate.execute(script, keys, (Object[]) args));
         }
+        byte[][] keysAndArgs = new byte[keys.size() + args.length][];
+        for (int i = 0; i < keys.size(); i++) {
+            keysAndArgs[i] = keys.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        for (int i = 0; i < args.length; i++) {
+            keysAndArgs[keys.size() + i] = args[i].getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] code = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                (byte[]) issueFunctionLibrary.call(connection, scriptName, keys.size(), keysAndArgs), true);
+        return CouponIssueRequestCode.find(code == null ? null : new String(code, StandardCharsets.UTF_8));
     }
 
     /**
-     * Redis 쿠폰 발급 요청 스크립트
+     * Redis Script를 사용하는 쿠폰 발급 요청 (스트림 전달)
+     *
+     * @param couponId
+     * @param userId
+     * @param totalIssueQuantity
+     */
+    private CouponIssueRequestCode issueStreamRequest(long couponId, long userId, int totalIssueQuantity) {
+        return executeIssueScript(
+                ISSUE_REQUEST_STREAM,
+                issueStreamScript,                                              // SCRIPT
+                List.of(getIssueRequestKey(couponId), IssueRequestStreamKey),   // KEYS[1], KEYS[2]
+                String.valueOf(userId),                                         // ARGV[1]
+                String.valueOf(totalIssueQuantity),                             // ARGV[2]
+                String.valueOf(couponId),                                       // ARGV[3]
+                String.valueOf(streamMaxLength)                                 // ARGV[4]
+        );
+    }
+
+    /**
+     * Redis Script를 사용하는 쿠폰 발급 요청 (쿠폰별 큐 전달)
+     *
+     * @param couponId
+     * @param userId
+     * @param totalIssueQuantity
+     */
+    private CouponIssueRequestCode issueShardedRequest(long couponId, long userId, int totalIssueQuantity) {
+        CouponIssueRequestCode code = executeIssueScript(
+                ISSUE_REQUEST_SHARDED,
+                issueShardedScript,                         // SCRIPT
+                List.of(getIssueRequestKey(couponId),       // KEYS[1]
+                        getIssueRequestQueueKey(couponId)), // KEYS[2]
+                String.valueOf(userId),                     // ARGV[1]
+                String.valueOf(totalIssueQuantity)          // ARGV[2]
+        );
+        // 처리 대상 쿠폰 목록은 다른 slot에 있으므로 큐에 넣은 뒤에 따로 등록한다. (빠진 큐는 recoverActiveQueues가 다시 등록한다)
+        if (code == CouponIssueRequestCode.SUCCESS) {
+            redisTemplate.opsForSet().add(IssueRequestActiveCouponsKey, String.valueOf(couponId));
+        }
+        return code;
+    }
+
+    /**
+     * 요청을 여러 분할로 나누는 쿠폰의 발급 요청 (spread, list, sharded 전달)
+     * 유저는 항상 같은 분할로 나뉘므로 분할 안에서 중복을 확인해도 정확하다.
+     * 분할은 발급 수량을 나눠서 가지고, 분할의 수량을 다 쓰면 다른 분할의 남은 수량을 절반씩 옮겨와서 다시 요청한다.
+     * 모든 분할에 남은 수량이 없을 때만 수량 초과로 응답한다.
+     * 스트림 전달은 분할하지 않는다.
      *
+     * @param couponId
+     * @param userId
+     * @param totalIssueQuantity
+     * @param spreadFactor 분할 수
      * @return
      */
-    private RedisScript<String> issueRequestScript() {
-        String script = """
-                if redis.call('SISMEMBER', KEYS[1], ARGV[1]) == 1 then 
-                    return '2'
-                end
-                                
-                if tonumber(ARGV[2]) > redis.call('SCARD', KEYS[1]) then
-                    redis.call('SADD', KEYS[1], ARGV[1])
-                    redis.call('RPUSH', KEYS[2], ARGV[3])
-                    return '1'
-                end
-                                
+    public CouponIssueRequestCode tryIssueSpreadRequest(long couponId, long userId, int totalIssueQuantity, int spreadFactor) {
+        if (transport == CouponIssueTransport.STREAM || spreadFactor <= 1) {
+            return tryIssueRequest(couponId, userId, totalIssueQuantity);
+        }
+        int shard = spreadShard(userId, spreadFactor);
+        CouponIssueRequestCode code = issueSpreadShardRequestWithMoves(couponId, userId, totalIssueQuantity, spreadFactor, shard);
+        if (code == CouponIssueRequestCode.INVALID_COUPON_ISSUE_QUANTITY) {
+            // 옮기는 중에 멈춘 수량을 받는 분할에 반영하고 한번 더 요청한다.
+            if (recoverSpreadQuotaMoves(couponId, totalIssueQuantity, spreadFactor) > 0) {
+                code = issueSpreadShardRequestWithMoves(couponId, userId, totalIssueQuantity, spreadFactor, shard);
+            }
+        }
+        return code;
+    }
+
+    // 분할에 요청하고, 분할의 수량을 다 썼다면 다른 분할의 남은 수량을 옮겨와서 다시 요청한다.
+    private CouponIssueRequestCode issueSpreadShardRequestWithMoves(long couponId, long userId, int totalIssueQuantity, int spreadFactor, int shard) {
+        CouponIssueRequestCode code = issueSpreadShardRequest(couponId, userId, totalIssueQuantity, spreadFactor, shard);
+        for (int i = 1; i < spreadFactor && code == CouponIssueRequestCode.INVALID_COUPON_ISSUE_QUANTITY; i++) {
+            int donor = (shard + i) % spreadFactor;
+            if (moveSpreadQuota(couponId, totalIssueQuantity, spreadFactor, donor, shard) > 0) {
+                code = issueSpreadShardRequest(couponId, userId, totalIssueQuantity, spreadFactor, shard);
+            }
+        }
+        return code;
+    }
+
+    /**
+     * 요청을 여러 분할로 나누는 쿠폰의 남은 발급 수량을 모든 분할에서 다시 확인한다. (spread)
+     * 한 요청이 수량 초과로 응답받아도 그 사이 다른 분할로 옮겨진 수량이 남아있을 수 있으므로, 소진 처리 전에 확인한다.
+     * 옮기는 중인 수량도 남은 수량에 포함한다. 분할하지 않는 쿠폰(스트림 전달 포함)은 요청 결과가 정확하므로 0을 반환한다.
+     *
+     * @param couponId
+     * @param totalIssueQuantity
+     * @param spreadFactor
+     * @return 모든 분할의 남은 발급 수량
+     */
+    public long remainingSpreadQuota(long couponId, int totalIssueQuantity, int spreadFactor) {
+        if (transport == CouponIssueTransport.STREAM || spreadFactor <= 1) {
+            return 0;
+        }
+        long remaining = 0;
+        for (int shard = 0; shard < spreadFactor; shard++) {
+            String quota = redisTemplate.opsForValue().get(getIssueQuotaKey(couponId, shard));
+            long shardQuota = quota == null ? spreadQuota(totalIssueQuantity, spreadFactor, shard) : Long.parseLong(quota);
+            Long issued = redisTemplate.opsForSet().size(getIssueRequestKey(couponId, shard));
+            remaining += Math.max(0, shardQuota - (issued == null ? 0 : issued));
+            for (Object move : redisTemplate.opsForHash().values(getIssueQuotaMovingKey(couponId, shard))) {
+                remaining += spreadMoveQuantity(String.valueOf(move));
+            }
+        }
+        return remaining;
+    }
+
+    // 유저가 속하는 분할 (userId가 연속되어도 고르게 나뉘도록 섞는다)
+    private static int spreadShard(long userId, int spreadFactor) {
+        return Math.floorMod(Long.hashCode(userId * 0x9E3779B97F4A7C15L), spreadFactor);
+    }
+
+    // 분할이 처음 가지는 발급 수량 (나머지는 앞 분할부터 하나씩 더 가진다)
+    private static int spreadQuota(int totalIssueQuantity, int spreadFactor, int shard) {
+        return totalIssueQuantity / spreadFactor + (shard < totalIssueQuantity % spreadFactor ? 1 : 0);
+    }
+
+    private CouponIssueRequestCode issueSpreadShardRequest(long couponId, long userId, int totalIssueQuantity, int spreadFactor, int shard) {
+        boolean sharded = transport == CouponIssueTransport.SHARDED;
+        CouponIssueRequestCode code = executeIssueScript(
+                ISSUE_REQUEST_SPREAD,
+                issueSpreadScript,                                                                          // SCRIPT
+                List.of(getIssueRequestKey(couponId, shard),                                                // KEYS[1]
+                        sharded ? getIssueRequestQueueKey(couponId, shard) : IssueRequestQueueKey,          // KEYS[2]
+                        getIssueQuotaKey(couponId, shard)),                                                 // KEYS[3]
+                String.valueOf(userId),                                                                     // ARGV[1]
+                String.valueOf(spreadQuota(totalIssueQuantity, spreadFactor, shard)),                       // ARGV[2]
+                sharded ? String.valueOf(userId) : "{\"couponId\":%s,\"userId\":%s}".formatted(couponId, userId) // ARGV[3]
+        );
+        if (sharded && code == CouponIssueRequestCode.SUCCESS) {
+            redisTemplate.opsForSet().add(IssueRequestActiveCouponsKey, getIssueRequestActiveShard(couponId, shard));
+        }
+        return code;
+    }
+
+    // 다른 분할(donor)의 남은 수량 절반을 옮겨온다. (donor에서 먼저 빼므로 중간에 실패해도 발급 수량을 넘지 않는다)
+    // 분할마다 다른 slot이므로 donor에서 빼면서 옮기는 중인 수량을 기록하고, 받는 분할에 한 번만 더한 뒤 기록을 지운다.
+    // 중간에 실패해 남은 기록은 recoverSpreadQuotaMoves가 다시 반영한다.
+    private long moveSpreadQuota(long couponId, int totalIssueQuantity, int spreadFactor, int donor, int shard) {
+        String moveId = UUID.randomUUID().toString();
+        Long moved = redisTemplate.execute(
+                moveSpreadQuotaScript,
+                List.of(getIssueRequestKey(couponId, donor), getIssueQuotaKey(couponId, donor), getIssueQuotaMovingKey(couponId, donor)),
+                String.valueOf(spreadQuota(totalIssueQuantity, spreadFactor, donor)),
+                moveId,
+                String.valueOf(shard)
+        );
+        if (moved == null || moved <= 0) {
+            return 0;
+        }
+        receiveSpreadQuota(couponId, totalIssueQuantity, spreadFactor, donor, moveId, shard, moved);
+        return moved;
+    }
+
+    // 옮기는 중인 수량을 받는 분할에 더하고(같은 moveId는 한 번만) 기록을 지운다.
+    private void receiveSpreadQuota(long couponId, int totalIssueQuantity, int spreadFactor, int donor, String moveId, int shard, long moved) {
+        redisTemplate.execute(
+                receiveSpreadQuotaScript,
+                List.of(getIssueQuotaKey(couponId, shard), getIssueQuotaReceivedKey(couponId, shard, moveId)),
+                String.valueOf(moved),
+                String.valueOf(spreadQuota(totalIssueQuantity, spreadFactor, shard)),
+                String.valueOf(SPREAD_MOVE_RECEIVED_TTL.toMillis())
+        );
+        redisTemplate.opsForHash().delete(getIssueQuotaMovingKey(couponId, donor), moveId);
+    }
+
+    /**
+     * 옮기는 중에 멈춘(donor에서 뺐지만 받는 분할에 더하지 못한) 수량을 받는 분할에 반영한다. (spread)
+     * 받는 분할은 moveId로 한 번만 더하므로, 진행 중인 이동과 겹쳐도 두 번 더하지 않는다.
+     *
+     * @param couponId
+     * @param totalIssueQuantity
+     * @param spreadFactor
+     * @return 반영한 이동 수
+     */
+    public int recoverSpreadQuotaMoves(long couponId, int totalIssueQuantity, int spreadFactor) {
+        int recovered = 0;
+        for (int donor = 0; donor < spreadFactor; donor++) {
+            Map<Object, Object> moves = redisTemplate.opsForHash().entries(getIssueQuotaMovingKey(couponId, donor));
+            for (Map.Entry<Object, Object> move : moves.entrySet()) {
+                String value = String.valueOf(move.getValue());
+                int shard = Integer.parseInt(value.substring(0, value.indexOf(':')));
+                receiveSpreadQuota(couponId, totalIssueQuantity, spreadFactor, donor, String.valueOf(move.getKey()), shard, spreadMoveQuantity(value));
+                recovered++;
+            }
+        }
+        return recovered;
+    }
+
+    // 옮기는 중인 수량 기록(shard:quantity)의 수량
+    private static long spreadMoveQuantity(String move) {
+        return Long.parseLong(move.substring(move.indexOf(':') + 1));
+    }
+
+    /**
+     * 쿠폰별 발급 큐가 비어있다면 처리 대상 쿠폰 목록에서 제거한다.
+     * 큐와 처리 대상 쿠폰 목록은 Redis Cluster에서 다른 slot에 있으므로 스크립트로 묶지 않고, 제거한 뒤에 큐를 다시 확인한다.
+     * 발급 요청은 큐에 넣은 뒤에 쿠폰을 등록하므로, 제거와 겹친 요청은 대부분 다시 확인할 때 보이거나 제거 이후에 다시 등록한다.
+     * 그래도 등록 전에 노드가 종료되는 등으로 빠진 큐는 recoverActiveQueues가 다시 등록한다.
+     *
+     * @param couponId
+     * @return 제거되었다면 true
+     */
+    public boolean removeActiveCouponIfEmpty(long couponId) {
+        return removeActiveQueueIfEmpty(getIssueRequestQueueKey(couponId), String.valueOf(couponId));
+    }
+
+    /**
+     * 분할별 발급 큐가 비어있다면 처리 대상 쿠폰 목록에서 제거한다. (spread)
+     *
+     * @param couponId
+     * @param shard
+     * @return 제거되었다면 true
+     */
+    public boolean removeActiveShardIfEmpty(long couponId, int shard) {
+        return removeActiveQueueIfEmpty(getIssueRequestQueueKey(couponId, shard), getIssueRequestActiveShard(couponId, shard));
+    }
+
+    /**
+     * 요청이 남아있지만 처리 대상 쿠폰 목록에 없는 쿠폰별(분할별) 큐를 찾아 다시 등록한다.
+     * 발급 요청 스크립트와 처리 대상 등록(SADD)은 Redis Cluster에서 다른 slot이라 따로 실행되므로,
+     * 그 사이에 노드가 종료되거나 removeActiveQueueIfEmpty가 요청과 겹쳐 제거하면 큐가 처리되지 않고 남는다.
+     * 큐 키를 SCAN으로 찾으므로(Redis Cluster는 master 노드마다) 긴 주기로 실행한다.
+     *
+     * @return 다시 등록한 큐 수
+     */
+    public int recoverActiveQueues() {
+        ScanOptions options = ScanOptions.scanOptions().match(ACTIVE_QUEUE_PATTERN).count(1000).build();
+        List<String> queueKeys = redisTemplate.execute((RedisCallback<List<String>>) connection -> {
+            List<String> keys = new ArrayList<>();
+            if (connection instanceof RedisClusterConnection clusterConnection) {
+                for (RedisClusterNode node : clusterConnection.clusterGetNodes()) {
+                    if (node.isMaster()) {
+                        scanKeys(clusterConnection.scan(node, options), keys);
+                    }
+                }
+            } else {
+                scanKeys(connection.keyCommands().scan(options), keys);
+            }
+            return keys;
+        });
+        int recovered = 0;
+        for (String queueKey : queueKeys == null ? List.<String>of() : queueKeys) {
+            String member = activeQueueMember(queueKey);
+            Long size = redisTemplate.opsForList().size(queueKey);
+            if (member == null || size == null || size == 0) {
+                continue;
+            }
+            Long added = redisTemplate.opsForSet().add(IssueRequestActiveCouponsKey, member);
+            if (added != null && added > 0) {
+                recovered++;
+            }
+        }
+        return recovered;
+    }
+
+    private static void scanKeys(Cursor<byte[]> cursor, List<String> keys) {
+        try (cursor) {
+            cursor.forEachRemaining(key -> keys.add(new String(key, StandardCharsets.UTF_8)));
+        }
+    }
+
+    // 쿠폰별(분할별) 큐 키의 처리 대상 쿠폰 목록 값 (issue.request.queue.{couponId=N} -> N, {couponId=N.shard=K} -> N:K)
+    private static String activeQueueMember(String queueKey) {
+        String prefix = "issue.request.queue.{couponId=";
+        if (!queueKey.startsWith(prefix) || !queueKey.endsWith("}")) {
+            return null;
+        }
+        String tag = queueKey.substring(prefix.length(), queueKey.length() - 1);
+        int separator = tag.indexOf(".shard=");
+        try {
+            if (separator < 0) {
+                return String.valueOf(Long.parseLong(tag));
+            }
+            return getIssueRequestActiveShard(Long.parseLong(tag.substring(0, separator)),
+                    Integer.parseInt(tag.substring(separator + ".shard=".length())));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private boolean removeActiveQueueIfEmpty(String queueKey, String member) {
+        Long size = redisTemplate.opsForList().size(queueKey);
+        if (size == null || size > 0) {
+            return false;
+        }
+        Long removed = redisTemplate.opsForSet().remove(IssueRequestActiveCouponsKey, member);
+        size = redisTemplate.opsForList().size(queueKey);
+        if (size != null && size > 0) {
+            redisTemplate.opsForSet().add(IssueRequestActiveCouponsKey, member);
+            return false;
+        }
+        return removed != null && removed > 0;
+    }
+
+    /**
+     * 쿠폰의 남은 발급 수량 중 최대 blockSize 만큼을 노드에 빌려준다. (quota lease)
+     * 빌려준 수량은 issue.quota.leased.{couponId=N}에 누적하고, 발급 수량을 넘지 않도록 남은 만큼만 빌려준다.
+     *
+     * @param couponId
+     * @param totalIssueQuantity
+     * @param blockSize
+     * @return 빌려준 수량 (남은 수량이 없다면 0)
+     */
+    public int leaseIssueQuota(long couponId, int totalIssueQuantity, int blockSize) {
+        Long granted = redisTemplate.execute(
+                leaseIssueQuotaScript,
+                List.of(getIssueQuotaLeasedKey(couponId)),
+                String.valueOf(totalIssueQuantity),
+                String.valueOf(blockSize)
+        );
+        return granted == null ? 0 : granted.intValue();
+    }
+
+    /**
+     * 사용하지 않은 발급 수량을 돌려준다. (quota lease 반납)
+     *
+     * @param couponId
+     * @param quantity
+     */
+    public void returnIssueQuota(long couponId, int quantity) {
+        redisTemplate.opsForValue().decrement(getIssueQuotaLeasedKey(couponId), quantity);
+    }
+
+    /**
+     * 노드에서 빌린 수량으로 받은 발급 요청을 한번에 기록하고 발급 대기열 큐에 넣는다. (quota lease)
+     * 이미 발급 요청 Set에 있는 유저(다른 노드에서 받은 중복 요청)는 큐에 넣지 않고, 그만큼의 수량을 돌려준다.
+     *
+     * @param couponId
+     * @param userIds
+     * @return 중복으로 제외한 요청 수
+     */
+    public long issueLeasedRequests(long couponId, List<Long> userIds) {
+        Object[] args = new Object[userIds.size() + 1];
+        args[0] = String.valueOf(couponId);
+        for (int i = 0; i < userIds.size(); i++) {
+            args[i + 1] = String.valueOf(userIds.get(i));
+        }
+        Long duplicated = redisTemplate.execute(
+                issueLeasedRequestsScript,
+                List.of(getIssueRequestKey(couponId), IssueRequestQueueKey, getIssueQuotaLeasedKey(couponId)),
+                args
+        );
+        return duplicated == null ? 0 : duplicated;
+    }
+
+    /**
+     * 대기열에 입장한다. 이미 입장한 유저는 처음 입장한 순서를 유지한다.
+     * 대기열 ZSet과 처리 대상 쿠폰 목록은 Redis Cluster에서 다른 slot에 있으므로 대기열에 넣은 뒤에 쿠폰을 등록한다.
+     *
+     * @param couponId
+     * @param userId
+     * @param enteredAtMillis
+     * @return 대기열 순위 (0부터 시작)
+     */
+    public long enterWaitingRoom(long couponId, long userId, long enteredAtMillis) {
+        String waitingRoomKey = getIssueWaitingRoomKey(couponId);
+        zAdd(waitingRoomKey, String.valueOf(userId), enteredAtMillis);
+        sAdd(getIssueWaitingRoomCouponsKey(), String.valueOf(couponId));
+        Long rank = zRank(waitingRoomKey, String.valueOf(userId));
+        // 입장한 사이에 입장 토큰을 받아서 대기열에서 나왔다면 맨 앞이다.
+        return rank == null ? 0 : rank;
+    }
+
+    /**
+     * 대기열이 비어있다면 처리 대상 쿠폰 목록에서 제거한다. (제거한 뒤에 다시 확인하여 그 사이 입장한 유저를 놓치지 않는다)
+     *
+     * @param couponId
+     */
+    public void removeWaitingRoomIfEmpty(long couponId) {
+        String waitingRoomKey = getIssueWaitingRoomKey(couponId);
+        Long size = redisTemplate.opsForZSet().zCard(waitingRoomKey);
+        if (size == null || size > 0) {
+            return;
+        }
+        sRem(getIssueWaitingRoomCouponsKey(), String.valueOf(couponId));
+        size = redisTemplate.opsForZSet().zCard(waitingRoomKey);
+        if (size != null && size > 0) {
+            sAdd(getIssueWaitingRoomCouponsKey(), String.valueOf(couponId));
+        }
+    }
+
+    /**
+     * 대기열을 비우고 처리 대상 쿠폰 목록에서 제거한다. (소진된 쿠폰)
+     *
+     * @param couponId
+     */
+    public void clearWaitingRoom(long couponId) {
+        redisTemplate.delete(getIssueWaitingRoomKey(couponId));
+        sRem(getIssueWaitingRoomCouponsKey(), String.valueOf(couponId));
+    }
+
+    /**
+     * 대기열에서 나온 유저들의 입장 토큰을 한번에 저장한다. (pipeline)
+     *
+     * @param couponId
+     * @param tokens userId -> 입장 토큰
+     * @param ttl
+     */
+    public void saveAdmissionTokens(long couponId, Map<Long, String> tokens, Duration ttl) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            tokens.forEach((userId, token) -> connection.stringCommands().set(
+                    getIssueAdmissionTokenKey(couponId, userId).getBytes(StandardCharsets.UTF_8),
+                    token.getBytes(StandardCharsets.UTF_8),
+                    Expiration.from(ttl),
+                    RedisStringCommands.SetOption.upsert()
+            ));
+            return null;
+        });
+    }
+
+    /**
+     * 유저의 입장 토큰 조회
+     *
+     * @param couponId
+     * @param userId
+     * @return 입장 토큰이 없거나 만료되었다면 null
+     */
+    public String getAdmissionToken(long couponId, long userId) {
+        return redisTemplate.opsForValue().get(getIssueAdmissionTokenKey(couponId, userId));
+    }
+
+    /**
+     * 입장 토큰이 유저의 토큰과 같다면 사용 처리(삭제)한다. (한 번만 사용할 수 있다)
+     *
+     * @param couponId
+     * @param userId
+     * @param token
+     * @return 사용한 토큰의 남은 만료 시간(ms), 사용하지 못했다면 0
+     */
+    public long redeemAdmissionToken(long couponId, long userId, String token) {
+        Long remainingMillis = redisTemplate.execute(
+                redeemAdmissionTokenScript,
+                List.of(getIssueAdmissionTokenKey(couponId, userId)),
+                token
+        );
+        return remainingMillis == null ? 0 : remainingMillis;
+    }
+
+    /**
+     * 사용 처리한 입장 토큰을 남은 만료 시간으로 되돌린다. (그 사이 새 토큰을 받았다면 덮어쓰지 않는다)
+     *
+     * @param couponId
+     * @param userId
+     * @param token
+     * @param remainingMillis
+     */
+    public void restoreAdmissionToken(long couponId, long userId, String token, long remainingMillis) {
+        setIfAbsent(getIssueAdmissionTokenKey(couponId, userId), token, Duration.ofMillis(remainingMillis));
+    }
+
+    /**
+     * 여러 rate limit window 카운터를 한번에 증가시킨다. (pipeline으로 한번에 보내고, 증가한 값을 순서대로 반환)
+     * 카운터는 ttlMillis 뒤에 만료된다.
+     *
+     * @param keys
+     * @param increments
+     * @param ttlMillis
+     * @return 증가한 뒤의 카운터 값
+     */
+    public List<Long> incrementRateLimitWindows(List<String> keys, List<Long> increments, long ttlMillis) {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < keys.size(); i++) {
+                byte[] key = keys.get(i).getBytes(StandardCharsets.UTF_8);
+                connection.stringCommands().incrBy(key, increments.get(i));
+                connection.keyCommands().pExpire(key, ttlMillis);
+            }
+            return null;
+        });
+        List<Long> counts = new ArrayList<>(keys.size());
+        for (int i = 0; i < results.size(); i += 2) {
+            counts.add((Long) results.get(i));
+        }
+        return counts;
+    }
+
+    /**
+     * Hash의 모든 값 조회
+     *
+     * @param key
+     * @return
+     */
+    public Map<Object, Object> hGetAll(String key) {
+        return redisTemplate.opsForHash().entries(key);
+    }
+
+    /**
+     * 쿠폰 발급 요청 스크립트를 함수로 등록하는 라이브러리 (스크립트 본문을 그대로 함수 본문으로 사용한다)
+     * 노드마다 같은 라이브러리 본문(SHA-1)이 만들어지도록 등록 순서를 고정한다.
+     *
+     * @return
+     */
+    private CouponIssueFunctionLibrary issueFunctionLibrary() {
+        Map<String, String> scripts = new LinkedHashMap<>();
+        scripts.put(ISSUE_REQUEST, issueScript.getScriptAsString());
+        scripts.put(ISSUE_REQUEST_BITMAP, issueBitmapScript.getScriptAsString());
+        scripts.put(ISSUE_REQUEST_STREAM, issueStreamScript.getScriptAsString());
+        scripts.put(ISSUE_REQUEST_SHARDED, issueShardedScript.getScriptAsString());
+        scripts.put(ISSUE_REQUEST_SPREAD, issueSpreadScript.getScriptAsString());
+        return new CouponIssueFunctionLibrary(scripts);
+    }
+
+    /**
+     * Redis 쿠폰 발급 요청 스크립트
+     *
+     * @return
+     */
+    private RedisScript<String> issueRequestScript() {
+        String script = """
+                if redis.call('SISMEMBER', KEYS[1], ARGV[1]) == 1 then 
+                    return '2'
+                end
+                                
+                if tonumber(ARGV[2]) > redis.call('SCARD', KEYS[1]) then
+                    redis.call('SADD', KEYS[1], ARGV[1])
+                    redis.call('RPUSH', KEYS[2], ARGV[3])
+                    return '1'
+                end
+                                
                 return '3'
                 """;
         return RedisScript.of(script, String.class);
     }
 
+    /**
+     * Redis 쿠폰 발급 요청 스크립트 (BITMAP 저장)
+     * 발급 요청 유저는 bitmap(KEYS[1])의 userId 위치 bit로, 발급 요청 수는 counter(KEYS[3])로 관리한다.
+     * bitmap은 유저 수가 아닌 userId 범위만큼 메모리를 사용하므로 조밀한 숫자 userId에서만 사용한다.
+     *
+     * @return
+     */
+    private RedisScript<String> issueRequestBitmapScript() {
+        String script = """
+                if redis.call('GETBIT', KEYS[1], ARGV[1]) == 1 then
+                    return '2'
+                end
+
+                if tonumber(ARGV[2]) > tonumber(redis.call('GET', KEYS[3]) or '0') then
+                    redis.call('SETBIT', KEYS[1], ARGV[1], 1)
+                    redis.call('INCR', KEYS[3])
+                    redis.call('RPUSH', KEYS[2], ARGV[3])
+                    return '1'
+                end
+
+                return '3'
+                """;
+        return RedisScript.of(script, String.class);
+    }
+
+    /**
+     * Redis 쿠폰 발급 요청 스크립트 (스트림 전달)
+     * 리스트 대신 스트림에 couponId, userId 필드로 추가하고, 스트림 길이는 대략 ARGV[4]로 유지한다.
+     *
+     * @return
+     */
+    private RedisScript<String> issueRequestStreamScript() {
+        String script = """
+                if redis.call('SISMEMBER', KEYS[1], ARGV[1]) == 1 then
+                    return '2'
+                end
+
+                if tonumber(ARGV[2]) > redis.call('SCARD', KEYS[1]) then
+                    redis.call('SADD', KEYS[1], ARGV[1])
+                    redis.call('XADD', KEYS[2], 'MAXLEN', '~', ARGV[4], '*', 'couponId', ARGV[3], 'userId', ARGV[1])
+                    return '1'
+                end
+
+                return '3'
+                """;
+        return RedisScript.of(script, String.class);
+    }
+
+    /**
+     * Redis 쿠폰 발급 요청 스크립트 (쿠폰별 큐 전달)
+     * 쿠폰별 큐(KEYS[2])에 userId만 넣는다. 두 키는 같은 hash tag를 사용하므로 Redis Cluster에서도 실행할 수 있다.
+     *
+     * @return
+     */
+    private RedisScript<String> issueRequestShardedScript() {
+        String script = """
+                if redis.call('SISMEMBER', KEYS[1], ARGV[1]) == 1 then
+                    return '2'
+                end
+
+                if tonumber(ARGV[2]) > redis.call('SCARD', KEYS[1]) then
+                    redis.call('SADD', KEYS[1], ARGV[1])
+                    redis.call('RPUSH', KEYS[2], ARGV[1])
+                    return '1'
+                end
+
+                return '3'
+                """;
+        return RedisScript.of(script, String.class);
+    }
+
+    /**
+     * Redis 쿠폰 발급 요청 스크립트 (분할, spread)
+     * 분할의 발급 요청 유저 Set(KEYS[1])과 분할이 가진 수량(KEYS[3])으로 확인하고, 큐(KEYS[2])에 ARGV[3]을 넣는다.
+     * 분할이 가진 수량이 없다면 처음 가지는 수량(ARGV[2])으로 정한다.
+     *
+     * @return
+     */
+    private RedisScript<String> issueRequestSpreadScript() {
+        String script = """
+                if redis.call('SISMEMBER', KEYS[1], ARGV[1]) == 1 then
+                    return '2'
+                end
+
+                local quota = redis.call('GET', KEYS[3])
+                if not quota then
+                    quota = ARGV[2]
+                    redis.call('SET', KEYS[3], quota)
+                end
+
+                if tonumber(quota) > redis.call('SCARD', KEYS[1]) then
+                    redis.call('SADD', KEYS[1], ARGV[1])
+                    redis.call('RPUSH', KEYS[2], ARGV[3])
+                    return '1'
+                end
+
+                return '3'
+                """;
+        return RedisScript.of(script, String.class);
+    }
+
+    /**
+     * 분할(KEYS[1], KEYS[2])의 남은 수량 절반을 빼고, 옮기는 중인 수량(KEYS[3] hash, moveId -> 받는 분할:수량)으로 기록한 뒤 뺀 수량을 반환하는 스크립트 (spread)
+     *
+     * @return
+     */
+    private RedisScript<Long> moveSpreadQuotaScript() {
+        String script = """
+                local quota = tonumber(redis.call('GET', KEYS[2]) or ARGV[1])
+                local spare = quota - redis.call('SCARD', KEYS[1])
+                if spare <= 0 then
+                    return 0
+                end
+                local moved = math.ceil(spare / 2)
+                redis.call('SET', KEYS[2], quota - moved)
+                redis.call('HSET', KEYS[3], ARGV[2], ARGV[3] .. ':' .. moved)
+                return moved
+                """;
+        return RedisScript.of(script, Long.class);
+    }
+
+    /**
+     * 옮겨온 수량(ARGV[1])을 분할의 수량(KEYS[1])에 더하는 스크립트 (spread)
+     * 이동마다 받은 기록(KEYS[2])을 남겨 같은 이동을 두 번 더하지 않고, 수량이 없다면 처음 수량(ARGV[2])에 더한다.
+     *
+     * @return
+     */
+    private RedisScript<Long> receiveSpreadQuotaScript() {
+        String script = """
+                if not redis.call('SET', KEYS[2], '1', 'NX', 'PX', ARGV[3]) then
+                    return 0
+                end
+                if not redis.call('GET', KEYS[1]) then
+                    redis.call('SET', KEYS[1], ARGV[2])
+                end
+                redis.call('INCRBY', KEYS[1], ARGV[1])
+                return 1
+                """;
+        return RedisScript.of(script, Long.class);
+    }
+
+    /**
+     * 남은 발급 수량(ARGV[1] - KEYS[1]) 중 최대 ARGV[2] 만큼을 빌려주는 스크립트
+     *
+     * @return
+     */
+    private RedisScript<Long> leaseIssueQuotaScript() {
+        String script = """
+                local leased = tonumber(redis.call('GET', KEYS[1]) or '0')
+                local granted = math.min(tonumber(ARGV[2]), tonumber(ARGV[1]) - leased)
+                if granted <= 0 then
+                    return 0
+                end
+                redis.call('INCRBY', KEYS[1], granted)
+                return granted
+                """;
+        return RedisScript.of(script, Long.class);
+    }
+
+    /**
+     * 빌린 수량으로 받은 발급 요청(ARGV[2] ~)을 발급 요청 Set(KEYS[1])에 기록하고 발급 대기열 큐(KEYS[2])에 넣는 스크립트
+     * 이미 Set에 있는 유저는 제외하고, 제외한 수만큼 빌려준 수량(KEYS[3])에서 돌려받는다.
+     * 큐에 넣는 값은 CouponIssueRequest JSON과 같다. ({"couponId":1,"userId":1})
+     *
+     * @return
+     */
+    private RedisScript<Long> issueLeasedRequestsScript() {
+        String script = """
+                local duplicated = 0
+                for i = 2, #ARGV do
+                    if redis.call('SADD', KEYS[1], ARGV[i]) == 1 then
+                        redis.call('RPUSH', KEYS[2], '{"couponId":' .. ARGV[1] .. ',"userId":' .. ARGV[i] .. '}')
+                    else
+                        duplicated = duplicated + 1
+                    end
+                end
+                if duplicated > 0 then
+                    redis.call('DECRBY', KEYS[3], duplicated)
+                end
+                return duplicated
+                """;
+        return RedisScript.of(script, Long.class);
+    }
+
+    /**
+     * KEYS[1]의 값이 ARGV[1]과 같을 때만 만료 시간을 ARGV[2] ms로 연장하는 스크립트
+     *
+     * @return
+     */
+    private RedisScript<Long> expireIfEqualsScript() {
+        String script = """
+                if redis.call('GET', KEYS[1]) == ARGV[1] then
+                    return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+                end
+                return 0
+                """;
+        return RedisScript.of(script, Long.class);
+    }
+
+    /**
+     * 입장 토큰(KEYS[1])이 ARGV[1]과 같을 때만 삭제하는 스크립트 (사용 처리)
+     * 발급 요청에 실패하면 토큰을 되돌릴 수 있도록 삭제한 토큰의 남은 만료 시간(ms, 최소 1)을 반환한다.
+     *
+     * @return
+     */
+    private RedisScript<Long> redeemAdmissionTokenScript() {
+        String script = """
+                if redis.call('GET', KEYS[1]) == ARGV[1] then
+                    local ttl = redis.call('PTTL', KEYS[1])
+                    redis.call('DEL', KEYS[1])
+                    return math.max(ttl, 1)
+                end
+                return 0
+                """;
+        return RedisScript.of(script, Long.class);
+    }
+
+    /**
+     * 처리 중 큐(KEYS[1])에 남아있는 값(ARGV)만 제거하고 대기열(KEYS[2]) 맨 앞으로 되돌리는 스크립트
+     * 마지막 값부터 LPUSH 하므로 대기열에는 ARGV 순서대로 놓인다.
+     *
+     * @return
+     */
+    private RedisScript<Long> requeueProcessingRequestScript() {
+        String script = """
+                local requeued = 0
+                for i = #ARGV, 1, -1 do
+                    if redis.call('LREM', KEYS[1], 1, ARGV[i]) > 0 then
+                        redis.call('LPUSH', KEYS[2], ARGV[i])
+                        requeued = requeued + 1
+                    end
+                end
+                return requeued
+                """;
+        return RedisScript.of(script, Long.class);
+    }
+
 }
@@ -7,7 +7,9 @@ import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
 import org.example.couponcore.exception.CouponIssueException;
 import org.example.couponcore.exception.ErrorCode;
 import org.example.couponcore.model.Coupon;
+import org.example.couponcore.model.CouponIssueOutcome;
 import org.example.couponcore.model.CouponType;
+import org.example.couponcore.model.IssuedUserStorage;
 
 import java.time.LocalDateTime;
 
@@ -29,9 +31,32 @@ public record CouponRedisEntity(
 
         @JsonSerialize(using = LocalDateTimeSerializer.class)
         @JsonDeserialize(using = LocalDateTimeDeserializer.class)
-        LocalDateTime dateIssueEnd
+        LocalDateTime dateIssueEnd,
+
+        // 발급 요청 유저를 Redis에 저장하는 방식 (이전 캐시처럼 값이 없다면 SET)
+        IssuedUserStorage issuedUserStorage,
+
+        // 발급 요청을 나누는 분할 수 (1이면 나누지 않는다)
+        int spreadFactor,
+
+        // 대기열(waiting room) 사용 여부 (입장 토큰이 있어야 발급 요청을 받는다)
+        boolean waitingRoom
 ) {
 
+    public CouponRedisEntity {
+        if (issuedUserStorage == null) {
+            issuedUserStorage = IssuedUserStorage.SET;
+        }
+        if (spreadFactor < 1) {
+            spreadFactor = 1;
+        }
+    }
+
+    public CouponRedisEntity(Long id, CouponType couponType, Integer totalQuantity, boolean availableIssueQuantity,
+                             LocalDateTime dateIssueStart, LocalDateTime dateIssueEnd) {
+        this(id, couponType, totalQuantity, availableIssueQuantity, dateIssueStart, dateIssueEnd, IssuedUserStorage.SET, 1, false);
+    }
+
     // 쿠폰 엔티티를 받아서 Redis 캐싱 엔티티로 변환
     public CouponRedisEntity(Coupon coupon) {
         this(
@@ -40,27 +65,51 @@ public record CouponRedisEntity(
                 coupon.getTotalQuantity(),
                 coupon.availableIssueQuantity(),
                 coupon.getDateIssueStart(),
-                coupon.getDateIssueEnd()
+                coupon.getDateIssueEnd(),
+                coupon.getIssuedUserStorage(),
+                coupon.isSpread() ? coupon.getSpreadFactor() : 1,
+                coupon.isWaitingRoom()
         );
     }
 
+    // 발급 요청을 여러 분할로 나누는지 확인 (발급 요청 유저를 Set으로 저장하는 쿠폰만 나눈다)
+    public boolean isSpread() {
+        return spreadFactor > 1 && issuedUserStorage == IssuedUserStorage.SET;
+    }
+
     // 쿠폰 발급 가능 여부 확인
-    private boolean availableIssueDate() {
-        LocalDateTime now = LocalDateTime.now();
+    private boolean availableIssueDate(LocalDateTime now) {
         return dateIssueStart.isBefore(now) && dateIssueEnd.isAfter(now);
     }
 
     // 쿠폰 발급 가능 여부 확인 public
     public void checkIssuableCoupon() {
-        if (!availableIssueQuantity) {
+        checkIssuableCoupon(LocalDateTime.now());
+    }
+
+    // 쿠폰 발급 가능 여부 확인 (현재 시각을 전달받아 객체를 만들지 않는다)
+    public void checkIssuableCoupon(LocalDateTime now) {
+        CouponIssueOutcome outcome = checkIssuable(now);
+        if (outcome == CouponIssueOutcome.SOLD_OUT) {
             throw new CouponIssueException(ErrorCode.INVALID_COUPON_ISSUE_QUANTITY,
                     "모든 쿠폰이 소진되어 발급 가능한 수량이 없습니다. couponId: %s".formatted(id));
         }
 
-        if (!availableIssueDate()) {
+        if (outcome == CouponIssueOutcome.OUT_OF_WINDOW) {
             throw new CouponIssueException(ErrorCode.INVALID_COUPON_ISSUE_DATE,
                     "발급 가능한 날짜가 아닙니다. couponId: %s, dateIssueStart: %s, dateIssueEnd: %s".formatted(id, dateIssueStart, dateIssueEnd));
         }
     }
 
+    // 쿠폰 발급 가능 여부 확인 (예외 대신 결과 반환)
+    public CouponIssueOutcome checkIssuable(LocalDateTime now) {
+        if (!availableIssueQuantity) {
+            return CouponIssueOutcome.SOLD_OUT;
+        }
+        if (!availableIssueDate(now)) {
+            return CouponIssueOutcome.OUT_OF_WINDOW;
+        }
+        return CouponIssueOutcome.SUCCESS;
+    }
+
 }
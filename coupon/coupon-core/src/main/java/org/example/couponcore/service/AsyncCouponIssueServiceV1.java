@@ -3,15 +3,19 @@ package org.example.couponcore.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.example.couponcore.component.CouponIssueQuotaLeaser;
 import org.example.couponcore.component.DistributeLockExecutor;
 import org.example.couponcore.exception.CouponIssueException;
 import org.example.couponcore.exception.ErrorCode;
 import org.example.couponcore.model.Coupon;
+import org.example.couponcore.model.CouponIssueOutcome;
 import org.example.couponcore.repository.redis.RedisRepository;
 import org.example.couponcore.repository.redis.dto.CouponIssueRequest;
 import org.example.couponcore.repository.redis.dto.CouponRedisEntity;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+
 import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestKey;
 import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestQueueKey;
 
@@ -23,6 +27,7 @@ public class AsyncCouponIssueServiceV1 {
     private final CouponIssueRedisService couponIssueRedisService;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final CouponCacheService couponCacheService;
+    private final CouponIssueQuotaLeaser couponIssueQuotaLeaser;
 
     // 동시성 제어를 위한 분산락
     private final DistributeLockExecutor distributeLockExecutor;
@@ -36,6 +41,16 @@ public class AsyncCouponIssueServiceV1 {
     public void issue(long couponId, long userId) {
         CouponRedisEntity coupon = couponCacheService.getCouponCache(couponId);
         coupon.checkIssuableCoupon();
+        // 입장 토큰을 확인하지 않으므로 대기열을 사용하는 쿠폰은 받지 않는다. (AsyncCouponIssueServiceV2로 요청한다)
+        if (coupon.waitingRoom()) {
+            throw new CouponIssueException(ErrorCode.NOT_ADMITTED_COUPON_ISSUE,
+                    "대기열을 사용하는 쿠폰입니다. couponId: %s, userId: %s".formatted(couponId, userId));
+        }
+        // 빌려준 수량과 따로 세면 발급 수량을 넘을 수 있으므로 quota lease를 사용하는 쿠폰은 받지 않는다.
+        if (couponIssueQuotaLeaser.isLeased(coupon)) {
+            throw new CouponIssueException(ErrorCode.LEASED_COUPON_ISSUE,
+                    "quota lease를 사용하는 쿠폰입니다. couponId: %s, userId: %s".formatted(couponId, userId));
+        }
         // 분산락 처리 (동시성 제어)
 //        distributeLockExecutor.execute("lock %s".formatted(couponId), 3000, 3000, () -> {
             couponIssueRedisService.checkCouponIssueQuantity(coupon, userId);
@@ -43,6 +58,35 @@ public class AsyncCouponIssueServiceV1 {
 //        });
     }
 
+    /**
+     * 비동기로 쿠폰 발급 요청 (소진, 중복, 발급 기간이 아닌 요청은 예외 대신 결과로 반환)
+     *
+     * @param couponId
+     * @param userId
+     * @return
+     */
+    public CouponIssueOutcome tryIssue(long couponId, long userId) {
+        CouponRedisEntity coupon = couponCacheService.getCouponCache(couponId);
+        CouponIssueOutcome outcome = coupon.checkIssuable(LocalDateTime.now());
+        if (!outcome.isSuccess()) {
+            return outcome;
+        }
+        // 입장 토큰을 확인하지 않으므로 대기열을 사용하는 쿠폰은 받지 않는다. (AsyncCouponIssueServiceV2로 요청한다)
+        if (coupon.waitingRoom()) {
+            return CouponIssueOutcome.NOT_ADMITTED;
+        }
+        // 빌려준 수량과 따로 세면 발급 수량을 넘을 수 있으므로 quota lease를 사용하는 쿠폰은 받지 않는다.
+        if (couponIssueQuotaLeaser.isLeased(coupon)) {
+            return CouponIssueOutcome.LEASED;
+        }
+        outcome = couponIssueRedisService.checkIssuable(coupon, userId);
+        if (!outcome.isSuccess()) {
+            return outcome;
+        }
+        issueRequest(couponId, userId);
+        return CouponIssueOutcome.SUCCESS;
+    }
+
     // todo: 아래의 과정을 하나로 묶어야 동시성 문제가 발생하지 않을 것이다.
     // 1. totalQuantity -> redisRepository.sCard(key)             // 쿠폰 발급 수량 제어
     // 2. !redisRepository.sIsMember(key, String.valueOf(userId)) // 중복 발급 제어
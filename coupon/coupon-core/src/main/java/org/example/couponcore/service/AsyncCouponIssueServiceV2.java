@@ -1,6 +1,15 @@
 package org.example.couponcore.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.couponcore.component.CoarseClock;
+import org.example.couponcore.component.CouponIssueQuotaLeaser;
+import org.example.couponcore.component.CouponIssueRequestBatcher;
+import org.example.couponcore.component.CouponSoldOutRegistry;
+import org.example.couponcore.exception.CouponIssueException;
+import org.example.couponcore.exception.ErrorCode;
+import org.example.couponcore.model.CouponIssueOutcome;
+import org.example.couponcore.model.IssuedUserStorage;
+import org.example.couponcore.repository.redis.CouponIssueRequestCode;
 import org.example.couponcore.repository.redis.RedisRepository;
 import org.example.couponcore.repository.redis.dto.CouponRedisEntity;
 import org.springframework.stereotype.Service;
@@ -11,6 +20,11 @@ public class AsyncCouponIssueServiceV2 {
 
     private final RedisRepository redisRepository;
     private final CouponCacheService couponCacheService;
+    private final CouponSoldOutRegistry couponSoldOutRegistry;
+    private final CoarseClock coarseClock;
+    private final CouponIssueRequestBatcher couponIssueRequestBatcher;
+    private final CouponIssueQuotaLeaser couponIssueQuotaLeaser;
+    private final CouponWaitingRoomService couponWaitingRoomService;
 
     /**
      * 비동기로 쿠폰 발급 요청
@@ -19,9 +33,95 @@ public class AsyncCouponIssueServiceV2 {
      * @param userId
      */
     public void issue(long couponId, long userId) {
+        // 소진된 쿠폰은 캐시, Redis 조회 없이 바로 거절한다.
+        if (couponSoldOutRegistry.isSoldOut(couponId)) {
+            throw new CouponIssueException(ErrorCode.INVALID_COUPON_ISSUE_QUANTITY,
+                    "모든 쿠폰이 소진되어 발급 가능한 수량이 없습니다. couponId: %s".formatted(couponId));
+        }
         CouponRedisEntity coupon = couponCacheService.getCouponLocalCache(couponId);
-        coupon.checkIssuableCoupon();
-        issueRequest(couponId, userId, coupon.totalQuantity());
+        coupon.checkIssuableCoupon(coarseClock.now());
+        CouponIssueOutcome outcome = request(couponId, userId, coupon, null);
+        if (outcome == CouponIssueOutcome.NOT_ADMITTED) {
+            throw new CouponIssueException(ErrorCode.NOT_ADMITTED_COUPON_ISSUE,
+                    "대기열 입장 토큰이 없습니다. couponId: %s, userId: %s".formatted(couponId, userId));
+        }
+        // 수량 초과, 중복 요청은 Redis 발급 요청 결과와 같은 예외를 던진다.
+        if (outcome == CouponIssueOutcome.SOLD_OUT) {
+            CouponIssueRequestCode.checkRequestResult(CouponIssueRequestCode.INVALID_COUPON_ISSUE_QUANTITY);
+        }
+        if (outcome == CouponIssueOutcome.DUPLICATED) {
+            CouponIssueRequestCode.checkRequestResult(CouponIssueRequestCode.DUPLICATED_COUPON_ISSUE);
+        }
+    }
+
+    /**
+     * 비동기로 쿠폰 발급 요청 (소진, 중복, 발급 기간이 아닌 요청은 예외 대신 결과로 반환)
+     * 쿠폰이 존재하지 않거나 요청에 실패한 경우만 예외를 던진다.
+     *
+     * @param couponId
+     * @param userId
+     * @return
+     */
+    public CouponIssueOutcome tryIssue(long couponId, long userId) {
+        return tryIssue(couponId, userId, null);
+    }
+
+    /**
+     * 비동기로 쿠폰 발급 요청 (대기열을 사용하는 쿠폰은 입장 토큰이 있어야 한다)
+     * 입장 토큰은 한 번만 사용할 수 있다.
+     *
+     * @param couponId
+     * @param userId
+     * @param admissionToken 대기열 입장 토큰 (대기열을 사용하지 않는 쿠폰은 null)
+     * @return
+     */
+    public CouponIssueOutcome tryIssue(long couponId, long userId, String admissionToken) {
+        // 소진된 쿠폰은 캐시, Redis 조회 없이 바로 거절한다.
+        if (couponSoldOutRegistry.isSoldOut(couponId)) {
+            return CouponIssueOutcome.SOLD_OUT;
+        }
+        CouponRedisEntity coupon = couponCacheService.getCouponLocalCache(couponId);
+        CouponIssueOutcome outcome = coupon.checkIssuable(coarseClock.now());
+        if (!outcome.isSuccess()) {
+            return outcome;
+        }
+        return request(couponId, userId, coupon, admissionToken);
+    }
+
+    // 발급 가능한 쿠폰의 입장 토큰을 확인하고 발급 요청한다.
+    // 발급 요청에 실패(예외)하면 사용 처리한 입장 토큰을 되돌린다. (수량 초과, 중복은 다시 요청해도 결과가 같으므로 되돌리지 않는다)
+    private CouponIssueOutcome request(long couponId, long userId, CouponRedisEntity coupon, String admissionToken) {
+        if (!coupon.waitingRoom()) {
+            return request(couponId, userId, coupon);
+        }
+        long remainingMillis = couponWaitingRoomService.redeem(couponId, userId, admissionToken);
+        if (remainingMillis <= 0) {
+            return CouponIssueOutcome.NOT_ADMITTED;
+        }
+        try {
+            return request(couponId, userId, coupon);
+        } catch (RuntimeException e) {
+            try {
+                couponWaitingRoomService.restore(couponId, userId, admissionToken, remainingMillis);
+            } catch (RuntimeException restoreException) {
+                e.addSuppressed(restoreException);
+            }
+            throw e;
+        }
+    }
+
+    // 발급 요청하고 처음 수량 초과 응답을 받으면 소진 처리한다.
+    private CouponIssueOutcome request(long couponId, long userId, CouponRedisEntity coupon) {
+        if (couponIssueQuotaLeaser.isLeased(coupon)) {
+            // 다른 노드가 빌린 수량이 남아있을 수 있으므로 소진 처리하지 않는다. (발급이 끝나면 consumer가 소진 처리한다)
+            return couponIssueQuotaLeaser.issueRequest(couponId, userId, totalIssueQuantity(coupon.totalQuantity()), coupon.dateIssueEnd()).outcome;
+        }
+        CouponIssueOutcome outcome = issueRequest(couponId, userId, coupon).outcome;
+        // 소진 처리하여 모든 노드에 알린다.
+        if (outcome == CouponIssueOutcome.SOLD_OUT && isSoldOut(couponId, coupon)) {
+            couponSoldOutRegistry.markSoldOut(couponId);
+        }
+        return outcome;
     }
 
     /**
@@ -30,11 +130,40 @@ public class AsyncCouponIssueServiceV2 {
      * @param couponId
      * @param userId
      */
-    private void issueRequest(long couponId, long userId, Integer totalIssueQuantity) {
-        if (totalIssueQuantity == null) {
-            redisRepository.issueRequest(couponId, userId, Integer.MAX_VALUE); // MAX_VALUE로 검증 우회
+    private CouponIssueRequestCode issueRequest(long couponId, long userId, CouponRedisEntity coupon) {
+        int quantity = totalIssueQuantity(coupon.totalQuantity());
+        IssuedUserStorage storage = coupon.issuedUserStorage();
+        // 요청을 여러 분할로 나누는 쿠폰은 userId로 분할을 골라 요청한다. (분할마다 다른 key이므로 batch로 모으지 않는다)
+        if (coupon.isSpread()) {
+            return redisRepository.tryIssueSpreadRequest(couponId, userId, quantity, coupon.spreadFactor());
         }
-        redisRepository.issueRequest(couponId, userId, totalIssueQuantity);
+        // micro-batching을 사용하면 다른 요청과 모아서 pipeline으로 보낸다.
+        if (couponIssueRequestBatcher.isEnabled()) {
+            return couponIssueRequestBatcher.issueRequest(couponId, userId, quantity, storage);
+        }
+        return redisRepository.tryIssueRequest(couponId, userId, quantity, storage);
+    }
+
+    // 요청을 여러 분할로 나누는 쿠폰은 한 분할의 수량 초과만으로 소진되었다고 볼 수 없으므로 모든 분할의 남은 수량을 다시 확인한다.
+    private boolean isSoldOut(long couponId, CouponRedisEntity coupon) {
+        if (!coupon.isSpread()) {
+            return true;
+        }
+        return redisRepository.remainingSpreadQuota(couponId, totalIssueQuantity(coupon.totalQuantity()), coupon.spreadFactor()) <= 0;
+    }
+
+    /**
+     * quota lease로 발급 요청을 받는 쿠폰인지 확인한다. (다른 발급 경로가 lease 쿠폰의 요청을 거절하는 데 사용한다)
+     *
+     * @param couponId
+     * @return
+     */
+    public boolean isLeased(long couponId) {
+        return couponIssueQuotaLeaser.isEnabled() && couponIssueQuotaLeaser.isLeased(couponCacheService.getCouponLocalCache(couponId));
+    }
+
+    private int totalIssueQuantity(Integer totalIssueQuantity) {
+        return totalIssueQuantity == null ? Integer.MAX_VALUE : totalIssueQuantity; // MAX_VALUE로 검증 우회
     }
 
 }
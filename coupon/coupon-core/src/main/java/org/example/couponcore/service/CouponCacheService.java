@@ -1,36 +1,52 @@
 package org.example.couponcore.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.couponcore.component.DistributeLockExecutor;
 import org.example.couponcore.model.Coupon;
 import org.example.couponcore.repository.redis.dto.CouponRedisEntity;
 import org.springframework.aop.framework.AopContext;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import static org.example.couponcore.util.CouponRedisUtils.getCouponCacheLoadLockKey;
+
 @RequiredArgsConstructor
 @Service
 public class CouponCacheService {
 
     private final CouponIssueService couponIssueService;
+    private final DistributeLockExecutor distributeLockExecutor;
+    private final CacheManager redisCacheManager;
 
     /**
      * 쿠폰 캐시 조회 (redis 캐시)
+     * 캐시가 없을 때 쿠폰별 분산락으로 한 스레드(노드)만 DB를 조회하고, 락을 기다린 스레드는 먼저 저장된 redis 캐시를 사용한다.
+     * sync = true는 RedisCache 전체에 하나의 락을 잡아 다른 쿠폰의 조회까지 기다리게 하므로 사용하지 않는다.
+     * (로컬 캐시를 거친 조회는 로컬 캐시의 쿠폰별 sync로 노드 안에서 한 스레드만 여기에 들어온다)
      * @param couponId
      * @return
      */
     @Cacheable(cacheNames = "coupon")
     public CouponRedisEntity getCouponCache(long couponId) {
-        Coupon coupon = couponIssueService.findCoupon(couponId);
-        return new CouponRedisEntity(coupon);
+        return distributeLockExecutor.execute(getCouponCacheLoadLockKey(couponId), 3000, 3000, () -> {
+            Cache cache = redisCacheManager.getCache("coupon");
+            CouponRedisEntity cached = cache == null ? null : cache.get(couponId, CouponRedisEntity.class);
+            return cached != null ? cached : loadCoupon(couponId);
+        });
     }
 
     /**
      * 쿠폰 캐시 조회 (로컬 캐시)
+     * sync = true: 같은 쿠폰의 캐시가 없을 때 한 스레드만 redis 캐시를 조회한다. (Caffeine은 쿠폰별로만 기다리게 한다)
+     * 로컬 캐시는 일정 시간이 지나면 기존 값을 반환하면서 비동기로 다시 불러온다. (LocalCacheConfig refresh-after-write)
      * @param couponId
      * @return
      */
-    @Cacheable(cacheNames = "coupon", cacheManager = "localCacheManager")
+    @Cacheable(cacheNames = "coupon", cacheManager = "localCacheManager", sync = true)
     public CouponRedisEntity getCouponLocalCache(long couponId) {
         // 만약 로컬 캐시에 없으면 redis 캐시를 조회하여 로컬 캐시에 저장한다. (다음 요청부터는 로컬 캐시에서 조회하게 됨)
         return proxy().getCouponCache(couponId);
@@ -43,7 +59,7 @@ public class CouponCacheService {
      */
     @CachePut(cacheNames = "coupon")
     public CouponRedisEntity putCouponCache(long couponId) {
-        return getCouponCache(couponId);
+        return loadCoupon(couponId);
     }
 
     /**
@@ -56,6 +72,21 @@ public class CouponCacheService {
         return getCouponLocalCache(couponId);
     }
 
+    /**
+     * 쿠폰 캐시 삭제 (로컬 캐시)
+     * 다음 조회 때 redis 캐시를 조회하여 다시 저장한다.
+     * @param couponId
+     */
+    @CacheEvict(cacheNames = "coupon", cacheManager = "localCacheManager")
+    public void evictCouponLocalCache(long couponId) {
+    }
+
+    // DB에서 쿠폰을 조회하여 redis 캐싱 엔티티로 변환한다.
+    private CouponRedisEntity loadCoupon(long couponId) {
+        Coupon coupon = couponIssueService.findCoupon(couponId);
+        return new CouponRedisEntity(coupon);
+    }
+
     /**
      * @Cacheable 어노테이션은 이러한 Aspect 중 하나로, 메서드의 결과를 캐시에 저장하고,같은 인자로 메서드가 호출될 때 캐시에서 결과를 가져오는 로직을 추가합니다.
      * 이 로직은 프록시 객체를 통해 동작하므로, 클래스가 this를 사용해서 자기 자신의 메서드를 직접 호출하면 프록시를 거치지 않게 되어 캐싱 로직이 동작하지 않게 됩니다.
@@ -0,0 +1,262 @@
+package org.example.couponcore.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.exception.CouponIssueException;
+import org.example.couponcore.model.Coupon;
+import org.example.couponcore.model.CouponIssueCounter;
+import org.example.couponcore.model.event.CouponIssueCompleteEvent;
+import org.example.couponcore.repository.mysql.CouponIssueCounterJpaRepository;
+import org.example.couponcore.repository.mysql.CouponJpaRepository;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.springframework.aop.framework.AopContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.example.couponcore.exception.ErrorCode.COUPON_NOT_EXIST;
+import static org.example.couponcore.util.CouponRedisUtils.getIssueCounterFoldLockKey;
+
+/**
+ * 쿠폰 발급 수량 counter slot 관리
+ * counter slot을 사용하는 쿠폰은 발급할 때 coupons row 대신 임의의 slot row를 증가시키고,
+ * coupons.issued_quantity는 주기적으로 slot 합계로 갱신(fold)된다. (coupon.issue.counter.fold-enabled=true)
+ * 발급 요청이 quota가 소진된 slot을 만나고 모든 slot이 소진되었다면 바로 갱신하여 캐시와 다른 노드에 소진을 알린다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@EnableScheduling
+@Service
+public class CouponIssueCounterService {
+
+    private final CouponJpaRepository couponJpaRepository;
+    private final CouponIssueCounterJpaRepository couponIssueCounterJpaRepository;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final RedisRepository redisRepository;
+
+    private final String foldOwner = UUID.randomUUID().toString();
+
+    // counter slot을 사용하는 쿠폰 (한번 나눈 쿠폰은 되돌리지 않으므로 발급 경로가 조회한 쿠폰에서 확인하고 기억해둔다)
+    private final Set<Long> shardedCounterCoupons = ConcurrentHashMap.newKeySet();
+
+    // counter slot을 사용하는 쿠폰이 있다면 true (주기적으로 발급 수량을 slot 합계로 갱신한다)
+    @Value("${coupon.issue.counter.fold-enabled:false}")
+    private boolean foldEnabled;
+
+    @Value("${coupon.issue.counter.fold-interval-ms:1000}")
+    private long foldIntervalMillis;
+
+    /**
+     * 쿠폰의 발급 수량을 slots 개의 counter slot으로 나눈다.
+     * 남은 수량을 slot마다 quota로 나눠 배정하고, 이미 발급된 수량은 첫번째 slot에 넣어 slot 합계가 발급 수량과 같도록 한다.
+     *
+     * @param couponId
+     * @param slots
+     */
+    @Transactional
+    public void enable(long couponId, int slots) {
+        if (slots <= 0) {
+            throw new IllegalArgumentException("counter slot 수는 1 이상이어야 합니다. slots: %s".formatted(slots));
+        }
+        Coupon coupon = couponJpaRepository.findCouponWithLock(couponId)
+                .orElseThrow(() -> new CouponIssueException(COUPON_NOT_EXIST, "쿠폰이 존재하지 않습니다. %s".formatted(couponId)));
+        if (coupon.isShardedCounter()) {
+            throw new IllegalStateException("이미 counter slot을 사용하는 쿠폰입니다. couponId: %s".formatted(couponId));
+        }
+        List<Integer> quotas = splitQuota(coupon, slots);
+        List<CouponIssueCounter> counters = new ArrayList<>(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            int issued = slot == 0 ? coupon.getIssuedQuantity() : 0;
+            Integer quota = quotas.get(slot) == null ? null : quotas.get(slot) + issued;
+            counters.add(CouponIssueCounter.builder()
+                    .couponId(couponId)
+                    .slot(slot)
+                    .quota(quota)
+                    .issuedQuantity(issued)
+                    .build());
+        }
+        couponIssueCounterJpaRepository.saveAll(counters);
+        coupon.enableShardedCounter(slots);
+    }
+
+    /**
+     * 이 노드에서 counter slot을 사용하는 쿠폰으로 확인된 쿠폰인지 확인한다. (DB를 조회하지 않는다)
+     *
+     * @param couponId
+     * @return 확인되지 않은 쿠폰이라면 false (발급 경로가 조회한 쿠폰으로 다시 확인한다)
+     */
+    public boolean isShardedCounter(long couponId) {
+        return shardedCounterCoupons.contains(couponId);
+    }
+
+    /**
+     * 발급 경로가 조회한 쿠폰이 counter slot을 사용하는지 확인하고 기억한다.
+     *
+     * @param coupon
+     * @return counter slot을 사용하는 쿠폰이라면 true
+     */
+    public boolean checkShardedCounter(Coupon coupon) {
+        if (!coupon.isShardedCounter()) {
+            return false;
+        }
+        shardedCounterCoupons.add(coupon.getId());
+        return true;
+    }
+
+    /**
+     * 임의의 slot부터 quota가 남은 slot을 찾아 발급 수량을 하나 증가시킨다.
+     * quota가 소진된 slot을 건너뛰었다면 모든 slot이 소진되었는지 확인한다.
+     *
+     * @param couponId
+     * @param slots
+     * @return 모든 slot의 quota가 소진되었다면 false
+     */
+    @Transactional
+    public boolean increase(long couponId, int slots) {
+        int start = ThreadLocalRandom.current().nextInt(slots);
+        for (int i = 0; i < slots; i++) {
+            if (couponIssueCounterJpaRepository.increaseIssuedQuantity(couponId, (start + i) % slots) > 0) {
+                if (i > 0) {
+                    foldIfExhausted(couponId);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * count 만큼의 발급 수량을 quota가 남은 slot들에 나눠 증가시킨다. (일괄 발급)
+     * slot마다 UPDATE 한번으로 몫을 한번에 증가시키고, 항상 slot 번호 순서로 갱신해 트랜잭션 사이에 row lock 순서가 엇갈리지 않도록 한다.
+     * 조회한 뒤 다른 트랜잭션이 먼저 소진해 몫을 증가시키지 못한 slot은 그 몫을 다음 slot으로 넘긴다.
+     * 남은 quota를 모두 사용했다면 모든 slot이 소진되었는지 확인한다.
+     *
+     * @param couponId
+     * @param count
+     * @return slot의 남은 quota가 부족하다면 false (이미 증가시킨 slot은 트랜잭션과 함께 롤백된다)
+     */
+    @Transactional
+    public boolean increaseAll(long couponId, int count) {
+        List<CouponIssueCounter> counters = couponIssueCounterJpaRepository.findByCouponIdOrderBySlot(couponId);
+        int[] amounts = allocate(counters, count);
+        if (amounts == null) {
+            return false;
+        }
+        int carry = 0;
+        for (int i = 0; i < counters.size(); i++) {
+            int amount = amounts[i] + carry;
+            if (amount == 0) {
+                continue;
+            }
+            carry = couponIssueCounterJpaRepository.increaseIssuedQuantity(couponId, counters.get(i).getSlot(), amount) > 0 ? 0 : amount;
+        }
+        if (carry != 0) {
+            return false;
+        }
+        if (spare(counters) <= count) {
+            foldIfExhausted(couponId);
+        }
+        return true;
+    }
+
+    /**
+     * 주기적으로 counter slot을 사용하는 쿠폰의 발급 수량을 slot 합계로 갱신한다.
+     * 모든 노드가 같은 쿠폰을 반복해서 갱신하지 않도록 fold-interval-ms 동안 한 노드만 실행한다. (SET NX PX)
+     */
+    @Scheduled(fixedDelayString = "${coupon.issue.counter.fold-interval-ms:1000}")
+    public void scheduledFold() {
+        if (!foldEnabled) {
+            return;
+        }
+        if (!redisRepository.setIfAbsent(getIssueCounterFoldLockKey(), foldOwner, Duration.ofMillis(foldIntervalMillis))) {
+            return;
+        }
+        ((CouponIssueCounterService) AopContext.currentProxy()).fold();
+    }
+
+    /**
+     * counter slot을 사용하는 쿠폰의 발급 수량을 slot 합계로 갱신한다.
+     * 발급 기간이 끝난 쿠폰도 하루 동안은 마지막 발급분이 반영되도록 갱신한다.
+     */
+    @Transactional
+    public void fold() {
+        for (Coupon coupon : couponJpaRepository.findShardedCounterCoupons(LocalDateTime.now().minusDays(1))) {
+            fold(coupon);
+        }
+    }
+
+    // 모든 slot의 quota가 소진되었다면 다음 fold를 기다리지 않고 발급 수량을 갱신한다. (커밋 후 캐시 갱신, 소진 알림)
+    private void foldIfExhausted(long couponId) {
+        if (couponIssueCounterJpaRepository.countAvailableSlots(couponId) > 0) {
+            return;
+        }
+        couponJpaRepository.findById(couponId).ifPresent(this::fold);
+    }
+
+    // slot들의 남은 quota 합 (quota가 없는 slot이 있다면 MAX_VALUE)
+    private long spare(List<CouponIssueCounter> counters) {
+        long spare = 0;
+        for (CouponIssueCounter counter : counters) {
+            if (counter.getQuota() == null) {
+                return Long.MAX_VALUE;
+            }
+            spare += Math.max(0, counter.getQuota() - counter.getIssuedQuantity());
+        }
+        return spare;
+    }
+
+    // slot 합계가 늘었다면 발급 수량을 갱신하고, 모두 발급되었다면 이벤트를 발행한다.
+    private void fold(Coupon coupon) {
+        int issuedQuantity = (int) couponIssueCounterJpaRepository.sumIssuedQuantity(coupon.getId());
+        if (couponJpaRepository.foldIssuedQuantity(coupon.getId(), issuedQuantity) == 0) {
+            return;
+        }
+        if (coupon.getTotalQuantity() != null && issuedQuantity >= coupon.getTotalQuantity()) {
+            applicationEventPublisher.publishEvent(new CouponIssueCompleteEvent(coupon.getId()));
+        }
+    }
+
+    // 임의의 slot부터 남은 quota만큼 count를 나눠 담는다. (남은 quota 합이 count보다 적다면 null)
+    private int[] allocate(List<CouponIssueCounter> counters, int count) {
+        int[] amounts = new int[counters.size()];
+        int remaining = count;
+        int start = counters.isEmpty() ? 0 : ThreadLocalRandom.current().nextInt(counters.size());
+        for (int i = 0; i < counters.size() && remaining > 0; i++) {
+            int index = (start + i) % counters.size();
+            CouponIssueCounter counter = counters.get(index);
+            int spare = counter.getQuota() == null ? remaining : Math.max(0, counter.getQuota() - counter.getIssuedQuantity());
+            amounts[index] = Math.min(spare, remaining);
+            remaining -= amounts[index];
+        }
+        return remaining > 0 ? null : amounts;
+    }
+
+    // 남은 수량을 slot 수로 나눈다. (나머지는 앞 slot부터 하나씩, 수량 제한이 없다면 null)
+    private List<Integer> splitQuota(Coupon coupon, int slots) {
+        List<Integer> quotas = new ArrayList<>(slots);
+        if (coupon.getTotalQuantity() == null) {
+            for (int slot = 0; slot < slots; slot++) {
+                quotas.add(null);
+            }
+            return quotas;
+        }
+        int remaining = Math.max(0, coupon.getTotalQuantity() - coupon.getIssuedQuantity());
+        for (int slot = 0; slot < slots; slot++) {
+            quotas.add(remaining / slots + (slot < remaining % slots ? 1 : 0));
+        }
+        return quotas;
+    }
+
+}
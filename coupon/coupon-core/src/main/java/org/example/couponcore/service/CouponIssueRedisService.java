@@ -3,6 +3,7 @@ package org.example.couponcore.service;
 import lombok.RequiredArgsConstructor;
 import org.example.couponcore.exception.CouponIssueException;
 import org.example.couponcore.exception.ErrorCode;
+import org.example.couponcore.model.CouponIssueOutcome;
 import org.example.couponcore.repository.redis.RedisRepository;
 import org.example.couponcore.repository.redis.dto.CouponRedisEntity;
 import org.springframework.stereotype.Service;
@@ -31,6 +32,22 @@ public class CouponIssueRedisService {
         }
     }
 
+    /**
+     * 쿠폰 발급 가능 여부 확인 (전체, 예외 대신 결과 반환)
+     * @param couponRedisEntity
+     * @param userId
+     * @return
+     */
+    public CouponIssueOutcome checkIssuable(CouponRedisEntity couponRedisEntity, long userId) {
+        if (!availableTotalIssueQuantity(couponRedisEntity.totalQuantity(), couponRedisEntity.id())) {
+            return CouponIssueOutcome.SOLD_OUT;
+        }
+        if (!availableUserIssueQuantity(couponRedisEntity.id(), userId)) {
+            return CouponIssueOutcome.DUPLICATED;
+        }
+        return CouponIssueOutcome.SUCCESS;
+    }
+
     /**
      * 쿠폰 발급 가능 여부 확인 (총 발급 수량 체크)
      * @param totalQuantity
@@ -1,37 +1,207 @@
 package org.example.couponcore.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.couponcore.component.CouponIssueWriteBehindCounter;
 import org.example.couponcore.exception.CouponIssueException;
 import org.example.couponcore.model.Coupon;
 import org.example.couponcore.model.CouponIssue;
 import org.example.couponcore.model.event.CouponIssueCompleteEvent;
-import org.example.couponcore.repository.mysql.CouponIssueJpaRepository;
+import org.example.couponcore.repository.mysql.CouponIssueJdbcRepository;
+import org.example.couponcore.repository.mysql.CouponIssueLockMode;
 import org.example.couponcore.repository.mysql.CouponIssueRepository;
 import org.example.couponcore.repository.mysql.CouponJpaRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import static org.example.couponcore.exception.ErrorCode.COUPON_NOT_EXIST;
-import static org.example.couponcore.exception.ErrorCode.DUPLICATE_COUPON_ISSUE;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.example.couponcore.exception.ErrorCode.*;
 
 @RequiredArgsConstructor
 @Service
 public class CouponIssueService {
 
+    private static final String DUPLICATE_ISSUE_INDEX = "uk_coupon_issues_coupon_id_user_id";
+
     private final CouponJpaRepository couponJpaRepository;
-    private final CouponIssueJpaRepository couponIssueJpaRepository;
     private final CouponIssueRepository couponIssueRepository;
+    private final CouponIssueJdbcRepository couponIssueJdbcRepository;
+    private final CouponIssueCounterService couponIssueCounterService;
+    private final CouponIssueWriteBehindCounter couponIssueWriteBehindCounter;
     private final ApplicationEventPublisher applicationEventPublisher;
 
+    // 발급 수량 증가 방식 (pessimistic: 쿠폰 row lock 후 증가, conditional: 조건부 UPDATE)
+    @Value("${coupon.issue.lock-mode:pessimistic}")
+    private CouponIssueLockMode lockMode;
+
+    /**
+     * 쿠폰 발급
+     * counter slot을 사용하는 쿠폰인지는 따로 조회하지 않고, 발급 방식마다 조회한 쿠폰으로 확인해 노드에 기억해둔다.
+     *
+     * @param couponId
+     * @param userId
+     */
     @Transactional
     public void issue(long couponId, long userId) {
+        if (couponIssueCounterService.isShardedCounter(couponId)) {
+            issueWithShardedCounter(findCoupon(couponId), userId);
+            return;
+        }
+        if (couponIssueWriteBehindCounter.isEnabled()) {
+            issueWithWriteBehind(couponId, userId);
+            return;
+        }
+        if (lockMode == CouponIssueLockMode.CONDITIONAL) {
+            issueWithConditionalUpdate(couponId, userId);
+            return;
+        }
         var coupon = findCouponWithLock(couponId);
+        if (couponIssueCounterService.checkShardedCounter(coupon)) {
+            issueWithShardedCounter(coupon, userId);
+            return;
+        }
         coupon.issue(); // 발급된 수량을 하나 증가시킨다.
         saveCouponIssue(couponId, userId);
         publishCouponEvent(coupon);
     }
 
+    /**
+     * 쿠폰 row lock을 미리 잡지 않고 조건부 UPDATE 한번으로 발급 수량을 증가시킨다. (coupon.issue.lock-mode=conditional)
+     * 발급 내역을 먼저 저장하고 마지막에 UPDATE 하므로 row lock은 UPDATE부터 커밋까지만 잡힌다.
+     * 갱신된 row가 없다면 원인에 맞는 예외를 던지고, 저장한 발급 내역도 함께 롤백된다.
+     * counter slot을 사용하는 쿠폰이라 갱신되지 않았다면 slot의 발급 수량을 증가시킨다.
+     *
+     * @param couponId
+     * @param userId
+     */
+    private void issueWithConditionalUpdate(long couponId, long userId) {
+        saveCouponIssue(couponId, userId);
+        if (couponJpaRepository.increaseIssuedQuantity(couponId, LocalDateTime.now()) > 0) {
+            publishCouponEvent(findCoupon(couponId));
+            return;
+        }
+        Coupon coupon = findCoupon(couponId);
+        if (couponIssueCounterService.checkShardedCounter(coupon)) {
+            coupon.checkIssueDate();
+            increaseCounter(coupon);
+            return;
+        }
+        throw rejectedIssue(coupon);
+    }
+
+    /**
+     * counter slot을 사용하는 쿠폰은 coupons row를 잠그지 않고 임의의 slot row의 발급 수량을 증가시킨다.
+     * slot의 quota가 모두 소진되었다면 예외를 던지고, 저장한 발급 내역도 함께 롤백된다.
+     *
+     * @param coupon
+     * @param userId
+     */
+    private void issueWithShardedCounter(Coupon coupon, long userId) {
+        coupon.checkIssueDate();
+        saveCouponIssue(coupon.getId(), userId);
+        increaseCounter(coupon);
+    }
+
+    /**
+     * 같은 쿠폰에 대한 발급 요청을 하나의 트랜잭션으로 일괄 처리한다.
+     * 쿠폰 row lock은 한번만 잡고, 발급 수량도 한번에 증가시키며, 발급 내역은 bulk insert로 저장한다.
+     * 이미 발급된 유저는 건너뛰므로 같은 요청이 재처리되어도 중복 발급되지 않는다.
+     *
+     * @param couponId
+     * @param userIds
+     */
+    @Transactional
+    public void issueAll(long couponId, List<Long> userIds) {
+        if (couponIssueCounterService.isShardedCounter(couponId)) {
+            issueAllWithShardedCounter(findCoupon(couponId), userIds);
+            return;
+        }
+        if (couponIssueWriteBehindCounter.isEnabled()) {
+            issueAllWithWriteBehind(couponId, userIds);
+            return;
+        }
+        var coupon = findCouponWithLock(couponId);
+        if (couponIssueCounterService.checkShardedCounter(coupon)) {
+            issueAllWithShardedCounter(coupon, userIds);
+            return;
+        }
+        List<Long> targets = excludeAlreadyIssued(couponId, userIds);
+        if (targets.isEmpty()) {
+            return;
+        }
+        coupon.issue(targets.size()); // 발급된 수량을 요청 수만큼 한번에 증가시킨다.
+        couponIssueJdbcRepository.saveAll(couponId, targets);
+        publishCouponEvent(coupon);
+    }
+
+    // counter slot을 사용하는 쿠폰의 일괄 발급 (요청 수를 slot별로 모아 slot 번호 순서로 한번씩 증가시킨다)
+    private void issueAllWithShardedCounter(Coupon coupon, List<Long> userIds) {
+        long couponId = coupon.getId();
+        coupon.checkIssueDate();
+        List<Long> targets = excludeAlreadyIssued(couponId, userIds);
+        if (targets.isEmpty()) {
+            return;
+        }
+        if (!couponIssueCounterService.increaseAll(couponId, targets.size())) {
+            throw new CouponIssueException(INVALID_COUPON_ISSUE_QUANTITY, "발급 가능한 수량이 남아있지 않습니다. couponId : %s".formatted(couponId));
+        }
+        couponIssueJdbcRepository.saveAll(couponId, targets);
+    }
+
+    /**
+     * 발급 내역만 저장하고 발급 수량 증가분은 커밋 후 write-behind counter에 더한다. (consumer의 coupon.issue.write-behind.enabled=true)
+     * 쿠폰 row를 잠그지도 갱신하지도 않으며, 발급 수량 제한은 Redis 발급 요청 스크립트가 보장한다.
+     * Redis를 거치지 않은 요청도 초과 발급되지 않도록 반영된 수량과 반영되지 않은 증가분으로 남은 수량을 한번 더 확인한다.
+     *
+     * @param couponId
+     * @param userId
+     */
+    private void issueWithWriteBehind(long couponId, long userId) {
+        Coupon coupon = findCoupon(couponId);
+        if (couponIssueCounterService.checkShardedCounter(coupon)) {
+            issueWithShardedCounter(coupon, userId);
+            return;
+        }
+        coupon.checkIssueDate();
+        checkWriteBehindQuantity(coupon, 1);
+        saveCouponIssue(couponId, userId);
+        couponIssueWriteBehindCounter.addAfterCommit(couponId, 1);
+    }
+
+    // write-behind 일괄 발급
+    private void issueAllWithWriteBehind(long couponId, List<Long> userIds) {
+        Coupon coupon = findCoupon(couponId);
+        if (couponIssueCounterService.checkShardedCounter(coupon)) {
+            issueAllWithShardedCounter(coupon, userIds);
+            return;
+        }
+        coupon.checkIssueDate();
+        List<Long> targets = excludeAlreadyIssued(couponId, userIds);
+        if (targets.isEmpty()) {
+            return;
+        }
+        checkWriteBehindQuantity(coupon, targets.size());
+        couponIssueJdbcRepository.saveAll(couponId, targets);
+        couponIssueWriteBehindCounter.addAfterCommit(couponId, targets.size());
+    }
+
+    // 반영된 발급 수량 + 반영되지 않은 증가분 + 이번 발급 수량이 전체 수량을 넘는다면 예외
+    private void checkWriteBehindQuantity(Coupon coupon, int quantity) {
+        long issued = coupon.getIssuedQuantity() + couponIssueWriteBehindCounter.getDelta(coupon.getId());
+        if (coupon.getTotalQuantity() != null && issued + quantity > coupon.getTotalQuantity()) {
+            throw new CouponIssueException(INVALID_COUPON_ISSUE_QUANTITY,
+                    "발급 가능한 수량이 남아있지 않습니다. total : %s, issue : %s".formatted(coupon.getTotalQuantity(), issued));
+        }
+    }
+
     // 쿠폰 조회
     @Transactional(readOnly = true)
     public Coupon findCoupon(long couponId) {
@@ -46,25 +216,57 @@ public class CouponIssueService {
                 .orElseThrow(() -> new CouponIssueException(COUPON_NOT_EXIST, "쿠폰이 존재하지 않습니다. %s".formatted(couponId)));
     }
 
+    /**
+     * 발급 내역을 저장한다.
+     * 중복 발급은 미리 조회하지 않고 (coupon_id, user_id) unique index 위반으로 판단하므로 INSERT 한번으로 처리된다.
+     * 영속성 컨텍스트를 flush 하지 않도록 jdbc로 바로 INSERT 하며, 다른 제약 조건 위반(ID 충돌 등)은 그대로 던진다.
+     *
+     * @param couponId
+     * @param userId
+     * @return
+     */
     @Transactional
     public CouponIssue saveCouponIssue(long couponId, long userId) {
-        // 이미 발급된 쿠폰인지 확인
-        checkAlreadyIssuance(couponId, userId);
-        var issue = CouponIssue.builder()
-                .couponId(couponId)
-                .userId(userId)
-                .build();
-        return couponIssueJpaRepository.save(issue);
-    }
-
-    // 이미 발급된 쿠폰인지 확인
-    private void checkAlreadyIssuance(long couponId, long userId) {
-        var issue = couponIssueRepository.findFirstCouponIssue(couponId, userId);
-        if (issue != null) {
+        try {
+            return couponIssueJdbcRepository.save(couponId, userId);
+        } catch (DataIntegrityViolationException e) {
+            if (!isDuplicateIssue(e)) {
+                throw e;
+            }
             throw new CouponIssueException(DUPLICATE_COUPON_ISSUE, "이미 발급된 쿠폰입니다. user_id: %s, coupon_id: %s".formatted(userId, couponId));
         }
     }
 
+    // (coupon_id, user_id) unique index 위반인지 확인한다. (MySQL, H2 모두 메시지에 인덱스 이름이 포함된다)
+    private boolean isDuplicateIssue(DataIntegrityViolationException e) {
+        String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        return message != null && message.toLowerCase().contains(DUPLICATE_ISSUE_INDEX);
+    }
+
+    // counter slot 하나의 발급 수량을 증가시킨다. (모든 slot의 quota가 소진되었다면 예외)
+    private void increaseCounter(Coupon coupon) {
+        if (!couponIssueCounterService.increase(coupon.getId(), coupon.getCounterSlots())) {
+            throw new CouponIssueException(INVALID_COUPON_ISSUE_QUANTITY, "발급 가능한 수량이 남아있지 않습니다. couponId : %s".formatted(coupon.getId()));
+        }
+    }
+
+    // 조건부 UPDATE로 발급되지 않은 원인(쿠폰 없음, 수량 소진, 발급 기간)에 맞는 예외
+    private CouponIssueException rejectedIssue(Coupon coupon) {
+        if (!coupon.availableIssueQuantity()) {
+            return new CouponIssueException(INVALID_COUPON_ISSUE_QUANTITY,
+                    "발급 가능한 수량이 남아있지 않습니다. total : %s, issue : %s".formatted(coupon.getTotalQuantity(), coupon.getIssuedQuantity()));
+        }
+        return new CouponIssueException(INVALID_COUPON_ISSUE_DATE,
+                "쿠폰 발급 기간이 아닙니다. request : %s, issuedStart : %s, issueEnd: %s".formatted(LocalDateTime.now(), coupon.getDateIssueStart(), coupon.getDateIssueEnd()));
+    }
+
+    // 이미 발급된 유저와 요청 내 중복 유저를 제외한다.
+    private List<Long> excludeAlreadyIssued(long couponId, List<Long> userIds) {
+        Set<Long> targets = new LinkedHashSet<>(userIds);
+        couponIssueRepository.findIssuedUserIds(couponId, targets).forEach(targets::remove);
+        return new ArrayList<>(targets);
+    }
+
     // 쿠폰 발급 수량이 모두 소진되었다면 이벤트 발행
     private void publishCouponEvent(Coupon coupon) {
         if (coupon.isIssueComplete()) {
@@ -0,0 +1,89 @@
+package org.example.couponcore.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.couponcore.component.CoarseClock;
+import org.example.couponcore.component.CouponSoldOutRegistry;
+import org.example.couponcore.exception.CouponIssueException;
+import org.example.couponcore.model.CouponIssueOutcome;
+import org.example.couponcore.model.CouponWaitingRoomTicket;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.example.couponcore.repository.redis.dto.CouponRedisEntity;
+import org.springframework.stereotype.Service;
+
+/**
+ * 쿠폰 대기열(waiting room)
+ * 대기열을 사용하는 쿠폰은 입장한 순서대로 CouponWaitingRoomAdmitter가 정해진 속도로 입장 토큰을 발급하고,
+ * 입장 토큰이 있는 요청만 발급 요청(AsyncCouponIssueServiceV2)을 받는다.
+ * 클라이언트는 입장 토큰을 받을 때까지 대기열 입장을 반복하여(polling) 순번을 확인한다.
+ */
+@RequiredArgsConstructor
+@Service
+public class CouponWaitingRoomService {
+
+    private final RedisRepository redisRepository;
+    private final CouponCacheService couponCacheService;
+    private final CouponSoldOutRegistry couponSoldOutRegistry;
+    private final CoarseClock coarseClock;
+
+    /**
+     * 대기열 입장 (이미 입장했다면 처음 입장한 순번을 유지하므로 순번 확인에도 사용한다)
+     * 소진되었거나 발급 기간이 아닌 쿠폰은 예외를 던진다.
+     *
+     * @param couponId
+     * @param userId
+     * @return 대기 순번이나 입장 토큰
+     */
+    public CouponWaitingRoomTicket enter(long couponId, long userId) {
+        CouponRedisEntity coupon = couponCacheService.getCouponLocalCache(couponId);
+        CouponIssueOutcome outcome = couponSoldOutRegistry.isSoldOut(couponId)
+                ? CouponIssueOutcome.SOLD_OUT
+                : coupon.checkIssuable(coarseClock.now());
+        if (!outcome.isSuccess()) {
+            throw new CouponIssueException(outcome.errorCode, "couponId: %s, userId: %s".formatted(couponId, userId));
+        }
+        if (!coupon.waitingRoom()) {
+            return CouponWaitingRoomTicket.admitted(null);
+        }
+        String admissionToken = redisRepository.getAdmissionToken(couponId, userId);
+        if (admissionToken != null) {
+            return CouponWaitingRoomTicket.admitted(admissionToken);
+        }
+        long rank = redisRepository.enterWaitingRoom(couponId, userId, System.currentTimeMillis());
+        return CouponWaitingRoomTicket.waiting(rank + 1);
+    }
+
+    /**
+     * 입장 토큰을 사용 처리한다. (한 번만 사용할 수 있다)
+     *
+     * @param couponId
+     * @param userId
+     * @param admissionToken
+     * @return 사용한 입장 토큰의 남은 만료 시간(ms), 유효한 입장 토큰이 아니었다면 0
+     */
+    public long redeem(long couponId, long userId, String admissionToken) {
+        return admissionToken == null ? 0 : redisRepository.redeemAdmissionToken(couponId, userId, admissionToken);
+    }
+
+    /**
+     * 사용 처리한 입장 토큰을 되돌린다. (발급 요청에 실패했다면 대기열에 다시 입장하지 않고 같은 토큰으로 재요청할 수 있다)
+     *
+     * @param couponId
+     * @param userId
+     * @param admissionToken
+     * @param remainingMillis 사용 처리할 때의 남은 만료 시간
+     */
+    public void restore(long couponId, long userId, String admissionToken, long remainingMillis) {
+        redisRepository.restoreAdmissionToken(couponId, userId, admissionToken, remainingMillis);
+    }
+
+    /**
+     * 대기열을 사용하는 쿠폰인지 확인한다. (입장 토큰을 확인하지 않는 발급 경로에서 대기열을 우회하지 못하도록 사용한다)
+     *
+     * @param couponId
+     * @return
+     */
+    public boolean isWaitingRoom(long couponId) {
+        return couponCacheService.getCouponLocalCache(couponId).waitingRoom();
+    }
+
+}
@@ -1,13 +1,178 @@
 package org.example.couponcore.util;
 
+/**
+ * Redis 키
+ * 쿠폰별 키는 hash tag({couponId=N})를 붙여 Redis Cluster에서도 같은 slot에 저장되도록 한다.
+ * (발급 요청 스크립트가 한번에 사용하는 발급 요청 유저 Set, bitmap, counter, 쿠폰별 큐)
+ * 요청을 여러 분할로 나누는 쿠폰(spread)은 분할마다 hash tag({couponId=N.shard=K})가 달라 여러 slot에 나눠 저장된다.
+ */
 public class CouponRedisUtils {
 
     public static String getIssueRequestKey(long couponId) {
-        return "issue.request.couponId=%s".formatted(couponId);
+        return "issue.request.%s".formatted(couponHashTag(couponId));
+    }
+
+    // 분할된 발급 요청 유저 Set (spread)
+    public static String getIssueRequestKey(long couponId, int shard) {
+        return "issue.request.%s".formatted(couponShardHashTag(couponId, shard));
+    }
+
+    // 분할이 가진 발급 수량 (spread, 다른 분할로 옮겨질 수 있다)
+    public static String getIssueQuotaKey(long couponId, int shard) {
+        return "issue.quota.%s".formatted(couponShardHashTag(couponId, shard));
+    }
+
+    // 분할에서 빼서 다른 분할로 옮기는 중인 발급 수량 (spread, moveId -> 받는 분할:수량)
+    public static String getIssueQuotaMovingKey(long couponId, int shard) {
+        return "issue.quota.moving.%s".formatted(couponShardHashTag(couponId, shard));
+    }
+
+    // 분할이 옮겨온 수량을 받은 기록 (spread, 같은 이동을 두 번 더하지 않는다)
+    public static String getIssueQuotaReceivedKey(long couponId, int shard, String moveId) {
+        return "issue.quota.received.%s.%s".formatted(couponShardHashTag(couponId, shard), moveId);
+    }
+
+    // 발급 요청 유저 bitmap (IssuedUserStorage.BITMAP, userId 위치의 bit)
+    public static String getIssueRequestBitmapKey(long couponId) {
+        return "issue.request.bitmap.%s".formatted(couponHashTag(couponId));
+    }
+
+    // 발급 요청 유저 bitmap을 사용하는 쿠폰의 발급 요청 수
+    public static String getIssueRequestCountKey(long couponId) {
+        return "issue.request.count.%s".formatted(couponHashTag(couponId));
+    }
+
+    // quota lease로 노드에 빌려준 발급 수량
+    public static String getIssueQuotaLeasedKey(long couponId) {
+        return "issue.quota.leased.%s".formatted(couponHashTag(couponId));
     }
 
     public static String getIssueRequestQueueKey() {
         return "issue.request";
     }
 
+    // 쿠폰별 발급 요청 큐 (userId만 보관)
+    public static String getIssueRequestQueueKey(long couponId) {
+        return "issue.request.queue.%s".formatted(couponHashTag(couponId));
+    }
+
+    // 분할별 발급 요청 큐 (spread, userId만 보관)
+    public static String getIssueRequestQueueKey(long couponId, int shard) {
+        return "issue.request.queue.%s".formatted(couponShardHashTag(couponId, shard));
+    }
+
+    // 처리할 요청이 남아있는 분할 (처리 대상 쿠폰 목록의 값, couponId:shard)
+    public static String getIssueRequestActiveShard(long couponId, int shard) {
+        return "%s:%s".formatted(couponId, shard);
+    }
+
+    // 쿠폰별 발급 큐에 처리할 요청이 남아있는 쿠폰 목록 (분할된 쿠폰은 couponId:shard)
+    public static String getIssueRequestActiveCouponsKey() {
+        return "issue.request.queue.active";
+    }
+
+    // 쿠폰별 발급 큐의 처리 가중치 (couponId -> weight)
+    public static String getIssueRequestQueueWeightKey() {
+        return "issue.request.queue.weight";
+    }
+
+    public static String getIssueRequestStreamKey() {
+        return "issue.request.stream";
+    }
+
+    // 발급 요청 스트림을 나눠서 소비하는 consumer group
+    public static String getIssueRequestStreamGroup() {
+        return "issue.consumer.group";
+    }
+
+    // 재처리 횟수를 초과한 발급 요청을 보관하는 큐 (수동 재처리용)
+    public static String getIssueRequestDeadLetterQueueKey() {
+        return "issue.request.dead";
+    }
+
+    // consumer별로 처리 중인 발급 요청을 보관하는 큐
+    public static String getIssueRequestProcessingQueueKey(String consumerId) {
+        return "issue.request.processing.%s".formatted(consumerId);
+    }
+
+    // 처리 중 큐를 가진 consumer 목록
+    public static String getIssueConsumersKey() {
+        return "issue.consumers";
+    }
+
+    // consumer가 살아있는지 확인하기 위한 heartbeat 키
+    public static String getIssueConsumerHeartbeatKey(String consumerId) {
+        return "issue.consumer.heartbeat.%s".formatted(consumerId);
+    }
+
+    // 발급 요청 rate limit의 전체 노드 window 카운터 (dimension: ip, user)
+    public static String getIssueRateLimitKey(String dimension, long key, long window) {
+        return "issue.rate.limit.%s.%s.%s".formatted(dimension, key, window);
+    }
+
+    // 쿠폰별 대기열 (userId, score: 입장 시각)
+    public static String getIssueWaitingRoomKey(long couponId) {
+        return "issue.waiting.%s".formatted(couponHashTag(couponId));
+    }
+
+    // 대기열에 입장한 유저가 남아있는 쿠폰 목록
+    public static String getIssueWaitingRoomCouponsKey() {
+        return "issue.waiting.active";
+    }
+
+    // 대기열에서 나온 유저의 입장 토큰 (만료 시간이 지나면 다시 입장해야 한다)
+    public static String getIssueAdmissionTokenKey(long couponId, long userId) {
+        return "issue.admission.%s.userId=%s".formatted(couponHashTag(couponId), userId);
+    }
+
+    // 쿠폰별 입장 토큰 발급 주기 (admit-interval-ms 동안 유지되며, 키를 저장한 노드만 그 주기에 발급한다)
+    public static String getIssueWaitingRoomAdmitGateKey(long couponId) {
+        return "issue.waiting.admit.%s".formatted(couponHashTag(couponId));
+    }
+
+    // 발급 수량이 모두 소진된 쿠폰 목록
+    public static String getIssueSoldOutCouponsKey() {
+        return "issue.soldout";
+    }
+
+    // 쿠폰 소진을 모든 노드에 알리는 pub/sub 채널
+    public static String getIssueSoldOutChannel() {
+        return "issue.soldout.channel";
+    }
+
+    // 쿠폰 로컬 캐시 무효화를 모든 노드에 알리는 pub/sub 채널
+    public static String getCouponCacheInvalidateChannel() {
+        return "coupon.cache.invalidate.channel";
+    }
+
+    // redis 캐시에 없는 쿠폰을 DB에서 불러올 때 사용하는 분산락 (쿠폰당 한 노드만 DB 조회)
+    public static String getCouponCacheLoadLockKey(long couponId) {
+        return "lock.coupon.cache.couponId=%s".formatted(couponId);
+    }
+
+    // counter slot 합계 갱신(fold)을 주기마다 한 노드만 실행하도록 하는 키
+    public static String getIssueCounterFoldLockKey() {
+        return "lock.issue.counter.fold";
+    }
+
+    // write-behind 발급 수량 재계산을 한 노드만 실행하도록 하는 분산락
+    public static String getIssueWriteBehindRecountLockKey() {
+        return "lock.issue.write-behind.recount";
+    }
+
+    // 시간순 ID 생성기의 node id를 빌린 인스턴스 (값은 인스턴스 식별자, 만료되면 다른 인스턴스가 빌릴 수 있다)
+    public static String getIdNodeLeaseKey(long nodeId) {
+        return "id.node.%s".formatted(nodeId);
+    }
+
+    // 쿠폰별 키의 hash tag (Redis Cluster는 {} 안의 값으로만 slot을 정한다)
+    private static String couponHashTag(long couponId) {
+        return "{couponId=%s}".formatted(couponId);
+    }
+
+    // 분할별 키의 hash tag
+    private static String couponShardHashTag(long couponId, int shard) {
+        return "{couponId=%s.shard=%s}".formatted(couponId, shard);
+    }
+
 }
@@ -9,6 +9,10 @@ CREATE TABLE `coupon`.`coupons`
     `min_available_amount` INT          NOT NULL COMMENT '최소 사용 금액',
     `date_issue_start`     datetime(6) NOT NULL COMMENT '발급 시작 일시',
     `date_issue_end`       datetime(6) NOT NULL COMMENT '발급 종료 일시',
+    `counter_slots`        INT NULL COMMENT '발급 수량 counter slot 수 (NULL이면 issued_quantity를 직접 증가)',
+    `issued_user_storage`  varchar(255) NULL COMMENT '발급 요청 유저 Redis 저장 방식 (SET, BITMAP / NULL이면 SET)',
+    `spread_factor`        INT NULL COMMENT '발급 요청 분할 수 (NULL이거나 1 이하면 나누지 않는다)',
+    `waiting_room`         bit(1) NULL COMMENT '대기열 사용 여부 (NULL이면 사용하지 않는다)',
     `date_created`         datetime(6) NOT NULL COMMENT '생성 일시',
     `date_updated`         datetime(6) NOT NULL COMMENT '수정 일시',
     PRIMARY KEY (`id`)
@@ -18,15 +22,49 @@ CREATE TABLE `coupon`.`coupons`
 
 CREATE TABLE `coupon`.`coupon_issues`
 (
-    `id`           bigint(20) NOT NULL AUTO_INCREMENT,
+    `id`           bigint(20) NOT NULL COMMENT '시간순 ID (애플리케이션에서 생성)',
     `coupon_id`    bigint(20) NOT NULL COMMENT '쿠폰 ID',
     `user_id`      bigint(20) NOT NULL COMMENT '유저 ID',
     `date_issued`  datetime(6) NOT NULL COMMENT '발급 일시',
     `date_used`    datetime(6) NULL COMMENT '사용 일시',
     `date_created` datetime(6) NOT NULL COMMENT '생성 일시',
     `date_updated` datetime(6) NOT NULL COMMENT '수정 일시',
-    PRIMARY KEY (`id`)
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_coupon_issues_coupon_id_user_id` (`coupon_id`, `user_id`)
 ) ENGINE=InnoDB
   DEFAULT CHARSET=utf8mb4
     Comment='쿠폰 발급 내역';
 
+-- 기존 테이블 마이그레이션 (중복 발급 내역이 있다면 먼저 정리해야 한다)
+-- ALTER TABLE `coupon`.`coupon_issues` ADD UNIQUE KEY `uk_coupon_issues_coupon_id_user_id` (`coupon_id`, `user_id`);
+
+-- 시간순 ID 마이그레이션: AUTO_INCREMENT만 제거한다.
+-- 기존 ID는 시간순 ID(2024-01-01 이후 ms << 22)보다 항상 작으므로 그대로 두어도 충돌하지 않고 순서도 유지된다.
+-- ALTER TABLE `coupon`.`coupon_issues` MODIFY `id` bigint(20) NOT NULL COMMENT '시간순 ID (애플리케이션에서 생성)';
+
+CREATE TABLE `coupon`.`coupon_issue_counters`
+(
+    `id`              bigint(20) NOT NULL AUTO_INCREMENT,
+    `coupon_id`       bigint(20) NOT NULL COMMENT '쿠폰 ID',
+    `slot`            INT NOT NULL COMMENT 'slot 번호 (0 ~ counter_slots - 1)',
+    `quota`           INT NULL COMMENT 'slot에서 발급 가능한 수량',
+    `issued_quantity` INT NOT NULL COMMENT 'slot에서 발급된 수량',
+    `date_created`    datetime(6) NOT NULL COMMENT '생성 일시',
+    `date_updated`    datetime(6) NOT NULL COMMENT '수정 일시',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_coupon_issue_counters_coupon_id_slot` (`coupon_id`, `slot`)
+) ENGINE=InnoDB
+  DEFAULT CHARSET=utf8mb4
+    Comment='쿠폰 발급 수량 counter slot';
+
+-- counter slot 마이그레이션
+-- ALTER TABLE `coupon`.`coupons` ADD COLUMN `counter_slots` INT NULL COMMENT '발급 수량 counter slot 수 (NULL이면 issued_quantity를 직접 증가)' AFTER `date_issue_end`;
+
+-- 발급 요청 유저 저장 방식 마이그레이션
+-- ALTER TABLE `coupon`.`coupons` ADD COLUMN `issued_user_storage` varchar(255) NULL COMMENT '발급 요청 유저 Redis 저장 방식 (SET, BITMAP / NULL이면 SET)' AFTER `counter_slots`;
+
+-- 발급 요청 분할 수 마이그레이션
+-- ALTER TABLE `coupon`.`coupons` ADD COLUMN `spread_factor` INT NULL COMMENT '발급 요청 분할 수 (NULL이거나 1 이하면 나누지 않는다)' AFTER `issued_user_storage`;
+
+-- 대기열 사용 여부 마이그레이션
+-- ALTER TABLE `coupon`.`coupons` ADD COLUMN `waiting_room` bit(1) NULL COMMENT '대기열 사용 여부 (NULL이면 사용하지 않는다)' AFTER `spread_factor`;
@@ -0,0 +1,88 @@
+package org.example.couponcore;
+
+import com.sun.management.ThreadMXBean;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * 벤치마크 테스트(@Tag("benchmark"))에서 함께 사용하는 측정 도구
+ * JIT 최적화가 끝나도록 warmup 만큼 실행한 뒤 iterations 만큼 반복 실행하여
+ * 작업 한번의 시간(ns/op)과 현재 스레드의 할당량(bytes/op, com.sun.management.ThreadMXBean)을 잰다.
+ * 작업의 결과는 blackhole에 누적하여 JIT가 작업을 제거하지 못하게 한다.
+ * 측정값은 환경마다 다르므로 테스트는 시간이 아닌 결과의 정확성, 할당량, 크기처럼 일정한 값만 검증한다.
+ */
+@Slf4j
+public final class Benchmark {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final int warmup;
+    private final int iterations;
+    private long blackhole;
+
+    public Benchmark(int warmup, int iterations) {
+        this.warmup = warmup;
+        this.iterations = iterations;
+    }
+
+    /**
+     * 작업을 warmup 후 반복 실행하여 측정하고 결과를 로그로 남긴다.
+     *
+     * @param name
+     * @param operation 반복 순번을 받아 작업을 실행하고, 결과를 long으로 반환한다. (blackhole에 누적)
+     * @return
+     */
+    public Result measure(String name, LongUnaryOperator operation) {
+        for (int i = 0; i < warmup; i++) {
+            blackhole += operation.applyAsLong(i);
+        }
+        long threadId = Thread.currentThread().getId();
+        long allocated = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            blackhole += operation.applyAsLong(warmup + i);
+        }
+        double nanos = (System.nanoTime() - start) / (double) iterations;
+        double bytes = (THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - allocated) / (double) iterations;
+        Result result = new Result(name, nanos, bytes);
+        log.info("%s (blackhole: %s)".formatted(result, blackhole));
+        return result;
+    }
+
+    /**
+     * 한번만 실행하는 작업(대량 INSERT, 대기열 소비 등)을 측정한다.
+     *
+     * @param name
+     * @param task
+     * @return
+     */
+    public static Result measureOnce(String name, Runnable task) {
+        return new Benchmark(0, 1).measure(name, i -> {
+            task.run();
+            return 0;
+        });
+    }
+
+    /**
+     * 측정 결과
+     *
+     * @param name
+     * @param nanosPerOp 작업 한번의 평균 시간
+     * @param bytesPerOp 작업 한번에 할당한 평균 메모리
+     */
+    public record Result(String name, double nanosPerOp, double bytesPerOp) {
+
+        public double opsPerSecond() {
+            return 1_000_000_000.0 / nanosPerOp;
+        }
+
+        @Override
+        public String toString() {
+            return "%s: %.1f ns/op, %.0f ops/s, %.1f bytes/op".formatted(name, nanosPerOp, opsPerSecond(), bytesPerOp);
+        }
+
+    }
+
+}
@@ -0,0 +1,61 @@
+package org.example.couponcore.component;
+
+import org.example.couponcore.TestConfig;
+import org.example.couponcore.model.Coupon;
+import org.example.couponcore.model.CouponType;
+import org.example.couponcore.repository.mysql.CouponJpaRepository;
+import org.example.couponcore.service.CouponCacheService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.time.LocalDateTime;
+
+class CouponCacheInvalidatorTest extends TestConfig {
+
+    @Autowired
+    CouponCacheInvalidator sut;
+
+    @Autowired
+    CouponCacheService couponCacheService;
+
+    @Autowired
+    CouponJpaRepository couponJpaRepository;
+
+    @Autowired
+    @Qualifier("localCacheManager")
+    CacheManager localCacheManager;
+
+    @DisplayName("무효화 메시지를 발행하면 로컬 캐시에서 쿠폰이 삭제된다.")
+    @Test
+    void invalidate_1() throws InterruptedException {
+        //given
+        Coupon coupon = couponJpaRepository.save(Coupon.builder()
+                .couponType(CouponType.FIRST_COME_FIRST_SERVED)
+                .title("선착순 테스트 쿠폰")
+                .totalQuantity(10)
+                .issuedQuantity(0)
+                .dateIssueStart(LocalDateTime.now().minusDays(1))
+                .dateIssueEnd(LocalDateTime.now().plusDays(1))
+                .build());
+        couponCacheService.getCouponLocalCache(coupon.getId());
+        // 로컬 캐시는 조회할 때 없으면 불러오므로 저장된 값만 확인한다.
+        var localCache = ((CaffeineCache) localCacheManager.getCache("coupon")).getNativeCache();
+        Assertions.assertNotNull(localCache.getIfPresent(coupon.getId()));
+
+        //when
+        sut.invalidate(coupon.getId());
+
+        //then (메시지는 비동기로 수신된다)
+        long deadline = System.currentTimeMillis() + 3000;
+        while (localCache.getIfPresent(coupon.getId()) != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Assertions.assertNull(localCache.getIfPresent(coupon.getId()));
+    }
+
+}
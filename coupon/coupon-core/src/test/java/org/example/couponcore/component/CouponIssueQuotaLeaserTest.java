@@ -0,0 +1,150 @@
+package org.example.couponcore.component;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.couponcore.TestConfig;
+import org.example.couponcore.model.CouponType;
+import org.example.couponcore.model.IssuedUserStorage;
+import org.example.couponcore.repository.redis.CouponIssueRequestCode;
+import org.example.couponcore.repository.redis.dto.CouponRedisEntity;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.example.couponcore.util.CouponRedisUtils.getIssueQuotaLeasedKey;
+import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestKey;
+import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestQueueKey;
+
+@DirtiesContext
+@TestPropertySource(properties = {
+        "coupon.issue.lease.enabled=true",
+        "coupon.issue.lease.block-size=3",
+        "coupon.issue.lease.flush-interval-ms=60000" // 테스트에서 직접 flush 한다.
+})
+class CouponIssueQuotaLeaserTest extends TestConfig {
+
+    @Autowired
+    CouponIssueQuotaLeaser sut;
+
+    @Autowired
+    RedisTemplate<String, String> redisTemplate;
+
+    @BeforeEach
+    void clear() {
+        Collection<String> redisKeys = redisTemplate.keys("*");
+        assert redisKeys != null;
+        redisTemplate.delete(redisKeys);
+    }
+
+    @DisplayName("빌린 수량으로 동시에 발급 요청을 받아도 발급 수량을 넘지 않고, flush 하면 Redis에 기록된다.")
+    @Test
+    void issueRequest_1() throws Exception {
+        //given
+        long couponId = 1L;
+        int totalIssueQuantity = 10;
+        int requestCount = 100;
+
+        //when
+        List<CouponIssueRequestCode> codes;
+        try (ExecutorService executor = Executors.newFixedThreadPool(32)) {
+            List<Future<CouponIssueRequestCode>> futures = IntStream.rangeClosed(1, requestCount)
+                    .mapToObj(userId -> executor.submit(() -> sut.issueRequest(couponId, userId, totalIssueQuantity)))
+                    .toList();
+            codes = new ArrayList<>();
+            for (Future<CouponIssueRequestCode> future : futures) {
+                codes.add(future.get());
+            }
+        }
+        sut.flushAndExpire();
+
+        //then
+        Assertions.assertEquals(totalIssueQuantity, codes.stream().filter(code -> code == CouponIssueRequestCode.SUCCESS).count());
+        Assertions.assertEquals(totalIssueQuantity, redisTemplate.opsForSet().size(getIssueRequestKey(couponId)));
+        Assertions.assertEquals(totalIssueQuantity, redisTemplate.opsForList().size(getIssueRequestQueueKey()));
+        Assertions.assertEquals(String.valueOf(totalIssueQuantity), redisTemplate.opsForValue().get(getIssueQuotaLeasedKey(couponId)));
+    }
+
+    @DisplayName("다른 노드에서 이미 받은 유저는 flush 할 때 큐에 넣지 않고 수량을 돌려준다.")
+    @Test
+    void issueRequest_2() {
+        //given
+        long couponId = 2L;
+        redisTemplate.opsForSet().add(getIssueRequestKey(couponId), "1");
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+
+        //when
+        CouponIssueRequestCode code = sut.issueRequest(couponId, 1L, 10);
+        CouponIssueRequestCode duplicated = sut.issueRequest(couponId, 1L, 10);
+        sut.flushAndExpire();
+        Metrics.removeRegistry(meterRegistry);
+
+        //then
+        // 성공으로 응답했지만 기록할 때 제외한 요청은 지표로 남긴다.
+        Assertions.assertEquals(1.0, meterRegistry.counter("coupon.issue.lease.dropped").count());
+        Assertions.assertEquals(CouponIssueRequestCode.SUCCESS, code);
+        Assertions.assertEquals(CouponIssueRequestCode.DUPLICATED_COUPON_ISSUE, duplicated);
+        Assertions.assertEquals(0, redisTemplate.opsForList().size(getIssueRequestQueueKey()));
+        // 빌린 3개 중 중복 요청 1개를 돌려받고 사용하지 않은 2개는 노드에 남아있다.
+        Assertions.assertEquals("2", redisTemplate.opsForValue().get(getIssueQuotaLeasedKey(couponId)));
+    }
+
+    @DisplayName("발급 요청 유저를 Set으로 저장하고 나누지 않는 쿠폰만 quota lease를 사용한다.")
+    @Test
+    void isLeased_1() {
+        //given
+        LocalDateTime now = LocalDateTime.now();
+        CouponRedisEntity set = new CouponRedisEntity(1L, CouponType.FIRST_COME_FIRST_SERVED, 10, true,
+                now.minusDays(1), now.plusDays(1), IssuedUserStorage.SET, 1, false);
+        CouponRedisEntity bitmap = new CouponRedisEntity(2L, CouponType.FIRST_COME_FIRST_SERVED, 10, true,
+                now.minusDays(1), now.plusDays(1), IssuedUserStorage.BITMAP, 1, false);
+        CouponRedisEntity spread = new CouponRedisEntity(3L, CouponType.FIRST_COME_FIRST_SERVED, 10, true,
+                now.minusDays(1), now.plusDays(1), IssuedUserStorage.SET, 4, false);
+
+        //when
+        boolean setLeased = sut.isLeased(set);
+        boolean bitmapLeased = sut.isLeased(bitmap);
+        boolean spreadLeased = sut.isLeased(spread);
+
+        //then
+        Assertions.assertTrue(setLeased);
+        Assertions.assertFalse(bitmapLeased);
+        Assertions.assertFalse(spreadLeased);
+    }
+
+    @DisplayName("발급 기간이 끝난 쿠폰의 lease는 받은 요청을 기록하고 남은 수량을 돌려준 뒤 제거된다.")
+    @Test
+    void flushAndExpire_1() {
+        //given
+        long couponId = 3L;
+        CouponIssueRequestCode code = sut.issueRequest(couponId, 1L, 10, LocalDateTime.now().minusSeconds(1));
+
+        //when
+        sut.flushAndExpire();
+        // 제거된 lease의 유저는 노드에 남지 않으므로 같은 유저의 요청은 기록할 때 중복으로 제외된다.
+        CouponIssueRequestCode again = sut.issueRequest(couponId, 1L, 10);
+        sut.flushAndExpire();
+
+        //then
+        Assertions.assertEquals(CouponIssueRequestCode.SUCCESS, code);
+        Assertions.assertEquals(CouponIssueRequestCode.SUCCESS, again);
+        Assertions.assertEquals(1, redisTemplate.opsForList().size(getIssueRequestQueueKey()));
+        // 처음 빌린 3개 중 사용하지 않은 2개를 돌려주고, 새 lease로 빌린 3개 중 중복 요청 1개를 돌려받았다.
+        Assertions.assertEquals("3", redisTemplate.opsForValue().get(getIssueQuotaLeasedKey(couponId)));
+    }
+
+}
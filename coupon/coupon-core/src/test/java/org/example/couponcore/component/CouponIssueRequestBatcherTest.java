@@ -0,0 +1,121 @@
+package org.example.couponcore.component;
+
+import org.example.couponcore.TestConfig;
+import org.example.couponcore.model.IssuedUserStorage;
+import org.example.couponcore.repository.redis.CouponIssueRequestCode;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestKey;
+import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestQueueKey;
+
+@DirtiesContext
+@TestPropertySource(properties = "coupon.issue.batching.enabled=true")
+class CouponIssueRequestBatcherTest extends TestConfig {
+
+    @Autowired
+    CouponIssueRequestBatcher sut;
+
+    @Autowired
+    RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    RedisRepository redisRepository;
+
+    @BeforeEach
+    void clear() {
+        Collection<String> redisKeys = redisTemplate.keys("*");
+        assert redisKeys != null;
+        redisTemplate.delete(redisKeys);
+        // 등록된 스크립트와 함수를 지워서 NOSCRIPT(Function not found) 이후 다시 등록하는지 함께 확인한다.
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.scriptingCommands().scriptFlush();
+            connection.execute("FUNCTION", "FLUSH".getBytes(StandardCharsets.US_ASCII));
+            return null;
+        });
+    }
+
+    @DisplayName("동시에 들어온 발급 요청을 모아서 보내고, 요청마다 결과를 돌려준다.")
+    @Test
+    void issueRequest_1() throws Exception {
+        //given
+        long couponId = 1L;
+        int totalIssueQuantity = 10;
+        int requestCount = 100;
+
+        //when
+        List<CouponIssueRequestCode> codes;
+        try (ExecutorService executor = Executors.newFixedThreadPool(32)) {
+            List<Future<CouponIssueRequestCode>> futures = IntStream.rangeClosed(1, requestCount)
+                    .mapToObj(userId -> executor.submit(() -> sut.issueRequest(couponId, userId, totalIssueQuantity)))
+                    .toList();
+            codes = new ArrayList<>();
+            for (Future<CouponIssueRequestCode> future : futures) {
+                codes.add(future.get());
+            }
+        }
+
+        //then
+        Assertions.assertEquals(totalIssueQuantity, codes.stream().filter(code -> code == CouponIssueRequestCode.SUCCESS).count());
+        Assertions.assertEquals(requestCount - totalIssueQuantity,
+                codes.stream().filter(code -> code == CouponIssueRequestCode.INVALID_COUPON_ISSUE_QUANTITY).count());
+        Assertions.assertEquals(totalIssueQuantity, redisTemplate.opsForSet().size(getIssueRequestKey(couponId)));
+        Assertions.assertEquals(totalIssueQuantity, redisTemplate.opsForList().size(getIssueRequestQueueKey()));
+    }
+
+    @DisplayName("이미 요청한 유저는 중복 결과를 돌려준다.")
+    @Test
+    void issueRequest_2() {
+        //given
+        long couponId = 1L;
+        sut.issueRequest(couponId, 1L, 10);
+
+        //when
+        CouponIssueRequestCode code = sut.issueRequest(couponId, 1L, 10);
+
+        //then
+        Assertions.assertEquals(CouponIssueRequestCode.DUPLICATED_COUPON_ISSUE, code);
+    }
+
+    @DisplayName("pipeline의 일부 요청만 실패하면 실패한 요청만 실패하고 나머지 요청은 결과를 돌려준다.")
+    @Test
+    void issueRequests_1() {
+        //given
+        // 발급 요청 유저 Set 대신 문자열을 저장해서 2번 쿠폰의 요청만 실패(WRONGTYPE)하게 한다.
+        redisTemplate.opsForValue().set(getIssueRequestKey(2L), "wrong type");
+        List<byte[][]> keysAndArgsList = List.of(
+                redisRepository.encodeIssueRequest(1L, 1L, 10, IssuedUserStorage.SET),
+                redisRepository.encodeIssueRequest(2L, 1L, 10, IssuedUserStorage.SET),
+                redisRepository.encodeIssueRequest(3L, 1L, 10, IssuedUserStorage.SET));
+        List<CompletableFuture<CouponIssueRequestCode>> results = List.of(
+                new CompletableFuture<>(), new CompletableFuture<>(), new CompletableFuture<>());
+
+        //when
+        redisRepository.issueRequests(keysAndArgsList, results);
+
+        //then
+        Assertions.assertEquals(CouponIssueRequestCode.SUCCESS, results.get(0).join());
+        Assertions.assertTrue(results.get(1).isCompletedExceptionally());
+        Assertions.assertEquals(CouponIssueRequestCode.SUCCESS, results.get(2).join());
+        Assertions.assertEquals(2, redisTemplate.opsForList().size(getIssueRequestQueueKey()));
+    }
+
+}
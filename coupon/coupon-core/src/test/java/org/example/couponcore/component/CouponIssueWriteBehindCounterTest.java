@@ -0,0 +1,141 @@
+package org.example.couponcore.component;
+
+import org.example.couponcore.TestConfig;
+import org.example.couponcore.exception.CouponIssueException;
+import org.example.couponcore.exception.ErrorCode;
+import org.example.couponcore.model.Coupon;
+import org.example.couponcore.model.CouponType;
+import org.example.couponcore.repository.mysql.CouponIssueJdbcRepository;
+import org.example.couponcore.repository.mysql.CouponIssueJpaRepository;
+import org.example.couponcore.repository.mysql.CouponJpaRepository;
+import org.example.couponcore.service.CouponIssueService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+// 발급 트랜잭션이 커밋된 뒤에 증가분이 더해지므로 테스트 트랜잭션을 사용하지 않는다.
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "coupon.issue.write-behind.enabled=true",
+        "coupon.issue.write-behind.flush-interval-ms=600000",
+        "coupon.issue.write-behind.flush-threshold=100"
+})
+class CouponIssueWriteBehindCounterTest extends TestConfig {
+
+    @Autowired
+    CouponIssueWriteBehindCounter sut;
+
+    @Autowired
+    CouponIssueService couponIssueService;
+
+    @Autowired
+    CouponJpaRepository couponJpaRepository;
+
+    @Autowired
+    CouponIssueJpaRepository couponIssueJpaRepository;
+
+    @Autowired
+    CouponIssueJdbcRepository couponIssueJdbcRepository;
+
+    // 매번 테스트 전에 데이터와 반영되지 않은 증가분을 삭제한다.
+    @BeforeEach
+    void clean() {
+        couponIssueJpaRepository.deleteAllInBatch();
+        couponJpaRepository.deleteAllInBatch();
+        sut.flush();
+    }
+
+    @DisplayName("발급 내역은 바로 저장되고, 발급 수량은 flush 할 때 한번에 반영된다.")
+    @Test
+    void flush_1() {
+        //given
+        Coupon coupon = couponJpaRepository.save(coupon(100));
+        couponIssueService.issue(coupon.getId(), 1L);
+        couponIssueService.issueAll(coupon.getId(), List.of(2L, 3L));
+
+        //when
+        Assertions.assertEquals(0, couponJpaRepository.findById(coupon.getId()).get().getIssuedQuantity());
+        Assertions.assertEquals(3, sut.getDelta(coupon.getId()));
+        sut.flush();
+
+        //then
+        Assertions.assertEquals(3, couponJpaRepository.findById(coupon.getId()).get().getIssuedQuantity());
+        Assertions.assertEquals(3, couponIssueJpaRepository.count());
+        Assertions.assertEquals(0, sut.getDelta(coupon.getId()));
+    }
+
+    @DisplayName("반영되지 않은 증가분이 flush-threshold 이상이면 flush 스레드에서 바로 반영된다.")
+    @Test
+    void add_1() throws InterruptedException {
+        //given
+        Coupon coupon = couponJpaRepository.save(coupon(1000));
+
+        //when
+        couponIssueService.issueAll(coupon.getId(), LongStream.rangeClosed(1, 100).boxed().toList());
+
+        //then
+        Assertions.assertEquals(100, awaitIssuedQuantity(coupon.getId(), 100));
+    }
+
+    @DisplayName("반영된 수량과 반영되지 않은 증가분의 합이 전체 수량에 도달하면 더 발급하지 않는다.")
+    @Test
+    void issue_1() {
+        //given
+        Coupon coupon = couponJpaRepository.save(coupon(2));
+        couponIssueService.issue(coupon.getId(), 1L);
+        couponIssueService.issue(coupon.getId(), 2L);
+
+        //when
+        var exception = Assertions.assertThrows(CouponIssueException.class, () -> couponIssueService.issue(coupon.getId(), 3L));
+
+        //then
+        Assertions.assertEquals(ErrorCode.INVALID_COUPON_ISSUE_QUANTITY, exception.getErrorCode());
+        Assertions.assertEquals(2, couponIssueJpaRepository.count());
+    }
+
+    @DisplayName("유실된 증가분은 발급 내역 수로 다시 계산된다.")
+    @Test
+    void recount_1() {
+        //given
+        Coupon coupon = couponJpaRepository.save(coupon(100));
+        couponIssueJdbcRepository.saveAll(coupon.getId(), List.of(1L, 2L, 3L, 4L));
+
+        //when
+        sut.recount();
+
+        //then
+        Assertions.assertEquals(4, couponJpaRepository.findById(coupon.getId()).get().getIssuedQuantity());
+    }
+
+    // flush 스레드가 반영할 때까지 최대 5초 기다린다.
+    private int awaitIssuedQuantity(long couponId, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        int issuedQuantity = couponJpaRepository.findById(couponId).get().getIssuedQuantity();
+        while (issuedQuantity != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            issuedQuantity = couponJpaRepository.findById(couponId).get().getIssuedQuantity();
+        }
+        return issuedQuantity;
+    }
+
+    private Coupon coupon(int totalQuantity) {
+        return Coupon.builder()
+                .couponType(CouponType.FIRST_COME_FIRST_SERVED)
+                .title("선착순 쿠폰")
+                .totalQuantity(totalQuantity)
+                .issuedQuantity(0)
+                .dateIssueStart(LocalDateTime.now().minusDays(1))
+                .dateIssueEnd(LocalDateTime.now().plusDays(1))
+                .build();
+    }
+
+}
@@ -0,0 +1,165 @@
+package org.example.couponcore.component;
+
+import org.example.couponcore.TestConfig;
+import org.example.couponcore.model.Coupon;
+import org.example.couponcore.model.CouponIssueOutcome;
+import org.example.couponcore.model.CouponType;
+import org.example.couponcore.model.CouponWaitingRoomTicket;
+import org.example.couponcore.repository.mysql.CouponJpaRepository;
+import org.example.couponcore.service.AsyncCouponIssueServiceV1;
+import org.example.couponcore.service.AsyncCouponIssueServiceV2;
+import org.example.couponcore.service.CouponWaitingRoomService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import static org.example.couponcore.util.CouponRedisUtils.getIssueAdmissionTokenKey;
+import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestKey;
+
+@DirtiesContext
+// 한 주기에 2명씩 입장 (테스트에서 직접 admit 하고, 주기는 테스트 중에 끝나지 않도록 길게 잡는다)
+@TestPropertySource(properties = {
+        "coupon.issue.waiting-room.admit-batch-size=2",
+        "coupon.issue.waiting-room.admit-interval-ms=60000"
+})
+class CouponWaitingRoomAdmitterTest extends TestConfig {
+
+    @Autowired
+    CouponWaitingRoomAdmitter sut;
+
+    @Autowired
+    CouponWaitingRoomService couponWaitingRoomService;
+
+    @Autowired
+    AsyncCouponIssueServiceV1 asyncCouponIssueServiceV1;
+
+    @Autowired
+    AsyncCouponIssueServiceV2 asyncCouponIssueServiceV2;
+
+    @Autowired
+    CouponJpaRepository couponJpaRepository;
+
+    @Autowired
+    RedisTemplate<String, String> redisTemplate;
+
+    @BeforeEach
+    void clear() {
+        Collection<String> redisKeys = redisTemplate.keys("*");
+        assert redisKeys != null;
+        redisTemplate.delete(redisKeys);
+    }
+
+    @DisplayName("입장한 순서대로 admit-batch-size 명씩 입장 토큰을 발급하고, 다시 입장해도 처음 순번을 유지한다.")
+    @Test
+    void admit_1() {
+        //given
+        long couponId = saveWaitingRoomCoupon().getId();
+        couponWaitingRoomService.enter(couponId, 1L);
+        couponWaitingRoomService.enter(couponId, 2L);
+        couponWaitingRoomService.enter(couponId, 3L);
+        CouponWaitingRoomTicket reentered = couponWaitingRoomService.enter(couponId, 1L);
+
+        //when
+        sut.admit();
+
+        //then
+        Assertions.assertEquals(CouponWaitingRoomTicket.waiting(1), reentered);
+        Assertions.assertTrue(couponWaitingRoomService.enter(couponId, 1L).admitted());
+        Assertions.assertTrue(couponWaitingRoomService.enter(couponId, 2L).admitted());
+        Assertions.assertEquals(CouponWaitingRoomTicket.waiting(1), couponWaitingRoomService.enter(couponId, 3L));
+    }
+
+    @DisplayName("대기열을 사용하는 쿠폰은 입장 토큰이 있어야 발급 요청을 받고, 입장 토큰은 한 번만 사용할 수 있다.")
+    @Test
+    void admit_2() {
+        //given
+        long couponId = saveWaitingRoomCoupon().getId();
+        couponWaitingRoomService.enter(couponId, 1L);
+        CouponIssueOutcome notAdmitted = asyncCouponIssueServiceV2.tryIssue(couponId, 1L, null);
+        sut.admit();
+        String admissionToken = couponWaitingRoomService.enter(couponId, 1L).admissionToken();
+
+        //when
+        CouponIssueOutcome wrongToken = asyncCouponIssueServiceV2.tryIssue(couponId, 1L, "wrong");
+        CouponIssueOutcome success = asyncCouponIssueServiceV2.tryIssue(couponId, 1L, admissionToken);
+        CouponIssueOutcome reused = asyncCouponIssueServiceV2.tryIssue(couponId, 1L, admissionToken);
+
+        //then
+        Assertions.assertEquals(CouponIssueOutcome.NOT_ADMITTED, notAdmitted);
+        Assertions.assertEquals(CouponIssueOutcome.NOT_ADMITTED, wrongToken);
+        Assertions.assertEquals(CouponIssueOutcome.SUCCESS, success);
+        Assertions.assertEquals(CouponIssueOutcome.NOT_ADMITTED, reused);
+    }
+
+    @DisplayName("같은 주기에 여러 노드가 입장 토큰을 발급해도 쿠폰마다 한 번만 발급한다.")
+    @Test
+    void admit_3() {
+        //given
+        long couponId = saveWaitingRoomCoupon().getId();
+        couponWaitingRoomService.enter(couponId, 1L);
+        couponWaitingRoomService.enter(couponId, 2L);
+        couponWaitingRoomService.enter(couponId, 3L);
+        sut.admit();
+
+        //when
+        sut.admit();
+
+        //then
+        Assertions.assertEquals(CouponWaitingRoomTicket.waiting(1), couponWaitingRoomService.enter(couponId, 3L));
+    }
+
+    @DisplayName("발급 요청에 실패하면 사용 처리한 입장 토큰을 되돌려서 같은 토큰으로 다시 요청할 수 있다.")
+    @Test
+    void admit_4() {
+        //given
+        long couponId = saveWaitingRoomCoupon().getId();
+        couponWaitingRoomService.enter(couponId, 1L);
+        sut.admit();
+        String admissionToken = couponWaitingRoomService.enter(couponId, 1L).admissionToken();
+        // 발급 요청 유저 Set 대신 문자열을 저장해서 발급 요청이 실패(WRONGTYPE)하게 한다.
+        redisTemplate.opsForValue().set(getIssueRequestKey(couponId), "wrong type");
+
+        //when
+        Assertions.assertThrows(RuntimeException.class, () -> asyncCouponIssueServiceV2.tryIssue(couponId, 1L, admissionToken));
+
+        //then
+        Assertions.assertEquals(admissionToken, redisTemplate.opsForValue().get(getIssueAdmissionTokenKey(couponId, 1L)));
+        redisTemplate.delete(getIssueRequestKey(couponId));
+        Assertions.assertEquals(CouponIssueOutcome.SUCCESS, asyncCouponIssueServiceV2.tryIssue(couponId, 1L, admissionToken));
+    }
+
+    @DisplayName("입장 토큰을 확인하지 않는 v1 발급 요청은 대기열을 사용하는 쿠폰을 받지 않는다.")
+    @Test
+    void admit_5() {
+        //given
+        long couponId = saveWaitingRoomCoupon().getId();
+
+        //when
+        CouponIssueOutcome outcome = asyncCouponIssueServiceV1.tryIssue(couponId, 1L);
+
+        //then
+        Assertions.assertEquals(CouponIssueOutcome.NOT_ADMITTED, outcome);
+        Assertions.assertEquals(0, redisTemplate.opsForSet().size(getIssueRequestKey(couponId)));
+    }
+
+    private Coupon saveWaitingRoomCoupon() {
+        return couponJpaRepository.save(Coupon.builder()
+                .couponType(CouponType.FIRST_COME_FIRST_SERVED)
+                .title("선착순 테스트 쿠폰")
+                .totalQuantity(10)
+                .issuedQuantity(0)
+                .dateIssueStart(LocalDateTime.now().minusDays(1))
+                .dateIssueEnd(LocalDateTime.now().plusDays(1))
+                .waitingRoom(true)
+                .build());
+    }
+
+}
@@ -0,0 +1,78 @@
+package org.example.couponcore.component;
+
+import org.example.couponcore.TestConfig;
+import org.example.couponcore.repository.redis.RedisRepository;
+import org.example.couponcore.util.TimeSortedIdGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.Duration;
+
+import static org.example.couponcore.util.CouponRedisUtils.getIdNodeLeaseKey;
+
+@DirtiesContext
+class TimeSortedIdNodeLeaserTest extends TestConfig {
+
+    @Autowired
+    TimeSortedIdNodeLeaser sut;
+
+    @Autowired
+    RedisRepository redisRepository;
+
+    @Autowired
+    RedisTemplate<String, String> redisTemplate;
+
+    @DisplayName("node id를 설정하지 않으면 Redis에서 빌린 node id로 ID를 만든다.")
+    @Test
+    void start_1() {
+        //given
+        sut.renew();
+        long nodeId = sut.getNodeId();
+
+        //when
+        long id = TimeSortedIdGenerator.nextId();
+
+        //then
+        Assertions.assertTrue(nodeId >= 0 && nodeId <= TimeSortedIdGenerator.MAX_NODE_ID);
+        Assertions.assertEquals(nodeId, (id >> 12) & TimeSortedIdGenerator.MAX_NODE_ID);
+        Assertions.assertTrue(redisRepository.hasKey(getIdNodeLeaseKey(nodeId)));
+    }
+
+    @DisplayName("빌린 node id의 키가 사라졌다면 같은 node id를 다시 빌린다.")
+    @Test
+    void renew_1() {
+        //given
+        sut.renew();
+        long nodeId = sut.getNodeId();
+        redisTemplate.delete(getIdNodeLeaseKey(nodeId));
+
+        //when
+        sut.renew();
+
+        //then
+        Assertions.assertEquals(nodeId, sut.getNodeId());
+        Assertions.assertTrue(redisRepository.hasKey(getIdNodeLeaseKey(nodeId)));
+    }
+
+    @DisplayName("다른 인스턴스가 node id를 가져갔다면 다른 node id를 빌린다.")
+    @Test
+    void renew_2() {
+        //given
+        sut.renew();
+        long nodeId = sut.getNodeId();
+        redisRepository.setEx(getIdNodeLeaseKey(nodeId), "other-instance", Duration.ofSeconds(30));
+
+        //when
+        sut.renew();
+
+        //then
+        Assertions.assertNotEquals(nodeId, sut.getNodeId());
+        Assertions.assertEquals(sut.getNodeId(), (TimeSortedIdGenerator.nextId() >> 12) & TimeSortedIdGenerator.MAX_NODE_ID);
+        redisTemplate.delete(getIdNodeLeaseKey(nodeId));
+    }
+
+}
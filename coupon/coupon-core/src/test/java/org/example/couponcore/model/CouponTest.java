@@ -156,6 +156,41 @@ class CouponTest {
         Assertions.assertEquals(exception.getErrorCode(), ErrorCode.INVALID_COUPON_ISSUE_DATE);
     }
 
+    @DisplayName("요청 수량만큼 발급 수량이 남아있다면 한번에 발급된다.")
+    @Test
+    void issue_4() {
+        //given
+        Coupon coupon = Coupon.builder()
+                .totalQuantity(100)
+                .issuedQuantity(90)
+                .dateIssueStart(LocalDateTime.now().minusDays(1))
+                .dateIssueEnd(LocalDateTime.now().plusDays(2))
+                .build();
+
+        //when
+        coupon.issue(10);
+
+        //then
+        Assertions.assertEquals(coupon.getIssuedQuantity(), 100);
+    }
+
+    @DisplayName("요청 수량이 남은 발급 수량보다 많다면 예외를 반환한다.")
+    @Test
+    void issue_5() {
+        //given
+        Coupon coupon = Coupon.builder()
+                .totalQuantity(100)
+                .issuedQuantity(91)
+                .dateIssueStart(LocalDateTime.now().minusDays(1))
+                .dateIssueEnd(LocalDateTime.now().plusDays(2))
+                .build();
+
+        //when & then
+        var exception = Assertions.assertThrows(CouponIssueException.class, () -> coupon.issue(10));
+        Assertions.assertEquals(exception.getErrorCode(), ErrorCode.INVALID_COUPON_ISSUE_QUANTITY);
+        Assertions.assertEquals(coupon.getIssuedQuantity(), 91);
+    }
+
     @DisplayName("발급 기한이 종료되면 true를 반환한다.")
     @Test
     void isIssueComplete_1() {
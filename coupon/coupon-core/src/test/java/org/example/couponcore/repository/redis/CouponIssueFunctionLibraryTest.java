@@ -0,0 +1,96 @@
+package org.example.couponcore.repository.redis;
+
+import org.example.couponcore.TestConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestKey;
+
+class CouponIssueFunctionLibraryTest extends TestConfig {
+
+    @Autowired
+    RedisRepository redisRepository;
+
+    @Autowired
+    RedisTemplate<String, String> redisTemplate;
+
+    @BeforeEach
+    void clear() {
+        Collection<String> redisKeys = redisTemplate.keys("*");
+        assert redisKeys != null;
+        redisTemplate.delete(redisKeys);
+    }
+
+    @DisplayName("등록된 함수가 없어지면(FUNCTION FLUSH) 라이브러리를 다시 등록하고 발급 요청을 처리한다.")
+    @Test
+    void call_1() {
+        //given
+        long couponId = 1L;
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.execute("FUNCTION", "FLUSH".getBytes(StandardCharsets.US_ASCII));
+            return null;
+        });
+
+        //when
+        CouponIssueRequestCode code = redisRepository.tryIssueRequest(couponId, 1L, 10);
+
+        //then
+        Assertions.assertEquals(CouponIssueRequestCode.SUCCESS, code);
+        Assertions.assertTrue(redisTemplate.opsForSet().isMember(getIssueRequestKey(couponId), "1"));
+    }
+
+    @DisplayName("함수로 호출해도 스크립트와 같은 결과 코드를 반환한다.")
+    @Test
+    void call_2() {
+        //given
+        long couponId = 1L;
+        redisRepository.tryIssueRequest(couponId, 1L, 1);
+
+        //when
+        CouponIssueRequestCode duplicated = redisRepository.tryIssueRequest(couponId, 1L, 1);
+        CouponIssueRequestCode soldOut = redisRepository.tryIssueRequest(couponId, 2L, 1);
+
+        //then
+        Assertions.assertEquals(CouponIssueRequestCode.DUPLICATED_COUPON_ISSUE, duplicated);
+        Assertions.assertEquals(CouponIssueRequestCode.INVALID_COUPON_ISSUE_QUANTITY, soldOut);
+    }
+
+    @DisplayName("같은 이름의 라이브러리가 다른 본문으로 등록되어 있다면 덮어쓰지 않고 실패한다.")
+    @Test
+    void load_1() {
+        //given
+        CouponIssueFunctionLibrary sut = new CouponIssueFunctionLibrary(Map.of("test_request", "return '1'"));
+        String version = sut.getLibraryName().substring("coupon_issue_".length());
+        String other = "#!lua name=%s\nredis.register_function('coupon_issue_sha1_%s', function() return 'other' end)\n"
+                .formatted(sut.getLibraryName(), version);
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.execute("FUNCTION", "LOAD".getBytes(StandardCharsets.US_ASCII), "REPLACE".getBytes(StandardCharsets.US_ASCII),
+                    other.getBytes(StandardCharsets.UTF_8));
+            return null;
+        });
+
+        //when
+        var exception = Assertions.assertThrows(IllegalStateException.class, () ->
+                redisTemplate.execute((RedisCallback<Void>) connection -> {
+                    sut.load(connection);
+                    return null;
+                }));
+
+        //then
+        Assertions.assertTrue(exception.getMessage().contains(sut.getLibraryName()));
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.execute("FUNCTION", "DELETE".getBytes(StandardCharsets.US_ASCII), sut.getLibraryName().getBytes(StandardCharsets.US_ASCII));
+            return null;
+        });
+    }
+
+}
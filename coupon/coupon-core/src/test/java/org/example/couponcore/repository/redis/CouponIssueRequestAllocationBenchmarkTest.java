@@ -0,0 +1,68 @@
+package org.example.couponcore.repository.redis;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.couponcore.Benchmark;
+import org.example.couponcore.model.CouponType;
+import org.example.couponcore.repository.redis.dto.CouponIssueRequest;
+import org.example.couponcore.repository.redis.dto.CouponRedisEntity;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestKey;
+import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestQueueKey;
+
+/**
+ * 발급 요청 처리 중 Redis 호출 전까지 요청마다 할당되는 메모리 비교 (bytes/op)
+ * - before: LocalDateTime.now() 발급 기간 확인 + 문자열 키 + ObjectMapper JSON
+ * - after: 갱신된 현재 시각(CoarseClock) + CouponIssueRequestEncoder
+ * ./gradlew :coupon-core:benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+class CouponIssueRequestAllocationBenchmarkTest {
+
+    private final Benchmark benchmark = new Benchmark(200_000, 1_000_000);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CouponIssueRequestEncoder encoder = new CouponIssueRequestEncoder();
+    private final CouponRedisEntity coupon = new CouponRedisEntity(1000L, CouponType.FIRST_COME_FIRST_SERVED, 1000, true,
+            LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1));
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @DisplayName("발급 요청 한번에 할당되는 메모리를 기존 방식과 비교한다.")
+    @Test
+    void allocation_1() {
+        //when
+        Benchmark.Result before = benchmark.measure("before", i -> before(1_000_000L + i));
+        Benchmark.Result after = benchmark.measure("after", i -> after(1_000_000L + i));
+
+        //then
+        Assertions.assertTrue(after.bytesPerOp() < before.bytesPerOp(), "before: %s, after: %s".formatted(before, after));
+    }
+
+    private long before(long userId) {
+        coupon.checkIssuableCoupon();
+        try {
+            List<String> keys = List.of(getIssueRequestKey(coupon.id()), getIssueRequestQueueKey());
+            String payload = objectMapper.writeValueAsString(new CouponIssueRequest(coupon.id(), userId));
+            return keys.get(0).getBytes(StandardCharsets.UTF_8).length
+                    + String.valueOf(userId).getBytes(StandardCharsets.UTF_8).length
+                    + String.valueOf(coupon.totalQuantity()).getBytes(StandardCharsets.UTF_8).length
+                    + payload.getBytes(StandardCharsets.UTF_8).length;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private long after(long userId) {
+        coupon.checkIssuableCoupon(now);
+        byte[][] keysAndArgs = encoder.encode(coupon.id(), userId, coupon.totalQuantity());
+        return keysAndArgs[0].length + keysAndArgs[2].length + keysAndArgs[3].length + keysAndArgs[4].length;
+    }
+
+}
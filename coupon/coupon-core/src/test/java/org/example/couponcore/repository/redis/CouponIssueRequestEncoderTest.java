@@ -0,0 +1,57 @@
+package org.example.couponcore.repository.redis;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.couponcore.repository.redis.dto.CouponIssueRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestKey;
+import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestQueueKey;
+
+class CouponIssueRequestEncoderTest {
+
+    CouponIssueRequestEncoder sut = new CouponIssueRequestEncoder();
+
+    @DisplayName("발급 요청 스크립트의 KEYS, ARGV를 문자열로 만든 값과 같은 byte 배열로 만든다.")
+    @Test
+    void encode_1() throws JsonProcessingException {
+        //given
+        long couponId = 12L;
+        long userId = 9_876_543_210L;
+        int totalIssueQuantity = Integer.MAX_VALUE;
+
+        //when
+        byte[][] keysAndArgs = sut.encode(couponId, userId, totalIssueQuantity);
+
+        //then
+        Assertions.assertEquals(getIssueRequestKey(couponId), string(keysAndArgs[0]));
+        Assertions.assertEquals(getIssueRequestQueueKey(), string(keysAndArgs[1]));
+        Assertions.assertEquals(String.valueOf(userId), string(keysAndArgs[2]));
+        Assertions.assertEquals(String.valueOf(totalIssueQuantity), string(keysAndArgs[3]));
+        Assertions.assertEquals(new ObjectMapper().writeValueAsString(new CouponIssueRequest(couponId, userId)), string(keysAndArgs[4]));
+    }
+
+    @DisplayName("자릿수가 다른 값으로 다시 만들어도 이전 값이 남지 않는다.")
+    @Test
+    void encode_2() throws JsonProcessingException {
+        //given
+        sut.encode(123_456L, 123_456_789L, 1000);
+
+        //when
+        byte[][] keysAndArgs = sut.encode(7L, 0L, 5);
+
+        //then
+        Assertions.assertEquals("0", string(keysAndArgs[2]));
+        Assertions.assertEquals("5", string(keysAndArgs[3]));
+        Assertions.assertEquals(new ObjectMapper().writeValueAsString(new CouponIssueRequest(7L, 0L)), string(keysAndArgs[4]));
+    }
+
+    private String string(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
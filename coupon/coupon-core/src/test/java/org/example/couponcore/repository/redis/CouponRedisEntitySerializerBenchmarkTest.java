@@ -0,0 +1,50 @@
+package org.example.couponcore.repository.redis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.Benchmark;
+import org.example.couponcore.model.CouponType;
+import org.example.couponcore.repository.redis.dto.CouponRedisEntity;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDateTime;
+
+/**
+ * 쿠폰 캐시 serializer 비교 (encode/decode ns/op, payload bytes)
+ * - json: GenericJackson2JsonRedisSerializer (기존)
+ * - binary: CouponRedisEntitySerializer
+ * ./gradlew :coupon-core:benchmark 로 실행한다.
+ */
+@Slf4j
+@Tag("benchmark")
+class CouponRedisEntitySerializerBenchmarkTest {
+
+    private final Benchmark benchmark = new Benchmark(200_000, 1_000_000);
+    private final CouponRedisEntity coupon = new CouponRedisEntity(1L, CouponType.FIRST_COME_FIRST_SERVED, 1000, true,
+            LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1));
+
+    @DisplayName("쿠폰 캐시 encode/decode 시간과 크기를 JSON, 바이너리 serializer로 비교한다.")
+    @Test
+    void serialize_1() {
+        //when
+        byte[] json = measure("json", new GenericJackson2JsonRedisSerializer());
+        byte[] binary = measure("binary", new CouponRedisEntitySerializer());
+
+        //then
+        // 변환 결과는 CouponRedisEntitySerializerTest에서 검증한다.
+        Assertions.assertTrue(binary.length < json.length);
+    }
+
+    private byte[] measure(String name, RedisSerializer<Object> serializer) {
+        byte[] bytes = serializer.serialize(coupon);
+        benchmark.measure(name + " encode", i -> serializer.serialize(coupon).length);
+        benchmark.measure(name + " decode", i -> serializer.deserialize(bytes).hashCode());
+        log.info("%s: %s bytes".formatted(name, bytes.length));
+        return bytes;
+    }
+
+}
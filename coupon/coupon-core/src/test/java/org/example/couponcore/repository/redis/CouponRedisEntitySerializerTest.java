@@ -0,0 +1,86 @@
+package org.example.couponcore.repository.redis;
+
+import org.example.couponcore.model.CouponType;
+import org.example.couponcore.model.IssuedUserStorage;
+import org.example.couponcore.repository.redis.dto.CouponRedisEntity;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+class CouponRedisEntitySerializerTest {
+
+    CouponRedisEntitySerializer sut = new CouponRedisEntitySerializer();
+
+    @DisplayName("쿠폰 캐시를 고정 크기로 저장하고 그대로 읽는다.")
+    @Test
+    void serialize_1() {
+        //given
+        CouponRedisEntity coupon = new CouponRedisEntity(1L, CouponType.FIRST_COME_FIRST_SERVED, 100, true,
+                LocalDateTime.of(2024, 5, 1, 10, 0, 0, 123_000_000), LocalDateTime.of(2024, 5, 31, 23, 59, 59));
+
+        //when
+        byte[] bytes = sut.serialize(coupon);
+
+        //then
+        Assertions.assertEquals(CouponRedisEntitySerializer.SIZE, bytes.length);
+        Assertions.assertEquals(CouponRedisEntitySerializer.VERSION, bytes[0]);
+        Assertions.assertEquals(coupon, sut.deserialize(bytes));
+    }
+
+    @DisplayName("발급 수량 제한이 없는 쿠폰(totalQuantity null)도 그대로 읽는다.")
+    @Test
+    void serialize_2() {
+        //given
+        CouponRedisEntity coupon = new CouponRedisEntity(2L, CouponType.FIRST_COME_FIRST_SERVED, null, false,
+                LocalDateTime.of(2024, 5, 1, 10, 0), LocalDateTime.of(2024, 5, 31, 10, 0));
+
+        //when & then
+        Assertions.assertEquals(coupon, sut.deserialize(sut.serialize(coupon)));
+    }
+
+    @DisplayName("발급 요청 유저 저장 방식(BITMAP), 대기열 사용 여부도 그대로 읽는다.")
+    @Test
+    void serialize_3() {
+        //given
+        CouponRedisEntity coupon = new CouponRedisEntity(4L, CouponType.FIRST_COME_FIRST_SERVED, 10, true,
+                LocalDateTime.of(2024, 5, 1, 10, 0), LocalDateTime.of(2024, 5, 31, 10, 0), IssuedUserStorage.BITMAP, 1, true);
+
+        //when & then
+        Assertions.assertEquals(coupon, sut.deserialize(sut.serialize(coupon)));
+    }
+
+    @DisplayName("분할 수가 없는 이전 버전(VERSION 1) 쿠폰 캐시는 분할 수 1로 읽는다.")
+    @Test
+    void deserialize_2() {
+        //given
+        CouponRedisEntity coupon = new CouponRedisEntity(5L, CouponType.FIRST_COME_FIRST_SERVED, 10, true,
+                LocalDateTime.of(2024, 5, 1, 10, 0), LocalDateTime.of(2024, 5, 31, 10, 0), IssuedUserStorage.SET, 4, false);
+        byte[] bytes = sut.serialize(coupon);
+        byte[] version1 = Arrays.copyOf(bytes, bytes.length - Integer.BYTES);
+        version1[0] = 1;
+
+        //when
+        CouponRedisEntity deserialized = (CouponRedisEntity) sut.deserialize(version1);
+
+        //then
+        Assertions.assertEquals(1, deserialized.spreadFactor());
+        Assertions.assertEquals(coupon.id(), deserialized.id());
+    }
+
+    @DisplayName("기존 JSON 형식의 쿠폰 캐시도 읽는다.")
+    @Test
+    void deserialize_1() {
+        //given
+        CouponRedisEntity coupon = new CouponRedisEntity(3L, CouponType.FIRST_COME_FIRST_SERVED, 10, true,
+                LocalDateTime.of(2024, 5, 1, 10, 0), LocalDateTime.of(2024, 5, 31, 10, 0));
+        byte[] json = new GenericJackson2JsonRedisSerializer().serialize(coupon);
+
+        //when & then
+        Assertions.assertEquals(coupon, sut.deserialize(json));
+    }
+
+}
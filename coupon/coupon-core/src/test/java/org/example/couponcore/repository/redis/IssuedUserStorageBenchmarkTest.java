@@ -0,0 +1,82 @@
+package org.example.couponcore.repository.redis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.Benchmark;
+import org.example.couponcore.TestConfig;
+import org.example.couponcore.model.IssuedUserStorage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.Collection;
+import java.util.Properties;
+
+import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestQueueKey;
+
+/**
+ * 발급 요청 유저 저장 방식(SET, BITMAP)별 Redis 메모리 사용량과 발급 요청 지연 시간 비교
+ * - dense: userId 0 ~ USERS - 1
+ * - sparse: userId 0 ~ 10^8 (locust 부하 테스트의 userId 범위)에 고르게 분포
+ * 메모리는 발급 요청 큐를 지운 뒤 used_memory 증가량으로 측정한다.
+ * ./gradlew :coupon-core:benchmark 로 실행한다.
+ */
+@Slf4j
+@Tag("benchmark")
+class IssuedUserStorageBenchmarkTest extends TestConfig {
+
+    private static final int USERS = 200_000;
+    private static final long SPARSE_USER_ID_RANGE = 100_000_000L;
+    private static final long COUPON_ID = 1L;
+
+    @Autowired
+    RedisRepository redisRepository;
+
+    @Autowired
+    RedisTemplate<String, String> redisTemplate;
+
+    @BeforeEach
+    void clear() {
+        Collection<String> redisKeys = redisTemplate.keys("*");
+        assert redisKeys != null;
+        redisTemplate.delete(redisKeys);
+    }
+
+    @DisplayName("발급 요청 유저 저장 방식별 메모리 사용량과 발급 요청 지연 시간을 비교한다.")
+    @Test
+    void storage_1() {
+        //when
+        long setDense = measure(IssuedUserStorage.SET, "dense", 1);
+        long bitmapDense = measure(IssuedUserStorage.BITMAP, "dense", 1);
+        measure(IssuedUserStorage.SET, "sparse", SPARSE_USER_ID_RANGE / USERS);
+        measure(IssuedUserStorage.BITMAP, "sparse", SPARSE_USER_ID_RANGE / USERS);
+
+        //then
+        // 조밀한 userId는 bitmap이 유저당 1 bit만 사용한다.
+        Assertions.assertTrue(bitmapDense < setDense, "set: %s, bitmap: %s".formatted(setDense, bitmapDense));
+    }
+
+    // 발급 요청을 보내고 늘어난 메모리(bytes)를 반환한다.
+    private long measure(IssuedUserStorage storage, String distribution, long userIdStride) {
+        clear();
+        long usedMemoryBefore = usedMemory();
+        Benchmark.Result result = new Benchmark(0, USERS).measure("%s (%s)".formatted(storage, distribution), i ->
+                redisRepository.tryIssueRequest(COUPON_ID, i * userIdStride, Integer.MAX_VALUE, storage).ordinal());
+        redisTemplate.delete(getIssueRequestQueueKey());
+        long usedMemory = usedMemory() - usedMemoryBefore;
+        log.info("%s (%s): %.1f us/op, %.2f MB, %.1f bytes/user"
+                .formatted(storage, distribution, result.nanosPerOp() / 1_000.0, usedMemory / 1024.0 / 1024.0, (double) usedMemory / USERS));
+        return usedMemory;
+    }
+
+    private long usedMemory() {
+        Properties info = redisTemplate.execute((RedisCallback<Properties>) connection -> connection.serverCommands().info("memory"));
+        assert info != null;
+        return Long.parseLong(info.getProperty("used_memory"));
+    }
+
+}
@@ -3,10 +3,13 @@ package org.example.couponcore.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.couponcore.TestConfig;
+import org.example.couponcore.component.CouponSoldOutRegistry;
 import org.example.couponcore.exception.CouponIssueException;
 import org.example.couponcore.exception.ErrorCode;
 import org.example.couponcore.model.Coupon;
+import org.example.couponcore.model.CouponIssueOutcome;
 import org.example.couponcore.model.CouponType;
+import org.example.couponcore.model.IssuedUserStorage;
 import org.example.couponcore.repository.mysql.CouponJpaRepository;
 import org.example.couponcore.repository.redis.dto.CouponIssueRequest;
 import org.junit.jupiter.api.Assertions;
@@ -20,8 +23,13 @@ import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.stream.IntStream;
 
+import static org.example.couponcore.util.CouponRedisUtils.getIssueQuotaKey;
+import static org.example.couponcore.util.CouponRedisUtils.getIssueQuotaMovingKey;
+import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestBitmapKey;
+import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestCountKey;
 import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestKey;
 import static org.example.couponcore.util.CouponRedisUtils.getIssueRequestQueueKey;
+import static org.example.couponcore.util.CouponRedisUtils.getIssueSoldOutCouponsKey;
 import static org.junit.jupiter.api.Assertions.*;
 
 class AsyncCouponIssueServiceV2Test extends TestConfig {
@@ -35,6 +43,9 @@ class AsyncCouponIssueServiceV2Test extends TestConfig {
     @Autowired
     CouponJpaRepository couponJpaRepository;
 
+    @Autowired
+    CouponSoldOutRegistry couponSoldOutRegistry;
+
     @BeforeEach
     void clear() {
         Collection<String> redisKeys = redisTemplate.keys("*");
@@ -124,7 +135,161 @@ class AsyncCouponIssueServiceV2Test extends TestConfig {
         Assertions.assertEquals(new ObjectMapper().writeValueAsString(request), savedIssueRequest);
     }
 
+    @DisplayName("쿠폰 발급 - 수량 초과 응답을 받으면 소진 처리되고, 이후 요청은 Redis 조회 없이 거절된다.")
+    @Test
+    void issue_7() {
+        //given
+        Coupon coupon = saveCoupon();
+        saveRedisCouponData(coupon);
+        Assertions.assertThrows(CouponIssueException.class, () -> sut.issue(coupon.getId(), 1000L));
+        redisTemplate.delete(getIssueRequestKey(coupon.getId()));
+
+        //when
+        CouponIssueException exception = Assertions.assertThrows(CouponIssueException.class, () -> sut.issue(coupon.getId(), 1001L));
+
+        //then
+        Assertions.assertEquals(exception.getErrorCode(), ErrorCode.INVALID_COUPON_ISSUE_QUANTITY);
+        Assertions.assertTrue(couponSoldOutRegistry.isSoldOut(coupon.getId()));
+        Assertions.assertTrue(redisTemplate.opsForSet().isMember(getIssueSoldOutCouponsKey(), String.valueOf(coupon.getId())));
+        Assertions.assertFalse(redisTemplate.opsForSet().isMember(getIssueRequestKey(coupon.getId()), "1001"));
+    }
+
+    @DisplayName("쿠폰 발급 - 발급 요청 유저를 bitmap으로 저장하는 쿠폰도 중복, 수량을 제어한다.")
+    @Test
+    void issue_8() {
+        //given
+        Coupon coupon = couponJpaRepository.save(Coupon.builder()
+                .couponType(CouponType.FIRST_COME_FIRST_SERVED)
+                .title("선착순 테스트 쿠폰")
+                .totalQuantity(2)
+                .issuedQuantity(0)
+                .dateIssueStart(LocalDateTime.now().minusDays(1))
+                .dateIssueEnd(LocalDateTime.now().plusDays(1))
+                .issuedUserStorage(IssuedUserStorage.BITMAP)
+                .build());
+
+        //when
+        CouponIssueOutcome first = sut.tryIssue(coupon.getId(), 1L);
+        CouponIssueOutcome duplicated = sut.tryIssue(coupon.getId(), 1L);
+        CouponIssueOutcome second = sut.tryIssue(coupon.getId(), 100_000_000L);
+        CouponIssueOutcome soldOut = sut.tryIssue(coupon.getId(), 3L);
+
+        //then
+        Assertions.assertEquals(CouponIssueOutcome.SUCCESS, first);
+        Assertions.assertEquals(CouponIssueOutcome.DUPLICATED, duplicated);
+        Assertions.assertEquals(CouponIssueOutcome.SUCCESS, second);
+        Assertions.assertEquals(CouponIssueOutcome.SOLD_OUT, soldOut);
+        Assertions.assertTrue(redisTemplate.opsForValue().getBit(getIssueRequestBitmapKey(coupon.getId()), 100_000_000L));
+        Assertions.assertEquals("2", redisTemplate.opsForValue().get(getIssueRequestCountKey(coupon.getId())));
+        Assertions.assertFalse(redisTemplate.hasKey(getIssueRequestKey(coupon.getId())));
+    }
+
+    @DisplayName("쿠폰 발급 - 요청을 여러 분할로 나누는 쿠폰도 중복을 제어하고, 분할의 수량을 옮겨와서 발급 수량만큼 발급한다.")
+    @Test
+    void issue_9() {
+        //given
+        int totalQuantity = 10;
+        int spreadFactor = 4;
+        Coupon coupon = couponJpaRepository.save(Coupon.builder()
+                .couponType(CouponType.FIRST_COME_FIRST_SERVED)
+                .title("선착순 테스트 쿠폰")
+                .totalQuantity(totalQuantity)
+                .issuedQuantity(0)
+                .dateIssueStart(LocalDateTime.now().minusDays(1))
+                .dateIssueEnd(LocalDateTime.now().plusDays(1))
+                .spreadFactor(spreadFactor)
+                .build());
+
+        //when
+        CouponIssueOutcome first = sut.tryIssue(coupon.getId(), 1L);
+        CouponIssueOutcome duplicated = sut.tryIssue(coupon.getId(), 1L);
+        long success = IntStream.rangeClosed(2, 100)
+                .mapToObj(userId -> sut.tryIssue(coupon.getId(), userId))
+                .filter(CouponIssueOutcome::isSuccess)
+                .count();
+
+        //then
+        Assertions.assertEquals(CouponIssueOutcome.SUCCESS, first);
+        Assertions.assertEquals(CouponIssueOutcome.DUPLICATED, duplicated);
+        Assertions.assertEquals(totalQuantity - 1, success);
+        long requested = IntStream.range(0, spreadFactor)
+                .mapToLong(shard -> redisTemplate.opsForSet().size(getIssueRequestKey(coupon.getId(), shard)))
+                .sum();
+        Assertions.assertEquals(totalQuantity, requested);
+        Assertions.assertEquals(totalQuantity, redisTemplate.opsForList().size(getIssueRequestQueueKey()));
+    }
+
+    @DisplayName("쿠폰 발급 - bitmap으로 저장하는 쿠폰은 최대 userId를 넘는 요청을 거절하고 bitmap을 늘리지 않는다.")
+    @Test
+    void issue_10() {
+        //given
+        Coupon coupon = couponJpaRepository.save(Coupon.builder()
+                .couponType(CouponType.FIRST_COME_FIRST_SERVED)
+                .title("선착순 테스트 쿠폰")
+                .totalQuantity(10)
+                .issuedQuantity(0)
+                .dateIssueStart(LocalDateTime.now().minusDays(1))
+                .dateIssueEnd(LocalDateTime.now().plusDays(1))
+                .issuedUserStorage(IssuedUserStorage.BITMAP)
+                .build());
+
+        //when
+        CouponIssueException exception = Assertions.assertThrows(CouponIssueException.class,
+                () -> sut.tryIssue(coupon.getId(), (1L << 32) - 1));
 
+        //then
+        Assertions.assertEquals(ErrorCode.FAIL_COUPON_ISSUE_REQUEST, exception.getErrorCode());
+        Assertions.assertFalse(redisTemplate.hasKey(getIssueRequestBitmapKey(coupon.getId())));
+    }
+
+    @DisplayName("쿠폰 발급 - 분할 사이에서 옮기다 멈춘 수량은 소진 처리 전에 받는 분할에 반영되어 발급된다.")
+    @Test
+    void issue_11() {
+        //given
+        int totalQuantity = 4;
+        int spreadFactor = 2;
+        Coupon coupon = couponJpaRepository.save(Coupon.builder()
+                .couponType(CouponType.FIRST_COME_FIRST_SERVED)
+                .title("선착순 테스트 쿠폰")
+                .totalQuantity(totalQuantity)
+                .issuedQuantity(0)
+                .dateIssueStart(LocalDateTime.now().minusDays(1))
+                .dateIssueEnd(LocalDateTime.now().plusDays(1))
+                .spreadFactor(spreadFactor)
+                .build());
+        // 0번 분할의 수량 2개를 빼고 1번 분할에 더하기 전에 노드가 종료된 상황
+        redisTemplate.opsForValue().set(getIssueQuotaKey(coupon.getId(), 0), "0");
+        redisTemplate.opsForValue().set(getIssueQuotaKey(coupon.getId(), 1), "2");
+        redisTemplate.opsForHash().put(getIssueQuotaMovingKey(coupon.getId(), 0), "stopped-move", "1:2");
+
+        //when
+        long success = IntStream.rangeClosed(1, 100)
+                .mapToObj(userId -> sut.tryIssue(coupon.getId(), userId))
+                .filter(CouponIssueOutcome::isSuccess)
+                .count();
+
+        //then
+        Assertions.assertEquals(totalQuantity, success);
+        Assertions.assertEquals(0, redisTemplate.opsForHash().size(getIssueQuotaMovingKey(coupon.getId(), 0)));
+        Assertions.assertTrue(couponSoldOutRegistry.isSoldOut(coupon.getId()));
+    }
+
+    @DisplayName("쿠폰 발급 결과 - 소진, 중복, 발급 기간이 아닌 요청은 예외 대신 결과로 반환한다.")
+    @Test
+    void tryIssue_1() {
+        //given
+        Coupon soldOutCoupon = saveCoupon();
+        saveRedisCouponData(soldOutCoupon);
+        Coupon coupon = saveCoupon();
+        redisTemplate.opsForSet().add(getIssueRequestKey(coupon.getId()), "1");
+        Coupon invalidDateCoupon = invalidDateCoupon();
+
+        //when & then
+        Assertions.assertEquals(CouponIssueOutcome.SOLD_OUT, sut.tryIssue(soldOutCoupon.getId(), 1000L));
+        Assertions.assertEquals(CouponIssueOutcome.DUPLICATED, sut.tryIssue(coupon.getId(), 1L));
+        Assertions.assertEquals(CouponIssueOutcome.OUT_OF_WINDOW, sut.tryIssue(invalidDateCoupon.getId(), 1L));
+        Assertions.assertEquals(CouponIssueOutcome.SUCCESS, sut.tryIssue(coupon.getId(), 2L));
+    }
 
     private Coupon saveCoupon() {
         Coupon coupon = Coupon.builder()
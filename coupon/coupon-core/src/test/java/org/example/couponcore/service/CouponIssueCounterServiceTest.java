@@ -0,0 +1,147 @@
+package org.example.couponcore.service;
+
+import org.example.couponcore.TestConfig;
+import org.example.couponcore.exception.CouponIssueException;
+import org.example.couponcore.exception.ErrorCode;
+import org.example.couponcore.model.Coupon;
+import org.example.couponcore.model.CouponIssueCounter;
+import org.example.couponcore.model.CouponType;
+import org.example.couponcore.repository.mysql.CouponIssueCounterJpaRepository;
+import org.example.couponcore.repository.mysql.CouponIssueJpaRepository;
+import org.example.couponcore.repository.mysql.CouponJpaRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.LongStream;
+
+class CouponIssueCounterServiceTest extends TestConfig {
+
+    @Autowired
+    CouponIssueCounterService sut;
+
+    @Autowired
+    CouponIssueService couponIssueService;
+
+    @Autowired
+    CouponJpaRepository couponJpaRepository;
+
+    @Autowired
+    CouponIssueJpaRepository couponIssueJpaRepository;
+
+    @Autowired
+    CouponIssueCounterJpaRepository couponIssueCounterJpaRepository;
+
+    // 매번 테스트 전에 데이터를 삭제한다.
+    @BeforeEach
+    void clean() {
+        couponIssueCounterJpaRepository.deleteAllInBatch();
+        couponIssueJpaRepository.deleteAllInBatch();
+        couponJpaRepository.deleteAllInBatch();
+    }
+
+    @DisplayName("남은 수량을 slot마다 나눠 배정하고, 이미 발급된 수량은 첫번째 slot에 넣는다.")
+    @Test
+    void enable_1() {
+        //given
+        Coupon coupon = couponJpaRepository.save(coupon(11, 2));
+
+        //when
+        sut.enable(coupon.getId(), 4);
+
+        //then
+        List<CouponIssueCounter> counters = couponIssueCounterJpaRepository.findAll().stream()
+                .sorted(Comparator.comparingInt(CouponIssueCounter::getSlot))
+                .toList();
+        Assertions.assertEquals(List.of(5, 2, 2, 2), counters.stream().map(CouponIssueCounter::getQuota).toList());
+        Assertions.assertEquals(List.of(2, 0, 0, 0), counters.stream().map(CouponIssueCounter::getIssuedQuantity).toList());
+        Assertions.assertTrue(couponJpaRepository.findById(coupon.getId()).get().isShardedCounter());
+    }
+
+    @DisplayName("counter slot을 사용하는 쿠폰은 전체 수량까지만 발급되고, 초과 요청은 예외를 반환한다.")
+    @Test
+    void issue_1() {
+        //given
+        int totalQuantity = 10;
+        Coupon coupon = couponJpaRepository.save(coupon(totalQuantity, 0));
+        sut.enable(coupon.getId(), 3);
+        LongStream.rangeClosed(1, totalQuantity).forEach(userId -> couponIssueService.issue(coupon.getId(), userId));
+
+        //when & then
+        var exception = Assertions.assertThrows(CouponIssueException.class, () -> {
+            couponIssueService.issue(coupon.getId(), totalQuantity + 1);
+        });
+        Assertions.assertEquals(exception.getErrorCode(), ErrorCode.INVALID_COUPON_ISSUE_QUANTITY);
+        Assertions.assertEquals(totalQuantity, couponIssueCounterJpaRepository.sumIssuedQuantity(coupon.getId()));
+    }
+
+    @DisplayName("일괄 발급은 요청 수를 slot에 나눠 증가시키고, 남은 quota보다 많은 요청은 예외를 반환한다.")
+    @Test
+    void issueAll_1() {
+        //given
+        int totalQuantity = 10;
+        Coupon coupon = couponJpaRepository.save(coupon(totalQuantity, 0));
+        sut.enable(coupon.getId(), 3);
+        couponIssueService.issueAll(coupon.getId(), LongStream.rangeClosed(1, 7).boxed().toList());
+
+        //when
+        var exception = Assertions.assertThrows(CouponIssueException.class, () -> {
+            couponIssueService.issueAll(coupon.getId(), LongStream.rangeClosed(8, 11).boxed().toList());
+        });
+        couponIssueService.issueAll(coupon.getId(), LongStream.rangeClosed(8, 10).boxed().toList());
+
+        //then
+        Assertions.assertEquals(exception.getErrorCode(), ErrorCode.INVALID_COUPON_ISSUE_QUANTITY);
+        Assertions.assertEquals(totalQuantity, couponIssueCounterJpaRepository.sumIssuedQuantity(coupon.getId()));
+        couponIssueCounterJpaRepository.findByCouponIdOrderBySlot(coupon.getId())
+                .forEach(counter -> Assertions.assertEquals(counter.getQuota(), counter.getIssuedQuantity()));
+    }
+
+    @DisplayName("발급 수량은 fold 할 때 slot 합계로 갱신된다.")
+    @Test
+    void fold_1() {
+        //given
+        Coupon coupon = couponJpaRepository.save(coupon(10, 0));
+        sut.enable(coupon.getId(), 2);
+        couponIssueService.issueAll(coupon.getId(), List.of(1L, 2L, 3L));
+        Assertions.assertEquals(0, couponJpaRepository.findById(coupon.getId()).get().getIssuedQuantity());
+
+        //when
+        sut.fold();
+
+        //then
+        Assertions.assertEquals(3, couponJpaRepository.findById(coupon.getId()).get().getIssuedQuantity());
+    }
+
+    @DisplayName("모든 slot의 quota를 소진한 발급은 fold를 기다리지 않고 발급 수량을 갱신한다.")
+    @Test
+    void fold_2() {
+        //given
+        int totalQuantity = 10;
+        Coupon coupon = couponJpaRepository.save(coupon(totalQuantity, 0));
+        sut.enable(coupon.getId(), 3);
+
+        //when
+        couponIssueService.issueAll(coupon.getId(), LongStream.rangeClosed(1, totalQuantity).boxed().toList());
+
+        //then
+        Assertions.assertEquals(totalQuantity, couponJpaRepository.findById(coupon.getId()).get().getIssuedQuantity());
+    }
+
+    private Coupon coupon(int totalQuantity, int issuedQuantity) {
+        return Coupon.builder()
+                .couponType(CouponType.FIRST_COME_FIRST_SERVED)
+                .title("선착순 쿠폰")
+                .totalQuantity(totalQuantity)
+                .issuedQuantity(issuedQuantity)
+                .dateIssueStart(LocalDateTime.now().minusDays(1))
+                .dateIssueEnd(LocalDateTime.now().plusDays(1))
+                .build();
+    }
+
+}
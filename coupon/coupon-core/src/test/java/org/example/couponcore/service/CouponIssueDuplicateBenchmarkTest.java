@@ -0,0 +1,103 @@
+package org.example.couponcore.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.Benchmark;
+import org.example.couponcore.TestConfig;
+import org.example.couponcore.exception.CouponIssueException;
+import org.example.couponcore.exception.ErrorCode;
+import org.example.couponcore.repository.mysql.CouponIssueJpaRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 발급 내역 테이블이 커져도 중복 발급 거절 시간이 일정한지 측정한다. ((coupon_id, user_id) unique index)
+ * 발급 내역은 H2의 SYSTEM_RANGE로 한번에 채우고, 실제 커밋 비용을 측정하기 위해 테스트 트랜잭션을 사용하지 않는다.
+ * ./gradlew :coupon-core:benchmark 로 실행한다.
+ */
+@Slf4j
+@Tag("benchmark")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CouponIssueDuplicateBenchmarkTest extends TestConfig {
+
+    private static final long COUPON_ID = 1L;
+    private static final int SAMPLE_COUNT = 1_000;
+
+    @Autowired
+    CouponIssueService sut;
+
+    @Autowired
+    CouponIssueJpaRepository couponIssueJpaRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clean() {
+        couponIssueJpaRepository.deleteAllInBatch();
+    }
+
+    @DisplayName("중복 발급 검사는 (coupon_id, user_id) unique index를 사용한다.")
+    @Test
+    void explain_1() {
+        //given
+        insertIssues(1, 10_000);
+
+        //when
+        String plan = jdbcTemplate.queryForObject(
+                "EXPLAIN SELECT id FROM coupon_issues WHERE coupon_id = ? AND user_id = ?", String.class, COUPON_ID, 1L);
+
+        //then
+        Assertions.assertNotNull(plan);
+        Assertions.assertTrue(plan.toUpperCase().contains("UK_COUPON_ISSUES_COUPON_ID_USER_ID"), plan);
+    }
+
+    @DisplayName("발급 내역이 1만건, 100만건, 200만건일 때 중복 발급 거절 시간을 비교한다.")
+    @Test
+    void saveCouponIssue_1() {
+        long inserted = 0;
+        for (long size : List.of(10_000L, 1_000_000L, 2_000_000L)) {
+            //given
+            insertIssues(inserted + 1, size);
+            inserted = size;
+
+            //when
+            double averageMicros = measureDuplicateRejection(size);
+
+            //then
+            log.info("rows: %s, duplicate rejection: %.1f us/op".formatted(size, averageMicros));
+        }
+    }
+
+    // 같은 쿠폰에 userId from ~ to 발급 내역을 한번에 저장한다.
+    private void insertIssues(long from, long to) {
+        jdbcTemplate.update("""
+                INSERT INTO coupon_issues (id, coupon_id, user_id, date_issued, date_created, date_updated)
+                SELECT X, ?, X, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(?, ?)
+                """, COUPON_ID, from, to);
+    }
+
+    // 이미 발급된 유저에게 임의로 발급을 요청해 거절되기까지의 평균 시간 (warm-up 후 측정)
+    private double measureDuplicateRejection(long size) {
+        Benchmark.Result result = new Benchmark(SAMPLE_COUNT / 10, SAMPLE_COUNT)
+                .measure("rows: %s".formatted(size), i -> rejectDuplicate(size));
+        return result.nanosPerOp() / 1_000.0;
+    }
+
+    private long rejectDuplicate(long size) {
+        long userId = ThreadLocalRandom.current().nextLong(1, size + 1);
+        var exception = Assertions.assertThrows(CouponIssueException.class, () -> sut.saveCouponIssue(COUPON_ID, userId));
+        Assertions.assertEquals(exception.getErrorCode(), ErrorCode.DUPLICATE_COUPON_ISSUE);
+        return userId;
+    }
+
+}
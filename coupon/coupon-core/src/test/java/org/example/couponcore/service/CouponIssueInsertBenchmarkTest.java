@@ -0,0 +1,125 @@
+package org.example.couponcore.service;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.extern.slf4j.Slf4j;
+import org.example.couponcore.Benchmark;
+import org.example.couponcore.TestConfig;
+import org.example.couponcore.model.CouponIssue;
+import org.example.couponcore.repository.mysql.CouponIssueJdbcRepository;
+import org.example.couponcore.repository.mysql.CouponIssueJpaRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.function.LongFunction;
+import java.util.stream.LongStream;
+
+/**
+ * 쿠폰 발급 내역 INSERT 처리량 비교 (rows/s)
+ * - IDENTITY: AUTO_INCREMENT ID 엔티티 (ID를 받아오기 위해 row마다 INSERT를 바로 실행하므로 batch로 묶이지 않는다)
+ * - JPA batch: 시간순 ID + hibernate.jdbc.batch_size
+ * - JDBC batch: consumer 일괄 발급에서 사용하는 CouponIssueJdbcRepository
+ * 실제 커밋 비용을 측정하기 위해 테스트 트랜잭션을 사용하지 않는다.
+ * ./gradlew :coupon-core:benchmark 로 실행한다.
+ */
+@Slf4j
+@Tag("benchmark")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CouponIssueInsertBenchmarkTest extends TestConfig {
+
+    private static final int ROW_COUNT = 20_000;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    CouponIssueJpaRepository couponIssueJpaRepository;
+
+    @Autowired
+    CouponIssueJdbcRepository couponIssueJdbcRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clean() {
+        couponIssueJpaRepository.deleteAllInBatch();
+        jdbcTemplate.update("DELETE FROM coupon_issues_identity");
+    }
+
+    @DisplayName("발급 내역 INSERT 처리량을 IDENTITY, JPA batch, JDBC batch로 비교한다.")
+    @Test
+    void insert_1() {
+        measure("identity", "coupon_issues_identity", 1L, () -> persistAll(userId -> new IdentityCouponIssue(1L, userId)));
+        measure("jpa batch", "coupon_issues", 2L, () -> persistAll(userId -> CouponIssue.builder().couponId(2L).userId(userId).build()));
+        measure("jdbc batch", "coupon_issues", 3L, () -> transactionTemplate.executeWithoutResult(status ->
+                couponIssueJdbcRepository.saveAll(3L, LongStream.rangeClosed(1, ROW_COUNT).boxed().toList())));
+    }
+
+    private void measure(String name, String table, long couponId, Runnable insert) {
+        Benchmark.Result result = Benchmark.measureOnce(name, insert);
+
+        Assertions.assertEquals((long) ROW_COUNT, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM %s WHERE coupon_id = ?".formatted(table), Long.class, couponId));
+        log.info("%s: %.0f rows/s".formatted(name, ROW_COUNT * result.opsPerSecond()));
+    }
+
+    // hibernate.jdbc.batch_size 설정을 그대로 사용한다. (IDENTITY 엔티티는 Hibernate가 batch를 사용하지 않는다)
+    private void persistAll(LongFunction<Object> factory) {
+        transactionTemplate.executeWithoutResult(status -> {
+            LongStream.rangeClosed(1, ROW_COUNT).mapToObj(factory).forEach(entityManager::persist);
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    // 시간순 ID 도입 전과 같은 AUTO_INCREMENT ID 발급 내역 (비교용 테이블)
+    @Entity
+    @Table(name = "coupon_issues_identity", indexes = {
+            @Index(name = "uk_coupon_issues_identity_coupon_id_user_id", columnList = "coupon_id, user_id", unique = true)
+    })
+    static class IdentityCouponIssue {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @Column(nullable = false)
+        private Long couponId;
+
+        @Column(nullable = false)
+        private Long userId;
+
+        @Column(nullable = false)
+        private LocalDateTime dateIssued;
+
+        protected IdentityCouponIssue() {
+        }
+
+        IdentityCouponIssue(long couponId, long userId) {
+            this.couponId = couponId;
+            this.userId = userId;
+            this.dateIssued = LocalDateTime.now();
+        }
+
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.example.couponcore.service;
+
+import org.example.couponcore.Benchmark;
+import org.example.couponcore.TestConfig;
+import org.example.couponcore.component.CouponSoldOutRegistry;
+import org.example.couponcore.exception.CouponIssueException;
+import org.example.couponcore.exception.ErrorCode;
+import org.example.couponcore.model.CouponIssueOutcome;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * 소진된 쿠폰에 대한 발급 요청 거절 처리량 비교 (ops/s)
+ * - exception (stack trace): issue() - 기존처럼 같은 깊이에서 stack trace를 가진 예외를 만든다. (서비스가 던진 예외를 감싼다)
+ * - exception (stackless): issue() - stack trace 없는 CouponIssueException
+ * - outcome: tryIssue() - 예외 없이 결과 반환
+ * 소진 bitmap으로 거절되므로 Redis를 호출하지 않는다.
+ * ./gradlew :coupon-core:benchmark 로 실행한다.
+ */
+@Tag("benchmark")
+class CouponIssueRejectionBenchmarkTest extends TestConfig {
+
+    private static final long COUPON_ID = Integer.MAX_VALUE - 1L;
+
+    private final Benchmark benchmark = new Benchmark(100_000, 1_000_000);
+
+    @Autowired
+    AsyncCouponIssueServiceV2 sut;
+
+    @Autowired
+    CouponSoldOutRegistry couponSoldOutRegistry;
+
+    @DisplayName("소진된 쿠폰의 발급 요청 거절 처리량을 예외와 결과 반환으로 비교한다.")
+    @Test
+    void reject_1() {
+        //given
+        couponSoldOutRegistry.markSoldOut(COUPON_ID);
+
+        //when
+        benchmark.measure("exception (stack trace)", userId -> {
+            try {
+                issueWithStackTrace(userId);
+                return 0;
+            } catch (IllegalStateException e) {
+                return e.getMessage().length();
+            }
+        });
+        benchmark.measure("exception (stackless)", userId -> {
+            try {
+                sut.issue(COUPON_ID, userId);
+                return 0;
+            } catch (CouponIssueException e) {
+                return e.getErrorCode().ordinal();
+            }
+        });
+        benchmark.measure("outcome", userId -> sut.tryIssue(COUPON_ID, userId).ordinal());
+
+        //then
+        CouponIssueException exception = Assertions.assertThrows(CouponIssueException.class, () -> sut.issue(COUPON_ID, 1L));
+        Assertions.assertEquals(ErrorCode.INVALID_COUPON_ISSUE_QUANTITY, exception.getErrorCode());
+        Assertions.assertEquals(0, exception.getStackTrace().length);
+        Assertions.assertEquals(CouponIssueOutcome.SOLD_OUT, sut.tryIssue(COUPON_ID, 1L));
+    }
+
+    // 서비스를 거쳐 거절된 요청을 stack trace를 가진 예외로 다시 던진다.
+    private void issueWithStackTrace(long userId) {
+        try {
+            sut.issue(COUPON_ID, userId);
+        } catch (CouponIssueException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+}
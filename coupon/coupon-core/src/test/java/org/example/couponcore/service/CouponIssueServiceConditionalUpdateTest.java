@@ -0,0 +1,174 @@
+package org.example.couponcore.service;
+
+import org.example.couponcore.TestConfig;
+import org.example.couponcore.exception.CouponIssueException;
+import org.example.couponcore.exception.ErrorCode;
+import org.example.couponcore.model.Coupon;
+import org.example.couponcore.model.CouponType;
+import org.example.couponcore.repository.mysql.CouponIssueCounterJpaRepository;
+import org.example.couponcore.repository.mysql.CouponIssueJpaRepository;
+import org.example.couponcore.repository.mysql.CouponIssueRepository;
+import org.example.couponcore.repository.mysql.CouponJpaRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// 조건부 UPDATE 발급 방식 (coupon.issue.lock-mode=conditional)
+@TestPropertySource(properties = "coupon.issue.lock-mode=conditional")
+class CouponIssueServiceConditionalUpdateTest extends TestConfig {
+
+    @Autowired
+    CouponIssueService sut;
+
+    @Autowired
+    CouponIssueJpaRepository couponIssueJpaRepository;
+
+    @Autowired
+    CouponJpaRepository couponJpaRepository;
+
+    @Autowired
+    CouponIssueRepository couponIssueRepository;
+
+    @Autowired
+    CouponIssueCounterService couponIssueCounterService;
+
+    @Autowired
+    CouponIssueCounterJpaRepository couponIssueCounterJpaRepository;
+
+    // 매번 테스트 전에 데이터를 삭제한다.
+    @BeforeEach
+    void clean() {
+        couponIssueJpaRepository.deleteAllInBatch();
+        couponJpaRepository.deleteAllInBatch();
+    }
+
+    @DisplayName("발급 수량, 기한, 중복 발급 문제가 없다면 쿠폰이 발급된다.")
+    @Test
+    void issue_1() {
+        //given
+        long userId = 1L;
+        Coupon coupon = couponJpaRepository.save(coupon(100, 0, LocalDateTime.now().plusDays(1)));
+
+        //when
+        sut.issue(coupon.getId(), userId);
+
+        //then
+        var couponResult = couponJpaRepository.findById(coupon.getId()).get();
+        Assertions.assertEquals(couponResult.getIssuedQuantity(), 1);
+        Assertions.assertNotNull(couponIssueRepository.findFirstCouponIssue(coupon.getId(), userId));
+    }
+
+    @DisplayName("발급 수량이 모두 소진되었다면 예외를 반환한다.")
+    @Test
+    void issue_2() {
+        //given
+        long userId = 1L;
+        Coupon coupon = couponJpaRepository.save(coupon(100, 100, LocalDateTime.now().plusDays(1)));
+
+        //when & then
+        var exception = Assertions.assertThrows(CouponIssueException.class, () -> {
+            sut.issue(coupon.getId(), userId);
+        });
+        Assertions.assertEquals(exception.getErrorCode(), ErrorCode.INVALID_COUPON_ISSUE_QUANTITY);
+    }
+
+    @DisplayName("발급 기한에 문제가 있다면 예외를 반환한다.")
+    @Test
+    void issue_3() {
+        //given
+        long userId = 1L;
+        Coupon coupon = couponJpaRepository.save(coupon(100, 0, LocalDateTime.now().minusDays(1)));
+
+        //when & then
+        var exception = Assertions.assertThrows(CouponIssueException.class, () -> {
+            sut.issue(coupon.getId(), userId);
+        });
+        Assertions.assertEquals(exception.getErrorCode(), ErrorCode.INVALID_COUPON_ISSUE_DATE);
+    }
+
+    @DisplayName("쿠폰이 존재하지 않는다면 예외를 반환한다.")
+    @Test
+    void issue_4() {
+        //given
+        long userId = 1L;
+        long couponId = 1L;
+
+        //when & then
+        var exception = Assertions.assertThrows(CouponIssueException.class, () -> {
+            sut.issue(couponId, userId);
+        });
+        Assertions.assertEquals(exception.getErrorCode(), ErrorCode.COUPON_NOT_EXIST);
+    }
+
+    @DisplayName("동시에 발급 요청이 몰려도 발급 수량을 초과해 발급되지 않는다.")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Test
+    void issue_5() throws InterruptedException {
+        //given
+        int totalQuantity = 50;
+        int requestCount = 200;
+        Coupon coupon = couponJpaRepository.save(coupon(totalQuantity, 0, LocalDateTime.now().plusDays(1)));
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch latch = new CountDownLatch(requestCount);
+
+        //when
+        for (int i = 1; i <= requestCount; i++) {
+            long userId = i;
+            executorService.execute(() -> {
+                try {
+                    sut.issue(coupon.getId(), userId);
+                } catch (CouponIssueException e) {
+                    // 수량 소진으로 인한 발급 실패
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executorService.shutdown();
+
+        //then
+        var couponResult = couponJpaRepository.findById(coupon.getId()).get();
+        Assertions.assertEquals(couponResult.getIssuedQuantity(), totalQuantity);
+        Assertions.assertEquals(couponIssueJpaRepository.count(), totalQuantity);
+    }
+
+    @DisplayName("counter slot을 사용하는 쿠폰은 쿠폰의 발급 수량 대신 slot의 발급 수량을 증가시킨다.")
+    @Test
+    void issue_6() {
+        //given
+        Coupon coupon = couponJpaRepository.save(coupon(10, 0, LocalDateTime.now().plusDays(1)));
+        couponIssueCounterService.enable(coupon.getId(), 2);
+
+        //when
+        sut.issue(coupon.getId(), 1L);
+        sut.issue(coupon.getId(), 2L);
+
+        //then
+        Assertions.assertEquals(2, couponIssueCounterJpaRepository.sumIssuedQuantity(coupon.getId()));
+        Assertions.assertEquals(0, couponJpaRepository.findById(coupon.getId()).get().getIssuedQuantity());
+        Assertions.assertTrue(couponIssueCounterService.isShardedCounter(coupon.getId()));
+    }
+
+    private Coupon coupon(int totalQuantity, int issuedQuantity, LocalDateTime dateIssueEnd) {
+        return Coupon.builder()
+                .couponType(CouponType.FIRST_COME_FIRST_SERVED)
+                .title("선착순 쿠폰")
+                .totalQuantity(totalQuantity)
+                .issuedQuantity(issuedQuantity)
+                .dateIssueStart(LocalDateTime.now().minusDays(2))
+                .dateIssueEnd(dateIssueEnd)
+                .build();
+    }
+
+}
@@ -16,6 +16,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -48,7 +49,7 @@ class CouponIssueServiceTest extends TestConfig {
                 .couponId(1L)
                 .userId(1L)
                 .build();
-        couponIssueJpaRepository.save(couponIssue);
+        couponIssueJpaRepository.saveAndFlush(couponIssue);
 
         //when & then
         CouponIssueException exception = assertThrows(CouponIssueException.class, () -> {
@@ -162,7 +163,7 @@ class CouponIssueServiceTest extends TestConfig {
                 .couponId(coupon.getId())
                 .userId(userId)
                 .build();
-        couponIssueJpaRepository.save(couponIssue);
+        couponIssueJpaRepository.saveAndFlush(couponIssue);
 
         //when & then
         var exception = Assertions.assertThrows(CouponIssueException.class, () -> {
@@ -187,4 +188,63 @@ class CouponIssueServiceTest extends TestConfig {
         Assertions.assertEquals(exception.getErrorCode(), ErrorCode.COUPON_NOT_EXIST);
     }
 
+    @DisplayName("일괄 발급 - 요청한 유저 수만큼 발급 수량이 증가하고 발급 내역이 저장된다.")
+    @Test
+    void issueAll_1() {
+        //given
+        Coupon coupon = couponJpaRepository.save(validCoupon(100, 0));
+        List<Long> userIds = List.of(1L, 2L, 3L);
+
+        //when
+        sut.issueAll(coupon.getId(), userIds);
+
+        //then
+        var couponResult = couponJpaRepository.findById(coupon.getId()).get();
+        Assertions.assertEquals(couponResult.getIssuedQuantity(), 3);
+        userIds.forEach(userId -> Assertions.assertNotNull(couponIssueRepository.findFirstCouponIssue(coupon.getId(), userId)));
+    }
+
+    @DisplayName("일괄 발급 - 이미 발급된 유저와 요청 내 중복 유저는 제외하고 발급한다.")
+    @Test
+    void issueAll_2() {
+        //given
+        Coupon coupon = couponJpaRepository.save(validCoupon(100, 1));
+        couponIssueJpaRepository.save(CouponIssue.builder()
+                .couponId(coupon.getId())
+                .userId(1L)
+                .build());
+
+        //when
+        sut.issueAll(coupon.getId(), List.of(1L, 2L, 2L));
+
+        //then
+        var couponResult = couponJpaRepository.findById(coupon.getId()).get();
+        Assertions.assertEquals(couponResult.getIssuedQuantity(), 2);
+        Assertions.assertEquals(couponIssueRepository.findIssuedUserIds(coupon.getId(), List.of(1L, 2L)).size(), 2);
+    }
+
+    @DisplayName("일괄 발급 - 남은 수량보다 많은 요청이면 예외를 반환한다.")
+    @Test
+    void issueAll_3() {
+        //given
+        Coupon coupon = couponJpaRepository.save(validCoupon(2, 0));
+
+        //when & then
+        var exception = Assertions.assertThrows(CouponIssueException.class, () -> {
+            sut.issueAll(coupon.getId(), List.of(1L, 2L, 3L));
+        });
+        Assertions.assertEquals(exception.getErrorCode(), ErrorCode.INVALID_COUPON_ISSUE_QUANTITY);
+    }
+
+    private Coupon validCoupon(int totalQuantity, int issuedQuantity) {
+        return Coupon.builder()
+                .couponType(CouponType.FIRST_COME_FIRST_SERVED)
+                .title("선착순 쿠폰")
+                .totalQuantity(totalQuantity)
+                .issuedQuantity(issuedQuantity)
+                .dateIssueStart(LocalDateTime.now().minusDays(1))
+                .dateIssueEnd(LocalDateTime.now().plusDays(1))
+                .build();
+    }
+
 }
\ No newline at end of file
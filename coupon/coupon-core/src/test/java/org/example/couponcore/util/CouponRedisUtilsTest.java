@@ -0,0 +1,42 @@
+package org.example.couponcore.util;
+
+import io.lettuce.core.cluster.SlotHash;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.example.couponcore.util.CouponRedisUtils.*;
+
+class CouponRedisUtilsTest {
+
+    @DisplayName("발급 요청 스크립트가 함께 사용하는 쿠폰별 키는 Redis Cluster에서 같은 slot에 저장된다.")
+    @Test
+    void hashTag_1() {
+        //given
+        long couponId = 12_345L;
+
+        //when
+        int slot = SlotHash.getSlot(getIssueRequestKey(couponId));
+
+        //then
+        Assertions.assertEquals(slot, SlotHash.getSlot(getIssueRequestQueueKey(couponId)));
+        Assertions.assertEquals(slot, SlotHash.getSlot(getIssueRequestBitmapKey(couponId)));
+        Assertions.assertEquals(slot, SlotHash.getSlot(getIssueRequestCountKey(couponId)));
+    }
+
+    @DisplayName("쿠폰이 다르면 쿠폰별 키가 여러 slot으로 나뉜다.")
+    @Test
+    void hashTag_2() {
+        //when
+        long slots = LongStream.rangeClosed(1, 100)
+                .map(couponId -> SlotHash.getSlot(getIssueRequestKey(couponId)))
+                .distinct()
+                .count();
+
+        //then
+        Assertions.assertTrue(slots > 1);
+    }
+
+}
@@ -0,0 +1,67 @@
+package org.example.couponcore.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+class TimeSortedIdGeneratorTest {
+
+    private static final long NODE_ID = 1L;
+
+    @BeforeEach
+    void setUp() {
+        TimeSortedIdGenerator.setNodeId(NODE_ID);
+    }
+
+    @DisplayName("ID는 만들어진 순서대로 증가한다.")
+    @Test
+    void nextId_1() {
+        //given
+        long previous = TimeSortedIdGenerator.nextId();
+
+        //when & then
+        for (int i = 0; i < 100_000; i++) {
+            long id = TimeSortedIdGenerator.nextId();
+            Assertions.assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @DisplayName("여러 스레드에서 동시에 만들어도 ID가 중복되지 않는다.")
+    @Test
+    void nextId_2() {
+        //given
+        int count = 200_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        //when
+        IntStream.range(0, count).parallel().forEach(i -> ids.add(TimeSortedIdGenerator.nextId()));
+
+        //then
+        Assertions.assertEquals(count, ids.size());
+    }
+
+    @DisplayName("node id가 범위를 벗어나면 예외를 반환한다.")
+    @Test
+    void setNodeId_1() {
+        //when & then
+        Assertions.assertThrows(IllegalArgumentException.class, () -> TimeSortedIdGenerator.setNodeId(TimeSortedIdGenerator.MAX_NODE_ID + 1));
+    }
+
+    @DisplayName("node id가 정해지지 않았다면 ID를 만들지 않는다.")
+    @Test
+    void nextId_3() {
+        //given
+        TimeSortedIdGenerator.clearNodeId();
+
+        //when & then
+        Assertions.assertThrows(IllegalStateException.class, TimeSortedIdGenerator::nextId);
+        TimeSortedIdGenerator.setNodeId(NODE_ID);
+    }
+
+}
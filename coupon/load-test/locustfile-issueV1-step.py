@@ -0,0 +1,34 @@
+import random
+from locust import task, FastHttpUser, LoadTestShape
+
+# 동기 발급(/v1/issue)의 발급 수량 증가 방식 비교용 부하 테스트
+# api 서버를 coupon.issue.lock-mode=pessimistic, conditional 로 각각 실행해서 같은 부하로 비교한다.
+# ex) java -jar coupon-api.jar --coupon.issue.lock-mode=conditional
+class CouponIssueV1(FastHttpUser):
+    connection_timeout = 10.0
+    network_timeout = 10.0
+
+    @task
+    def issue(self):
+        payload = {
+            "userId": random.randint(1, 100000000),
+            "couponId": 1 # 이미 테이블에 1이 저장되어있다고 가정
+        }
+        with self.rest("POST", "/v1/issue", json=payload):
+            pass
+
+
+# 동시 사용자 100 -> 500 -> 1000 명으로 단계별로 늘린다. (단계마다 60초)
+class StepLoadShape(LoadTestShape):
+    stages = [
+        {"duration": 60, "users": 100, "spawn_rate": 100},
+        {"duration": 120, "users": 500, "spawn_rate": 100},
+        {"duration": 180, "users": 1000, "spawn_rate": 100},
+    ]
+
+    def tick(self):
+        run_time = self.get_run_time()
+        for stage in self.stages:
+            if run_time < stage["duration"]:
+                return stage["users"], stage["spawn_rate"]
+        return None